@@ -0,0 +1,35 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.reader.Metric;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.MetricsWriter;
+
+/**
+ * Writer that only touches each metric so that the JIT cannot eliminate the work done before writing.
+ */
+public class CountingMetricsWriter implements MetricsWriter {
+	private long count;
+	private int hash;
+
+	@Override
+	public void open() {
+		// nothing to do here
+	}
+
+	@Override
+	public void close() {
+		// nothing to do here
+	}
+
+	@Override
+	public void write(final Metrics metrics) {
+		for (final Metric metric : metrics) {
+			hash += metric.getName().getName().hashCode();
+			count++;
+		}
+	}
+
+	public long getCount() {
+		return count + hash;
+	}
+}
@@ -0,0 +1,41 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.reader.AbstractMetricsReader;
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.Metrics;
+
+import java.util.List;
+
+/**
+ * In-memory bulk reader. Like the HTTP based readers it produces a new set of metrics each time it is opened.
+ */
+public class SyntheticBulkMetricsReader extends AbstractMetricsReader<SyntheticInputConfig> implements BulkMetricsReader {
+	private final List<MetricName> names;
+	private Metrics values;
+
+	public SyntheticBulkMetricsReader(final SyntheticInputConfig config) {
+		super(config);
+		names = SyntheticMetrics.names(config.getCount());
+	}
+
+	@Override
+	public void open() {
+		final long timestamp = System.currentTimeMillis();
+		final Metrics result = new Metrics(names.size());
+		for (final MetricName name : names) {
+			result.add(name, timestamp, SyntheticMetrics.value(((SyntheticMetricName) name).getIndex()));
+		}
+		values = result;
+	}
+
+	@Override
+	public void close() {
+		// nothing to do here
+	}
+
+	@Override
+	public Metrics readAllMetrics() {
+		return values;
+	}
+}
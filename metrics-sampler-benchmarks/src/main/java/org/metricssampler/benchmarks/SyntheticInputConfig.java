@@ -0,0 +1,24 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.config.InputConfig;
+
+import java.util.Map;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+public class SyntheticInputConfig extends InputConfig {
+	private final int count;
+
+	public SyntheticInputConfig(final String name, final Map<String, Object> variables, final int count) {
+		super(name, variables);
+		checkArgument(count > 0, "count must be greater than 0");
+		this.count = count;
+	}
+
+	/**
+	 * @return the number of metrics the input exposes
+	 */
+	public int getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,55 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.reader.AbstractMetricsReader;
+import org.metricssampler.reader.MetaDataMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.MetricsMetaData;
+
+/**
+ * In-memory meta-data reader. Like the JMX reader it keeps its meta-data until it is reset and reads the values one by one.
+ */
+public class SyntheticMetaDataMetricsReader extends AbstractMetricsReader<SyntheticInputConfig> implements MetaDataMetricsReader {
+	private final String[] values;
+	private MetricsMetaData metaData;
+
+	public SyntheticMetaDataMetricsReader(final SyntheticInputConfig config) {
+		super(config);
+		values = new String[config.getCount()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = SyntheticMetrics.value(i);
+		}
+	}
+
+	@Override
+	public void open() {
+		if (metaData == null) {
+			metaData = new MetricsMetaData(SyntheticMetrics.names(values.length));
+		}
+	}
+
+	@Override
+	public void close() {
+		// nothing to do here
+	}
+
+	@Override
+	public MetricsMetaData getMetaData() {
+		return metaData;
+	}
+
+	@Override
+	public MetricValue readMetric(final MetricName metric) {
+		return new MetricValue(System.currentTimeMillis(), values[((SyntheticMetricName) metric).getIndex()]);
+	}
+
+	@Override
+	public Iterable<MetricName> readNames() {
+		return metaData;
+	}
+
+	@Override
+	public void reset() {
+		metaData = null;
+	}
+}
@@ -0,0 +1,35 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.reader.MetricName;
+
+/**
+ * Metric name that knows its position in the synthetic input so that values can be looked up without hashing.
+ */
+public class SyntheticMetricName implements MetricName {
+	private final int index;
+	private final String name;
+
+	public SyntheticMetricName(final int index, final String name) {
+		this.index = index;
+		this.name = name;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getDescription() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + name + "]";
+	}
+}
@@ -0,0 +1,48 @@
+package org.metricssampler.benchmarks;
+
+import org.metricssampler.extensions.base.RegExpSelectorConfig;
+import org.metricssampler.reader.MetricName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates metric names and values that look like the JMX attributes of a weblogic managed server together with a selector
+ * group similar to the weblogic one from the example configuration.
+ */
+public final class SyntheticMetrics {
+	private static final String[] TYPES = {"JDBCOracleDataSourceRuntime", "ThreadPoolRuntime", "JTARuntime", "JRockitRuntime", "WebAppComponentRuntime"};
+	private static final String[] ATTRIBUTES = {"ActiveConnectionsCurrentCount", "CurrCapacity", "NumAvailable", "WaitingForConnectionCurrentCount",
+			"LeakedConnectionCount", "CompletedRequestCount", "QueueLength", "Throughput", "TransactionTotalCount", "Uptime"};
+
+	private SyntheticMetrics() {
+	}
+
+	public static String name(final int index) {
+		final int bean = index / ATTRIBUTES.length;
+		final String type = TYPES[bean % TYPES.length];
+		return "com.bea:Name=" + type + "_" + bean + ",ServerRuntime=server01,Type=" + type + "." + ATTRIBUTES[index % ATTRIBUTES.length];
+	}
+
+	public static String value(final int index) {
+		return String.valueOf(index % 1000);
+	}
+
+	public static List<MetricName> names(final int count) {
+		final List<MetricName> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(new SyntheticMetricName(i, name(i)));
+		}
+		return result;
+	}
+
+	public static List<RegExpSelectorConfig> selectors() {
+		return Arrays.asList(
+				new RegExpSelectorConfig("com\\.bea:Name=JDBCOracleDataSourceRuntime_(.+),ServerRuntime=.+,Type=JDBCOracleDataSourceRuntime\\.(ActiveConnectionsCurrentCount|CurrCapacity|NumAvailable|WaitingForConnection.*)", null, "${prefix}.jdbc.${name[1]}.${name[2]}"),
+				new RegExpSelectorConfig("com\\.bea:Name=ThreadPoolRuntime_(.+),ServerRuntime=.*,Type=ThreadPoolRuntime\\.(CompletedRequestCount|QueueLength|Throughput)", null, "${prefix}.threads.${name[1]}.${name[2]}"),
+				new RegExpSelectorConfig("com\\.bea:Name=JTARuntime_(.+),ServerRuntime=.*,Type=JTARuntime\\.(.*TotalCount)", null, "${prefix}.jta.${name[1]}.${name[2]}"),
+				new RegExpSelectorConfig("com\\.bea:Name=.*,ServerRuntime=.*,Type=JRockitRuntime\\.(Uptime)", null, "${prefix}.jrockit.${name[1]}")
+		);
+	}
+}
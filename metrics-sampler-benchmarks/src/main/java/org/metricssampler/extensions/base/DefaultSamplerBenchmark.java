@@ -0,0 +1,70 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.benchmarks.CountingMetricsWriter;
+import org.metricssampler.benchmarks.SyntheticBulkMetricsReader;
+import org.metricssampler.benchmarks.SyntheticInputConfig;
+import org.metricssampler.benchmarks.SyntheticMetaDataMetricsReader;
+import org.metricssampler.benchmarks.SyntheticMetrics;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SelectorConfig;
+import org.metricssampler.config.ValueTransformerConfig;
+import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.resources.SamplerStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One complete sampling cycle (read, select, transform, write) of a {@link DefaultSampler} with the weblogic-like selector group.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultSamplerBenchmark {
+	@Param({"1000", "10000", "100000"})
+	private int count;
+
+	@Param({"bulk", "metadata"})
+	private String input;
+
+	private DefaultSampler sampler;
+	private CountingMetricsWriter writer;
+
+	@Setup
+	public void setup() {
+		final Map<String, Object> variables = new HashMap<>();
+		variables.put("prefix", "wls.server01");
+		final SyntheticInputConfig inputConfig = new SyntheticInputConfig("synthetic", variables, count);
+		final MetricsReader reader = "bulk".equals(input) ? new SyntheticBulkMetricsReader(inputConfig) : new SyntheticMetaDataMetricsReader(inputConfig);
+		final List<SelectorConfig> selectorConfigs = new ArrayList<SelectorConfig>(SyntheticMetrics.selectors());
+		final DefaultSamplerConfig config = new DefaultSamplerConfig("synthetic", "samplers", 10, false, false, inputConfig,
+				Collections.<OutputConfig>emptyList(), selectorConfigs, Collections.<String, Object>emptyMap(), Collections.<String, Object>emptyMap(),
+				Collections.<ValueTransformerConfig>emptyList(), false, -1, -1);
+		sampler = new DefaultSampler(config, reader);
+		for (final SelectorConfig selectorConfig : selectorConfigs) {
+			sampler.addSelector(new RegExpMetricsSelector((RegExpSelectorConfig) selectorConfig));
+		}
+		writer = new CountingMetricsWriter();
+		sampler.addWriter(writer);
+		SamplerStats.init();
+	}
+
+	@TearDown
+	public void tearDown() {
+		SamplerStats.unset();
+	}
+
+	@Benchmark
+	public long sample() {
+		sampler.sample();
+		return writer.getCount();
+	}
+}
@@ -0,0 +1,71 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.benchmarks.SyntheticBulkMetricsReader;
+import org.metricssampler.benchmarks.SyntheticInputConfig;
+import org.metricssampler.benchmarks.SyntheticMetaDataMetricsReader;
+import org.metricssampler.benchmarks.SyntheticMetrics;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.selector.SelectedMetric;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection of metrics by a single {@link RegExpMetricsSelector} - the bulk path (select on every read), the meta-data path (select once,
+ * read the selected metrics each time) and the plain selection which happens after each reconnect or reset of a meta-data reader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegExpMetricsSelectorBenchmark {
+	@Param({"1000", "10000", "100000"})
+	private int count;
+
+	private RegExpMetricsSelector selector;
+	private SyntheticBulkMetricsReader bulkReader;
+	private SyntheticMetaDataMetricsReader metaDataReader;
+	private List<MetricName> names;
+
+	@Setup
+	public void setup() {
+		final Map<String, Object> variables = new HashMap<>();
+		variables.put("prefix", "wls.server01");
+		selector = new RegExpMetricsSelector(SyntheticMetrics.selectors().get(0));
+		selector.setVariables(variables);
+
+		final SyntheticInputConfig inputConfig = new SyntheticInputConfig("synthetic", Collections.<String, Object>emptyMap(), count);
+		bulkReader = new SyntheticBulkMetricsReader(inputConfig);
+		bulkReader.open();
+		metaDataReader = new SyntheticMetaDataMetricsReader(inputConfig);
+		metaDataReader.open();
+		names = new ArrayList<>(SyntheticMetrics.names(count));
+	}
+
+	@Benchmark
+	public Metrics readAllAndSelect() {
+		return selector.readMetrics(bulkReader);
+	}
+
+	@Benchmark
+	public Metrics readAlreadySelected() {
+		return selector.readMetrics(metaDataReader);
+	}
+
+	@Benchmark
+	public void selectMetric(final Blackhole blackhole) {
+		for (final MetricName name : names) {
+			final SelectedMetric result = selector.selectMetric(name);
+			blackhole.consume(result);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Spread;
+import org.metricssampler.config.ValueTransformerConfig;
+import org.metricssampler.resources.SamplerThreadPool;
+import org.metricssampler.sampler.Sampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the {@link DefaultSamplerThreadPool} and the {@link TimerWheelSamplerThreadPool} while thousands of samplers with an interval
+ * of one second are scheduled in them. The benchmark measures how fast other tasks (e.g. the parallel writes of the samplers) can be
+ * submitted and completed by several threads. With the executor each periodic sampler is put back into the same lock guarded queue the
+ * submitted tasks go through while the wheel keeps the samplers away from that queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SamplerThreadPoolBenchmark {
+	@Param({"1000", "5000"})
+	private int samplers;
+
+	@Param({"executor", "wheel"})
+	private String scheduler;
+
+	private SamplerThreadPool pool;
+	private final AtomicLong samplings = new AtomicLong();
+	private final Callable<Long> task = new Callable<Long>() {
+		@Override
+		public Long call() {
+			return samplings.get();
+		}
+	};
+
+	@Setup
+	public void setup() {
+		final ThreadPoolConfig config = new ThreadPoolConfig("benchmark", false, 8, -1, -1, Spread.RANDOM,
+				"wheel".equals(scheduler) ? Scheduler.WHEEL : Scheduler.EXECUTOR, ThreadPoolConfig.DEFAULT_TICK);
+		pool = "wheel".equals(scheduler) ? new TimerWheelSamplerThreadPool(config, false) : new DefaultSamplerThreadPool(config, false);
+		for (int i = 0; i < samplers; i++) {
+			pool.schedule(new CountingSampler("sampler" + i, samplings));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public long submit() throws InterruptedException, ExecutionException {
+		return pool.submit(task).get();
+	}
+
+	private static class CountingSampler implements Sampler {
+		private final SamplerConfig config;
+		private final AtomicLong samplings;
+
+		private CountingSampler(final String name, final AtomicLong samplings) {
+			this.config = new SamplerConfig(name, "benchmark", 1, false, false, Collections.<String, Object>emptyMap(),
+					Collections.<ValueTransformerConfig>emptyList()) {
+			};
+			this.samplings = samplings;
+		}
+
+		@Override
+		public void sample() {
+			samplings.incrementAndGet();
+		}
+
+		@Override
+		public boolean check() {
+			return true;
+		}
+
+		@Override
+		public Set<String> metrics() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public SamplerConfig getConfig() {
+			return config;
+		}
+
+		@Override
+		public void reset() {
+		}
+	}
+}
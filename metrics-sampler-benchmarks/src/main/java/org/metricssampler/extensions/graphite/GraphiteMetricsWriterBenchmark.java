@@ -0,0 +1,82 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.benchmarks.SyntheticMetrics;
+import org.metricssampler.reader.Metrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and sending of a batch of metrics by the {@link GraphiteMetricsWriter}. The writer is connected to a sink on the loopback
+ * interface that discards everything it receives so that no carbon server is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphiteMetricsWriterBenchmark {
+	@Param({"1000", "10000", "100000"})
+	private int count;
+
+	@Param({"PLAINTEXT", "PICKLE"})
+	private GraphiteOutputConfig.Protocol protocol;
+
+	private ServerSocket sink;
+	private Thread sinkThread;
+	private GraphiteMetricsWriter writer;
+	private Metrics metrics;
+
+	@Setup
+	public void setup() throws IOException {
+		sink = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		sinkThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "graphite-sink");
+		sinkThread.setDaemon(true);
+		sinkThread.start();
+
+		final long timestamp = System.currentTimeMillis();
+		metrics = new Metrics(count);
+		for (int i = 0; i < count; i++) {
+			metrics.add(SyntheticMetrics.name(i), timestamp, SyntheticMetrics.value(i));
+		}
+		writer = new GraphiteMetricsWriter(new GraphiteOutputConfig("graphite", false, sink.getInetAddress().getHostAddress(), sink.getLocalPort(), null,
+				"prefix.", protocol, GraphiteOutputConfig.DEFAULT_BATCH_SIZE, null, null));
+		writer.open();
+	}
+
+	private void drain() {
+		final byte[] buffer = new byte[64 * 1024];
+		while (!sink.isClosed()) {
+			try (Socket socket = sink.accept(); InputStream in = socket.getInputStream()) {
+				while (in.read(buffer) >= 0) {
+					// discard
+				}
+			} catch (final IOException e) {
+				// the sink was closed or the writer disconnected
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException, InterruptedException {
+		writer.close();
+		sink.close();
+		sinkThread.join(1000L);
+	}
+
+	@Benchmark
+	public void write() {
+		writer.write(metrics);
+	}
+}
@@ -0,0 +1,51 @@
+package org.metricssampler.selector;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replacement of variables in a typical "to-name" expression of a regexp selector. The context resembles the one the selector builds
+ * for each matched metric - the captured groups plus the sampler variables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableReplacerBenchmark {
+	private final VariableReplacer replacer = new VariableReplacer();
+	private Map<String, Object> context;
+
+	@Setup
+	public void setup() {
+		context = new HashMap<>();
+		context.put("name[0]", "com.bea:Name=JDBCOracleDataSourceRuntime_17,ServerRuntime=server01,Type=JDBCOracleDataSourceRuntime.CurrCapacity");
+		context.put("name[1]", "17");
+		context.put("name[2]", "CurrCapacity");
+		context.put("prefix", "wls.server01");
+		context.put("sampler.name", "wls01");
+		context.put("sampler.interval", 10);
+		context.put("input.name", "wls01");
+		context.put("input.url", "service:jmx:t3://weblogic1.metrics-sampler.org:6001/jndi/weblogic.management.mbeanservers.runtime");
+		context.put("input.host", "weblogic1.metrics-sampler.org");
+		context.put("input.hostname", "weblogic1");
+		context.put("input.domain", "metrics-sampler.org");
+		final Map<String, String> dictionary = new HashMap<>();
+		dictionary.put("17", "orders");
+		context.put("datasources", dictionary);
+	}
+
+	@Benchmark
+	public String replaceVariables() {
+		return replacer.replaceVariables("${prefix}.jdbc.${name[1]}.${name[2]}", context);
+	}
+
+	@Benchmark
+	public String replaceVariablesWithFunction() {
+		return replacer.replaceVariables("${prefix}.jdbc.${fn:map(datasources,name[1])}.${name[2]}", context);
+	}
+}
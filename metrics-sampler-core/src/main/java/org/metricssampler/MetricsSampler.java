@@ -53,6 +53,7 @@ public class MetricsSampler {
 		commander.addCommand(new TestCommand());
 		commander.addCommand(new MetricsCommand());
 		commander.addCommand(new CheckConfigCommand());
+		commander.addCommand(new DumpCommand());
 
 		fixResourceBundleBug(commander, bundle);
 		return result;
@@ -0,0 +1,160 @@
+package org.metricssampler.cmd;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.columnar.ColumnarFileReader;
+import org.metricssampler.writer.columnar.ColumnarFileWriter;
+import org.metricssampler.writer.columnar.ColumnarFormatException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Dump or query the files written by the columnar file output.
+ */
+@Parameters(commandNames="dump", commandDescriptionKey="help.dump.command")
+public class DumpCommand extends AbstractCommand {
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	@Parameter(names="-f", descriptionKey="help.param.dump.files", required=true)
+	protected List<String> files = new LinkedList<String>();
+
+	@Parameter(names="-n", descriptionKey="help.param.dump.names")
+	protected String names;
+
+	@Parameter(names="-from", descriptionKey="help.param.dump.from")
+	protected String from;
+
+	@Parameter(names="-to", descriptionKey="help.param.dump.to")
+	protected String to;
+
+	@Parameter(names="-s", descriptionKey="help.param.dump.summary")
+	protected boolean summary = false;
+
+	private final DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+	private final StringBuilder line = new StringBuilder(128);
+	private PrintStream out = System.out;
+
+	@Override
+	public void run() {
+		final Pattern pattern = names != null ? Pattern.compile(names) : null;
+		final long fromTimestamp;
+		final long toTimestamp;
+		try {
+			fromTimestamp = parseTimestamp(from, Long.MIN_VALUE);
+			toTimestamp = parseTimestamp(to, Long.MAX_VALUE);
+		} catch (final ParameterException e) {
+			System.err.println(e.getMessage());
+			System.exit(2);
+			return;
+		}
+		boolean failed = false;
+		for (final File file : expandFiles()) {
+			try {
+				dump(file, pattern, fromTimestamp, toTimestamp);
+			} catch (final IOException | ColumnarFormatException e) {
+				System.err.println("Failed to read " + file + ": " + e.getMessage());
+				failed = true;
+			}
+		}
+		if (failed) {
+			System.exit(1);
+		}
+	}
+
+	private long parseTimestamp(final String value, final long defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return new SimpleDateFormat(DATE_FORMAT).parse(value).getTime();
+		} catch (final ParseException e) {
+			throw new ParameterException("Invalid date \"" + value + "\". Use the format " + DATE_FORMAT);
+		}
+	}
+
+	/**
+	 * @return the given files with directories replaced by the columnar files in them (sorted by name, i.e. chronologically)
+	 */
+	protected List<File> expandFiles() {
+		final List<File> result = new ArrayList<>();
+		for (final String name : files) {
+			final File file = new File(name);
+			if (file.isDirectory()) {
+				final File[] children = file.listFiles((dir, child) -> child.endsWith(ColumnarFileWriter.FILE_SUFFIX));
+				if (children != null) {
+					Arrays.sort(children);
+					result.addAll(Arrays.asList(children));
+				}
+			} else {
+				result.add(file);
+			}
+		}
+		return result;
+	}
+
+	protected void dump(final File file, final Pattern pattern, final long fromTimestamp, final long toTimestamp) throws IOException {
+		long blocks = 0;
+		long metrics = 0;
+		long matching = 0;
+		long minTimestamp = Long.MAX_VALUE;
+		long maxTimestamp = Long.MIN_VALUE;
+		final boolean truncated;
+		try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+			for (Metrics block = reader.next(); block != null; block = reader.next()) {
+				blocks++;
+				metrics += block.size();
+				for (int i = 0; i < block.size(); i++) {
+					final long timestamp = block.getTimestamp(i);
+					if (timestamp < fromTimestamp || timestamp > toTimestamp) {
+						continue;
+					}
+					if (pattern != null && !pattern.matcher(block.getName(i)).matches()) {
+						continue;
+					}
+					matching++;
+					minTimestamp = Math.min(minTimestamp, timestamp);
+					maxTimestamp = Math.max(maxTimestamp, timestamp);
+					if (!summary) {
+						print(block, i);
+					}
+				}
+			}
+			truncated = reader.isTruncated();
+		}
+		if (summary) {
+			out.println(file + ": " + blocks + " blocks, " + metrics + " metrics, " + matching + " matching"
+					+ (matching > 0 ? " from " + format(minTimestamp) + " to " + format(maxTimestamp) : "")
+					+ (truncated ? ", last block truncated" : ""));
+		} else if (truncated) {
+			System.err.println("Ignored the truncated last block of " + file);
+		}
+	}
+
+	private void print(final Metrics metrics, final int index) {
+		line.setLength(0);
+		line.append(format(metrics.getTimestamp(index))).append(' ').append(metrics.getName(index)).append('=');
+		metrics.appendValue(index, line);
+		out.println(line);
+	}
+
+	private String format(final long timestamp) {
+		return dateFormat.format(new Date(timestamp));
+	}
+
+	protected void setOut(final PrintStream out) {
+		this.out = out;
+	}
+}
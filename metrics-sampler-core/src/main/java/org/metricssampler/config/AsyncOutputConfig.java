@@ -0,0 +1,74 @@
+package org.metricssampler.config;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Configuration of the queue of an output which is written asynchronously, i.e. not by the sampler threads.
+ */
+public class AsyncOutputConfig {
+	/**
+	 * What to do if the queue of an output is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Discard the oldest queued metrics to make room for the new ones
+		 */
+		DROP_OLDEST,
+		/**
+		 * Discard the new metrics
+		 */
+		DROP_NEWEST,
+		/**
+		 * Block the sampler until there is room in the queue or the block timeout elapses. The new metrics are discarded on timeout.
+		 */
+		BLOCK
+	}
+
+	private final int queueSize;
+	private final OverflowPolicy overflowPolicy;
+	private final int blockTimeout;
+	private final int maxBatchSize;
+
+	public AsyncOutputConfig(final int queueSize, final OverflowPolicy overflowPolicy, final int blockTimeout, final int maxBatchSize) {
+		checkArgument(queueSize > 0, "queue size must be greater than zero");
+		checkArgumentNotNull(overflowPolicy, "overflowPolicy");
+		checkArgument(blockTimeout >= 0, "block timeout must not be negative");
+		checkArgument(maxBatchSize > 0, "max batch size must be greater than zero");
+		this.queueSize = queueSize;
+		this.overflowPolicy = overflowPolicy;
+		this.blockTimeout = blockTimeout;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * @return the maximal number of samplings waiting to be written
+	 */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @return the time in milliseconds a sampler waits for room in the queue if the overflow policy is {@link OverflowPolicy#BLOCK}
+	 */
+	public int getBlockTimeout() {
+		return blockTimeout;
+	}
+
+	/**
+	 * @return the maximal number of metrics the queued samplings are coalesced to before they are written in one go
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[queue-size=" + queueSize + ", overflow=" + overflowPolicy + ", block-timeout=" + blockTimeout
+				+ ", max-batch-size=" + maxBatchSize + "]";
+	}
+}
@@ -24,4 +24,12 @@ public abstract class InputConfig extends NamedConfig {
 	public Map<String, Object> getVariables() {
 		return variables;
 	}
+
+	/**
+	 * @return the name of the thread pool the reader submits tasks to and waits for while sampling or {@code null} if it does not use
+	 *         one. It must not be the pool running the sampler as a saturated pool would deadlock.
+	 */
+	public String getThreadPool() {
+		return null;
+	}
 }
@@ -6,10 +6,18 @@ package org.metricssampler.config;
  */
 public abstract class OutputConfig extends NamedConfig {
 	private final boolean default_;
+	private final AsyncOutputConfig async;
+	private final SpoolOutputConfig spool;
 	
 	public OutputConfig(final String name, final boolean default_) {
+		this(name, default_, null, null);
+	}
+
+	public OutputConfig(final String name, final boolean default_, final AsyncOutputConfig async, final SpoolOutputConfig spool) {
 		super(name);
 		this.default_ = default_;
+		this.async = async;
+		this.spool = spool;
 	}
 	
 	/**
@@ -18,4 +26,19 @@ public abstract class OutputConfig extends NamedConfig {
 	public boolean isDefault() {
 		return default_;
 	}
+
+	/**
+	 * @return the configuration of the queue if the output should be written asynchronously or {@code null} if the samplers should
+	 *         write the output themselves
+	 */
+	public AsyncOutputConfig getAsync() {
+		return async;
+	}
+
+	/**
+	 * @return the configuration of the disk spool for metrics that could not be written or {@code null} if such metrics are lost
+	 */
+	public SpoolOutputConfig getSpool() {
+		return spool;
+	}
 }
@@ -12,25 +12,62 @@ import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
  * Base class for sampler configurations.
  */
 public abstract class SamplerConfig extends NamedConfig {
+	/**
+	 * What to do with the samplings that became due while the previous sampling was still running.
+	 */
+	public enum OverrunPolicy {
+		/**
+		 * Run all of them back to back as soon as the previous sampling finishes
+		 */
+		BURST,
+		/**
+		 * Skip all of them and wait for the next sampling that is due after the previous one finished
+		 */
+		SKIP,
+		/**
+		 * Run only the most recent one right after the previous sampling finishes and skip the rest
+		 */
+		CATCH_UP,
+		/**
+		 * Stretch the interval to the smallest multiple of the configured interval that is not shorter than the duration of the
+		 * previous sampling and skip the samplings in between. The interval shrinks again by one interval per sampling as soon as the
+		 * samplings get faster.
+		 */
+		STRETCH
+	}
+
 	private final String pool;
 	private final int interval;
 	private final boolean ignored;
 	private final boolean disabled;
 	private final Map<String, Object> globalVariables;
 	private final List<ValueTransformerConfig> valueTransformers;
+	private final OverrunPolicy overrunPolicy;
+	private final int timeout;
 	
 	public SamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers) {
+		this(name, pool, interval, ignored, disabled, globalVariables, valueTransformers, OverrunPolicy.BURST, -1);
+	}
+
+	/**
+	 * @param timeout the maximal number of seconds a sampling may take or a value &lt;= 0 for no limit
+	 */
+	public SamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers,
+			final OverrunPolicy overrunPolicy, final int timeout) {
 		super(name);
 		checkArgumentNotNull(pool, "pool");
 		checkArgument(interval > 0, "interval must be greater than 0 seconds");
 		checkArgumentNotNull(globalVariables, "globalVariables");
 		checkArgumentNotNull(valueTransformers, "valueTransformers");
+		checkArgumentNotNull(overrunPolicy, "overrunPolicy");
 		this.pool = pool;
 		this.interval = interval;
 		this.ignored = ignored;
 		this.disabled = disabled;
 		this.globalVariables = unmodifiableMap(globalVariables);
 		this.valueTransformers = unmodifiableList(valueTransformers);
+		this.overrunPolicy = overrunPolicy;
+		this.timeout = timeout;
 	}
 
 	/**
@@ -68,4 +105,19 @@ public abstract class SamplerConfig extends NamedConfig {
 	public String getPool() {
 		return pool;
 	}
+
+	/**
+	 * @return what to do with the samplings that became due while the previous sampling was still running
+	 */
+	public OverrunPolicy getOverrunPolicy() {
+		return overrunPolicy;
+	}
+
+	/**
+	 * @return the maximal number of seconds a sampling may take or a value &lt;= 0 for no limit. A sampling that takes longer is
+	 *         interrupted and the sampler is reset so that blocked reads on its connections fail.
+	 */
+	public int getTimeout() {
+		return timeout;
+	}
 }
@@ -0,0 +1,93 @@
+package org.metricssampler.config;
+
+import java.io.File;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Configuration of the disk spool of an output. Metrics that could not be written are appended to memory-mapped segment files and
+ * replayed at a limited rate once the output recovers.
+ */
+public class SpoolOutputConfig {
+	/**
+	 * The smallest supported segment size in bytes.
+	 */
+	public static final int MIN_SEGMENT_SIZE = 4096;
+
+	private final File directory;
+	private final int segmentSize;
+	private final long maxSize;
+	private final int maxAge;
+	private final int replayRate;
+	private final int maxBackoff;
+
+	/**
+	 * @param directory the directory of the segment files
+	 * @param segmentSize the size of each segment file in bytes
+	 * @param maxSize the maximal total size of the segment files in bytes. The oldest segments are dropped if it is exceeded.
+	 * @param maxAge the maximal age of spooled metrics in seconds. Older metrics are dropped instead of being replayed.
+	 * @param replayRate the maximal number of metrics replayed per second
+	 * @param maxBackoff the maximal time in seconds between two replay attempts while the output is still down
+	 */
+	public SpoolOutputConfig(final File directory, final int segmentSize, final long maxSize, final int maxAge, final int replayRate,
+			final int maxBackoff) {
+		checkArgumentNotNull(directory, "directory");
+		checkArgument(segmentSize >= MIN_SEGMENT_SIZE, "segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+		checkArgument(maxSize >= segmentSize, "max size must not be smaller than the segment size");
+		checkArgument(maxAge > 0, "max age must be greater than zero");
+		checkArgument(replayRate > 0, "replay rate must be greater than zero");
+		checkArgument(maxBackoff > 0, "max backoff must be greater than zero");
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSize = maxSize;
+		this.maxAge = maxAge;
+		this.replayRate = replayRate;
+		this.maxBackoff = maxBackoff;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return the size of each segment file in bytes
+	 */
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	/**
+	 * @return the maximal total size of the segment files in bytes
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the maximal age of spooled metrics in seconds
+	 */
+	public int getMaxAge() {
+		return maxAge;
+	}
+
+	/**
+	 * @return the maximal number of metrics replayed per second
+	 */
+	public int getReplayRate() {
+		return replayRate;
+	}
+
+	/**
+	 * @return the maximal time in seconds between two replay attempts while the output is still down
+	 */
+	public int getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[directory=" + directory + ", segment-size=" + segmentSize + ", max-size=" + maxSize + ", max-age="
+				+ maxAge + ", replay-rate=" + replayRate + ", max-backoff=" + maxBackoff + "]";
+	}
+}
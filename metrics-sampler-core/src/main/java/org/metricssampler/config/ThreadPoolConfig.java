@@ -1,16 +1,80 @@
 package org.metricssampler.config;
 
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
 public class ThreadPoolConfig extends SharedResourceConfig {
+	/**
+	 * How the first samplings of the samplers scheduled in the pool are spread over their interval.
+	 */
+	public enum Spread {
+		/**
+		 * Start all samplers immediately so that samplers with the same interval always run at the same time
+		 */
+		NONE,
+		/**
+		 * Delay the first sampling by an offset derived from the hash of the sampler name so that each sampler keeps the same phase
+		 * across restarts
+		 */
+		HASH,
+		/**
+		 * Delay the first sampling by a random offset
+		 */
+		RANDOM
+	}
+
+	/**
+	 * How the samplers are scheduled.
+	 */
+	public enum Scheduler {
+		/**
+		 * Use a {@link java.util.concurrent.ScheduledThreadPoolExecutor}
+		 */
+		EXECUTOR,
+		/**
+		 * Use a hashed timing wheel driven by a single thread which hands the due samplers over to a separate pool of worker threads.
+		 * This scales better to thousands of samplers but the samplings may start up to one tick late.
+		 */
+		WHEEL,
+		/**
+		 * Like {@link #WHEEL} but run each sampling on its own virtual thread with at most {@link #getCoreSize()} samplings running at the
+		 * same time. This needs Java 21 or later and falls back to {@link #WHEEL} otherwise.
+		 */
+		VIRTUAL
+	}
+
+	public static final int DEFAULT_TICK = 100;
+
 	private final int coreSize;
 	private final int maxSize;
 	private final int keepAliveTime;
-
+	private final Spread spread;
+	private final Scheduler scheduler;
+	private final int tick;
 
 	public ThreadPoolConfig(final String name, final boolean ignored, final int coreSize, final int maxSize, final int keepAliveTime) {
+		this(name, ignored, coreSize, maxSize, keepAliveTime, Spread.NONE);
+	}
+
+	public ThreadPoolConfig(final String name, final boolean ignored, final int coreSize, final int maxSize, final int keepAliveTime, final Spread spread) {
+		this(name, ignored, coreSize, maxSize, keepAliveTime, spread, Scheduler.EXECUTOR, DEFAULT_TICK);
+	}
+
+	/**
+	 * @param tick the duration of a tick of the timing wheel in milliseconds (only used by {@link Scheduler#WHEEL})
+	 */
+	public ThreadPoolConfig(final String name, final boolean ignored, final int coreSize, final int maxSize, final int keepAliveTime, final Spread spread,
+			final Scheduler scheduler, final int tick) {
 		super(name, ignored);
+		checkArgumentNotNull(spread, "spread");
+		checkArgumentNotNull(scheduler, "scheduler");
+		checkArgument(tick > 0, "tick must be greater than zero");
 		this.coreSize = coreSize;
 		this.maxSize = maxSize;
 		this.keepAliveTime = keepAliveTime;
+		this.spread = spread;
+		this.scheduler = scheduler;
+		this.tick = tick;
 	}
 
 	/**
@@ -36,4 +100,26 @@ public class ThreadPoolConfig extends SharedResourceConfig {
 	public int getKeepAliveTime() {
 		return keepAliveTime;
 	}
+
+	/**
+	 * @return how the first samplings are spread over the interval of the samplers. The samplers keep their phase afterwards as they
+	 *         are scheduled at a fixed rate.
+	 */
+	public Spread getSpread() {
+		return spread;
+	}
+
+	/**
+	 * @return how the samplers are scheduled
+	 */
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @return the duration of a tick of the timing wheel in milliseconds
+	 */
+	public int getTick() {
+		return tick;
+	}
 }
@@ -0,0 +1,96 @@
+package org.metricssampler.config.loader.xbeans;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.config.AsyncOutputConfig.OverflowPolicy;
+import org.metricssampler.config.ConfigurationException;
+
+import java.util.Locale;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNegativeOptional;
+
+@XStreamAlias("async")
+public class AsyncOutputXBean extends XBean {
+	private static final int DEFAULT_QUEUE_SIZE = 1000;
+	private static final int DEFAULT_BLOCK_TIMEOUT = 1000;
+	private static final int DEFAULT_MAX_BATCH_SIZE = 100000;
+
+	@XStreamAlias("queue-size")
+	@XStreamAsAttribute
+	private Integer queueSize;
+
+	@XStreamAsAttribute
+	private String overflow;
+
+	@XStreamAlias("block-timeout")
+	@XStreamAsAttribute
+	private Integer blockTimeout;
+
+	@XStreamAlias("max-batch-size")
+	@XStreamAsAttribute
+	private Integer maxBatchSize;
+
+	public Integer getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(final Integer queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public String getOverflow() {
+		return overflow;
+	}
+
+	public void setOverflow(final String overflow) {
+		this.overflow = overflow;
+	}
+
+	public Integer getBlockTimeout() {
+		return blockTimeout;
+	}
+
+	public void setBlockTimeout(final Integer blockTimeout) {
+		this.blockTimeout = blockTimeout;
+	}
+
+	public Integer getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(final Integer maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	protected void validate() {
+		if (queueSize != null) {
+			greaterThanZero(this, "queue-size", queueSize);
+		}
+		notNegativeOptional(this, "block-timeout", blockTimeout);
+		if (maxBatchSize != null) {
+			greaterThanZero(this, "max-batch-size", maxBatchSize);
+		}
+		parseOverflowPolicy();
+	}
+
+	private OverflowPolicy parseOverflowPolicy() {
+		if (overflow == null) {
+			return OverflowPolicy.DROP_OLDEST;
+		}
+		try {
+			return OverflowPolicy.valueOf(overflow.trim().replace('-', '_').toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"overflow\" of async must be one of drop-oldest, drop-newest or block but was \"" + overflow + "\"");
+		}
+	}
+
+	public AsyncOutputConfig toConfig() {
+		validate();
+		return new AsyncOutputConfig(queueSize != null ? queueSize : DEFAULT_QUEUE_SIZE,
+				parseOverflowPolicy(),
+				blockTimeout != null ? blockTimeout : DEFAULT_BLOCK_TIMEOUT,
+				maxBatchSize != null ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE);
+	}
+}
@@ -2,7 +2,9 @@ package org.metricssampler.config.loader.xbeans;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.AsyncOutputConfig;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
 
 /**
  * Base class for output XBeans.
@@ -11,6 +13,10 @@ public abstract class OutputXBean extends NamedXBean {
 	@XStreamAlias("default")
 	@XStreamAsAttribute
 	private Boolean default_;
+
+	private AsyncOutputXBean async;
+
+	private SpoolOutputXBean spool;
 	
 	public Boolean getDefault_() {
 		return default_;
@@ -24,5 +30,35 @@ public abstract class OutputXBean extends NamedXBean {
 		return default_ != null ? default_ : false;
 	}
 	
+	public AsyncOutputXBean getAsync() {
+		return async;
+	}
+
+	public void setAsync(final AsyncOutputXBean async) {
+		this.async = async;
+	}
+
+	public SpoolOutputXBean getSpool() {
+		return spool;
+	}
+
+	public void setSpool(final SpoolOutputXBean spool) {
+		this.spool = spool;
+	}
+
+	/**
+	 * @return the configuration of the asynchronous queue or {@code null} if the output is written synchronously
+	 */
+	protected AsyncOutputConfig getAsyncConfig() {
+		return async != null ? async.toConfig() : null;
+	}
+
+	/**
+	 * @return the configuration of the disk spool or {@code null} if metrics that could not be written are lost
+	 */
+	protected SpoolOutputConfig getSpoolConfig() {
+		return spool != null ? spool.toConfig(getName()) : null;
+	}
+
 	public abstract OutputConfig toConfig();
 }
@@ -2,8 +2,13 @@ package org.metricssampler.config.loader.xbeans;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.SharedResourceConfig;
 import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Spread;
+
+import java.util.Locale;
 
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
 
@@ -19,6 +24,15 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 	@XStreamAsAttribute
 	@XStreamAlias("max-size")
 	private Integer maxSize;
+
+	@XStreamAsAttribute
+	private String spread;
+
+	@XStreamAsAttribute
+	private String scheduler;
+
+	@XStreamAsAttribute
+	private Integer tick;
 	
 	public Integer getSize() {
 		return size;
@@ -44,10 +58,61 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 		this.maxSize = maxSize;
 	}
 
+	public String getSpread() {
+		return spread;
+	}
+
+	public void setSpread(final String spread) {
+		this.spread = spread;
+	}
+
+	public String getScheduler() {
+		return scheduler;
+	}
+
+	public void setScheduler(final String scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	public Integer getTick() {
+		return tick;
+	}
+
+	public void setTick(final Integer tick) {
+		this.tick = tick;
+	}
+
 	@Override
 	protected void validate() {
 		super.validate();
 		greaterThanZero(this, "size", getSize());
+		if (tick != null) {
+			greaterThanZero(this, "tick", tick);
+		}
+		parseSpread();
+		parseScheduler();
+	}
+
+	private Scheduler parseScheduler() {
+		if (scheduler == null) {
+			return Scheduler.EXECUTOR;
+		}
+		try {
+			return Scheduler.valueOf(scheduler.trim().toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"scheduler\" of thread-pool must be one of executor, wheel or virtual but was \"" + scheduler + "\"");
+		}
+	}
+
+	private Spread parseSpread() {
+		if (spread == null) {
+			return Spread.NONE;
+		}
+		try {
+			return Spread.valueOf(spread.trim().toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"spread\" of thread-pool must be one of none, hash or random but was \"" + spread + "\"");
+		}
 	}
 
 	@Override
@@ -55,7 +120,8 @@ public class SamplerThreadPoolXBean extends SharedResourceXBean {
 		final int coreSize = getSize();
 		final int maxSize = getMaxSize() != null ? getMaxSize() : -1;
 		final int keepAliveTime = getKeepAliveTime() != null ? getKeepAliveTime() : -1;
-		return new ThreadPoolConfig(getName(), isIgnored(), coreSize, maxSize, keepAliveTime);
+		final int tick = getTick() != null ? getTick() : ThreadPoolConfig.DEFAULT_TICK;
+		return new ThreadPoolConfig(getName(), isIgnored(), coreSize, maxSize, keepAliveTime, parseSpread(), parseScheduler(), tick);
 	}
 	
 }
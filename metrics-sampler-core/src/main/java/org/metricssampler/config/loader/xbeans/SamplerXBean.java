@@ -1,12 +1,15 @@
 package org.metricssampler.config.loader.xbeans;
 
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.config.OutputConfig;
 import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.SamplerConfig.OverrunPolicy;
 import org.metricssampler.config.SelectorConfig;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
@@ -24,6 +27,12 @@ public abstract class SamplerXBean extends TemplatableXBean {
 	@XStreamAsAttribute
 	private Boolean disabled;
 
+	@XStreamAsAttribute
+	private String overrun;
+
+	@XStreamAsAttribute
+	private Integer timeout;
+
 	public abstract SamplerConfig toConfig(Map<String, InputConfig> inputs, Map<String, OutputConfig> outputs, Map<String, List<SelectorConfig>> selectorGroups, Map<String, Object> globalVariables);
 
 	public Integer getInterval() {
@@ -50,11 +59,42 @@ public abstract class SamplerXBean extends TemplatableXBean {
 		this.disabled = disabled;
 	}
 
+	public String getOverrun() {
+		return overrun;
+	}
+
+	public void setOverrun(final String overrun) {
+		this.overrun = overrun;
+	}
+
+	public Integer getTimeout() {
+		return timeout;
+	}
+
+	public void setTimeout(final Integer timeout) {
+		this.timeout = timeout;
+	}
+
 	@Override
 	protected void validate() {
 		super.validate();
 		if (isInstantiatable()) {
 			greaterThanZero(this, "interval", getInterval());
+			parseOverrunPolicy();
+			if (timeout != null) {
+				greaterThanZero(this, "timeout", timeout);
+			}
+		}
+	}
+
+	protected OverrunPolicy parseOverrunPolicy() {
+		if (overrun == null) {
+			return OverrunPolicy.BURST;
+		}
+		try {
+			return OverrunPolicy.valueOf(overrun.trim().replace('-', '_').toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"overrun\" of sampler must be one of burst, skip, catch-up or stretch but was \"" + overrun + "\"");
 		}
 	}
 }
@@ -0,0 +1,130 @@
+package org.metricssampler.config.loader.xbeans;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.SpoolOutputConfig;
+
+import java.io.File;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+
+@XStreamAlias("spool")
+public class SpoolOutputXBean extends XBean {
+	private static final int BYTES_PER_MB = 1024 * 1024;
+	private static final int DEFAULT_SEGMENT_SIZE = 16;
+	private static final int MAX_SEGMENT_SIZE = 1024;
+	private static final int DEFAULT_MAX_SIZE = 1024;
+	private static final int DEFAULT_MAX_AGE = 24 * 60 * 60;
+	private static final int DEFAULT_REPLAY_RATE = 10000;
+	private static final int DEFAULT_MAX_BACKOFF = 60;
+
+	@XStreamAsAttribute
+	private String directory;
+
+	@XStreamAlias("segment-size")
+	@XStreamAsAttribute
+	private Integer segmentSize;
+
+	@XStreamAlias("max-size")
+	@XStreamAsAttribute
+	private Integer maxSize;
+
+	@XStreamAlias("max-age")
+	@XStreamAsAttribute
+	private Integer maxAge;
+
+	@XStreamAlias("replay-rate")
+	@XStreamAsAttribute
+	private Integer replayRate;
+
+	@XStreamAlias("max-backoff")
+	@XStreamAsAttribute
+	private Integer maxBackoff;
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(final String directory) {
+		this.directory = directory;
+	}
+
+	public Integer getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(final Integer segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public Integer getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(final Integer maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public Integer getMaxAge() {
+		return maxAge;
+	}
+
+	public void setMaxAge(final Integer maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	public Integer getReplayRate() {
+		return replayRate;
+	}
+
+	public void setReplayRate(final Integer replayRate) {
+		this.replayRate = replayRate;
+	}
+
+	public Integer getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public void setMaxBackoff(final Integer maxBackoff) {
+		this.maxBackoff = maxBackoff;
+	}
+
+	protected void validate() {
+		notEmpty(this, "directory", directory);
+		if (segmentSize != null) {
+			greaterThanZero(this, "segment-size", segmentSize);
+			if (segmentSize > MAX_SEGMENT_SIZE) {
+				throw new ConfigurationException("Attribute \"segment-size\" of spool must not be greater than " + MAX_SEGMENT_SIZE + " (MB) but was " + segmentSize);
+			}
+		}
+		if (maxSize != null) {
+			greaterThanZero(this, "max-size", maxSize);
+		}
+		if (maxAge != null) {
+			greaterThanZero(this, "max-age", maxAge);
+		}
+		if (replayRate != null) {
+			greaterThanZero(this, "replay-rate", replayRate);
+		}
+		if (maxBackoff != null) {
+			greaterThanZero(this, "max-backoff", maxBackoff);
+		}
+	}
+
+	/**
+	 * @param outputName the name of the output. Each output spools to its own subdirectory.
+	 */
+	public SpoolOutputConfig toConfig(final String outputName) {
+		validate();
+		final int segmentSizeMb = segmentSize != null ? segmentSize : DEFAULT_SEGMENT_SIZE;
+		final int maxSizeMb = maxSize != null ? maxSize : Math.max(DEFAULT_MAX_SIZE, segmentSizeMb);
+		return new SpoolOutputConfig(new File(directory, outputName),
+				segmentSizeMb * BYTES_PER_MB,
+				(long) maxSizeMb * BYTES_PER_MB,
+				maxAge != null ? maxAge : DEFAULT_MAX_AGE,
+				replayRate != null ? replayRate : DEFAULT_REPLAY_RATE,
+				maxBackoff != null ? maxBackoff : DEFAULT_MAX_BACKOFF);
+	}
+}
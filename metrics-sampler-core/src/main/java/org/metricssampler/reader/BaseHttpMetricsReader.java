@@ -40,6 +40,10 @@ public abstract class BaseHttpMetricsReader<T extends BaseHttpInputConfig> exten
     protected final HttpContext httpContext;
     protected Metrics values;
     protected final String userAgent;
+    /**
+     * The request currently executed so that {@link #abort()} can abort it from another thread.
+     */
+    private volatile HttpUriRequest currentRequest;
 
     public BaseHttpMetricsReader(final T config) {
         super(config);
@@ -161,8 +165,13 @@ public abstract class BaseHttpMetricsReader<T extends BaseHttpInputConfig> exten
     }
 
     protected void fetchOverHttp(HttpClient client, HttpContext context, HttpUriRequest request) throws Exception {
-        final HttpResponse response = client.execute(request, context);
-        processResponse(request, response);
+        currentRequest = request;
+        try {
+            final HttpResponse response = client.execute(request, context);
+            processResponse(request, response);
+        } finally {
+            currentRequest = null;
+        }
     }
 
     protected abstract void processResponse(HttpUriRequest request, HttpResponse response) throws Exception;
@@ -184,6 +193,14 @@ public abstract class BaseHttpMetricsReader<T extends BaseHttpInputConfig> exten
         // the connection is closed already by open()
     }
 
+    @Override
+    public void abort() {
+        final HttpUriRequest request = currentRequest;
+        if (request != null) {
+            request.abort();
+        }
+    }
+
     @Override
     public Metrics readAllMetrics() throws MetricReadException {
         return values;
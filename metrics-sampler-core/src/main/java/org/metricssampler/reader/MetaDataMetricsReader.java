@@ -1,9 +1,22 @@
 package org.metricssampler.reader;
 
+import java.util.Collection;
+
 /**
  * A reader that can only read one single metric from an input at a time. 
  */
 public interface MetaDataMetricsReader extends MetricsReader {
 	MetricsMetaData getMetaData() throws MetricReadException;
 	MetricValue readMetric(MetricName metric) throws MetricReadException;
+
+	/**
+	 * Announce the metrics that are about to be read using {@link #readMetric(MetricName)} so that the reader can fetch their values in
+	 * fewer (batched) requests. Readers that do not support that ignore the call. Failures are not reported here but by the subsequent
+	 * calls to {@link #readMetric(MetricName)}.
+	 *
+	 * @param metrics the metrics that will be read
+	 */
+	default void prefetch(final Collection<MetricName> metrics) {
+		// nothing to do by default
+	}
 }
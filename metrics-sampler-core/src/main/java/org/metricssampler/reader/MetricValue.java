@@ -19,6 +19,55 @@ public class MetricValue {
 		return value;
 	}
 
+	/**
+	 * @return {@code true} if the value is a number
+	 */
+	public boolean isNumeric() {
+		return value instanceof Number;
+	}
+
+	/**
+	 * Parse a textual value read from an input once so that transformers and writers can work with numbers. Only texts that are the
+	 * canonical representation of a {@link Long} or {@link Double} are converted so that the value is written exactly as it was read.
+	 *
+	 * @param text the value as read from the input
+	 * @return a {@link Long} or {@link Double} if the text is the canonical representation of one, the text otherwise
+	 */
+	public static Object parse(final String text) {
+		if (text == null || text.isEmpty() || !looksNumeric(text)) {
+			return text;
+		}
+		try {
+			if (isIntegral(text)) {
+				final long result = Long.parseLong(text);
+				return Long.toString(result).equals(text) ? (Object) result : text;
+			} else {
+				final double result = Double.parseDouble(text);
+				return Double.toString(result).equals(text) ? (Object) result : text;
+			}
+		} catch (final NumberFormatException e) {
+			return text;
+		}
+	}
+
+	private static boolean looksNumeric(final String text) {
+		final char first = text.charAt(0);
+		if (first != '-' && (first < '0' || first > '9')) {
+			return false;
+		}
+		for (int i = 1; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if ((c < '0' || c > '9') && c != '.' && c != 'E' && c != '-') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isIntegral(final String text) {
+		return text.indexOf('.') < 0 && text.indexOf('E') < 0;
+	}
+
 	@Override
 	public String toString() {
 		return value != null ? value.toString() : "null";
@@ -2,90 +2,477 @@ package org.metricssampler.reader;
 
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+/**
+ * A list of metrics stored column-wise in parallel arrays: names, descriptions, timestamps and values. Values of type {@link Long} and
+ * {@link Double} are stored in a primitive array (doubles as their raw long bits) and all other values as objects. Metrics added by
+ * name do not allocate any {@link MetricName}, {@link MetricValue} or {@link Metric} instances. Those are only created on demand when
+ * using the {@link Iterable} view or the accessors returning them - use the index based accessors (e.g. {@link #getName(int)},
+ * {@link #getTimestamp(int)}, {@link #appendValue(int, StringBuilder)}) on hot paths. Lookups by name use an index that is built on the
+ * first lookup and maintained afterwards. Instances are not thread safe.
+ */
 public class Metrics implements Iterable<Metric> {
-    private final List<Metric> items;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final byte TYPE_OBJECT = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
 
-    public Metrics(List<Metric> items) {
-        this.items = items;
-    }
+    private int size;
+    private String[] names;
+    private String[] descriptions;
+    /**
+     * The original metric names if added as such (e.g. by meta data readers) or {@code null}.
+     */
+    private MetricName[] metricNames;
+    private long[] timestamps;
+    private byte[] types;
+    private long[] primitiveValues;
+    private Object[] objectValues;
+
+    /**
+     * Maps each name to the index of its first and last occurrence. Built on the first lookup by name.
+     */
+    private Map<String, IndexEntry> nameIndex;
+    /**
+     * The index of the next metric with the same name or -1. Only maintained while there is a name index.
+     */
+    private int[] nextWithSameName;
 
     public Metrics() {
-        this(new ArrayList<>());
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the expected number of metrics
+     */
+    public Metrics(final int initialCapacity) {
+        checkArgument(initialCapacity >= 0, "initialCapacity must not be negative");
+        allocate(Math.max(initialCapacity, 1));
     }
 
-    public Metrics(Metric... metrics) {
+    public Metrics(final List<Metric> items) {
+        this(items.size());
+        for (final Metric item : items) {
+            add(item);
+        }
+    }
+
+    public Metrics(final Metric... metrics) {
         this(Arrays.asList(metrics));
     }
 
+    private void allocate(final int capacity) {
+        names = new String[capacity];
+        descriptions = new String[capacity];
+        metricNames = new MetricName[capacity];
+        timestamps = new long[capacity];
+        types = new byte[capacity];
+        primitiveValues = new long[capacity];
+        objectValues = new Object[capacity];
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > names.length) {
+            final int newCapacity = Math.max(capacity, names.length + (names.length >> 1) + 1);
+            names = Arrays.copyOf(names, newCapacity);
+            descriptions = Arrays.copyOf(descriptions, newCapacity);
+            metricNames = Arrays.copyOf(metricNames, newCapacity);
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            types = Arrays.copyOf(types, newCapacity);
+            primitiveValues = Arrays.copyOf(primitiveValues, newCapacity);
+            objectValues = Arrays.copyOf(objectValues, newCapacity);
+            if (nextWithSameName != null) {
+                nextWithSameName = Arrays.copyOf(nextWithSameName, newCapacity);
+            }
+        }
+    }
+
     public void clear() {
-        items.clear();
+        Arrays.fill(descriptions, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(metricNames, 0, size, null);
+        Arrays.fill(objectValues, 0, size, null);
+        size = 0;
+        nameIndex = null;
+        nextWithSameName = null;
     }
 
     public int size() {
-        return items.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return items.isEmpty();
+        return size == 0;
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the name of the metric
+     */
+    public String getName(final int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the description of the metric (may be {@code null})
+     */
+    public String getDescription(final int index) {
+        checkIndex(index);
+        return descriptions[index];
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the metric name as added or a new {@link SimpleMetricName} if the metric was added by name
+     */
+    public MetricName getMetricName(final int index) {
+        checkIndex(index);
+        final MetricName result = metricNames[index];
+        return result != null ? result : new SimpleMetricName(names[index], descriptions[index]);
+    }
+
+    public long getTimestamp(final int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the value of the metric (numbers stored as primitives are boxed)
+     */
+    public Object getValue(final int index) {
+        checkIndex(index);
+        switch (types[index]) {
+            case TYPE_LONG:
+                return primitiveValues[index];
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(primitiveValues[index]);
+            default:
+                return objectValues[index];
+        }
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return {@code true} if the value of the metric is not {@code null}
+     */
+    public boolean hasValue(final int index) {
+        checkIndex(index);
+        return types[index] != TYPE_OBJECT || objectValues[index] != null;
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return {@code true} if the value is stored as a primitive long
+     */
+    public boolean isLong(final int index) {
+        checkIndex(index);
+        return types[index] == TYPE_LONG;
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return {@code true} if the value is stored as a primitive double
+     */
+    public boolean isDouble(final int index) {
+        checkIndex(index);
+        return types[index] == TYPE_DOUBLE;
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the value as long (doubles are truncated)
+     * @throws IllegalStateException if the value is not stored as a number
+     */
+    public long getLong(final int index) {
+        checkIndex(index);
+        switch (types[index]) {
+            case TYPE_LONG:
+                return primitiveValues[index];
+            case TYPE_DOUBLE:
+                return (long) Double.longBitsToDouble(primitiveValues[index]);
+            default:
+                throw new IllegalStateException("Value of " + names[index] + " is not a number");
+        }
+    }
+
+    /**
+     * @param index the index of the metric
+     * @return the value as double
+     * @throws IllegalStateException if the value is not stored as a number
+     */
+    public double getDouble(final int index) {
+        checkIndex(index);
+        switch (types[index]) {
+            case TYPE_LONG:
+                return primitiveValues[index];
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(primitiveValues[index]);
+            default:
+                throw new IllegalStateException("Value of " + names[index] + " is not a number");
+        }
+    }
+
+    /**
+     * Append the string representation of the value to the builder without boxing primitive values.
+     *
+     * @param index the index of the metric
+     * @param builder the builder to append to
+     * @return the builder
+     */
+    public StringBuilder appendValue(final int index, final StringBuilder builder) {
+        checkIndex(index);
+        switch (types[index]) {
+            case TYPE_LONG:
+                return builder.append(primitiveValues[index]);
+            case TYPE_DOUBLE:
+                return builder.append(Double.longBitsToDouble(primitiveValues[index]));
+            default:
+                return builder.append(objectValues[index]);
+        }
+    }
+
+    public MetricValue getMetricValue(final int index) {
+        return new MetricValue(getTimestamp(index), getValue(index));
+    }
+
+    public Metric get(final int index) {
+        return new Metric(getMetricName(index), getMetricValue(index));
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
     }
 
     @Override
     public Iterator<Metric> iterator() {
-        return items.iterator();
+        return new Iterator<Metric>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Metric next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
     }
 
     @Override
-    public void forEach(Consumer<? super Metric> action) {
-        items.forEach(action);
+    public void forEach(final Consumer<? super Metric> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(get(i));
+        }
     }
 
     @Override
     public Spliterator<Metric> spliterator() {
-        return items.spliterator();
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.SIZED);
     }
 
     public Set<MetricName> getNames() {
-        return items.stream().map(Metric::getName).collect(Collectors.toSet());
+        final Set<MetricName> result = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(getMetricName(i));
+        }
+        return result;
+    }
+
+    /**
+     * @param name the name of the metric
+     * @return the index of the first metric with the given name or -1 if there is no such metric
+     */
+    public int indexOf(final String name) {
+        final IndexEntry entry = getNameIndex().get(name);
+        return entry != null ? entry.first : -1;
     }
 
-    public Optional<Metric> get(String name) {
-        return items.stream().filter(e -> e.getName().getName().equals(name)).findFirst();
+    public Optional<Metric> get(final String name) {
+        final int index = indexOf(name);
+        return index >= 0 ? Optional.of(get(index)) : Optional.<Metric> empty();
     }
 
-    public List<Metric> getAll(String name) {
-        return items.stream().filter(e -> e.getName().getName().equals(name)).collect(Collectors.toList());
+    public List<Metric> getAll(final String name) {
+        final List<Metric> result = new ArrayList<>();
+        for (int index = indexOf(name); index >= 0; index = nextWithSameName[index]) {
+            result.add(get(index));
+        }
+        return result;
     }
 
-    public void add(Metric metric) {
-        items.add(metric);
+    private Map<String, IndexEntry> getNameIndex() {
+        if (nameIndex == null) {
+            nameIndex = new HashMap<>();
+            nextWithSameName = new int[names.length];
+            for (int i = 0; i < size; i++) {
+                index(i);
+            }
+        }
+        return nameIndex;
     }
 
-    public void add(String name, String description, MetricValue value) {
-        add(new Metric(new SimpleMetricName(name, description), value));
+    private void index(final int index) {
+        nextWithSameName[index] = -1;
+        final IndexEntry entry = nameIndex.get(names[index]);
+        if (entry == null) {
+            nameIndex.put(names[index], new IndexEntry(index));
+        } else {
+            nextWithSameName[entry.last] = index;
+            entry.last = index;
+        }
     }
 
-    public void add(String name, MetricValue value) {
-        add(new Metric(new SimpleMetricName(name, null), value));
+    private int append(final String name, final String description, final MetricName metricName, final long timestamp) {
+        final int index = size;
+        ensureCapacity(index + 1);
+        names[index] = name;
+        descriptions[index] = description;
+        metricNames[index] = metricName;
+        timestamps[index] = timestamp;
+        size++;
+        if (nameIndex != null) {
+            index(index);
+        }
+        return index;
     }
-    public void add(MetricName name, MetricValue value) {
-        add(new Metric(name, value));
+
+    private int append(final MetricName name, final long timestamp) {
+        return append(name.getName(), name.getDescription(), name, timestamp);
+    }
+
+    private int append(final String name, final String description, final long timestamp) {
+        checkArgumentNotNullNorEmpty(name, "name");
+        return append(name, description, null, timestamp);
+    }
+
+    private void setValue(final int index, final Object value) {
+        if (value instanceof Long) {
+            setLongValue(index, (Long) value);
+        } else if (value instanceof Double) {
+            setDoubleValue(index, (Double) value);
+        } else {
+            types[index] = TYPE_OBJECT;
+            objectValues[index] = value;
+        }
     }
 
-    public void add(MetricName name, long timestamp, Object value) {
-        add(new Metric(name, new MetricValue(timestamp, value)));
+    private void setLongValue(final int index, final long value) {
+        types[index] = TYPE_LONG;
+        primitiveValues[index] = value;
+        objectValues[index] = null;
     }
 
-    public void add(String name, long timestamp, Object value) {
-        add(new Metric(new SimpleMetricName(name, null), new MetricValue(timestamp, value)));
+    private void setDoubleValue(final int index, final double value) {
+        types[index] = TYPE_DOUBLE;
+        primitiveValues[index] = Double.doubleToRawLongBits(value);
+        objectValues[index] = null;
     }
 
-    public void add(String name, String description, long timestamp, Object value) {
-        add(new Metric(new SimpleMetricName(name, description), new MetricValue(timestamp, value)));
+    public void add(final Metric metric) {
+        add(metric.getName(), metric.getValue());
     }
 
-    public void addAll(Metrics metrics) {
-        items.addAll(metrics.items);
+    public void add(final String name, final String description, final MetricValue value) {
+        setValue(append(name, description, value.getTimestamp()), value.getValue());
+    }
+
+    public void add(final String name, final MetricValue value) {
+        add(name, null, value);
+    }
+
+    public void add(final MetricName name, final MetricValue value) {
+        setValue(append(name, value.getTimestamp()), value.getValue());
+    }
+
+    public void add(final MetricName name, final long timestamp, final Object value) {
+        setValue(append(name, timestamp), value);
+    }
+
+    public void add(final String name, final long timestamp, final Object value) {
+        add(name, null, timestamp, value);
+    }
+
+    public void add(final String name, final String description, final long timestamp, final Object value) {
+        setValue(append(name, description, timestamp), value);
+    }
+
+    public void add(final String name, final String description, final long timestamp, final long value) {
+        setLongValue(append(name, description, timestamp), value);
+    }
+
+    public void add(final String name, final String description, final long timestamp, final double value) {
+        setDoubleValue(append(name, description, timestamp), value);
+    }
+
+    /**
+     * Add a metric with a value read as text. The text is parsed using {@link MetricValue#parse(String)} so that numbers are stored as
+     * primitives.
+     */
+    public void addParsed(final String name, final String description, final long timestamp, final String text) {
+        setValue(append(name, description, timestamp), MetricValue.parse(text));
+    }
+
+    /**
+     * @see #addParsed(String, String, long, String)
+     */
+    public void addParsed(final String name, final long timestamp, final String text) {
+        addParsed(name, null, timestamp, text);
+    }
+
+    /**
+     * @see #addParsed(String, String, long, String)
+     */
+    public void addParsed(final MetricName name, final long timestamp, final String text) {
+        setValue(append(name, timestamp), MetricValue.parse(text));
+    }
+
+    /**
+     * Add a metric under a new name with the timestamp and value of a metric in another instance without boxing its value.
+     *
+     * @param name the new name
+     * @param description the new description
+     * @param source the metrics containing the value
+     * @param sourceIndex the index of the value in {@code source}
+     */
+    public void add(final String name, final String description, final Metrics source, final int sourceIndex) {
+        source.checkIndex(sourceIndex);
+        final int index = append(name, description, source.timestamps[sourceIndex]);
+        types[index] = source.types[sourceIndex];
+        primitiveValues[index] = source.primitiveValues[sourceIndex];
+        objectValues[index] = source.objectValues[sourceIndex];
+    }
+
+    public void addAll(final Metrics metrics) {
+        final int count = metrics.size;
+        ensureCapacity(size + count);
+        for (int i = 0; i < count; i++) {
+            final int index = append(metrics.names[i], metrics.descriptions[i], metrics.metricNames[i], metrics.timestamps[i]);
+            types[index] = metrics.types[i];
+            primitiveValues[index] = metrics.primitiveValues[i];
+            objectValues[index] = metrics.objectValues[i];
+        }
+    }
+
+    private static class IndexEntry {
+        private final int first;
+        private int last;
+
+        IndexEntry(final int index) {
+            this.first = index;
+            this.last = index;
+        }
     }
 }
@@ -19,4 +19,11 @@ public interface MetricsReader {
 	Map<String, Object> getVariables();
 
 	void reset();
+
+	/**
+	 * Force-close the transport of the input so that a read blocked on it fails. This is called from another thread while the reader is
+	 * in use and must therefore not touch anything but the transport. The reader is {@link #reset()} afterwards by the thread using it.
+	 */
+	default void abort() {
+	}
 }
@@ -1,5 +1,9 @@
 package org.metricssampler.resources;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class SamplerStats {
 	private static ThreadLocal<SamplerStats> stats = new ThreadLocal<SamplerStats>();
 
@@ -11,6 +15,14 @@ public class SamplerStats {
 	private long sampleStartTime = 0L;
 	private long sampleEndTime = 0L;
 	private int metricsCount = 0;
+	private int writeTimeoutCount = 0;
+	private int writeSkippedCount = 0;
+	private int suppressedCount = 0;
+	private long scheduleDrift = 0L;
+	private int overrunCount = 0;
+	private int skippedCount = 0;
+	private int timeoutCount = 0;
+	private final Map<String, Long> writeDurations = new ConcurrentHashMap<>();
 	
 	public static void init() {
 		set(new SamplerStats());
@@ -108,4 +120,92 @@ public class SamplerStats {
 	public void setMetricsCount(final int metricsCount) {
 		this.metricsCount = metricsCount;
 	}
+
+	/**
+	 * @return the total number of writes that did not finish within the write timeout of the sampler
+	 */
+	public int getWriteTimeoutCount() {
+		return writeTimeoutCount;
+	}
+
+	public void incWriteTimeoutCount() {
+		writeTimeoutCount++;
+	}
+
+	/**
+	 * @return the total number of writes skipped because the previous write to the same output was still running
+	 */
+	public int getWriteSkippedCount() {
+		return writeSkippedCount;
+	}
+
+	public void incWriteSkippedCount() {
+		writeSkippedCount++;
+	}
+
+	/**
+	 * @return the number of metrics sampled the last time by this sampler but not written because their value did not change
+	 */
+	public int getSuppressedCount() {
+		return suppressedCount;
+	}
+
+	public void setSuppressedCount(final int suppressedCount) {
+		this.suppressedCount = suppressedCount;
+	}
+
+	/**
+	 * @return the number of milliseconds the last sampling started after the time it was scheduled for
+	 */
+	public long getScheduleDrift() {
+		return scheduleDrift;
+	}
+
+	public void setScheduleDrift(final long scheduleDrift) {
+		this.scheduleDrift = scheduleDrift;
+	}
+
+	/**
+	 * @return the total number of samplings that took longer than the interval
+	 */
+	public int getOverrunCount() {
+		return overrunCount;
+	}
+
+	public void incOverrunCount() {
+		overrunCount++;
+	}
+
+	/**
+	 * @return the total number of due samplings skipped because of the overrun policy
+	 */
+	public int getSkippedCount() {
+		return skippedCount;
+	}
+
+	public void incSkippedCount() {
+		skippedCount++;
+	}
+
+	/**
+	 * @return the total number of samplings aborted because they took longer than the timeout of the sampler
+	 */
+	public int getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	public void incTimeoutCount() {
+		timeoutCount++;
+	}
+
+	/**
+	 * @return the duration in milliseconds of the last write to each output by output name
+	 */
+	public Map<String, Long> getWriteDurations() {
+		return Collections.unmodifiableMap(writeDurations);
+	}
+
+	public void setWriteDuration(final String output, final long millis) {
+		writeDurations.put(output, millis);
+	}
 }
@@ -1,12 +1,16 @@
 package org.metricssampler.resources;
 
+import org.metricssampler.config.SamplerConfig.OverrunPolicy;
 import org.metricssampler.sampler.Sampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
 /**
  * A wrapper around a sampler that handles run-time aspects - enabling, disabling and running for a configured amount of time
@@ -14,12 +18,43 @@ import java.util.concurrent.locks.ReentrantLock;
 public class SamplerTask implements Runnable {
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 	private final Sampler sampler;
+	private final LongSupplier clock;
 	private final SamplerStats stats = new SamplerStats();
 	private final Lock repetitionsLock = new ReentrantLock();
 	private long repetitions = -1L;
+	/**
+	 * The time the first run is scheduled for or -1 if the task is not run at a fixed rate.
+	 */
+	private long firstRunTimestamp = -1L;
+	private long period;
+	private long runs;
+	/**
+	 * The index of the last run that actually sampled or -1 if none did yet.
+	 */
+	private long lastSampledRun = -1L;
+	private long lastSampleEnd;
+	/**
+	 * The number of periods between the samplings with the {@link OverrunPolicy#STRETCH} policy.
+	 */
+	private long stretch = 1L;
+	private final Object watchdogLock = new Object();
+	/**
+	 * The thread running the current sampling if it is watched because the sampler has a timeout.
+	 */
+	private Thread watchedThread;
+	private boolean timedOut;
 	
 	public SamplerTask(final Sampler sampler) {
+		this(sampler, System::currentTimeMillis);
+	}
+
+	/**
+	 * @param sampler the sampler to run
+	 * @param clock the current time in milliseconds used to compute the schedule drift and the overruns
+	 */
+	public SamplerTask(final Sampler sampler, final LongSupplier clock) {
 		this.sampler = sampler;
+		this.clock = clock;
 		if (sampler.getConfig().isDisabled()) {
 			stats.deactivate();
 			disable();
@@ -30,9 +65,16 @@ public class SamplerTask implements Runnable {
 	public void run() {
 		MDC.put("sampler", sampler.getConfig().getName());
 		SamplerStats.set(stats);
+		if (!startRun()) {
+			SamplerStats.unset();
+			MDC.remove("sampler");
+			return;
+		}
 		
 		repetitionsLock.lock();
 		if (repetitions != 0) {
+			final long start = clock.getAsLong();
+			final ScheduledFuture<?> watch = startWatchdog();
 			try {
 				decrementRemainingRepetitions();
 				repetitionsLock.unlock();
@@ -45,6 +87,8 @@ public class SamplerTask implements Runnable {
 				stats.incSampleFailureCount();
 				stats.endSample();
 			}
+			stopWatchdog(watch);
+			endRun(start);
 		} else {
 			repetitionsLock.unlock();
 			logger.debug("Sampler disabled thus not sampling");
@@ -54,6 +98,151 @@ public class SamplerTask implements Runnable {
 		MDC.remove("sampler");
 	}
 
+	/**
+	 * Update the schedule drift unless the run must be skipped because of the overrun policy.
+	 *
+	 * @return {@code false} if the run must be skipped
+	 */
+	private boolean startRun() {
+		if (firstRunTimestamp == -1L) {
+			return true;
+		}
+		final long now = clock.getAsLong();
+		final long run = runs++;
+		final long scheduled = firstRunTimestamp + run * period;
+		if (isSkipped(sampler.getConfig().getOverrunPolicy(), run, scheduled, now)) {
+			logger.debug("Skipping sampling that was due {} ms ago because the previous one overran", now - scheduled);
+			stats.incSkippedCount();
+			return false;
+		}
+		stats.setScheduleDrift(now - scheduled);
+		lastSampledRun = run;
+		return true;
+	}
+
+	private boolean isSkipped(final OverrunPolicy policy, final long run, final long scheduled, final long now) {
+		if (policy == null) {
+			return false;
+		}
+		final boolean dueDuringPreviousSampling = scheduled < lastSampleEnd;
+		switch (policy) {
+			case SKIP:
+				return dueDuringPreviousSampling;
+			case CATCH_UP:
+				// another run that is due already will follow right away
+				return dueDuringPreviousSampling && scheduled + period <= now;
+			case STRETCH:
+				return lastSampledRun != -1L && run < lastSampledRun + stretch;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * @return the pending check of the watchdog or {@code null} if the sampler has no timeout
+	 */
+	private ScheduledFuture<?> startWatchdog() {
+		final int timeout = sampler.getConfig().getTimeout();
+		if (timeout <= 0) {
+			return null;
+		}
+		synchronized (watchdogLock) {
+			watchedThread = Thread.currentThread();
+			timedOut = false;
+		}
+		return SamplerWatchdog.getInstance().watch(new Runnable() {
+			@Override
+			public void run() {
+				abort(timeout);
+			}
+		}, TimeUnit.SECONDS.toMillis(timeout));
+	}
+
+	/**
+	 * Interrupt the sampling thread and abort the connections of the sampler so that reads blocked on them fail and the thread is freed.
+	 * The sampler itself is reset by the sampling thread once the sampling returned (see {@link #stopWatchdog(ScheduledFuture)}) because
+	 * its state is not thread safe.
+	 */
+	private void abort(final int timeout) {
+		synchronized (watchdogLock) {
+			if (watchedThread == null) {
+				return;
+			}
+			timedOut = true;
+			watchedThread.interrupt();
+		}
+		logger.warn("Sampler {} did not finish within {} s. Interrupting it and aborting its connections.", getName(), timeout);
+		SamplerWatchdog.getInstance().cleanup(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (watchdogLock) {
+					if (!timedOut) {
+						// the sampling finished in the meantime and the next one must not be aborted
+						return;
+					}
+				}
+				try {
+					sampler.abort();
+				} catch (final RuntimeException e) {
+					logger.warn("Failed to abort sampler " + getName() + " after it timed out", e);
+				}
+			}
+		});
+	}
+
+	private void stopWatchdog(final ScheduledFuture<?> watch) {
+		if (watch == null) {
+			return;
+		}
+		watch.cancel(false);
+		final boolean aborted;
+		synchronized (watchdogLock) {
+			watchedThread = null;
+			aborted = timedOut;
+			timedOut = false;
+		}
+		if (aborted) {
+			// do not leak our interrupt to whatever the pool thread runs next
+			Thread.interrupted();
+			stats.incTimeoutCount();
+			try {
+				sampler.reset();
+			} catch (final RuntimeException e) {
+				logger.warn("Failed to reset sampler after it timed out", e);
+			}
+		}
+	}
+
+	private void endRun(final long start) {
+		lastSampleEnd = clock.getAsLong();
+		if (firstRunTimestamp == -1L) {
+			return;
+		}
+		final long duration = lastSampleEnd - start;
+		if (duration > period) {
+			stats.incOverrunCount();
+		}
+		// grow at once to cover the duration but shrink only one period at a time to give a struggling input some time to recover
+		stretch = Math.max(Math.max(1L, (duration + period - 1) / period), stretch - 1);
+	}
+
+	/**
+	 * Tell the task when it is scheduled to run so that it can compute how late each run starts (see
+	 * {@link SamplerStats#getScheduleDrift()}) and which runs to skip if a sampling takes longer than the period (see
+	 * {@link org.metricssampler.config.SamplerConfig#getOverrunPolicy()}).
+	 *
+	 * @param firstRunTimestamp the time in milliseconds the first run is scheduled for
+	 * @param period the number of milliseconds between the scheduled start times of consecutive runs
+	 */
+	public void setSchedule(final long firstRunTimestamp, final long period) {
+		this.firstRunTimestamp = firstRunTimestamp;
+		this.period = period;
+		this.runs = 0L;
+		this.lastSampledRun = -1L;
+		this.lastSampleEnd = 0L;
+		this.stretch = 1L;
+	}
+
 	private void decrementRemainingRepetitions() {
 		repetitions--;
 		if (repetitions == Long.MIN_VALUE) {
@@ -0,0 +1,62 @@
+package org.metricssampler.resources;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread shared by all samplers that aborts the samplings that take longer than the timeout of their sampler (see
+ * {@link SamplerTask}). Cancelled checks are removed right away so that the queue only contains the samplings currently running.
+ * Potentially blocking clean-ups (e.g. closing the connections of a hung sampler) run on separate threads so that one hung sampler
+ * cannot delay the checks of the others.
+ */
+public class SamplerWatchdog {
+	private static final SamplerWatchdog INSTANCE = new SamplerWatchdog();
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final ExecutorService cleanupExecutor;
+
+	private SamplerWatchdog() {
+		executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("sampler-watchdog"));
+		executor.setRemoveOnCancelPolicy(true);
+		cleanupExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("sampler-watchdog-cleanup"));
+	}
+
+	public static SamplerWatchdog getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param check what to do when the timeout expires
+	 * @param timeout the timeout in milliseconds
+	 * @return the future to cancel once the sampling finished in time
+	 */
+	public ScheduledFuture<?> watch(final Runnable check, final long timeout) {
+		return executor.schedule(check, timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Run a clean-up of an aborted sampling on a separate thread.
+	 */
+	public void cleanup(final Runnable cleanup) {
+		cleanupExecutor.execute(cleanup);
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final String name;
+
+		private DaemonThreadFactory(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread result = new Thread(r, name);
+			result.setDaemon(true);
+			return result;
+		}
+	}
+}
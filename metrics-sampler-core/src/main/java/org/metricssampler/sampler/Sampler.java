@@ -23,4 +23,12 @@ public interface Sampler {
 	SamplerConfig getConfig();
 	
 	void reset();
+
+	/**
+	 * Force-close the connections of a sampling that exceeded its timeout so that its blocked reads fail. Unlike the other methods this
+	 * one is called from another thread while {@link #sample()} is still running and must therefore be thread safe. The sampler is
+	 * {@link #reset()} on the sampling thread once {@link #sample()} returned.
+	 */
+	default void abort() {
+	}
 }
@@ -1,33 +1,56 @@
 package org.metricssampler.selector;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.metricssampler.reader.BulkMetricsReader;
 import org.metricssampler.reader.MetaDataMetricsReader;
-import org.metricssampler.reader.Metric;
 import org.metricssampler.reader.MetricName;
 import org.metricssampler.reader.MetricReadException;
 import org.metricssampler.reader.MetricValue;
 import org.metricssampler.reader.Metrics;
 import org.metricssampler.reader.MetricsMetaData;
 import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.util.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A rudimentary implementation of a metrics selector which supports {@link MetaDataMetricsReader} and {@link
- * BulkMetricsReader}.
+ * BulkMetricsReader}. The selection results for metrics read from bulk readers are cached by metric name until the selector is reset,
+ * so that steady-state samplings do not evaluate the selection for every metric over and over again. The cache is an LRU bounded by
+ * the number of metrics of the last sampling (see {@link LruCache#fitTo(int)}).
  */
 public abstract class AbstractMetricsSelector implements MetricsSelector {
+    /**
+     * The default upper bound of the number of metric names whose selection result is cached for bulk readers. The actual bound
+     * follows the number of metrics read.
+     */
+    public static final int DEFAULT_SELECTION_CACHE_SIZE = 100000;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final VariableReplacer variableReplacer = new VariableReplacer();
+    private final LruCache<String, CachedSelection> selectionCache;
     private Map<String, Object> variables;
     private MetricsMetaData cachedMetaData;
     private List<SelectedMetric> cachedSelectedMetrics;
 
+    protected AbstractMetricsSelector() {
+        this(DEFAULT_SELECTION_CACHE_SIZE);
+    }
+
+    /**
+     * @param selectionCacheSize the upper bound of the number of metric names whose selection result is cached for bulk readers.
+     *                           Use 0 to disable the cache.
+     */
+    protected AbstractMetricsSelector(final int selectionCacheSize) {
+        this.selectionCache = selectionCacheSize > 0 ? new LruCache<String, CachedSelection>(selectionCacheSize) : null;
+    }
+
     @Override
     public Metrics readMetrics(final MetricsReader reader) {
         if (reader instanceof MetaDataMetricsReader) {
@@ -41,6 +64,7 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
 
     protected Metrics readAlreadySelected(final MetaDataMetricsReader reader) {
         final List<SelectedMetric> matchingMetrics = getSelectedMetrics(reader);
+        reader.prefetch(originalNames(matchingMetrics));
         final Metrics result = new Metrics();
         for (final SelectedMetric bean : matchingMetrics) {
             try {
@@ -53,6 +77,18 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
         return result;
     }
 
+    /**
+     * @param metrics the selected metrics
+     * @return the names of the selected metrics as known to the reader
+     */
+    public static List<MetricName> originalNames(final List<SelectedMetric> metrics) {
+        final List<MetricName> result = new ArrayList<>(metrics.size());
+        for (final SelectedMetric metric : metrics) {
+            result.add(metric.getOriginalName());
+        }
+        return result;
+    }
+
     protected List<SelectedMetric> getSelectedMetrics(final MetaDataMetricsReader reader) {
         final MetricsMetaData metaData = reader.getMetaData();
         if (this.cachedMetaData != metaData) {
@@ -88,18 +124,43 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
     protected Metrics readAllAndSelect(final BulkMetricsReader reader) {
         final Metrics result = new Metrics();
         final Metrics metrics = reader.readAllMetrics();
-        for (final Metric entry : metrics) {
-            final SelectedMetric metric = selectMetric(entry.getName());
-            if (metric != null) {
-                result.add(metric.getName(), entry.getName().getDescription(), entry.getValue());
+        for (int i = 0; i < metrics.size(); i++) {
+            final String name = selectName(metrics, i);
+            if (name != null) {
+                result.add(name, metrics.getDescription(i), metrics, i);
             }
         }
+        if (selectionCache != null) {
+            selectionCache.fitTo(metrics.size());
+        }
         return result;
     }
 
+    /**
+     * @param metrics the metrics read from the reader
+     * @param index the index of the metric to select
+     * @return the new name of the metric or {@code null} if the metric does not match the selector. Uses the selection cache if enabled.
+     */
+    protected String selectName(final Metrics metrics, final int index) {
+        if (selectionCache == null) {
+            final SelectedMetric metric = selectMetric(metrics.getMetricName(index));
+            return metric != null ? metric.getName() : null;
+        }
+        final String name = metrics.getName(index);
+        final String description = metrics.getDescription(index);
+        CachedSelection result = selectionCache.get(name);
+        if (result == null || !Objects.equals(result.description, description)) {
+            final SelectedMetric metric = selectMetric(metrics.getMetricName(index));
+            result = new CachedSelection(description, metric != null ? metric.getName() : null);
+            selectionCache.put(name, result);
+        }
+        return result.selectedName;
+    }
+
     @Override
     public void setVariables(final Map<String, Object> variables) {
         this.variables = Collections.unmodifiableMap(VariableReplacer.resolve(variables));
+        clearSelectionCache();
         doAfterVariablesSet(variables);
     }
 
@@ -136,9 +197,43 @@ public abstract class AbstractMetricsSelector implements MetricsSelector {
         map.putAll(variables);
     }
 
+    /**
+     * @return an unmodifiable map of the resolved variables or {@code null} if they have not been set yet
+     */
+    protected Map<String, Object> getVariables() {
+        return variables;
+    }
+
     @Override
     public void reset() {
         this.cachedMetaData = null;
         this.cachedSelectedMetrics = null;
+        clearSelectionCache();
+    }
+
+    private void clearSelectionCache() {
+        if (selectionCache != null) {
+            selectionCache.clear();
+        }
+    }
+
+    /**
+     * @return the number of metric names whose selection result is currently cached
+     */
+    protected int getSelectionCacheSize() {
+        return selectionCache != null ? selectionCache.size() : 0;
+    }
+
+    private static class CachedSelection {
+        private final String description;
+        /**
+         * The new name of the metric or {@code null} if it was not selected.
+         */
+        private final String selectedName;
+
+        CachedSelection(final String description, final String selectedName) {
+            this.description = description;
+            this.selectedName = selectedName;
+        }
     }
 }
@@ -5,11 +5,16 @@ import org.metricssampler.config.loader.ConfigurationLoader;
 import org.metricssampler.config.loader.XBeanPostProcessor;
 import org.metricssampler.config.loader.xbeans.*;
 import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.resources.SharedResource;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.selector.MetricsSelector;
 import org.metricssampler.values.ValueTransformer;
+import org.metricssampler.writer.AsyncMetricsWriter;
+import org.metricssampler.writer.AsyncOutput;
+import org.metricssampler.writer.MetricsSpool;
 import org.metricssampler.writer.MetricsWriter;
+import org.metricssampler.writer.SpoolingMetricsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +42,8 @@ public class DefaultBootstrapper implements Bootstrapper {
 	private Configuration configuration;
 	private List<Sampler> samplers;
 	private Map<String, SharedResource> sharedResources;
+	private final Map<String, AsyncOutput> asyncOutputs = new HashMap<>();
+	private final Map<String, MetricsSpool> spools = new HashMap<>();
 	private final String controlHost;
 	private final int controlPort;
 	private List<XBeanPostProcessor> xbeanPostProcessors = new ArrayList<>();
@@ -153,6 +160,24 @@ public class DefaultBootstrapper implements Bootstrapper {
 
 	@Override
 	public MetricsWriter newWriterForOutput(final OutputConfig config) {
+		if (config.getAsync() != null) {
+			return new AsyncMetricsWriter(getAsyncOutput(config));
+		}
+		return newDirectWriterForOutput(config);
+	}
+
+	/**
+	 * @return the writer of the extension wrapped in a {@link SpoolingMetricsWriter} if the output has a spool
+	 */
+	private MetricsWriter newDirectWriterForOutput(final OutputConfig config) {
+		final MetricsWriter writer = newExtensionWriterForOutput(config);
+		if (config.getSpool() != null) {
+			return new SpoolingMetricsWriter(config.getName(), writer, getSpool(config));
+		}
+		return writer;
+	}
+
+	private MetricsWriter newExtensionWriterForOutput(final OutputConfig config) {
 		for (final LocalObjectFactory factory : objectFactories) {
 			if (factory.supportsOutput(config)) {
 				return factory.newWriterForOutput(config);
@@ -161,6 +186,34 @@ public class DefaultBootstrapper implements Bootstrapper {
 		throw new ConfigurationException("Unsupported output: " + config);
 	}
 
+	/**
+	 * All samplers using an asynchronous output share its queue and flusher thread.
+	 */
+	private synchronized AsyncOutput getAsyncOutput(final OutputConfig config) {
+		AsyncOutput result = asyncOutputs.get(config.getName());
+		if (result == null) {
+			result = new AsyncOutput(config.getName(), config.getAsync(), newDirectWriterForOutput(config));
+			result.startup();
+			GlobalRegistry.getInstance().addSharedResource(result);
+			asyncOutputs.put(config.getName(), result);
+		}
+		return result;
+	}
+
+	/**
+	 * All writers of an output share its spool and replayer thread.
+	 */
+	private synchronized MetricsSpool getSpool(final OutputConfig config) {
+		MetricsSpool result = spools.get(config.getName());
+		if (result == null) {
+			result = new MetricsSpool(config.getName(), config.getSpool(), newExtensionWriterForOutput(config));
+			result.startup();
+			GlobalRegistry.getInstance().addSharedResource(result);
+			spools.put(config.getName(), result);
+		}
+		return result;
+	}
+
 	@Override
 	public MetricsSelector newSelector(final SelectorConfig config) {
 		for (final LocalObjectFactory factory : objectFactories) {
@@ -224,11 +277,31 @@ public class DefaultBootstrapper implements Bootstrapper {
 		return result;
 	}
 
+	/**
+	 * Stop the samplers first, then write the metrics queued by the asynchronous outputs (which might still need the spools and other
+	 * shared resources like connection pools) and only then shut down the remaining shared resources.
+	 */
 	@Override
 	public void shutdown() {
+		logger.info("Shutting down sampler thread pools");
+		for (final SharedResource sharedResource : sharedResources.values()) {
+			if (sharedResource instanceof SamplerThreadPool) {
+				sharedResource.shutdown();
+			}
+		}
+		synchronized (this) {
+			for (final AsyncOutput output : asyncOutputs.values()) {
+				output.shutdown();
+			}
+			for (final MetricsSpool spool : spools.values()) {
+				spool.shutdown();
+			}
+		}
 		logger.info("Shutting down shared resources");
 		for (final SharedResource sharedResource : sharedResources.values()) {
-			sharedResource.shutdown();
+			if (!(sharedResource instanceof SamplerThreadPool)) {
+				sharedResource.shutdown();
+			}
 		}
 	}
 
@@ -0,0 +1,55 @@
+package org.metricssampler.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+/**
+ * A map with a bounded size that evicts the least recently accessed entry when the bound is exceeded. The bound can follow the number
+ * of keys actually used per batch (e.g. the metrics of one sampling, see {@link #fitTo(int)}) so that caches of small inputs stay small
+ * while the maximal size only caps the caches of huge inputs. Instances are not thread safe.
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * The bound never drops below this number of entries so that tiny batches do not cause constant evictions.
+	 */
+	private static final int MIN_LIMIT = 16;
+
+	private final int maxSize;
+	private int limit;
+
+	public LruCache(final int maxSize) {
+		super(16, 0.75f, true);
+		checkArgument(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+		this.limit = maxSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Bound the cache to the number of keys used by the last batch plus a quarter for keys that come and go, but not to more than the
+	 * maximal size. Surplus entries are evicted right away, the least recently accessed first, so call this after the batch has been
+	 * processed.
+	 *
+	 * @param keysPerBatch the number of keys used by the last batch
+	 */
+	public void fitTo(final int keysPerBatch) {
+		limit = (int) Math.min(maxSize, Math.max(MIN_LIMIT, keysPerBatch + keysPerBatch / 4L));
+		final Iterator<K> keys = keySet().iterator();
+		for (int surplus = size() - limit; surplus > 0; surplus--) {
+			keys.next();
+			keys.remove();
+		}
+	}
+
+	@Override
+	protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+		return size() > limit;
+	}
+}
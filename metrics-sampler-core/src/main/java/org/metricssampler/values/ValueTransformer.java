@@ -3,4 +3,15 @@ package org.metricssampler.values;
 public interface ValueTransformer {
 	boolean matches(String metric);
 	String transform(String value);
+
+	/**
+	 * Transform a typed value (e.g. a number parsed by the reader). Transformers that can work on numbers should override this to
+	 * avoid formatting and parsing the value again.
+	 *
+	 * @param value the value to transform (never {@code null})
+	 * @return the transformed value
+	 */
+	default Object transformValue(final Object value) {
+		return transform(value.toString());
+	}
 }
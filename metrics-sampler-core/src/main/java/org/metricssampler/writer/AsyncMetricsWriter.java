@@ -0,0 +1,38 @@
+package org.metricssampler.writer;
+
+import org.metricssampler.reader.Metrics;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * The writer used by samplers for asynchronous outputs. It only puts the metrics in the queue of the {@link AsyncOutput} so the
+ * sampler does not have to wait for the output.
+ */
+public class AsyncMetricsWriter implements MetricsWriter {
+	private final AsyncOutput output;
+
+	public AsyncMetricsWriter(final AsyncOutput output) {
+		checkArgumentNotNull(output, "output");
+		this.output = output;
+	}
+
+	@Override
+	public void open() {
+		// the flusher thread of the output opens its writer
+	}
+
+	@Override
+	public void close() {
+		// the flusher thread of the output closes its writer
+	}
+
+	@Override
+	public void write(final Metrics metrics) {
+		output.enqueue(metrics);
+	}
+
+	@Override
+	public String toString() {
+		return output.toString();
+	}
+}
@@ -0,0 +1,231 @@
+package org.metricssampler.writer;
+
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.resources.SharedResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * The asynchronous stage of an output. Samplers put their metrics in a bounded queue (see {@link AsyncMetricsWriter}) and a
+ * dedicated flusher thread coalesces the queued metrics of all samplers into large batches which it writes using a single writer.
+ * This way a slow output does not delay the samplers. What happens if the queue is full is determined by the
+ * {@link AsyncOutputConfig.OverflowPolicy}.
+ */
+public class AsyncOutput implements SharedResource {
+	private static final long POLL_TIMEOUT = 1000L;
+	private static final long DRAIN_TIMEOUT = 20000L;
+	/**
+	 * Queued to wake up the flusher when it should stop. It is never written.
+	 */
+	private static final Metrics STOP = new Metrics(0);
+
+	private final Logger logger;
+	private final String name;
+	private final AsyncOutputConfig config;
+	private final MetricsWriter writer;
+	private final BlockingQueue<Metrics> queue;
+	private final AtomicLong droppedMetrics = new AtomicLong();
+	private final AtomicLong droppedBatches = new AtomicLong();
+	private final AtomicLong writtenMetrics = new AtomicLong();
+	private final AtomicLong writes = new AtomicLong();
+	private final AtomicLong writeFailures = new AtomicLong();
+	private volatile Thread flusher;
+
+	/**
+	 * @param name the name of the output
+	 * @param config the configuration of the queue
+	 * @param writer the writer used by the flusher thread
+	 */
+	public AsyncOutput(final String name, final AsyncOutputConfig config, final MetricsWriter writer) {
+		checkArgumentNotNull(name, "name");
+		checkArgumentNotNull(config, "config");
+		checkArgumentNotNull(writer, "writer");
+		this.logger = LoggerFactory.getLogger("writer." + name);
+		this.name = name;
+		this.config = config;
+		this.writer = writer;
+		this.queue = new ArrayBlockingQueue<>(config.getQueueSize());
+	}
+
+	/**
+	 * Queue the metrics to be written by the flusher thread. Must not block longer than the block timeout.
+	 *
+	 * @param metrics the metrics to write. Must not be modified afterwards.
+	 */
+	public void enqueue(final Metrics metrics) {
+		checkArgumentNotNull(metrics, "metrics");
+		if (metrics.isEmpty()) {
+			return;
+		}
+		switch (config.getOverflowPolicy()) {
+			case DROP_NEWEST:
+				if (!queue.offer(metrics)) {
+					drop(metrics);
+				}
+				break;
+			case BLOCK:
+				try {
+					if (!queue.offer(metrics, config.getBlockTimeout(), TimeUnit.MILLISECONDS)) {
+						drop(metrics);
+					}
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					drop(metrics);
+				}
+				break;
+			default:
+				while (!queue.offer(metrics)) {
+					final Metrics oldest = queue.poll();
+					if (oldest != null && oldest != STOP) {
+						drop(oldest);
+					}
+				}
+		}
+	}
+
+	private void drop(final Metrics metrics) {
+		droppedBatches.incrementAndGet();
+		droppedMetrics.addAndGet(metrics.size());
+		logger.debug("Queue full, dropped {} metrics", metrics.size());
+	}
+
+	@Override
+	public synchronized void startup() {
+		if (flusher == null) {
+			final Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					flushLoop();
+				}
+			}, "async-output-" + name);
+			thread.setDaemon(true);
+			flusher = thread;
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stop the flusher thread after it has written the metrics that are already in the queue. The flusher is not interrupted because
+	 * that would close interruptible channels of the writer (e.g. a socket) in the middle of a write and fail all further writes.
+	 * Instead it is woken up by a marker in the queue (or notices that it should stop after its next poll if the queue is full).
+	 */
+	@Override
+	public void shutdown() {
+		final Thread thread;
+		synchronized (this) {
+			thread = flusher;
+			flusher = null;
+		}
+		if (thread != null) {
+			queue.offer(STOP);
+			try {
+				thread.join(DRAIN_TIMEOUT);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (thread.isAlive()) {
+				logger.warn("Failed to write the queued metrics within {} ms", DRAIN_TIMEOUT);
+			}
+		}
+	}
+
+	private void flushLoop() {
+		final Thread current = Thread.currentThread();
+		while (flusher == current) {
+			try {
+				final Metrics first = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+				if (first != null && first != STOP) {
+					flush(first);
+				}
+			} catch (final InterruptedException e) {
+				break;
+			}
+		}
+		Metrics remaining;
+		while ((remaining = queue.poll()) != null) {
+			if (remaining != STOP) {
+				flush(remaining);
+			}
+		}
+	}
+
+	/**
+	 * Coalesce the given metrics with the ones that are waiting in the queue and write them.
+	 */
+	protected void flush(final Metrics first) {
+		final List<Metrics> batches = new ArrayList<>();
+		batches.add(first);
+		int size = first.size();
+		Metrics next;
+		while (size < config.getMaxBatchSize() && (next = queue.poll()) != null) {
+			if (next != STOP) {
+				batches.add(next);
+				size += next.size();
+			}
+		}
+		final Metrics batch;
+		if (batches.size() == 1) {
+			batch = first;
+		} else {
+			batch = new Metrics(size);
+			for (final Metrics metrics : batches) {
+				batch.addAll(metrics);
+			}
+		}
+		write(batch);
+	}
+
+	private void write(final Metrics batch) {
+		try {
+			writer.open();
+			try {
+				writer.write(batch);
+			} finally {
+				writer.close();
+			}
+			writes.incrementAndGet();
+			writtenMetrics.addAndGet(batch.size());
+		} catch (final RuntimeException e) {
+			writeFailures.incrementAndGet();
+			logger.warn("Failed to write " + batch.size() + " metrics to " + writer, e);
+		}
+	}
+
+	/**
+	 * @return the number of samplings waiting to be written
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "outputs." + name + ".";
+		final Map<String, Object> result = new HashMap<>();
+		result.put(prefix + "queueDepth", queue.size());
+		result.put(prefix + "queueCapacity", config.getQueueSize());
+		result.put(prefix + "droppedMetrics", droppedMetrics.get());
+		result.put(prefix + "droppedBatches", droppedBatches.get());
+		result.put(prefix + "writtenMetrics", writtenMetrics.get());
+		result.put(prefix + "writeCount", writes.get());
+		result.put(prefix + "writeFailureCount", writeFailures.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + writer + "]";
+	}
+}
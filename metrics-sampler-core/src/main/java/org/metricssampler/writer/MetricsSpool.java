@@ -0,0 +1,626 @@
+package org.metricssampler.writer;
+
+import org.metricssampler.config.SpoolOutputConfig;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.resources.SharedResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * A write-ahead spool of an output on the local disk. Metrics that could not be written (see {@link SpoolingMetricsWriter}) are appended
+ * to memory-mapped segment files of a fixed size and a dedicated replayer thread writes them to the output at a limited rate once it
+ * recovers. While the output is down the replayer backs off exponentially (with jitter so that many instances do not retry in lock
+ * step). The oldest segments are dropped if the spool would exceed its maximal size and metrics older than the maximal age are dropped
+ * instead of being replayed.
+ * <p>
+ * Each segment starts with a magic number and the offset of the next record to replay. Each record consists of its length, the number
+ * of metrics, the time it was spooled and the metrics (name, timestamp and value - descriptions are not spooled). The length is written
+ * last so that a partially written record is ignored when the spool is recovered after a crash. The directory is locked so that only one
+ * process uses it at a time.
+ * </p>
+ */
+public class MetricsSpool implements SharedResource {
+	private static final int MAGIC = 0x4d535350;
+	private static final int SEGMENT_HEADER_SIZE = 8;
+	private static final int READ_OFFSET_POSITION = 4;
+	private static final int RECORD_HEADER_SIZE = 16;
+	private static final String SEGMENT_SUFFIX = ".spool";
+	private static final String LOCK_FILE = "spool.lock";
+	private static final byte TYPE_NULL = 0;
+	private static final byte TYPE_LONG = 1;
+	private static final byte TYPE_DOUBLE = 2;
+	private static final byte TYPE_TEXT = 3;
+	private static final long POLL_TIMEOUT = 1000L;
+	private static final long INITIAL_BACKOFF = 1000L;
+
+	private final Logger logger;
+	private final String name;
+	private final SpoolOutputConfig config;
+	private final MetricsWriter writer;
+	private final Random random = new Random();
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final AtomicLong spooledMetrics = new AtomicLong();
+	private final AtomicLong replayedMetrics = new AtomicLong();
+	private final AtomicLong droppedMetrics = new AtomicLong();
+	private final AtomicLong expiredMetrics = new AtomicLong();
+	private final AtomicLong replayFailures = new AtomicLong();
+	private long pendingMetrics;
+	private long nextSequence;
+	private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+	private FileChannel lockChannel;
+	private FileLock lock;
+	private volatile Thread replayer;
+
+	/**
+	 * @param name the name of the output
+	 * @param config the configuration of the spool
+	 * @param writer the writer used by the replayer thread
+	 */
+	public MetricsSpool(final String name, final SpoolOutputConfig config, final MetricsWriter writer) {
+		checkArgumentNotNull(name, "name");
+		checkArgumentNotNull(config, "config");
+		checkArgumentNotNull(writer, "writer");
+		this.logger = LoggerFactory.getLogger("writer." + name);
+		this.name = name;
+		this.config = config;
+		this.writer = writer;
+	}
+
+	/**
+	 * Lock the directory, recover the existing segments and start the replayer thread. If the directory can not be locked (e.g. because it
+	 * is used by another process) the spool stays disabled and drops all metrics.
+	 */
+	@Override
+	public synchronized void startup() {
+		if (replayer != null) {
+			return;
+		}
+		if (lock == null) {
+			if (!lockDirectory()) {
+				return;
+			}
+			recover();
+		}
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				replayLoop();
+			}
+		}, "spool-replayer-" + name);
+		thread.setDaemon(true);
+		replayer = thread;
+		thread.start();
+	}
+
+	private boolean lockDirectory() {
+		final File directory = config.getDirectory();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			logger.error("Could not create spool directory {}. Metrics that could not be written will be lost.", directory);
+			return false;
+		}
+		try {
+			lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+			lock = lockChannel.tryLock();
+		} catch (final IOException | OverlappingFileLockException e) {
+			logger.debug("Failed to lock spool directory", e);
+		}
+		if (lock == null) {
+			logger.warn("Spool directory {} is used by another process. Metrics that could not be written will be lost.", directory);
+			closeQuietly(lockChannel);
+			lockChannel = null;
+			return false;
+		}
+		return true;
+	}
+
+	private void recover() {
+		final File[] files = config.getDirectory().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(final File file) {
+				return file.isFile() && file.getName().endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (final File file : files) {
+			try {
+				final long sequence = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+				final Segment segment = new Segment(sequence, file, (int) Math.min(file.length(), Integer.MAX_VALUE));
+				if (segment.recover()) {
+					segments.addLast(segment);
+					nextSequence = sequence + 1;
+				} else {
+					logger.warn("Deleting invalid spool segment {}", file);
+					segment.delete();
+				}
+			} catch (final NumberFormatException | IOException e) {
+				logger.warn("Ignoring spool segment " + file, e);
+			}
+		}
+		for (final Segment segment : segments) {
+			if (segment != segments.peekFirst() && segment != segments.peekLast()) {
+				segment.release();
+			}
+		}
+		if (pendingMetrics > 0) {
+			logger.info("Recovered {} spooled metrics in {} segments", pendingMetrics, segments.size());
+		}
+	}
+
+	/**
+	 * Stop the replayer thread, flush the segments to the disk and unlock the directory. Metrics appended afterwards are dropped until
+	 * the spool is started again.
+	 */
+	@Override
+	public void shutdown() {
+		final Thread thread;
+		synchronized (this) {
+			thread = replayer;
+			replayer = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(POLL_TIMEOUT);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			for (final Segment segment : segments) {
+				segment.release();
+			}
+			segments.clear();
+			pendingMetrics = 0;
+			unlockDirectory();
+		}
+	}
+
+	private void unlockDirectory() {
+		if (lock != null) {
+			try {
+				lock.release();
+			} catch (final IOException e) {
+				logger.debug("Failed to unlock spool directory", e);
+			}
+			lock = null;
+		}
+		closeQuietly(lockChannel);
+		lockChannel = null;
+	}
+
+	/**
+	 * Append the metrics to the spool. Metrics are dropped if the spool is disabled or if a single metric does not fit into a segment.
+	 */
+	public void append(final Metrics metrics) {
+		checkArgumentNotNull(metrics, "metrics");
+		if (metrics.isEmpty()) {
+			return;
+		}
+		final long created = System.currentTimeMillis();
+		synchronized (this) {
+			if (lock == null) {
+				droppedMetrics.addAndGet(metrics.size());
+				return;
+			}
+			try {
+				int index = 0;
+				while (index < metrics.size()) {
+					index = appendRecord(metrics, index, created);
+				}
+			} catch (final IOException e) {
+				throw new MetricWriteException("Failed to spool metrics", e);
+			}
+		}
+	}
+
+	/**
+	 * Append as many metrics as fit into one segment starting at the given index.
+	 *
+	 * @return the index of the first metric that was not appended
+	 */
+	private int appendRecord(final Metrics metrics, final int start, final long created) throws IOException {
+		final int maxRecordSize = config.getSegmentSize() - SEGMENT_HEADER_SIZE;
+		scratch.clear();
+		scratch.position(RECORD_HEADER_SIZE);
+		int index = start;
+		while (index < metrics.size()) {
+			final int mark = scratch.position();
+			encode(metrics, index);
+			if (scratch.position() > maxRecordSize) {
+				scratch.position(mark);
+				break;
+			}
+			index++;
+		}
+		if (index == start) {
+			logger.warn("Dropping metric {} because it does not fit into a spool segment", metrics.getName(index));
+			droppedMetrics.incrementAndGet();
+			return index + 1;
+		}
+		final int length = scratch.position();
+		final int count = index - start;
+		scratch.putInt(4, count);
+		scratch.putLong(8, created);
+
+		Segment segment = segments.peekLast();
+		if (segment == null || segment.size - segment.writeOffset < length) {
+			segment = rotate();
+		}
+		final ByteBuffer buffer = segment.map();
+		final int offset = segment.writeOffset;
+		scratch.limit(length);
+		scratch.position(4);
+		buffer.position(offset + 4);
+		buffer.put(scratch);
+		buffer.putInt(offset, length);
+		segment.writeOffset = offset + length;
+		pendingMetrics += count;
+		spooledMetrics.addAndGet(count);
+		return index;
+	}
+
+	private Segment rotate() throws IOException {
+		final Segment previous = segments.peekLast();
+		final long sequence = nextSequence++;
+		final Segment result = new Segment(sequence, new File(config.getDirectory(), String.format("%020d", sequence) + SEGMENT_SUFFIX),
+				config.getSegmentSize());
+		result.create();
+		segments.addLast(result);
+		if (previous != null && previous != segments.peekFirst()) {
+			previous.release();
+		}
+		while (segments.size() > 1 && (long) segments.size() * config.getSegmentSize() > config.getMaxSize()) {
+			final Segment oldest = segments.removeFirst();
+			final long dropped = oldest.countPending();
+			logger.warn("Spool is full, dropping {} metrics that were not replayed yet", dropped);
+			pendingMetrics -= dropped;
+			droppedMetrics.addAndGet(dropped);
+			oldest.delete();
+		}
+		return result;
+	}
+
+	private void encode(final Metrics metrics, final int index) {
+		putText(metrics.getName(index));
+		ensureScratch(9);
+		scratch.putLong(metrics.getTimestamp(index));
+		if (metrics.isLong(index)) {
+			ensureScratch(9);
+			scratch.put(TYPE_LONG).putLong(metrics.getLong(index));
+		} else if (metrics.isDouble(index)) {
+			ensureScratch(9);
+			scratch.put(TYPE_DOUBLE).putDouble(metrics.getDouble(index));
+		} else if (metrics.hasValue(index)) {
+			ensureScratch(1);
+			scratch.put(TYPE_TEXT);
+			putText(metrics.getValue(index).toString());
+		} else {
+			ensureScratch(1);
+			scratch.put(TYPE_NULL);
+		}
+	}
+
+	private void putText(final String text) {
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		ensureScratch(4 + bytes.length);
+		scratch.putInt(bytes.length).put(bytes);
+	}
+
+	private void ensureScratch(final int length) {
+		if (scratch.remaining() < length) {
+			final ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + length));
+			scratch.flip();
+			bigger.put(scratch);
+			scratch = bigger;
+		}
+	}
+
+	private static Metrics decode(final ByteBuffer buffer, final int count) {
+		final Metrics result = new Metrics(count);
+		for (int i = 0; i < count; i++) {
+			final String name = getText(buffer);
+			final long timestamp = buffer.getLong();
+			final byte type = buffer.get();
+			switch (type) {
+				case TYPE_LONG:
+					result.add(name, null, timestamp, buffer.getLong());
+					break;
+				case TYPE_DOUBLE:
+					result.add(name, null, timestamp, buffer.getDouble());
+					break;
+				case TYPE_TEXT:
+					result.add(name, null, timestamp, (Object) getText(buffer));
+					break;
+				default:
+					result.add(name, null, timestamp, (Object) null);
+			}
+		}
+		return result;
+	}
+
+	private static String getText(final ByteBuffer buffer) {
+		final byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void replayLoop() {
+		final Thread current = Thread.currentThread();
+		long backoff = INITIAL_BACKOFF;
+		long nextReplay = System.nanoTime();
+		while (replayer == current) {
+			try {
+				final Record record = nextRecord();
+				if (record == null) {
+					Thread.sleep(POLL_TIMEOUT);
+					continue;
+				}
+				final long wait = nextReplay - System.nanoTime();
+				if (wait > 0) {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				}
+				if (replay(record)) {
+					commit(record);
+					backoff = INITIAL_BACKOFF;
+					nextReplay = Math.max(nextReplay, System.nanoTime()) + TimeUnit.SECONDS.toNanos(record.count) / config.getReplayRate();
+				} else {
+					Thread.sleep(backoff / 2 + (long) (random.nextDouble() * backoff / 2));
+					backoff = Math.min(backoff * 2, TimeUnit.SECONDS.toMillis(config.getMaxBackoff()));
+				}
+			} catch (final InterruptedException e) {
+				break;
+			} catch (final IOException | RuntimeException e) {
+				logger.warn("Failed to read spooled metrics", e);
+				try {
+					Thread.sleep(POLL_TIMEOUT);
+				} catch (final InterruptedException ie) {
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the oldest record that was not replayed yet or {@code null} if there is none. Drops expired records and deletes
+	 *         segments that were replayed completely.
+	 */
+	private synchronized Record nextRecord() throws IOException {
+		final long expiredBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getMaxAge());
+		while (!segments.isEmpty()) {
+			final Segment head = segments.peekFirst();
+			final ByteBuffer buffer = head.map();
+			final int offset = buffer.getInt(READ_OFFSET_POSITION);
+			if (offset < head.writeOffset) {
+				final int length = buffer.getInt(offset);
+				final int count = buffer.getInt(offset + 4);
+				final long created = buffer.getLong(offset + 8);
+				if (created < expiredBefore) {
+					buffer.putInt(READ_OFFSET_POSITION, offset + length);
+					pendingMetrics -= count;
+					expiredMetrics.addAndGet(count);
+					continue;
+				}
+				final byte[] data = new byte[length - RECORD_HEADER_SIZE];
+				final ByteBuffer source = buffer.duplicate();
+				source.position(offset + RECORD_HEADER_SIZE);
+				source.get(data);
+				return new Record(head, offset, length, count, data);
+			}
+			if (head == segments.peekLast()) {
+				return null;
+			}
+			segments.removeFirst();
+			head.delete();
+		}
+		return null;
+	}
+
+	private boolean replay(final Record record) {
+		final Metrics metrics = decode(ByteBuffer.wrap(record.data), record.count);
+		try {
+			writer.open();
+			try {
+				writer.write(metrics);
+			} finally {
+				writer.close();
+			}
+			logger.debug("Replayed {} spooled metrics", record.count);
+			return true;
+		} catch (final RuntimeException e) {
+			replayFailures.incrementAndGet();
+			logger.debug("Failed to replay spooled metrics", e);
+			return false;
+		}
+	}
+
+	private synchronized void commit(final Record record) throws IOException {
+		replayedMetrics.addAndGet(record.count);
+		if (segments.peekFirst() == record.segment) {
+			final ByteBuffer buffer = record.segment.map();
+			if (buffer.getInt(READ_OFFSET_POSITION) == record.offset) {
+				buffer.putInt(READ_OFFSET_POSITION, record.offset + record.length);
+				pendingMetrics -= record.count;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of spooled metrics waiting to be replayed
+	 */
+	public synchronized long getPendingMetrics() {
+		return pendingMetrics;
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "outputs." + name + ".spool.";
+		final Map<String, Object> result = new HashMap<>();
+		synchronized (this) {
+			result.put(prefix + "pendingMetrics", pendingMetrics);
+			result.put(prefix + "segments", segments.size());
+		}
+		result.put(prefix + "spooledMetrics", spooledMetrics.get());
+		result.put(prefix + "replayedMetrics", replayedMetrics.get());
+		result.put(prefix + "droppedMetrics", droppedMetrics.get());
+		result.put(prefix + "expiredMetrics", expiredMetrics.get());
+		result.put(prefix + "replayFailureCount", replayFailures.get());
+		return result;
+	}
+
+	private static void closeQuietly(final FileChannel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getDirectory() + "]";
+	}
+
+	/**
+	 * A segment file. Only the oldest segment (being replayed) and the newest segment (being appended to) are kept mapped.
+	 */
+	private final class Segment {
+		private final long sequence;
+		private final File file;
+		/**
+		 * The size of the file which might differ from the configured segment size for recovered segments.
+		 */
+		private final int size;
+		private MappedByteBuffer buffer;
+		private int writeOffset = SEGMENT_HEADER_SIZE;
+
+		private Segment(final long sequence, final File file, final int size) {
+			this.sequence = sequence;
+			this.file = file;
+			this.size = size;
+		}
+
+		private void create() throws IOException {
+			final ByteBuffer buffer = map();
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(READ_OFFSET_POSITION, SEGMENT_HEADER_SIZE);
+			writeOffset = SEGMENT_HEADER_SIZE;
+		}
+
+		/**
+		 * Find the end of the last complete record and count the metrics that were not replayed yet.
+		 *
+		 * @return {@code false} if the file is not a valid segment
+		 */
+		private boolean recover() throws IOException {
+			if (size < SEGMENT_HEADER_SIZE) {
+				return false;
+			}
+			final ByteBuffer buffer = map();
+			final int readOffset = buffer.getInt(READ_OFFSET_POSITION);
+			if (buffer.getInt(0) != MAGIC || readOffset < SEGMENT_HEADER_SIZE) {
+				return false;
+			}
+			int offset = SEGMENT_HEADER_SIZE;
+			while (offset + RECORD_HEADER_SIZE <= size) {
+				final int length = buffer.getInt(offset);
+				if (length < RECORD_HEADER_SIZE || offset + length > size) {
+					break;
+				}
+				if (offset >= readOffset) {
+					pendingMetrics += buffer.getInt(offset + 4);
+				}
+				offset += length;
+			}
+			writeOffset = offset;
+			if (readOffset > writeOffset) {
+				buffer.putInt(READ_OFFSET_POSITION, writeOffset);
+			}
+			return true;
+		}
+
+		private long countPending() throws IOException {
+			final ByteBuffer buffer = map();
+			long result = 0;
+			for (int offset = buffer.getInt(READ_OFFSET_POSITION); offset < writeOffset; offset += buffer.getInt(offset)) {
+				result += buffer.getInt(offset + 4);
+			}
+			return result;
+		}
+
+		private MappedByteBuffer map() throws IOException {
+			if (buffer == null) {
+				try (final RandomAccessFile raf = new RandomAccessFile(file, "rw"); final FileChannel channel = raf.getChannel()) {
+					if (raf.length() < size) {
+						raf.setLength(size);
+					}
+					buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				}
+			}
+			return buffer;
+		}
+
+		/**
+		 * Flush the mapped buffer and drop it so that it can be unmapped.
+		 */
+		private void release() {
+			if (buffer != null) {
+				buffer.force();
+				buffer = null;
+			}
+		}
+
+		private void delete() {
+			buffer = null;
+			if (!file.delete()) {
+				logger.warn("Failed to delete spool segment {}", file);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Segment[" + sequence + "]";
+		}
+	}
+
+	private static final class Record {
+		private final Segment segment;
+		private final int offset;
+		private final int length;
+		private final int count;
+		private final byte[] data;
+
+		private Record(final Segment segment, final int offset, final int length, final int count, final byte[] data) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.count = count;
+			this.data = data;
+		}
+	}
+}
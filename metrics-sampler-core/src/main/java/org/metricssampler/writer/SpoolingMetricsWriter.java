@@ -0,0 +1,78 @@
+package org.metricssampler.writer;
+
+import org.metricssampler.reader.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Wraps the writer of an output and appends the metrics to the {@link MetricsSpool} of the output if they could not be written, e.g.
+ * because the output is down. The spool replays them once the output recovers. New metrics are always written directly so they do not
+ * wait for the spooled ones.
+ */
+public class SpoolingMetricsWriter implements MetricsWriter {
+	private final Logger logger;
+	private final MetricsWriter writer;
+	private final MetricsSpool spool;
+	private boolean opened;
+	private boolean spooling;
+
+	public SpoolingMetricsWriter(final String name, final MetricsWriter writer, final MetricsSpool spool) {
+		checkArgumentNotNull(name, "name");
+		checkArgumentNotNull(writer, "writer");
+		checkArgumentNotNull(spool, "spool");
+		this.logger = LoggerFactory.getLogger("writer." + name);
+		this.writer = writer;
+		this.spool = spool;
+	}
+
+	@Override
+	public void open() {
+		try {
+			writer.open();
+			opened = true;
+		} catch (final MetricWriteException e) {
+			opened = false;
+			logger.debug("Failed to open " + writer, e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (opened) {
+			opened = false;
+			try {
+				writer.close();
+			} catch (final MetricWriteException e) {
+				logger.debug("Failed to close " + writer, e);
+			}
+		}
+	}
+
+	@Override
+	public void write(final Metrics metrics) {
+		if (opened) {
+			try {
+				writer.write(metrics);
+				if (spooling) {
+					spooling = false;
+					logger.info("{} recovered, no longer spooling", writer);
+				}
+				return;
+			} catch (final MetricWriteException e) {
+				logger.debug("Failed to write to " + writer, e);
+			}
+		}
+		if (!spooling) {
+			spooling = true;
+			logger.warn("Failed to write to {}, spooling the metrics until it recovers", writer);
+		}
+		spool.append(metrics);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + writer + "]";
+	}
+}
@@ -0,0 +1,120 @@
+package org.metricssampler.writer.columnar;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array with variable length encoding of integers. The array is reused after {@link #reset()} so that steady-state
+ * encoding does not allocate. Bits can be appended using {@link #putBits(long, int)} and must be completed with {@link #flushBits()}
+ * before any bytes are appended again. This class is not thread safe.
+ */
+class ByteSink {
+	private byte[] data;
+	private int size;
+	private long bits;
+	private int bitCount;
+
+	ByteSink(final int initialCapacity) {
+		data = new byte[Math.max(initialCapacity, 16)];
+	}
+
+	void reset() {
+		size = 0;
+		bits = 0;
+		bitCount = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	byte[] array() {
+		return data;
+	}
+
+	private void ensureCapacity(final int additional) {
+		if (size + additional > data.length) {
+			data = Arrays.copyOf(data, Math.max(size + additional, data.length + (data.length >> 1)));
+		}
+	}
+
+	void put(final byte value) {
+		ensureCapacity(1);
+		data[size++] = value;
+	}
+
+	void put(final byte[] bytes, final int offset, final int length) {
+		ensureCapacity(length);
+		System.arraycopy(bytes, offset, data, size, length);
+		size += length;
+	}
+
+	void put(final ByteSink other) {
+		put(other.data, 0, other.size);
+	}
+
+	void putInt(final int value) {
+		ensureCapacity(4);
+		data[size++] = (byte) (value >>> 24);
+		data[size++] = (byte) (value >>> 16);
+		data[size++] = (byte) (value >>> 8);
+		data[size++] = (byte) value;
+	}
+
+	/**
+	 * Append an unsigned LEB128 variable length integer (7 bits per byte).
+	 */
+	void putVarLong(final long value) {
+		ensureCapacity(10);
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			data[size++] = (byte) ((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		data[size++] = (byte) remaining;
+	}
+
+	/**
+	 * Append a signed variable length integer using zig-zag encoding so that small negative values are short too.
+	 */
+	void putZigZag(final long value) {
+		putVarLong((value << 1) ^ (value >> 63));
+	}
+
+	void putString(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putVarLong(bytes.length);
+		put(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Append the lowest {@code count} bits of the value (most significant first).
+	 */
+	void putBits(final long value, final int count) {
+		for (int remaining = count; remaining > 0; ) {
+			final int chunk = Math.min(remaining, 56 - bitCount);
+			remaining -= chunk;
+			bits = (bits << chunk) | ((value >>> remaining) & ((1L << chunk) - 1));
+			bitCount += chunk;
+			while (bitCount >= 8) {
+				bitCount -= 8;
+				put((byte) (bits >>> bitCount));
+			}
+		}
+	}
+
+	void putBit(final boolean value) {
+		putBits(value ? 1 : 0, 1);
+	}
+
+	/**
+	 * Pad the pending bits with zeros to a full byte.
+	 */
+	void flushBits() {
+		if (bitCount > 0) {
+			put((byte) (bits << (8 - bitCount)));
+		}
+		bits = 0;
+		bitCount = 0;
+	}
+}
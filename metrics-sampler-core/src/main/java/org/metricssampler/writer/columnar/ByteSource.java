@@ -0,0 +1,95 @@
+package org.metricssampler.writer.columnar;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what a {@link ByteSink} wrote from a range of a byte array. This class is not thread safe.
+ */
+class ByteSource {
+	private final byte[] data;
+	private final int limit;
+	private int position;
+	private long bits;
+	private int bitCount;
+
+	ByteSource(final byte[] data, final int offset, final int length) {
+		if (offset < 0 || length < 0 || offset + length > data.length) {
+			throw new ColumnarFormatException("Section [" + offset + ", " + (offset + length) + ") exceeds the block of " + data.length + " bytes");
+		}
+		this.data = data;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	int position() {
+		return position;
+	}
+
+	void skip(final int length) {
+		if (length > limit - position) {
+			throw new ColumnarFormatException("Can not skip " + length + " bytes past the end of the section");
+		}
+		position += length;
+	}
+
+	byte get() {
+		if (position >= limit) {
+			throw new ColumnarFormatException("Unexpected end of section");
+		}
+		return data[position++];
+	}
+
+	long getVarLong() {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte value = get();
+			result |= (long) (value & 0x7F) << shift;
+			if ((value & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new ColumnarFormatException("Malformed variable length integer");
+	}
+
+	int getVarInt() {
+		final long result = getVarLong();
+		if (result < 0 || result > Integer.MAX_VALUE) {
+			throw new ColumnarFormatException("Integer out of range: " + result);
+		}
+		return (int) result;
+	}
+
+	long getZigZag() {
+		final long value = getVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	String getString() {
+		final int length = getVarInt();
+		if (length > limit - position) {
+			throw new ColumnarFormatException("String of " + length + " bytes exceeds the section");
+		}
+		final String result = new String(data, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return result;
+	}
+
+	long getBits(final int count) {
+		long result = 0;
+		for (int remaining = count; remaining > 0; ) {
+			if (bitCount == 0) {
+				bits = get() & 0xFF;
+				bitCount = 8;
+			}
+			final int chunk = Math.min(remaining, bitCount);
+			bitCount -= chunk;
+			result = (result << chunk) | ((bits >>> bitCount) & ((1L << chunk) - 1));
+			remaining -= chunk;
+		}
+		return result;
+	}
+
+	boolean getBit() {
+		return getBits(1) != 0;
+	}
+}
@@ -0,0 +1,142 @@
+package org.metricssampler.writer.columnar;
+
+import org.metricssampler.reader.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.metricssampler.writer.columnar.ColumnarBlockEncoder.NO_WINDOW;
+import static org.metricssampler.writer.columnar.ColumnarBlockEncoder.TYPE_DOUBLE;
+import static org.metricssampler.writer.columnar.ColumnarBlockEncoder.TYPE_LONG;
+import static org.metricssampler.writer.columnar.ColumnarBlockEncoder.TYPE_TEXT;
+
+/**
+ * Decodes the blocks written by {@link ColumnarBlockEncoder}. The blocks must be decoded in the order they were encoded. This class is
+ * not thread safe.
+ */
+class ColumnarBlockDecoder {
+	private final List<String> dictionary = new ArrayList<>();
+	private long[] previousValues = new long[64];
+	private byte[] previousLeading = new byte[64];
+	private byte[] previousTrailing = new byte[64];
+	private long previousTimestamp;
+	private long previousDelta;
+	private int previousId = -1;
+
+	ColumnarBlockDecoder() {
+		Arrays.fill(previousLeading, (byte) NO_WINDOW);
+	}
+
+	Metrics decode(final byte[] data, final int length) {
+		final ByteSource header = new ByteSource(data, 0, length);
+		final int count = header.getVarInt();
+		final int newNames = header.getVarInt();
+		for (int i = 0; i < newNames; i++) {
+			dictionary.add(header.getString());
+		}
+		ensureCapacity(dictionary.size());
+		final ByteSource ids = section(header, data);
+		final ByteSource timestamps = section(header, data);
+		final ByteSource types = section(header, data);
+		final ByteSource longs = section(header, data);
+		final ByteSource texts = section(header, data);
+		final ByteSource doubles = section(header, data);
+
+		final Metrics result = new Metrics(count);
+		for (int i = 0; i < count; i++) {
+			final long id = previousId + 1 + ids.getZigZag();
+			if (id < 0 || id >= dictionary.size()) {
+				throw new ColumnarFormatException("Unknown name id " + id);
+			}
+			previousId = (int) id;
+			final String name = dictionary.get(previousId);
+			final long timestamp = decodeTimestamp(timestamps);
+			switch ((int) types.getBits(2)) {
+				case TYPE_LONG:
+					final long value = previousValues[previousId] + longs.getZigZag();
+					previousValues[previousId] = value;
+					result.add(name, null, timestamp, value);
+					break;
+				case TYPE_DOUBLE:
+					result.add(name, null, timestamp, Double.longBitsToDouble(decodeDouble(doubles, previousId)));
+					break;
+				case TYPE_TEXT:
+					result.add(name, timestamp, texts.getString());
+					break;
+				default:
+					result.add(name, timestamp, null);
+					break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return a source for the next section of the block (the block source is moved past it)
+	 */
+	private static ByteSource section(final ByteSource block, final byte[] data) {
+		final int length = block.getVarInt();
+		final ByteSource result = new ByteSource(data, block.position(), length);
+		block.skip(length);
+		return result;
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > previousValues.length) {
+			final int oldCapacity = previousValues.length;
+			final int newCapacity = Math.max(capacity, oldCapacity * 2);
+			previousValues = Arrays.copyOf(previousValues, newCapacity);
+			previousLeading = Arrays.copyOf(previousLeading, newCapacity);
+			previousTrailing = Arrays.copyOf(previousTrailing, newCapacity);
+			Arrays.fill(previousLeading, oldCapacity, newCapacity, (byte) NO_WINDOW);
+		}
+	}
+
+	private long decodeTimestamp(final ByteSource source) {
+		final long deltaOfDelta;
+		if (!source.getBit()) {
+			deltaOfDelta = 0;
+		} else if (!source.getBit()) {
+			deltaOfDelta = signed(source.getBits(7), 7);
+		} else if (!source.getBit()) {
+			deltaOfDelta = signed(source.getBits(9), 9);
+		} else if (!source.getBit()) {
+			deltaOfDelta = signed(source.getBits(12), 12);
+		} else {
+			deltaOfDelta = source.getBits(64);
+		}
+		previousDelta += deltaOfDelta;
+		previousTimestamp += previousDelta;
+		return previousTimestamp;
+	}
+
+	private static long signed(final long value, final int bits) {
+		return (value << (64 - bits)) >> (64 - bits);
+	}
+
+	private long decodeDouble(final ByteSource source, final int id) {
+		if (!source.getBit()) {
+			return previousValues[id];
+		}
+		final long xor;
+		if (!source.getBit()) {
+			if (previousLeading[id] == NO_WINDOW) {
+				throw new ColumnarFormatException("Missing window for name id " + id);
+			}
+			xor = source.getBits(64 - previousLeading[id] - previousTrailing[id]) << previousTrailing[id];
+		} else {
+			final int leading = (int) source.getBits(5);
+			final int significant = (int) source.getBits(6) + 1;
+			final int trailing = 64 - leading - significant;
+			if (trailing < 0) {
+				throw new ColumnarFormatException("Invalid window for name id " + id);
+			}
+			xor = source.getBits(significant) << trailing;
+			previousLeading[id] = (byte) leading;
+			previousTrailing[id] = (byte) trailing;
+		}
+		previousValues[id] ^= xor;
+		return previousValues[id];
+	}
+}
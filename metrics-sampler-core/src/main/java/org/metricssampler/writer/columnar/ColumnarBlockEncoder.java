@@ -0,0 +1,187 @@
+package org.metricssampler.writer.columnar;
+
+import org.metricssampler.reader.Metrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes batches of metrics as columnar blocks. A block consists of the number of metrics, the names added to the dictionary by this
+ * block and the following columns (each prefixed by its length in bytes):
+ * <ul>
+ * <li>name ids - the index of the name in the dictionary relative to the index of the previous name plus one</li>
+ * <li>timestamps - delta-of-delta encoded</li>
+ * <li>types - two bits per metric</li>
+ * <li>long values - delta to the previous long value of the same name</li>
+ * <li>text values - UTF-8</li>
+ * <li>double values - XOR to the previous double value of the same name as described in the Gorilla paper (Pelkonen et al.)</li>
+ * </ul>
+ * The dictionary and the previous values are kept across blocks so blocks can only be decoded in order and starting with the first one
+ * (of a file). Descriptions are not encoded. This class is not thread safe.
+ */
+class ColumnarBlockEncoder {
+	static final int TYPE_NULL = 0;
+	static final int TYPE_LONG = 1;
+	static final int TYPE_DOUBLE = 2;
+	static final int TYPE_TEXT = 3;
+	static final int NO_WINDOW = 64;
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final ByteSink names = new ByteSink(1024);
+	private final ByteSink ids = new ByteSink(1024);
+	private final ByteSink timestamps = new ByteSink(1024);
+	private final ByteSink types = new ByteSink(256);
+	private final ByteSink longs = new ByteSink(1024);
+	private final ByteSink texts = new ByteSink(256);
+	private final ByteSink doubles = new ByteSink(1024);
+	private long[] previousValues = new long[64];
+	private byte[] previousLeading = new byte[64];
+	private byte[] previousTrailing = new byte[64];
+	private long previousTimestamp;
+	private long previousDelta;
+	private int previousId = -1;
+
+	ColumnarBlockEncoder() {
+		Arrays.fill(previousLeading, (byte) NO_WINDOW);
+	}
+
+	/**
+	 * Append the block for the metrics to the sink.
+	 */
+	void encode(final Metrics metrics, final ByteSink out) {
+		names.reset();
+		ids.reset();
+		timestamps.reset();
+		types.reset();
+		longs.reset();
+		texts.reset();
+		doubles.reset();
+		int newNames = 0;
+		for (int i = 0; i < metrics.size(); i++) {
+			final String name = metrics.getName(i);
+			Integer id = dictionary.get(name);
+			if (id == null) {
+				id = dictionary.size();
+				dictionary.put(name, id);
+				names.putString(name);
+				newNames++;
+				ensureCapacity(id + 1);
+			}
+			ids.putZigZag(id - previousId - 1);
+			previousId = id;
+			encodeTimestamp(metrics.getTimestamp(i));
+			encodeValue(metrics, i, id);
+		}
+		timestamps.flushBits();
+		types.flushBits();
+		doubles.flushBits();
+
+		out.putVarLong(metrics.size());
+		out.putVarLong(newNames);
+		out.put(names);
+		putSection(out, ids);
+		putSection(out, timestamps);
+		putSection(out, types);
+		putSection(out, longs);
+		putSection(out, texts);
+		putSection(out, doubles);
+	}
+
+	private static void putSection(final ByteSink out, final ByteSink section) {
+		out.putVarLong(section.size());
+		out.put(section);
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity > previousValues.length) {
+			final int oldCapacity = previousValues.length;
+			final int newCapacity = Math.max(capacity, oldCapacity * 2);
+			previousValues = Arrays.copyOf(previousValues, newCapacity);
+			previousLeading = Arrays.copyOf(previousLeading, newCapacity);
+			previousTrailing = Arrays.copyOf(previousTrailing, newCapacity);
+			Arrays.fill(previousLeading, oldCapacity, newCapacity, (byte) NO_WINDOW);
+		}
+	}
+
+	/**
+	 * Encode the delta-of-delta using a variable number of bits (as in the Gorilla paper): 0 for an unchanged delta, 10 followed by 7
+	 * bits, 110 followed by 9 bits, 1110 followed by 12 bits or 1111 followed by 64 bits.
+	 */
+	private void encodeTimestamp(final long timestamp) {
+		final long delta = timestamp - previousTimestamp;
+		final long deltaOfDelta = delta - previousDelta;
+		previousTimestamp = timestamp;
+		previousDelta = delta;
+		if (deltaOfDelta == 0) {
+			timestamps.putBit(false);
+		} else if (fits(deltaOfDelta, 7)) {
+			timestamps.putBits(0b10, 2);
+			timestamps.putBits(deltaOfDelta, 7);
+		} else if (fits(deltaOfDelta, 9)) {
+			timestamps.putBits(0b110, 3);
+			timestamps.putBits(deltaOfDelta, 9);
+		} else if (fits(deltaOfDelta, 12)) {
+			timestamps.putBits(0b1110, 4);
+			timestamps.putBits(deltaOfDelta, 12);
+		} else {
+			timestamps.putBits(0b1111, 4);
+			timestamps.putBits(deltaOfDelta, 64);
+		}
+	}
+
+	/**
+	 * @return {@code true} if the value can be represented as a two's complement number with the given number of bits
+	 */
+	private static boolean fits(final long value, final int bits) {
+		return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+	}
+
+	private void encodeValue(final Metrics metrics, final int index, final int id) {
+		if (metrics.isLong(index)) {
+			types.putBits(TYPE_LONG, 2);
+			final long value = metrics.getLong(index);
+			longs.putZigZag(value - previousValues[id]);
+			previousValues[id] = value;
+		} else if (metrics.isDouble(index)) {
+			types.putBits(TYPE_DOUBLE, 2);
+			encodeDouble(Double.doubleToRawLongBits(metrics.getDouble(index)), id);
+		} else if (metrics.hasValue(index)) {
+			types.putBits(TYPE_TEXT, 2);
+			texts.putString(metrics.getValue(index).toString());
+		} else {
+			types.putBits(TYPE_NULL, 2);
+		}
+	}
+
+	private void encodeDouble(final long bits, final int id) {
+		final long xor = bits ^ previousValues[id];
+		previousValues[id] = bits;
+		if (xor == 0) {
+			doubles.putBit(false);
+			return;
+		}
+		doubles.putBit(true);
+		final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+		final int trailing = Long.numberOfTrailingZeros(xor);
+		if (leading >= previousLeading[id] && trailing >= previousTrailing[id]) {
+			doubles.putBit(false);
+			doubles.putBits(xor >>> previousTrailing[id], 64 - previousLeading[id] - previousTrailing[id]);
+		} else {
+			final int significant = 64 - leading - trailing;
+			doubles.putBit(true);
+			doubles.putBits(leading, 5);
+			doubles.putBits(significant - 1, 6);
+			doubles.putBits(xor >>> trailing, significant);
+			previousLeading[id] = (byte) leading;
+			previousTrailing[id] = (byte) trailing;
+		}
+	}
+
+	/**
+	 * @return the number of names in the dictionary
+	 */
+	int getDictionarySize() {
+		return dictionary.size();
+	}
+}
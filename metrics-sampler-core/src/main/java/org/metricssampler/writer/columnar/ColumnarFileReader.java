@@ -0,0 +1,127 @@
+package org.metricssampler.writer.columnar;
+
+import org.metricssampler.reader.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.writer.columnar.ColumnarFileWriter.FLAG_DEFLATE;
+import static org.metricssampler.writer.columnar.ColumnarFileWriter.MAGIC;
+import static org.metricssampler.writer.columnar.ColumnarFileWriter.VERSION;
+
+/**
+ * Reads the blocks of a file written by {@link ColumnarFileWriter} in order. A partially written last block is treated as the end of
+ * the file (see {@link #isTruncated()}). This class is not thread safe.
+ */
+public class ColumnarFileReader implements Closeable {
+	private final File file;
+	private final DataInputStream input;
+	private final ColumnarBlockDecoder decoder = new ColumnarBlockDecoder();
+	private final Inflater inflater;
+	private byte[] stored = new byte[64 * 1024];
+	private byte[] raw = new byte[64 * 1024];
+	private boolean truncated;
+
+	/**
+	 * @throws ColumnarFormatException if the file is not a columnar metrics file
+	 * @throws IOException if the file could not be read
+	 */
+	public ColumnarFileReader(final File file) throws IOException {
+		checkArgumentNotNull(file, "file");
+		this.file = file;
+		this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+		try {
+			final int magic = input.readInt();
+			final byte version = input.readByte();
+			final byte flags = input.readByte();
+			if (magic != MAGIC) {
+				throw new ColumnarFormatException(file + " is not a columnar metrics file");
+			}
+			if (version != VERSION) {
+				throw new ColumnarFormatException("Unsupported version " + version + " of " + file);
+			}
+			inflater = (flags & FLAG_DEFLATE) != 0 ? new Inflater() : null;
+		} catch (final EOFException e) {
+			input.close();
+			throw new ColumnarFormatException(file + " is not a columnar metrics file");
+		} catch (final IOException | RuntimeException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the metrics of the next block or {@code null} if there are no more (complete) blocks
+	 * @throws ColumnarFormatException if the block is malformed
+	 * @throws IOException if the file could not be read
+	 */
+	public Metrics next() throws IOException {
+		if (truncated) {
+			return null;
+		}
+		final int storedLength;
+		final int rawLength;
+		try {
+			storedLength = input.readInt();
+		} catch (final EOFException e) {
+			return null;
+		}
+		try {
+			rawLength = input.readInt();
+			if (storedLength < 0 || rawLength < 0) {
+				throw new ColumnarFormatException("Invalid block length in " + file);
+			}
+			stored = ensureCapacity(stored, storedLength);
+			input.readFully(stored, 0, storedLength);
+		} catch (final EOFException e) {
+			truncated = true;
+			return null;
+		}
+		if (inflater == null) {
+			return decoder.decode(stored, storedLength);
+		}
+		raw = ensureCapacity(raw, rawLength);
+		inflate(storedLength, rawLength);
+		return decoder.decode(raw, rawLength);
+	}
+
+	private void inflate(final int storedLength, final int rawLength) {
+		inflater.reset();
+		inflater.setInput(stored, 0, storedLength);
+		try {
+			final int length = inflater.inflate(raw, 0, rawLength);
+			if (length != rawLength || !inflater.finished()) {
+				throw new ColumnarFormatException("Block of " + file + " inflated to " + length + " instead of " + rawLength + " bytes");
+			}
+		} catch (final DataFormatException e) {
+			throw new ColumnarFormatException("Corrupt block in " + file + ": " + e.getMessage());
+		}
+	}
+
+	private static byte[] ensureCapacity(final byte[] buffer, final int capacity) {
+		return buffer.length >= capacity ? buffer : new byte[Math.max(capacity, buffer.length * 2)];
+	}
+
+	/**
+	 * @return {@code true} if the last block of the file was only partially written
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (inflater != null) {
+			inflater.end();
+		}
+		input.close();
+	}
+}
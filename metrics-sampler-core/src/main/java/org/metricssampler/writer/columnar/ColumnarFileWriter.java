@@ -0,0 +1,147 @@
+package org.metricssampler.writer.columnar;
+
+import org.metricssampler.reader.Metrics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Writes batches of metrics to a new file as columnar blocks (see {@link ColumnarBlockEncoder}), optionally compressed using deflate.
+ * The file starts with a magic number, the format version and flags. Each block is preceded by its stored and its uncompressed length.
+ * Blocks are not synced to the disk explicitly - a block that was only partially written (e.g. because the process was killed) is
+ * ignored by the {@link ColumnarFileReader}. Read the files using {@link ColumnarFileReader}. This class is not thread safe.
+ */
+public class ColumnarFileWriter implements Closeable {
+	/**
+	 * The suffix of columnar metrics files.
+	 */
+	public static final String FILE_SUFFIX = ".mcf";
+	static final int MAGIC = 0x4d534346;
+	static final byte VERSION = 1;
+	static final byte FLAG_DEFLATE = 1;
+	static final int FILE_HEADER_SIZE = 6;
+	static final int BLOCK_HEADER_SIZE = 8;
+
+	private final File file;
+	private final FileChannel channel;
+	private final ColumnarBlockEncoder encoder = new ColumnarBlockEncoder();
+	private final ByteSink raw = new ByteSink(64 * 1024);
+	private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	private final Deflater deflater;
+	private byte[] compressed;
+	private long size;
+	private long blocks;
+	private boolean failed;
+
+	/**
+	 * @param file the file to create. It must not exist yet.
+	 * @param compress whether to compress the blocks using deflate
+	 * @throws java.nio.file.FileAlreadyExistsException if the file already exists
+	 * @throws IOException if the file could not be created
+	 */
+	public ColumnarFileWriter(final File file, final boolean compress) throws IOException {
+		checkArgumentNotNull(file, "file");
+		this.file = file;
+		this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+		this.compressed = compress ? new byte[64 * 1024] : null;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		try {
+			final ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+			fileHeader.putInt(MAGIC).put(VERSION).put(compress ? FLAG_DEFLATE : 0).flip();
+			writeFully(fileHeader);
+			size = FILE_HEADER_SIZE;
+		} catch (final IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Append the metrics as a single block. Empty batches are not written. Once a block could not be written the file can not be
+	 * appended to anymore (as the following blocks depend on it) and a new file should be used.
+	 *
+	 * @throws IOException if the block could not be written or a previous block failed
+	 */
+	public void write(final Metrics metrics) throws IOException {
+		checkArgumentNotNull(metrics, "metrics");
+		if (failed) {
+			throw new IOException("A previous block could not be written to " + file);
+		}
+		if (metrics.isEmpty()) {
+			return;
+		}
+		failed = true;
+		raw.reset();
+		encoder.encode(metrics, raw);
+		final ByteBuffer payload = deflater != null ? deflate() : ByteBuffer.wrap(raw.array(), 0, raw.size());
+		header.clear();
+		header.putInt(payload.remaining()).putInt(raw.size()).flip();
+		final long length = BLOCK_HEADER_SIZE + payload.remaining();
+		writeFully(header);
+		writeFully(payload);
+		failed = false;
+		size += length;
+		blocks++;
+	}
+
+	private ByteBuffer deflate() {
+		deflater.reset();
+		deflater.setInput(raw.array(), 0, raw.size());
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		return ByteBuffer.wrap(compressed, 0, length);
+	}
+
+	private void writeFully(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of bytes written to the file so far
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of blocks written to the file so far
+	 */
+	public long getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * @return the number of distinct metric names written to the file so far
+	 */
+	public int getNames() {
+		return encoder.getDictionarySize();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (deflater != null) {
+			deflater.end();
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,12 @@
+package org.metricssampler.writer.columnar;
+
+/**
+ * Raised if a columnar file or block is malformed.
+ */
+public class ColumnarFormatException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public ColumnarFormatException(final String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,50 @@
+package org.metricssampler.reader;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricValueTest {
+	@Test
+	public void parseLong() {
+		assertEquals(123L, MetricValue.parse("123"));
+		assertEquals(-5L, MetricValue.parse("-5"));
+	}
+
+	@Test
+	public void parseDouble() {
+		assertEquals(1.5d, MetricValue.parse("1.5"));
+		assertEquals(-0.25d, MetricValue.parse("-0.25"));
+	}
+
+	@Test
+	public void parseKeepsNonCanonicalNumbers() {
+		assertEquals("007", MetricValue.parse("007"));
+		assertEquals("1.50", MetricValue.parse("1.50"));
+		assertEquals("99999999999999999999", MetricValue.parse("99999999999999999999"));
+	}
+
+	@Test
+	public void parseKeepsText() {
+		assertEquals("abc", MetricValue.parse("abc"));
+		assertEquals("1-2", MetricValue.parse("1-2"));
+		assertEquals("", MetricValue.parse(""));
+		assertNull(MetricValue.parse(null));
+	}
+
+	@Test
+	public void addParsedStoresPrimitives() {
+		final Metrics metrics = new Metrics();
+		metrics.addParsed("a", 1L, "10");
+		metrics.addParsed("b", 1L, "0.5");
+		metrics.addParsed("c", 1L, "text");
+
+		assertTrue(metrics.isLong(0));
+		assertEquals(10L, metrics.getLong(0));
+		assertTrue(metrics.isDouble(1));
+		assertEquals(0.5d, metrics.getDouble(1), 0d);
+		assertFalse(metrics.isLong(2));
+		assertFalse(metrics.isDouble(2));
+		assertEquals("text", metrics.getValue(2));
+	}
+}
@@ -0,0 +1,89 @@
+package org.metricssampler.reader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+	@Test
+	public void storesValuesOfAllTypes() {
+		final Metrics testee = new Metrics(1);
+		testee.add("long", "a long", 1L, 42L);
+		testee.add("double", null, 2L, 0.25d);
+		testee.add("string", null, 3L, (Object) "text");
+		testee.add("integer", null, 4L, (Object) 7);
+		testee.add("null", null, 5L, (Object) null);
+
+		assertEquals(5, testee.size());
+		assertEquals("a long", testee.getDescription(0));
+		assertEquals(42L, testee.getValue(0));
+		assertEquals(0.25d, testee.getValue(1));
+		assertEquals("text", testee.getValue(2));
+		assertEquals(7, testee.getValue(3));
+		assertNull(testee.getValue(4));
+		assertFalse(testee.hasValue(4));
+		assertEquals(5L, testee.getTimestamp(4));
+		assertEquals("42 0.25 text 7", testee.appendValue(0, new StringBuilder()).append(' ')
+				.append(testee.appendValue(1, new StringBuilder())).append(' ')
+				.append(testee.appendValue(2, new StringBuilder())).append(' ')
+				.append(testee.appendValue(3, new StringBuilder())).toString());
+	}
+
+	@Test
+	public void iterableView() {
+		final MetricName name = new SimpleMetricName("original", "description");
+		final Metrics testee = new Metrics();
+		testee.add(name, new MetricValue(1L, "1"));
+		testee.add("added", 2L, (Object) 2L);
+
+		final List<Metric> result = new ArrayList<>();
+		for (final Metric metric : testee) {
+			result.add(metric);
+		}
+
+		assertEquals(2, result.size());
+		assertSame(name, result.get(0).getName());
+		assertEquals(new MetricValue(1L, "1"), result.get(0).getValue());
+		assertEquals("added", result.get(1).getName().getName());
+		assertEquals(new MetricValue(2L, 2L), result.get(1).getValue());
+	}
+
+	@Test
+	public void getByName() {
+		final Metrics testee = new Metrics();
+		testee.add("a", 1L, (Object) "1");
+		testee.add("b", 2L, (Object) "2");
+		assertEquals("2", testee.get("b").get().getValue().getValue());
+		// the index must be updated by further additions
+		testee.add("a", 3L, (Object) "3");
+
+		assertEquals("1", testee.get("a").get().getValue().getValue());
+		assertEquals(2, testee.getAll("a").size());
+		assertEquals("3", testee.getAll("a").get(1).getValue().getValue());
+		assertFalse(testee.get("c").isPresent());
+		assertEquals(-1, testee.indexOf("c"));
+	}
+
+	@Test
+	public void addAllAndCopy() {
+		final Metrics source = new Metrics();
+		source.add("a", null, 1L, 1.5d);
+		final Metrics testee = new Metrics();
+		testee.addAll(source);
+		testee.addAll(testee);
+		testee.add("renamed", "description", source, 0);
+
+		assertEquals(3, testee.size());
+		assertEquals("renamed", testee.getName(2));
+		assertEquals(1.5d, testee.getValue(2));
+		assertEquals(1L, testee.getTimestamp(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void addEmptyName() {
+		new Metrics().add("", 1L, (Object) "1");
+	}
+}
@@ -3,14 +3,31 @@ package org.metricssampler.resources;
 import org.junit.Before;
 import org.junit.Test;
 import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.SamplerConfig.OverrunPolicy;
 import org.metricssampler.sampler.Sampler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class SamplerTaskTest {
 	private Sampler sampler;
 	private SamplerConfig config;
 	private SamplerTask testee;
+	/**
+	 * The time seen by the testee. It only advances when a test says so.
+	 */
+	private long now = 1500000000000L;
 	
 	@Before
 	public void setup() {
@@ -18,7 +35,7 @@ public class SamplerTaskTest {
 		config = mock(SamplerConfig.class);
 		when(sampler.getConfig()).thenReturn(config);
 		when(config.isDisabled()).thenReturn(false);
-		testee = new SamplerTask(sampler);
+		testee = new SamplerTask(sampler, () -> now);
 	}
 
 	@Test
@@ -81,4 +98,128 @@ public class SamplerTaskTest {
 		verify(sampler, never()).sample();
 	}
 
+	@Test
+	public void runUpdatesScheduleDrift() {
+		testee.setSchedule(now - 5000L, 1000L);
+		testee.run();
+		assertEquals(5000L, testee.getStats().getScheduleDrift());
+		now += 20L;
+		testee.run();
+		assertEquals(4020L, testee.getStats().getScheduleDrift());
+	}
+
+	@Test
+	public void overrunBurst() {
+		runWithOverrun(OverrunPolicy.BURST);
+		verify(sampler, times(7)).sample();
+		assertEquals(1, testee.getStats().getOverrunCount());
+		assertEquals(0, testee.getStats().getSkippedCount());
+	}
+
+	@Test
+	public void overrunSkip() {
+		runWithOverrun(OverrunPolicy.SKIP);
+		verify(sampler, times(5)).sample();
+		assertEquals(2, testee.getStats().getSkippedCount());
+	}
+
+	@Test
+	public void overrunCatchUp() {
+		runWithOverrun(OverrunPolicy.CATCH_UP);
+		verify(sampler, times(6)).sample();
+		assertEquals(1, testee.getStats().getSkippedCount());
+	}
+
+	@Test
+	public void overrunStretch() {
+		runWithOverrun(OverrunPolicy.STRETCH);
+		verify(sampler, times(4)).sample();
+		assertEquals(3, testee.getStats().getSkippedCount());
+		assertEquals(1, testee.getStats().getOverrunCount());
+	}
+
+	@Test
+	public void abortBlockedReadAndResetAfterSampling() throws IOException {
+		when(config.getTimeout()).thenReturn(1);
+		try (final ServerSocket server = new ServerSocket(0); final Socket socket = new Socket("localhost", server.getLocalPort())) {
+			socket.setSoTimeout(10000);
+			final AtomicBoolean sampling = new AtomicBoolean();
+			final AtomicReference<IOException> readFailure = new AtomicReference<>();
+			final AtomicReference<String> resetState = new AtomicReference<>();
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) {
+					sampling.set(true);
+					try {
+						// unlike sleeping a blocked socket read ignores the interrupt and only fails once the socket is closed
+						socket.getInputStream().read();
+					} catch (final IOException e) {
+						readFailure.set(e);
+					}
+					sampling.set(false);
+					return null;
+				}
+			}).when(sampler).sample();
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) throws IOException {
+					socket.close();
+					return null;
+				}
+			}).when(sampler).abort();
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) {
+					resetState.set((sampling.get() ? "during" : "after") + " sampling on " + Thread.currentThread().getName());
+					return null;
+				}
+			}).when(sampler).reset();
+
+			testee.run();
+
+			assertTrue(readFailure.get() != null && !(readFailure.get() instanceof SocketTimeoutException));
+			assertEquals("after sampling on " + Thread.currentThread().getName(), resetState.get());
+			assertFalse(Thread.currentThread().isInterrupted());
+			assertEquals(1, testee.getStats().getTimeoutCount());
+			verify(sampler).abort();
+			verify(sampler).reset();
+		}
+	}
+
+	@Test
+	public void finishWithinTimeout() throws InterruptedException {
+		when(config.getTimeout()).thenReturn(1);
+		testee.run();
+		Thread.sleep(1200L);
+		assertFalse(Thread.currentThread().isInterrupted());
+		assertEquals(0, testee.getStats().getTimeoutCount());
+		verify(sampler, never()).reset();
+	}
+
+	/**
+	 * Run the task seven times like a fixed rate scheduler with a period of 150 ms would when the first sampling takes 375 ms.
+	 */
+	private void runWithOverrun(final OverrunPolicy policy) {
+		when(config.getOverrunPolicy()).thenReturn(policy);
+		doAnswer(new Answer<Void>() {
+			private boolean first = true;
+
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				if (first) {
+					first = false;
+					now += 375L;
+				}
+				return null;
+			}
+		}).when(sampler).sample();
+		final long start = now;
+		testee.setSchedule(start, 150L);
+		for (int i = 0; i < 7; i++) {
+			// a run starts when it is due or right after the previous one if that took longer
+			now = Math.max(now, start + i * 150L);
+			testee.run();
+		}
+	}
+
 }
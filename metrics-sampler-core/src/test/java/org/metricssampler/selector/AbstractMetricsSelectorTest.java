@@ -0,0 +1,121 @@
+package org.metricssampler.selector;
+
+import org.junit.Test;
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AbstractMetricsSelectorTest {
+    private static class CountingSelector extends AbstractMetricsSelector {
+        private final Map<String, Integer> invocations = new HashMap<>();
+
+        CountingSelector(final int selectionCacheSize) {
+            super(selectionCacheSize);
+            setVariables(new HashMap<String, Object>());
+        }
+
+        @Override
+        protected SelectedMetric selectMetric(final MetricName name) {
+            final Integer count = invocations.get(name.getName());
+            invocations.put(name.getName(), count == null ? 1 : count + 1);
+            return name.getName().startsWith("a") ? new SelectedMetric(name, "selected." + name.getName()) : null;
+        }
+
+        @Override
+        protected void doAfterVariablesSet(final Map<String, Object> variables) {
+            // nothing to do here
+        }
+
+        int getInvocations(final String name) {
+            final Integer result = invocations.get(name);
+            return result != null ? result : 0;
+        }
+    }
+
+    private BulkMetricsReader reader(final String... names) {
+        final Metrics metrics = new Metrics();
+        for (final String name : names) {
+            metrics.add(name, "description", System.currentTimeMillis(), "1");
+        }
+        final BulkMetricsReader result = mock(BulkMetricsReader.class);
+        when(result.readAllMetrics()).thenReturn(metrics);
+        return result;
+    }
+
+    @Test
+    public void readMetricsBulkCachesSelection() {
+        final CountingSelector testee = new CountingSelector(10);
+        final BulkMetricsReader reader = reader("aaa", "bbb");
+
+        testee.readMetrics(reader);
+        final Metrics result = testee.readMetrics(reader);
+
+        assertEquals(1, result.size());
+        assertEquals(true, result.get("selected.aaa").isPresent());
+        assertEquals(1, testee.getInvocations("aaa"));
+        assertEquals(1, testee.getInvocations("bbb"));
+        assertEquals(2, testee.getSelectionCacheSize());
+    }
+
+    @Test
+    public void readMetricsBulkAfterReset() {
+        final CountingSelector testee = new CountingSelector(10);
+        final BulkMetricsReader reader = reader("aaa", "bbb");
+
+        testee.readMetrics(reader);
+        testee.reset();
+        testee.readMetrics(reader);
+
+        assertEquals(2, testee.getInvocations("aaa"));
+        assertEquals(2, testee.getInvocations("bbb"));
+    }
+
+    @Test
+    public void readMetricsBulkEvictsLeastRecentlyUsed() {
+        final CountingSelector testee = new CountingSelector(2);
+
+        testee.readMetrics(reader("aaa", "bbb"));
+        testee.readMetrics(reader("aaa", "ccc"));
+        testee.readMetrics(reader("aaa", "bbb"));
+
+        assertEquals(1, testee.getInvocations("aaa"));
+        assertEquals(2, testee.getInvocations("bbb"));
+        assertEquals(2, testee.getSelectionCacheSize());
+    }
+
+    @Test
+    public void readMetricsBulkSizesCacheFromMetricCount() {
+        final CountingSelector testee = new CountingSelector(AbstractMetricsSelector.DEFAULT_SELECTION_CACHE_SIZE);
+        final String[] many = new String[100];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = "a" + i;
+        }
+
+        testee.readMetrics(reader(many));
+        assertEquals(100, testee.getSelectionCacheSize());
+        testee.readMetrics(reader("a1", "a2", "a3", "a4", "a5", "a6", "a7", "a8", "a9", "a10", "a11", "a12", "a13", "a14", "a15", "a16",
+                "a17", "a18", "a19", "a20"));
+
+        assertEquals(25, testee.getSelectionCacheSize());
+        assertEquals(1, testee.getInvocations("a20"));
+    }
+
+    @Test
+    public void readMetricsBulkWithoutCache() {
+        final CountingSelector testee = new CountingSelector(0);
+        final BulkMetricsReader reader = reader("aaa");
+
+        testee.readMetrics(reader);
+        testee.readMetrics(reader);
+
+        assertEquals(2, testee.getInvocations("aaa"));
+        assertEquals(0, testee.getSelectionCacheSize());
+    }
+}
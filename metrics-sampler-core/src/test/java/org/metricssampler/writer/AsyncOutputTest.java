@@ -0,0 +1,162 @@
+package org.metricssampler.writer;
+
+import org.junit.After;
+import org.junit.Test;
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.config.AsyncOutputConfig.OverflowPolicy;
+import org.metricssampler.reader.Metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncOutputTest {
+	private final RecordingWriter writer = new RecordingWriter();
+	private AsyncOutput testee;
+
+	@After
+	public void cleanup() {
+		if (testee != null) {
+			testee.shutdown();
+		}
+	}
+
+	@Test
+	public void dropOldest() {
+		testee = new AsyncOutput("out", new AsyncOutputConfig(2, OverflowPolicy.DROP_OLDEST, 0, 1000), writer);
+
+		enqueue("a", "b", "c");
+		testee.startup();
+		testee.shutdown();
+
+		assertEquals(1, writer.batches.size());
+		assertEquals("b", writer.batches.get(0).getName(0));
+		assertEquals("c", writer.batches.get(0).getName(1));
+		assertEquals(1L, testee.getStats().get("outputs.out.droppedBatches"));
+	}
+
+	@Test
+	public void dropNewest() {
+		testee = new AsyncOutput("out", new AsyncOutputConfig(2, OverflowPolicy.DROP_NEWEST, 0, 1000), writer);
+
+		enqueue("a", "b", "c");
+
+		assertEquals(2, testee.getQueueDepth());
+		assertEquals(1L, testee.getStats().get("outputs.out.droppedMetrics"));
+		testee.startup();
+		testee.shutdown();
+		assertEquals("a", writer.batches.get(0).getName(0));
+		assertEquals("b", writer.batches.get(0).getName(1));
+	}
+
+	@Test
+	public void blockWithTimeout() {
+		testee = new AsyncOutput("out", new AsyncOutputConfig(1, OverflowPolicy.BLOCK, 10, 1000), writer);
+
+		final long start = System.currentTimeMillis();
+		enqueue("a", "b");
+
+		assertEquals(1, testee.getQueueDepth());
+		assertEquals(1L, testee.getStats().get("outputs.out.droppedBatches"));
+		assertEquals(true, System.currentTimeMillis() - start >= 10L);
+	}
+
+	@Test
+	public void coalesceUpToMaxBatchSize() {
+		testee = new AsyncOutput("out", new AsyncOutputConfig(10, OverflowPolicy.DROP_OLDEST, 0, 2), writer);
+
+		enqueue("a", "b", "c");
+		testee.startup();
+		testee.shutdown();
+
+		assertEquals(2, writer.batches.size());
+		assertEquals(2, writer.batches.get(0).size());
+		assertEquals(1, writer.batches.get(1).size());
+		assertEquals(3L, testee.getStats().get("outputs.out.writtenMetrics"));
+		assertEquals(0, writer.openCount);
+	}
+
+	@Test
+	public void shutdownDrainsWithoutInterruptingTheWriter() throws InterruptedException {
+		final BlockingWriter blockingWriter = new BlockingWriter();
+		testee = new AsyncOutput("out", new AsyncOutputConfig(10, OverflowPolicy.DROP_OLDEST, 0, 1), blockingWriter);
+		testee.startup();
+		enqueue("a");
+		assertTrue(blockingWriter.entered.await(1, TimeUnit.SECONDS));
+		enqueue("b", "c");
+
+		final Thread shutdown = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				testee.shutdown();
+			}
+		});
+		shutdown.start();
+		Thread.sleep(50L);
+		blockingWriter.release.countDown();
+		shutdown.join(5000L);
+
+		assertFalse(shutdown.isAlive());
+		assertFalse(blockingWriter.interrupted);
+		assertEquals(3, blockingWriter.batches.size());
+		assertEquals(0L, testee.getStats().get("outputs.out.writeFailureCount"));
+	}
+
+	private void enqueue(final String... names) {
+		for (final String name : names) {
+			final Metrics metrics = new Metrics();
+			metrics.add(name, 1L, 1L);
+			testee.enqueue(metrics);
+		}
+	}
+
+	/**
+	 * Blocks the first write until released and fails writes on interrupted threads like an interruptible channel would.
+	 */
+	private static class BlockingWriter extends RecordingWriter {
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private volatile boolean interrupted;
+
+		@Override
+		public void write(final Metrics metrics) {
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				interrupted = true;
+				Thread.currentThread().interrupt();
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				interrupted = true;
+				throw new MetricWriteException("Interrupted");
+			}
+			super.write(metrics);
+		}
+	}
+
+	private static class RecordingWriter implements MetricsWriter {
+		protected final List<Metrics> batches = new CopyOnWriteArrayList<>();
+		private volatile int openCount;
+
+		@Override
+		public void open() {
+			openCount++;
+		}
+
+		@Override
+		public void close() {
+			openCount--;
+		}
+
+		@Override
+		public void write(final Metrics metrics) {
+			batches.add(metrics);
+		}
+	}
+}
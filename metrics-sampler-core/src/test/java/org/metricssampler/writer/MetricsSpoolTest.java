@@ -0,0 +1,177 @@
+package org.metricssampler.writer;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metricssampler.config.SpoolOutputConfig;
+import org.metricssampler.reader.Metrics;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsSpoolTest {
+	private static final int SEGMENT_SIZE = SpoolOutputConfig.MIN_SEGMENT_SIZE;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final RecordingWriter writer = new RecordingWriter();
+	private MetricsSpool testee;
+	private MetricsSpool other;
+
+	@After
+	public void cleanup() {
+		if (testee != null) {
+			testee.shutdown();
+		}
+		if (other != null) {
+			other.shutdown();
+		}
+	}
+
+	@Test
+	public void replayOnceRecovered() throws InterruptedException {
+		writer.failures = 1;
+		testee = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		testee.startup();
+
+		final Metrics metrics = new Metrics();
+		metrics.add("long", 1000L, 1L);
+		metrics.add("double", 2000L, 0.5d);
+		metrics.add("text", 3000L, "ümlaut");
+		metrics.add("null", 4000L, null);
+		testee.append(metrics);
+
+		awaitReplayed(4);
+		assertEquals(1, writer.batches.size());
+		final Metrics replayed = writer.batches.get(0);
+		assertEquals("long", replayed.getName(0));
+		assertEquals(1L, replayed.getValue(0));
+		assertEquals(1000L, replayed.getTimestamp(0));
+		assertEquals(0.5d, replayed.getValue(1));
+		assertEquals("ümlaut", replayed.getValue(2));
+		assertNull(replayed.getValue(3));
+		assertEquals(0, writer.openCount);
+		assertEquals(1L, testee.getStats().get("outputs.out.spool.replayFailureCount"));
+	}
+
+	@Test
+	public void recoverAfterRestart() {
+		writer.failures = Integer.MAX_VALUE;
+		testee = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		testee.startup();
+		append(testee, 100);
+		testee.shutdown();
+
+		other = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		other.startup();
+
+		assertEquals(100L, other.getPendingMetrics());
+		other.append(metrics(1));
+		assertEquals(101L, other.getPendingMetrics());
+	}
+
+	@Test
+	public void rotateAndDropOldestSegments() {
+		writer.failures = Integer.MAX_VALUE;
+		testee = newSpool(folder.getRoot(), 2 * SEGMENT_SIZE, writer);
+		testee.startup();
+
+		for (int i = 0; i < 20; i++) {
+			append(testee, 50);
+		}
+
+		assertEquals(2, testee.getStats().get("outputs.out.spool.segments"));
+		final long dropped = (Long) testee.getStats().get("outputs.out.spool.droppedMetrics");
+		assertTrue(dropped > 0);
+		assertEquals(1000L, dropped + testee.getPendingMetrics());
+		assertEquals(2, folder.getRoot().listFiles((dir, name) -> name.endsWith(".spool")).length);
+	}
+
+	@Test
+	public void splitLargeSamplings() throws InterruptedException {
+		testee = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		testee.startup();
+
+		testee.append(metrics(1000));
+
+		awaitReplayed(1000);
+		assertTrue(writer.batches.size() > 1);
+		int index = 0;
+		for (final Metrics batch : writer.batches) {
+			for (int i = 0; i < batch.size(); i++) {
+				assertEquals("metric" + index++, batch.getName(i));
+			}
+		}
+	}
+
+	@Test
+	public void disabledIfDirectoryIsLocked() {
+		writer.failures = Integer.MAX_VALUE;
+		testee = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		testee.startup();
+		other = newSpool(folder.getRoot(), 10 * SEGMENT_SIZE, writer);
+		other.startup();
+
+		other.append(metrics(5));
+
+		assertEquals(0L, other.getPendingMetrics());
+		assertEquals(5L, other.getStats().get("outputs.out.spool.droppedMetrics"));
+	}
+
+	private MetricsSpool newSpool(final File directory, final long maxSize, final MetricsWriter writer) {
+		return new MetricsSpool("out", new SpoolOutputConfig(directory, SEGMENT_SIZE, maxSize, 3600, 1000000, 1), writer);
+	}
+
+	private void awaitReplayed(final long expected) throws InterruptedException {
+		final long timeout = System.currentTimeMillis() + 10000L;
+		while (testee.getPendingMetrics() > 0 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10L);
+		}
+		assertEquals(0L, testee.getPendingMetrics());
+		assertEquals(expected, testee.getStats().get("outputs.out.spool.replayedMetrics"));
+	}
+
+	private static void append(final MetricsSpool spool, final int count) {
+		spool.append(metrics(count));
+	}
+
+	private static Metrics metrics(final int count) {
+		final Metrics result = new Metrics(count);
+		for (int i = 0; i < count; i++) {
+			result.add("metric" + i, 1000L, (long) i);
+		}
+		return result;
+	}
+
+	private static class RecordingWriter implements MetricsWriter {
+		private final List<Metrics> batches = new CopyOnWriteArrayList<>();
+		private volatile int failures;
+		private volatile int openCount;
+
+		@Override
+		public void open() {
+			if (failures > 0) {
+				failures--;
+				throw new MetricWriteException("down");
+			}
+			openCount++;
+		}
+
+		@Override
+		public void close() {
+			openCount--;
+		}
+
+		@Override
+		public void write(final Metrics metrics) {
+			batches.add(metrics);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package org.metricssampler.writer.columnar;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metricssampler.reader.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarFileWriterTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripCompressed() throws IOException {
+		roundTrip(true);
+	}
+
+	@Test
+	public void roundTripUncompressed() throws IOException {
+		roundTrip(false);
+	}
+
+	private void roundTrip(final boolean compress) throws IOException {
+		final File file = new File(folder.getRoot(), "test.mcf");
+		final Random random = new Random(42);
+		final Metrics[] blocks = new Metrics[50];
+		try (ColumnarFileWriter writer = new ColumnarFileWriter(file, compress)) {
+			for (int i = 0; i < blocks.length; i++) {
+				blocks[i] = randomBlock(random, 1000000L + i * 10000L, i);
+				writer.write(blocks[i]);
+			}
+			assertEquals(blocks.length, writer.getBlocks());
+			assertEquals(file.length(), writer.getSize());
+		}
+
+		try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+			for (final Metrics expected : blocks) {
+				assertBlockEquals(expected, reader.next());
+			}
+			assertNull(reader.next());
+			assertFalse(reader.isTruncated());
+		}
+	}
+
+	@Test
+	public void ignoreTruncatedLastBlock() throws IOException {
+		final File file = new File(folder.getRoot(), "test.mcf");
+		final Metrics first = randomBlock(new Random(1), 1000L, 0);
+		final long length;
+		try (ColumnarFileWriter writer = new ColumnarFileWriter(file, true)) {
+			writer.write(first);
+			length = writer.getSize();
+			writer.write(randomBlock(new Random(2), 2000L, 1));
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(length + 10);
+		}
+
+		try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+			assertBlockEquals(first, reader.next());
+			assertNull(reader.next());
+			assertTrue(reader.isTruncated());
+		}
+	}
+
+	@Test
+	public void unchangedValuesAreCompact() throws IOException {
+		final File file = new File(folder.getRoot(), "test.mcf");
+		final Metrics metrics = new Metrics(1000);
+		for (int i = 0; i < 1000; i++) {
+			metrics.add("some.rather.long.metric.name.that.repeats." + i, null, 1000L, i * 0.25d);
+		}
+		try (ColumnarFileWriter writer = new ColumnarFileWriter(file, false)) {
+			writer.write(metrics);
+			final long first = writer.getSize();
+			writer.write(metrics);
+			assertTrue("Second block has " + (writer.getSize() - first) + " bytes", writer.getSize() - first < 2 * metrics.size());
+		}
+	}
+
+	@Test(expected = FileAlreadyExistsException.class)
+	public void refuseExistingFile() throws IOException {
+		new ColumnarFileWriter(folder.newFile("existing.mcf"), true).close();
+	}
+
+	@Test(expected = ColumnarFormatException.class)
+	public void rejectOtherFiles() throws IOException {
+		final File file = folder.newFile("other.mcf");
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.writeBytes("some text file");
+		}
+		new ColumnarFileReader(file).close();
+	}
+
+	private static Metrics randomBlock(final Random random, final long timestamp, final int block) {
+		final Metrics result = new Metrics();
+		for (int i = 0; i < 100; i++) {
+			final String name = "metric." + random.nextInt(150);
+			final long ts = timestamp + random.nextInt(3);
+			switch (i % 8) {
+				case 0:
+					result.add(name, null, ts, random.nextLong());
+					break;
+				case 1:
+					result.add(name, null, ts, (long) random.nextInt(10));
+					break;
+				case 2:
+					result.add(name, null, ts, random.nextDouble() * 1000);
+					break;
+				case 3:
+					result.add(name, null, ts, random.nextBoolean() ? Double.NaN : -0.0d);
+					break;
+				case 4:
+					result.add(name, null, ts, (double) block);
+					break;
+				case 5:
+					result.add(name, ts, "text-" + random.nextInt(5) + "-ümlaut");
+					break;
+				case 6:
+					result.add(name, ts, null);
+					break;
+				default:
+					result.add(name, null, ts, random.nextBoolean() ? Double.NEGATIVE_INFINITY : Double.MIN_VALUE);
+					break;
+			}
+		}
+		return result;
+	}
+
+	private static void assertBlockEquals(final Metrics expected, final Metrics actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getName(i), actual.getName(i));
+			assertEquals(expected.getTimestamp(i), actual.getTimestamp(i));
+			assertEquals(expected.isLong(i), actual.isLong(i));
+			assertEquals(expected.isDouble(i), actual.isDouble(i));
+			if (expected.isDouble(i)) {
+				assertEquals(Double.doubleToRawLongBits(expected.getDouble(i)), Double.doubleToRawLongBits(actual.getDouble(i)));
+			} else {
+				assertEquals(expected.getValue(i), actual.getValue(i));
+			}
+		}
+	}
+}
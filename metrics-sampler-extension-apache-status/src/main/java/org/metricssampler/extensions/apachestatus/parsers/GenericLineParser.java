@@ -16,7 +16,7 @@ public class GenericLineParser implements StatusLineParser {
 			final String[] cols = line.split(":\\s*", 2);
 			if (cols.length == 2) {
 				final String name = cols[0].replace(' ', '_');
-				metrics.add(name, cols[0], timestamp, cols[1]);
+				metrics.addParsed(name, cols[0], timestamp, cols[1]);
 			} else {
 				logger.debug("Ignoring response line \"{}\"", metrics);
 			}
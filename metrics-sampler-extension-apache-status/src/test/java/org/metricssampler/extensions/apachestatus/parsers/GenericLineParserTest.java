@@ -13,20 +13,20 @@ public class GenericLineParserTest extends StatusLineParserTestBase {
 	public void parseTotalAccesses() {
 		parseSuccess("Total Accesses: 1006508");
 
-		assertMetric("Total_Accesses", "1006508");
+		assertMetric("Total_Accesses", 1006508L);
 	}
 
 	@Test
 	public void parseTotalkBytes() {
 		parseSuccess("Total kBytes: 4076182");
 
-		assertMetric("Total_kBytes", "4076182");
+		assertMetric("Total_kBytes", 4076182L);
 	}
 
 	@Test
 	public void parseReqPerSec() {
 		parseSuccess("ReqPerSec: 1.99871");
 
-		assertMetric("ReqPerSec", "1.99871");
+		assertMetric("ReqPerSec", 1.99871d);
 	}
 }
@@ -0,0 +1,117 @@
+package org.metricssampler.extensions.base;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates an expression of the form {@code value <op> <number>} or {@code <number> <op> value} directly, without going through EL.
+ * The result follows the EL coercion rules: division always yields a {@link Double}, the other operators yield a {@link Long} unless
+ * one of the operands is a floating point number. Values which are not primitive wrappers (e.g. strings) are passed to the fallback
+ * expression.
+ */
+class ArithmeticExpression implements CompiledExpression {
+	private static final String NUMBER = "(\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)";
+	private static final String OPERATOR = "(?:\\s*([-+*/])\\s*|\\s+(div)\\s+)";
+	private static final Pattern VALUE_FIRST = Pattern.compile("\\s*value" + OPERATOR + NUMBER + "\\s*");
+	private static final Pattern NUMBER_FIRST = Pattern.compile("\\s*" + NUMBER + OPERATOR + "value\\s*");
+
+	private final char operator;
+	private final Number constant;
+	private final boolean valueFirst;
+	private final CompiledExpression fallback;
+
+	private ArithmeticExpression(final char operator, final Number constant, final boolean valueFirst, final CompiledExpression fallback) {
+		this.operator = operator;
+		this.constant = constant;
+		this.valueFirst = valueFirst;
+		this.fallback = fallback;
+	}
+
+	/**
+	 * @param expression the expression to parse
+	 * @param fallback the expression used to evaluate non-numeric values
+	 * @return {@code null} if the expression is not a simple arithmetic expression
+	 */
+	static ArithmeticExpression parse(final String expression, final CompiledExpression fallback) {
+		Matcher matcher = VALUE_FIRST.matcher(expression);
+		if (matcher.matches()) {
+			return create(operator(matcher.group(1)), matcher.group(3), true, fallback);
+		}
+		matcher = NUMBER_FIRST.matcher(expression);
+		if (matcher.matches()) {
+			return create(operator(matcher.group(2)), matcher.group(1), false, fallback);
+		}
+		return null;
+	}
+
+	/**
+	 * @param symbol the operator symbol or {@code null} if the keyword {@code div} was used
+	 */
+	private static char operator(final String symbol) {
+		return symbol != null ? symbol.charAt(0) : '/';
+	}
+
+	private static ArithmeticExpression create(final char operator, final String literal, final boolean valueFirst, final CompiledExpression fallback) {
+		try {
+			final Number constant = isFloatingPoint(literal) ? (Number) Double.parseDouble(literal) : (Number) Long.parseLong(literal);
+			return new ArithmeticExpression(operator, constant, valueFirst, fallback);
+		} catch (final NumberFormatException e) {
+			// e.g. integer literals that do not fit into a long
+			return null;
+		}
+	}
+
+	private static boolean isFloatingPoint(final String literal) {
+		return literal.indexOf('.') >= 0 || literal.indexOf('e') >= 0 || literal.indexOf('E') >= 0;
+	}
+
+	private static boolean isIntegral(final Object value) {
+		return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+	}
+
+	private static boolean isFloatingPoint(final Object value) {
+		return value instanceof Double || value instanceof Float;
+	}
+
+	@Override
+	public Object getValue(final Object value) {
+		if (isIntegral(value)) {
+			if (constant instanceof Long && operator != '/') {
+				return valueFirst ? evaluate(((Number) value).longValue(), constant.longValue()) : evaluate(constant.longValue(), ((Number) value).longValue());
+			}
+		} else if (!isFloatingPoint(value)) {
+			return fallback.getValue(value);
+		}
+		final double number = ((Number) value).doubleValue();
+		return valueFirst ? evaluate(number, constant.doubleValue()) : evaluate(constant.doubleValue(), number);
+	}
+
+	private long evaluate(final long left, final long right) {
+		switch (operator) {
+			case '+':
+				return left + right;
+			case '-':
+				return left - right;
+			default:
+				return left * right;
+		}
+	}
+
+	private double evaluate(final double left, final double right) {
+		switch (operator) {
+			case '+':
+				return left + right;
+			case '-':
+				return left - right;
+			case '*':
+				return left * right;
+			default:
+				return left / right;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return fallback.toString();
+	}
+}
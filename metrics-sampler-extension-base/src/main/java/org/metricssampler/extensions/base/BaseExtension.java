@@ -2,6 +2,7 @@ package org.metricssampler.extensions.base;
 
 import org.metricssampler.config.*;
 import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.resources.SharedResource;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.selector.MetricsSelector;
@@ -19,6 +20,7 @@ public class BaseExtension extends AbstractExtension {
 	public Collection<Class<?>> getXBeans() {
 		final List<Class<?>> result = new LinkedList<Class<?>>();
 		result.add(ConsoleOutputXBean.class);
+		result.add(ColumnarFileOutputXBean.class);
 		result.add(RegExpSelectorXBean.class);
 		result.add(DefaultSamplerXBean.class);
 		result.add(SelfInputXBean.class);
@@ -38,11 +40,14 @@ public class BaseExtension extends AbstractExtension {
 
 	@Override
 	public boolean supportsOutput(final OutputConfig config) {
-		return config instanceof ConsoleOutputConfig;
+		return config instanceof ConsoleOutputConfig || config instanceof ColumnarFileOutputConfig;
 	}
 
 	@Override
 	protected MetricsWriter doNewWriter(final OutputConfig config) {
+		if (config instanceof ColumnarFileOutputConfig) {
+			return new ColumnarFileMetricsWriter((ColumnarFileOutputConfig) config);
+		}
 		return new ConsoleMetricsWriter((ConsoleOutputConfig) config);
 	}
 
@@ -67,7 +72,15 @@ public class BaseExtension extends AbstractExtension {
 		final MetricsReader reader = getGlobalFactory().newReaderForInput(actualConfig.getInput());
 		final DefaultSampler result = new DefaultSampler(actualConfig, reader);
 		for (final OutputConfig writerConfig : actualConfig.getOutputs()) {
-			result.addWriter(getGlobalFactory().newWriterForOutput(writerConfig));
+			result.addWriter(writerConfig.getName(), getGlobalFactory().newWriterForOutput(writerConfig));
+		}
+		if (actualConfig.getWriterPool() != null) {
+			final SharedResource sharedResource = getGlobalFactory().getSharedResource(actualConfig.getWriterPool());
+			if (sharedResource instanceof SamplerThreadPool) {
+				result.setWriterPool((SamplerThreadPool) sharedResource);
+			} else {
+				throw new ConfigurationException(actualConfig.getWriterPool() + " is not a thread pool: " + sharedResource);
+			}
 		}
 		for (final SelectorConfig selector : actualConfig.getSelectors()) {
 			result.addSelector(getGlobalFactory().newSelector(selector));
@@ -81,6 +94,12 @@ public class BaseExtension extends AbstractExtension {
 	@Override
 	protected SharedResource doNewSharedResource(final SharedResourceConfig config, boolean suspended) {
 		final ThreadPoolConfig actualConfig = (ThreadPoolConfig) config;
+		if (actualConfig.getScheduler() == ThreadPoolConfig.Scheduler.VIRTUAL) {
+			return new VirtualThreadSamplerThreadPool(actualConfig, suspended);
+		}
+		if (actualConfig.getScheduler() == ThreadPoolConfig.Scheduler.WHEEL) {
+			return new TimerWheelSamplerThreadPool(actualConfig, suspended);
+		}
 		return new DefaultSamplerThreadPool(actualConfig, suspended);
 	}
 
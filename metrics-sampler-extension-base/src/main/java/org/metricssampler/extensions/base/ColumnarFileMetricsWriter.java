@@ -0,0 +1,162 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.MetricsWriter;
+import org.metricssampler.writer.columnar.ColumnarFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Write each batch of metrics as a compressed columnar block (see {@link ColumnarFileWriter}) to a file that is rotated every hour
+ * (UTC). Each writer (i.e. each sampler) writes to its own files named {@code yyyyMMdd-HH.<sampler>.mcf} (with an additional sequence
+ * number if the file already exists e.g. after a restart). The sampler is taken from the MDC of the writing thread, which is why the
+ * output can be neither asynchronous nor spooled. The current file stays open between samplings so that the name dictionary and the
+ * previous values can be reused, and it is closed by a shutdown hook when the JVM exits. Files older than the retention are deleted on
+ * rotation. Use the {@code dump} command to read the files. One instance should not be used by multiple samplers.
+ */
+public class ColumnarFileMetricsWriter implements MetricsWriter {
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	private final Logger logger;
+	private final ColumnarFileOutputConfig config;
+	private final LongSupplier clock;
+	private final DateFormat hourFormat = new SimpleDateFormat("yyyyMMdd-HH");
+	private ColumnarFileWriter file;
+	private long fileHour;
+	private boolean shutdown;
+
+	public ColumnarFileMetricsWriter(final ColumnarFileOutputConfig config) {
+		this(config, System::currentTimeMillis);
+	}
+
+	ColumnarFileMetricsWriter(final ColumnarFileOutputConfig config, final LongSupplier clock) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		this.clock = clock;
+		this.logger = LoggerFactory.getLogger("writer." + config.getName());
+		hourFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+		Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "columnar-file-" + config.getName()));
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		final File directory = config.getDirectory();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new MetricWriteException("Could not create directory " + directory);
+		}
+	}
+
+	@Override
+	public synchronized void write(final Metrics metrics) throws MetricWriteException {
+		checkArgumentNotNull(metrics, "metrics");
+		if (shutdown) {
+			throw new MetricWriteException(this + " is shut down");
+		}
+		final long now = clock.getAsLong();
+		final long hour = now / HOUR;
+		try {
+			if (file == null || hour != fileHour) {
+				rotate(now, hour);
+			}
+			file.write(metrics);
+		} catch (final IOException e) {
+			closeFile();
+			throw new MetricWriteException("Failed to write to " + config.getDirectory(), e);
+		}
+	}
+
+	private void rotate(final long now, final long hour) throws IOException {
+		closeFile();
+		if (config.getRetention() > 0) {
+			deleteExpiredFiles(now - config.getRetention() * HOUR);
+		}
+		file = createFile(hourFormat.format(new Date(hour * HOUR)) + "." + fileNamePart(samplerName()));
+		fileHour = hour;
+		logger.debug("Writing to {}", file.getFile());
+	}
+
+	private ColumnarFileWriter createFile(final String baseName) throws IOException {
+		for (int sequence = 0; ; sequence++) {
+			final String name = sequence == 0 ? baseName : baseName + "." + sequence;
+			try {
+				return new ColumnarFileWriter(new File(config.getDirectory(), name + ColumnarFileWriter.FILE_SUFFIX), config.isCompress());
+			} catch (final FileAlreadyExistsException e) {
+				// try the next sequence number
+			}
+		}
+	}
+
+	private String samplerName() {
+		final String result = MDC.get("sampler");
+		return result != null ? result : config.getName();
+	}
+
+	private static String fileNamePart(final String name) {
+		return name.replaceAll("[^A-Za-z0-9_-]", "_");
+	}
+
+	private void deleteExpiredFiles(final long threshold) {
+		final File[] files = config.getDirectory().listFiles((dir, name) -> name.endsWith(ColumnarFileWriter.FILE_SUFFIX));
+		if (files == null) {
+			return;
+		}
+		for (final File expired : files) {
+			if (expired.lastModified() < threshold && expired.delete()) {
+				logger.debug("Deleted expired file {}", expired);
+			}
+		}
+	}
+
+	private void closeFile() {
+		if (file != null) {
+			try {
+				file.close();
+			} catch (final IOException e) {
+				logger.warn("Failed to close " + file.getFile(), e);
+			}
+			file = null;
+		}
+	}
+
+	/**
+	 * Keep the current file open so that the following samplings can continue writing to it.
+	 */
+	@Override
+	public void close() throws MetricWriteException {
+		// Nothing to do here
+	}
+
+	/**
+	 * Close the current file and refuse further writes so that no new file is started while the JVM exits.
+	 */
+	synchronized void shutdown() {
+		shutdown = true;
+		closeFile();
+	}
+
+	/**
+	 * @return the file currently written to or {@code null} if none
+	 */
+	File getFile() {
+		return file != null ? file.getFile() : null;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getName() + "]";
+	}
+}
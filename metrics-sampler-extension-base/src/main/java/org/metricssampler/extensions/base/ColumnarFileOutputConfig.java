@@ -0,0 +1,50 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
+
+import java.io.File;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+public class ColumnarFileOutputConfig extends OutputConfig {
+	private final File directory;
+	private final boolean compress;
+	private final int retention;
+
+	/**
+	 * @param directory the directory of the files
+	 * @param compress whether to compress the blocks using deflate
+	 * @param retention the number of hours to keep the files for or 0 to keep them forever
+	 */
+	public ColumnarFileOutputConfig(final String name, final boolean default_, final File directory, final boolean compress, final int retention) {
+		this(name, default_, null, null, directory, compress, retention);
+	}
+
+	public ColumnarFileOutputConfig(final String name, final boolean default_, final AsyncOutputConfig async, final SpoolOutputConfig spool,
+			final File directory, final boolean compress, final int retention) {
+		super(name, default_, async, spool);
+		checkArgumentNotNull(directory, "directory");
+		checkArgument(retention >= 0, "retention must not be negative");
+		this.directory = directory;
+		this.compress = compress;
+		this.retention = retention;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	/**
+	 * @return the number of hours to keep the files for or 0 to keep them forever
+	 */
+	public int getRetention() {
+		return retention;
+	}
+}
@@ -0,0 +1,64 @@
+package org.metricssampler.extensions.base;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.loader.xbeans.OutputXBean;
+
+import java.io.File;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notNegativeOptional;
+
+@XStreamAlias("columnar-file")
+public class ColumnarFileOutputXBean extends OutputXBean {
+	@XStreamAsAttribute
+	private String directory;
+
+	@XStreamAsAttribute
+	private Boolean compress;
+
+	@XStreamAsAttribute
+	private Integer retention;
+
+	public String getDirectory() {
+		return directory;
+	}
+	public void setDirectory(final String directory) {
+		this.directory = directory;
+	}
+	public Boolean getCompress() {
+		return compress;
+	}
+	public void setCompress(final Boolean compress) {
+		this.compress = compress;
+	}
+	public Integer getRetention() {
+		return retention;
+	}
+	public void setRetention(final Integer retention) {
+		this.retention = retention;
+	}
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "directory", getDirectory());
+		notNegativeOptional(this, "retention", getRetention());
+		// the flusher and replayer threads are shared by all samplers but each sampler writes its own files
+		if (getAsync() != null) {
+			throw new ConfigurationException("Element \"async\" of columnar-file[" + getName() + "] is not supported");
+		}
+		if (getSpool() != null) {
+			throw new ConfigurationException("Element \"spool\" of columnar-file[" + getName() + "] is not supported");
+		}
+	}
+
+	@Override
+	public OutputConfig toConfig() {
+		validate();
+		return new ColumnarFileOutputConfig(getName(), isDefault(), getAsyncConfig(), getSpoolConfig(), new File(getDirectory()),
+				getCompress() != null ? getCompress() : true, getRetention() != null ? getRetention() : 0);
+	}
+}
@@ -0,0 +1,12 @@
+package org.metricssampler.extensions.base;
+
+/**
+ * An expression which was parsed once and can be evaluated for many values. Implementations must be thread-safe.
+ */
+public interface CompiledExpression {
+	/**
+	 * @param value the value of the variable "value"
+	 * @return the result of the expression
+	 */
+	Object getValue(Object value);
+}
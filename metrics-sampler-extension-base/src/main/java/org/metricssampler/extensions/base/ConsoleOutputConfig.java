@@ -1,9 +1,15 @@
 package org.metricssampler.extensions.base;
 
+import org.metricssampler.config.AsyncOutputConfig;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
 
 public class ConsoleOutputConfig extends OutputConfig {
 	public ConsoleOutputConfig(final String name, final boolean default_) {
 		super(name, default_);
 	}
+
+	public ConsoleOutputConfig(final String name, final boolean default_, final AsyncOutputConfig async, final SpoolOutputConfig spool) {
+		super(name, default_, async, spool);
+	}
 }
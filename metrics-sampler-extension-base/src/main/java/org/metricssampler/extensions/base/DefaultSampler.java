@@ -2,6 +2,7 @@ package org.metricssampler.extensions.base;
 
 import org.metricssampler.reader.*;
 import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.sampler.Sampler;
 import org.metricssampler.selector.MetricsSelector;
 import org.metricssampler.values.ValueTransformer;
@@ -9,8 +10,14 @@ import org.metricssampler.writer.MetricWriteException;
 import org.metricssampler.writer.MetricsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
@@ -22,9 +29,27 @@ public class DefaultSampler implements Sampler {
 
 	private final DefaultSamplerConfig config;
 	private final MetricsReader reader;
-	private final List<MetricsWriter> writers = new LinkedList<MetricsWriter>();
+	private final List<MetricsWriter> writers = new ArrayList<MetricsWriter>();
+	private final List<String> writerNames = new ArrayList<String>();
+	/**
+	 * The last parallel write of each writer (same index as in {@link #writers}) so that a writer is never used by two threads at once.
+	 */
+	private final List<Future<Long>> pendingWrites = new ArrayList<Future<Long>>();
 	private final List<MetricsSelector> selectors = new LinkedList<MetricsSelector>();
 	private final List<ValueTransformer> valueTransformers = new LinkedList<ValueTransformer>();
+	/**
+	 * The selectors used to read the metrics - consecutive {@link RegExpMetricsSelector}s are merged into a
+	 * {@link RegExpMetricsSelectorGroup} so that they select in a single pass. Built lazily after all selectors were added.
+	 */
+	private List<MetricsSelector> readingSelectors;
+	/**
+	 * The thread pool used to write to all writers in parallel or {@code null} to write sequentially.
+	 */
+	private SamplerThreadPool writerPool;
+	/**
+	 * Drops the unchanged values before writing or {@code null} if all values are written. Created lazily from the configuration.
+	 */
+	private ValueDeduplicator deduplicator;
 	
 	private final Map<String, Object> variables;
 
@@ -60,8 +85,30 @@ public class DefaultSampler implements Sampler {
 	}
 
 	public DefaultSampler addWriter(final MetricsWriter writer) {
+		checkArgumentNotNull(writer, "writer");
+		return addWriter(writer.toString(), writer);
+	}
+
+	/**
+	 * @param name the name under which the write durations are recorded, usually the name of the output
+	 */
+	public DefaultSampler addWriter(final String name, final MetricsWriter writer) {
+		checkArgumentNotNull(name, "name");
 		checkArgumentNotNull(writer, "writer");
 		writers.add(writer);
+		writerNames.add(name);
+		pendingWrites.add(null);
+		return this;
+	}
+
+	/**
+	 * Write to all writers in parallel using the given thread pool and wait at most {@link DefaultSamplerConfig#getWriteTimeout()}
+	 * milliseconds for them to finish.
+	 *
+	 * @param writerPool the thread pool to use or {@code null} to write sequentially
+	 */
+	public DefaultSampler setWriterPool(final SamplerThreadPool writerPool) {
+		this.writerPool = writerPool;
 		return this;
 	}
 
@@ -69,6 +116,7 @@ public class DefaultSampler implements Sampler {
 		checkArgumentNotNull(selector, "selector");
 		selectors.add(selector);
 		selector.setVariables(variables);
+		readingSelectors = null;
 		return this;
 	}
 	
@@ -99,9 +147,19 @@ public class DefaultSampler implements Sampler {
 			final Metrics metrics = transformValues(rawMetrics);
 			final long readEnd = System.currentTimeMillis();
 			timingsLogger.debug("Sampled {} metrics in {} ms", metrics.size(), readEnd-readStart);
-			writeMetrics(metrics);
+			final Metrics changedMetrics = deduplicateValues(metrics);
+			boolean written = false;
+			try {
+				written = writeMetrics(changedMetrics);
+			} finally {
+				if (!written && deduplicator != null) {
+					// otherwise a changed value that did not reach an output would be suppressed until its heartbeat
+					deduplicator.forget(changedMetrics);
+				}
+			}
 			timingsLogger.debug("Metrics sent to writers in {} ms", System.currentTimeMillis()-readEnd);
 			SamplerStats.get().setMetricsCount(metrics.size());
+			SamplerStats.get().setSuppressedCount(metrics.size() - changedMetrics.size());
 		} catch (final OpenMetricsReaderException e) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Failed to open reader", e);
@@ -123,46 +181,160 @@ public class DefaultSampler implements Sampler {
 			return metrics;
 		} else {
 			logger.debug("Transforming values");
-			final Metrics result = new Metrics();
-			for (final Metric entry : metrics) {
-				final MetricValue newValue = transformValue(entry.getName().getName(), entry.getValue());
-				result.add(new Metric(entry.getName(), newValue));
+			final Metrics result = new Metrics(metrics.size());
+			for (int i = 0; i < metrics.size(); i++) {
+				final String name = metrics.getName(i);
+				final ValueTransformer transformer = findValueTransformer(name);
+				if (transformer != null && metrics.hasValue(i)) {
+					final Object newValue = transformer.transformValue(metrics.getValue(i));
+					result.add(metrics.getMetricName(i), metrics.getTimestamp(i), newValue);
+				} else {
+					result.add(name, metrics.getDescription(i), metrics, i);
+				}
 			}
 			return result;
 		}
 	}
 
-	protected MetricValue transformValue(final String name, final MetricValue value) {
+	/**
+	 * @return the metrics whose value changed since they were last written or whose heartbeat is due (see
+	 *         {@link DefaultSamplerConfig#getDedupHeartbeat()}) or all metrics if deduplication is disabled
+	 */
+	protected Metrics deduplicateValues(final Metrics metrics) {
+		if (config.getDedupHeartbeat() <= 0) {
+			return metrics;
+		}
+		if (deduplicator == null) {
+			deduplicator = new ValueDeduplicator(TimeUnit.SECONDS.toMillis(config.getDedupHeartbeat()));
+		}
+		final Metrics result = deduplicator.deduplicate(metrics);
+		logger.debug("Suppressed {} unchanged values", deduplicator.getSuppressed());
+		return result;
+	}
+
+	/**
+	 * @return the first value transformer matching the metric name or {@code null} if none matches
+	 */
+	protected ValueTransformer findValueTransformer(final String name) {
 		for (final ValueTransformer transformer : valueTransformers) {
 			if (transformer.matches(name)) {
-				final String newValue = transformer.transform(value.getValue().toString());
-				return new MetricValue(value.getTimestamp(), newValue);
+				return transformer;
 			}
 		}
-		return value;
+		return null;
 	}
 
-	protected void writeMetrics(final Metrics metrics) {
+	/**
+	 * @return {@code true} if all writers wrote the metrics
+	 */
+	protected boolean writeMetrics(final Metrics metrics) {
 		debugMetricsIfNecessary(metrics);
 
+		if (writerPool != null && writers.size() > 1) {
+			return writeMetricsInParallel(metrics);
+		}
+
 		openWriters();
 
-		for (final MetricsWriter writer : writers) {
+		boolean result = true;
+		for (int i = 0; i < writers.size(); i++) {
+			final MetricsWriter writer = writers.get(i);
+			final long start = System.currentTimeMillis();
 			try {
 				logger.debug("Writing metrics to " + writer);
 				writer.write(metrics);
 			} catch(final MetricWriteException e) {
 				logger.warn("Failed to write metrics to "+writer);
+				result = false;
 			}
+			SamplerStats.get().setWriteDuration(writerNames.get(i), System.currentTimeMillis() - start);
 		}
 
 		closeWriters();
+		return result;
+	}
+
+	/**
+	 * Open, write and close each writer in its own task so that the sampling takes as long as the slowest writer instead of the sum of
+	 * all. Writes that miss the deadline are not interrupted but the writer is skipped until its write finishes. Only the writes submitted
+	 * by this sampling are waited for so that a hung writer does not delay the following samplings.
+	 *
+	 * @return {@code true} if all writers wrote the metrics within the deadline
+	 */
+	protected boolean writeMetricsInParallel(final Metrics metrics) {
+		boolean result = true;
+		final List<Future<Long>> writes = new ArrayList<Future<Long>>(writers.size());
+		for (int i = 0; i < writers.size(); i++) {
+			final Future<Long> pending = pendingWrites.get(i);
+			if (pending != null && !pending.isDone()) {
+				logger.warn("Skipping {} because it is still busy with a previous write", writers.get(i));
+				SamplerStats.get().incWriteSkippedCount();
+				writes.add(null);
+				result = false;
+				continue;
+			}
+			final Future<Long> write = writerPool.submit(new WriteTask(writers.get(i), metrics));
+			pendingWrites.set(i, write);
+			writes.add(write);
+		}
+
+		final int timeout = config.getWriteTimeout();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		for (int i = 0; i < writers.size(); i++) {
+			final Future<Long> write = writes.get(i);
+			if (write == null) {
+				continue;
+			}
+			try {
+				final long duration = timeout > 0 ? write.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) : write.get();
+				SamplerStats.get().setWriteDuration(writerNames.get(i), duration);
+			} catch (final TimeoutException e) {
+				logger.warn("Writing metrics to {} did not finish within {} ms", writers.get(i), timeout);
+				SamplerStats.get().incWriteTimeoutCount();
+				result = false;
+			} catch (final ExecutionException e) {
+				logger.warn("Failed to write metrics to " + writers.get(i), e.getCause());
+				result = false;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return result;
+	}
+
+	private class WriteTask implements Callable<Long> {
+		private final MetricsWriter writer;
+		private final Metrics metrics;
+
+		WriteTask(final MetricsWriter writer, final Metrics metrics) {
+			this.writer = writer;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public Long call() {
+			MDC.put("sampler", config.getName());
+			final long start = System.currentTimeMillis();
+			try {
+				logger.debug("Writing metrics to " + writer);
+				writer.open();
+				try {
+					writer.write(metrics);
+				} finally {
+					writer.close();
+				}
+				return System.currentTimeMillis() - start;
+			} finally {
+				MDC.remove("sampler");
+			}
+		}
 	}
 
 	protected void debugMetricsIfNecessary(Metrics metrics) {
 		if (logger.isDebugEnabled()) {
-			for (final Metric item : metrics) {
-				logger.debug("Metric {} = {} @ {}", item.getName().getName(), item.getValue().getValue(), item.getValue().getTimestamp());
+			for (int i = 0; i < metrics.size(); i++) {
+				logger.debug("Metric {} = {} @ {}", metrics.getName(i), metrics.getValue(i), metrics.getTimestamp(i));
 			}
 		}
 	}
@@ -173,7 +345,7 @@ public class DefaultSampler implements Sampler {
 
 		logger.debug("Reading metrics from {}", reader);
 		final Metrics result = new Metrics();
-		for (final MetricsSelector selector : selectors) {
+		for (final MetricsSelector selector : getReadingSelectors()) {
 			logger.debug("Reading metrics from {} via {}", reader, selector);
 			final Metrics metrics = selector.readMetrics(reader);
 			logger.debug("Selector " + selector + " returned " + metrics.size() + " metrics for " + reader);
@@ -191,6 +363,42 @@ public class DefaultSampler implements Sampler {
 		return result;
 	}
 
+	protected List<MetricsSelector> getReadingSelectors() {
+		if (readingSelectors == null) {
+			readingSelectors = groupSelectors(selectors);
+		}
+		return readingSelectors;
+	}
+
+	/**
+	 * @param selectors the configured selectors
+	 * @return the selectors with each run of at least two consecutive {@link RegExpMetricsSelector}s replaced by a
+	 *         {@link RegExpMetricsSelectorGroup}. The order of the selected metrics stays the same.
+	 */
+	protected static List<MetricsSelector> groupSelectors(final List<MetricsSelector> selectors) {
+		final List<MetricsSelector> result = new ArrayList<>(selectors.size());
+		final List<RegExpMetricsSelector> run = new ArrayList<>();
+		for (final MetricsSelector selector : selectors) {
+			if (selector instanceof RegExpMetricsSelector) {
+				run.add((RegExpMetricsSelector) selector);
+			} else {
+				addSelectorRun(result, run);
+				result.add(selector);
+			}
+		}
+		addSelectorRun(result, run);
+		return result;
+	}
+
+	private static void addSelectorRun(final List<MetricsSelector> result, final List<RegExpMetricsSelector> run) {
+		if (run.size() > 1) {
+			result.add(new RegExpMetricsSelectorGroup(run));
+		} else {
+			result.addAll(run);
+		}
+		run.clear();
+	}
+
 	protected void scheduleResetIfNecessary(final int newNumberOfSelectedMetrics) {
 		final boolean noMetricsSelected = newNumberOfSelectedMetrics == 0;
 		if (noMetricsSelected) {
@@ -259,9 +467,24 @@ public class DefaultSampler implements Sampler {
 		logger.info("Resetting");
 		resetAfterTimestamp = Long.MAX_VALUE;
 		reader.reset();
+		if (deduplicator != null) {
+			// the selected metrics might change so forget the values of the old ones and write all values once
+			deduplicator.clear();
+		}
 		for (final MetricsSelector selector : selectors) {
 			selector.reset();
 		}
+		if (readingSelectors != null) {
+			for (final MetricsSelector selector : readingSelectors) {
+				selector.reset();
+			}
+		}
+	}
+
+	@Override
+	public void abort() {
+		logger.info("Aborting");
+		reader.abort();
 	}
 
     @Override
@@ -17,11 +17,29 @@ public class DefaultSamplerConfig extends SamplerConfig {
 	private final boolean quiet;
     private final int initialResetTimeout;
     private final int regularResetTimeout;
+	private final String writerPool;
+	private final int writeTimeout;
+	private final int dedupHeartbeat;
 
 	public DefaultSamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final InputConfig input,
 			final List<OutputConfig> outputs, final List<SelectorConfig> selectors, final Map<String, Object> variables,
 			final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers, final boolean quiet, final int initialResetTimeout, final int regularResetTimeout) {
-		super(name, pool, interval, ignored, disabled, globalVariables, valueTransformers);
+		this(name, pool, interval, ignored, disabled, input, outputs, selectors, variables, globalVariables, valueTransformers, quiet, initialResetTimeout,
+				regularResetTimeout, null, -1, -1, OverrunPolicy.BURST, -1);
+	}
+
+	/**
+	 * @param writerPool the name of the thread pool used to write to all outputs in parallel or {@code null} to write sequentially
+	 * @param writeTimeout the maximal number of milliseconds to wait for the parallel writes or a value &lt;= 0 to wait without a deadline
+	 * @param dedupHeartbeat the number of seconds after which unchanged values are written again or a value &lt;= 0 to write all values
+	 * @param overrunPolicy what to do with the samplings that became due while the previous sampling was still running
+	 * @param timeout the maximal number of seconds a sampling may take or a value &lt;= 0 for no limit
+	 */
+	public DefaultSamplerConfig(final String name, final String pool, final int interval, final boolean ignored, final boolean disabled, final InputConfig input,
+			final List<OutputConfig> outputs, final List<SelectorConfig> selectors, final Map<String, Object> variables,
+			final Map<String, Object> globalVariables, final List<ValueTransformerConfig> valueTransformers, final boolean quiet, final int initialResetTimeout, final int regularResetTimeout,
+			final String writerPool, final int writeTimeout, final int dedupHeartbeat, final OverrunPolicy overrunPolicy, final int timeout) {
+		super(name, pool, interval, ignored, disabled, globalVariables, valueTransformers, overrunPolicy, timeout);
 		checkArgumentNotNull(input, "input");
 		checkArgumentNotNull(outputs, "outputs");
 		checkArgumentNotNull(selectors, "selectors");
@@ -35,6 +53,9 @@ public class DefaultSamplerConfig extends SamplerConfig {
 		this.quiet = quiet;
         this.initialResetTimeout = initialResetTimeout;
         this.regularResetTimeout = regularResetTimeout;
+		this.writerPool = writerPool;
+		this.writeTimeout = writeTimeout;
+		this.dedupHeartbeat = dedupHeartbeat;
 	}
 
 	public InputConfig getInput() {
@@ -74,6 +95,29 @@ public class DefaultSamplerConfig extends SamplerConfig {
         return regularResetTimeout;
     }
 
+	/**
+	 * @return the name of the thread pool used to write to all outputs in parallel or {@code null} if the outputs are written sequentially
+	 */
+	public String getWriterPool() {
+		return writerPool;
+	}
+
+	/**
+	 * @return the maximal number of milliseconds the sampler waits for the parallel writes to finish or a value &lt;= 0 to wait without a
+	 *         deadline. Writes that did not finish in time keep running in the background.
+	 */
+	public int getWriteTimeout() {
+		return writeTimeout;
+	}
+
+	/**
+	 * @return the number of seconds after which a value that did not change is written again or a value &lt;= 0 if all values are written
+	 *         each time. Values are compared to the last written value of the same metric.
+	 */
+	public int getDedupHeartbeat() {
+		return dedupHeartbeat;
+	}
+
     @Override
 	public String toString() {
 		return getClass().getSimpleName() + "[" + input + "->" + outputs + "]";
@@ -1,6 +1,7 @@
 package org.metricssampler.extensions.base;
 
 import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Spread;
 import org.metricssampler.resources.SamplerTask;
 import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.sampler.Sampler;
@@ -69,10 +70,50 @@ public class DefaultSamplerThreadPool implements SamplerThreadPool {
 		assertStarted();
 		final SamplerTask result = new SamplerTask(sampler);
 		GlobalRegistry.getInstance().addSamplerTask(result);
-		executorService.scheduleAtFixedRate(result, 0L, sampler.getConfig().getInterval(), TimeUnit.SECONDS);
+		final long interval = TimeUnit.SECONDS.toMillis(sampler.getConfig().getInterval());
+		final long now = System.currentTimeMillis();
+		final long initialDelay = computeInitialDelay(config.getSpread(), sampler.getConfig().getName(), interval, now);
+		logger.debug("Scheduling sampler {} with an initial delay of {} ms", sampler.getConfig().getName(), initialDelay);
+		result.setSchedule(now + initialDelay, interval);
+		executorService.scheduleAtFixedRate(result, initialDelay, interval, TimeUnit.MILLISECONDS);
 		return result;
 	}
 
+	/**
+	 * @param spread how to spread the first samplings
+	 * @param name the name of the sampler
+	 * @param interval the interval of the sampler in milliseconds
+	 * @param now the current wall clock time in milliseconds
+	 * @return the delay in milliseconds of the first sampling (between 0 inclusive and the interval exclusive). With {@link Spread#HASH}
+	 *         the samplings start at the same offset into the interval (counted from the epoch) whenever the sampler is scheduled.
+	 */
+	protected static long computeInitialDelay(final Spread spread, final String name, final long interval, final long now) {
+		if (interval <= 0L) {
+			return 0L;
+		}
+		switch (spread) {
+			case HASH:
+				return Math.floorMod(mix(name.hashCode()) - now, interval);
+			case RANDOM:
+				return ThreadLocalRandom.current().nextLong(interval);
+			default:
+				return 0L;
+		}
+	}
+
+	/**
+	 * @return the hash with its bits mixed (the finalizer of MurmurHash3) so that similar names like "app1" and "app2" end up far apart
+	 */
+	private static long mix(final int hash) {
+		int result = hash;
+		result ^= result >>> 16;
+		result *= 0x85ebca6b;
+		result ^= result >>> 13;
+		result *= 0xc2b2ae35;
+		result ^= result >>> 16;
+		return result & 0xffffffffL;
+	}
+
 	protected void assertStarted() {
 		if (executorService == null) {
 			throw new IllegalStateException("I must be started to do that");
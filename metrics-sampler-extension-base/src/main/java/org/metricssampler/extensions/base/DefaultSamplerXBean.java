@@ -37,6 +37,18 @@ public class DefaultSamplerXBean extends SamplerXBean {
     @XStreamAsAttribute
     private Integer regularResetTimeout;
 
+	@XStreamAlias("writer-pool")
+	@XStreamAsAttribute
+	private String writerPool;
+
+	@XStreamAlias("write-timeout")
+	@XStreamAsAttribute
+	private Integer writeTimeout;
+
+	@XStreamAlias("dedup-heartbeat")
+	@XStreamAsAttribute
+	private Integer dedupHeartbeat;
+
 	private List<VariableXBean> variables;
 
 	private List<SelectorXBean> selectors;
@@ -117,6 +129,30 @@ public class DefaultSamplerXBean extends SamplerXBean {
         this.regularResetTimeout = regularResetTimeout;
     }
 
+	public String getWriterPool() {
+		return writerPool;
+	}
+
+	public void setWriterPool(final String writerPool) {
+		this.writerPool = writerPool;
+	}
+
+	public Integer getWriteTimeout() {
+		return writeTimeout;
+	}
+
+	public void setWriteTimeout(final Integer writeTimeout) {
+		this.writeTimeout = writeTimeout;
+	}
+
+	public Integer getDedupHeartbeat() {
+		return dedupHeartbeat;
+	}
+
+	public void setDedupHeartbeat(final Integer dedupHeartbeat) {
+		this.dedupHeartbeat = dedupHeartbeat;
+	}
+
 
     @Override
 	protected void validate() {
@@ -130,6 +166,17 @@ public class DefaultSamplerXBean extends SamplerXBean {
             if (regularResetTimeout != null) {
                 greaterThanZero(this, "regular-reset-timeout", regularResetTimeout);
             }
+			if (writeTimeout != null) {
+				greaterThanZero(this, "write-timeout", writeTimeout);
+			}
+			final String pool = getPool() != null ? getPool() : DEFAULT_POOL_NAME;
+			if (pool.equals(getWriterPool())) {
+				throw new ConfigurationException("Attribute \"writer-pool\" of sampler[" + getName() + "] must not be the pool \"" + pool
+						+ "\" running the sampler because waiting for writes queued behind other samplers could deadlock");
+			}
+			if (dedupHeartbeat != null) {
+				greaterThanZero(this, "dedup-heartbeat", dedupHeartbeat);
+			}
 		}
 	}
 	@Override
@@ -144,10 +191,17 @@ public class DefaultSamplerXBean extends SamplerXBean {
 		final boolean disabled = getDisabled() != null ? getDisabled() : false;
 		final boolean quiet = getQuiet() != null ? getQuiet() : false;
 		final String pool = getPool() != null ? getPool() : DEFAULT_POOL_NAME;
+		if (pool.equals(inputConfig.getThreadPool())) {
+			throw new ConfigurationException("Attribute \"thread-pool\" of input[" + inputConfig.getName() + "] must not be the pool \"" + pool
+					+ "\" running sampler[" + getName() + "] because waiting for reads queued behind other samplers could deadlock");
+		}
         final int initialResetTimeoutInt = initialResetTimeout != null ? initialResetTimeout : -1;
         final int regularResetTimeoutInt = regularResetTimeout != null ? regularResetTimeout : -1;
+		final int writeTimeoutInt = writeTimeout != null ? writeTimeout : (getInterval() != null ? getInterval() * 1000 : -1);
+		final int dedupHeartbeatInt = dedupHeartbeat != null ? dedupHeartbeat : -1;
 		final List<ValueTransformerConfig> valueTransformerConfigs = configureValueTransformers(valueTransformers);
-		return new DefaultSamplerConfig(getName(), pool, getInterval(), ignored, disabled, inputConfig, outputConfigs, selectorConfigs, samplerVariables, globalVariables, valueTransformerConfigs, quiet, initialResetTimeoutInt, regularResetTimeoutInt);
+		return new DefaultSamplerConfig(getName(), pool, getInterval(), ignored, disabled, inputConfig, outputConfigs, selectorConfigs, samplerVariables, globalVariables, valueTransformerConfigs, quiet, initialResetTimeoutInt, regularResetTimeoutInt,
+				getWriterPool(), writeTimeoutInt, dedupHeartbeatInt, parseOverrunPolicy(), getTimeout() != null ? getTimeout() : -1);
 	}
 
 	protected List<ValueTransformerConfig> configureValueTransformers(final List<ValueTransformerXBean> valueTransformers) {
@@ -2,16 +2,32 @@ package org.metricssampler.extensions.base;
 
 import de.odysseus.el.util.SimpleContext;
 
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
 import javax.el.ELContext;
+import javax.el.ELResolver;
 import javax.el.ExpressionFactory;
+import javax.el.FunctionMapper;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.ValueExpression;
+import javax.el.VariableMapper;
+import java.beans.FeatureDescriptor;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
 public class ELFactory {
+	private static final String VALUE_VARIABLE = "value";
+
 	private final ExpressionFactory factory;
 	private final Map<String, Method> functions = new HashMap<>();
+	private final SimpleContext compileContext;
+	private final ELResolver resolver;
 	
 	public ELFactory() {
 		factory = ExpressionFactory.newInstance();
@@ -31,18 +47,78 @@ public class ELFactory {
 		} catch (final SecurityException e) {
 			throw new IllegalStateException(e);
 		}
+		compileContext = new SimpleContext();
+		registerFunctions(compileContext);
+		resolver = createResolver();
 	}
 
-	public ELContext newContext(final String value) {
-		final SimpleContext result = new SimpleContext();
+	private void registerFunctions(final SimpleContext context) {
 		for (final Entry<String, Method> entry : functions.entrySet()) {
 			final int colonIdx = entry.getKey().indexOf(':');
-			result.setFunction(entry.getKey().substring(0, colonIdx), entry.getKey().substring(colonIdx+1), entry.getValue());
+			context.setFunction(entry.getKey().substring(0, colonIdx), entry.getKey().substring(colonIdx+1), entry.getValue());
 		}
-		result.setVariable("value", factory.createValueExpression(value, String.class));
+	}
+
+	private static ELResolver createResolver() {
+		final CompositeELResolver result = new CompositeELResolver();
+		result.add(new ValueResolver());
+		result.add(new ArrayELResolver(true));
+		result.add(new ListELResolver(true));
+		result.add(new MapELResolver(true));
+		result.add(new BeanELResolver(true));
+		return result;
+	}
+
+	public ELContext newContext(final String value) {
+		return newContext((Object) value);
+	}
+
+	/**
+	 * @param value the value available as variable "value" in the expressions. Can be a number or a string.
+	 * @return a new context
+	 */
+	public ELContext newContext(final Object value) {
+		final SimpleContext result = new SimpleContext();
+		registerFunctions(result);
+		result.setVariable(VALUE_VARIABLE, factory.createValueExpression(value, Object.class));
 		return result;
 	}
 
+	/**
+	 * Parse the expression once so that it can be evaluated for many values. Simple arithmetic of the value with a number literal (e.g.
+	 * {@code value / 1000000}) is evaluated directly for numeric values without going through EL.
+	 *
+	 * @param expression the expression without the surrounding {@code #{}}
+	 * @return the compiled expression which can be safely evaluated from multiple threads
+	 */
+	public CompiledExpression compile(final String expression) {
+		final CompiledExpression result = compileEL(expression);
+		final ArithmeticExpression arithmetic = ArithmeticExpression.parse(expression, result);
+		return arithmetic != null ? arithmetic : result;
+	}
+
+	/**
+	 * @param expression the expression without the surrounding {@code #{}}
+	 * @return the compiled expression which is always evaluated using EL
+	 */
+	CompiledExpression compileEL(final String expression) {
+		final ValueExpression result;
+		synchronized (compileContext) {
+			result = factory.createValueExpression(compileContext, "#{" + expression + "}", Object.class);
+		}
+		return new CompiledExpression() {
+			@Override
+			public Object getValue(final Object value) {
+				return result.getValue(new ValueContext(resolver, value));
+			}
+
+			@Override
+			public String toString() {
+				return expression;
+			}
+		};
+	}
+
 	public ExpressionFactory getFactory() {
 		return factory;
 	}
@@ -54,4 +130,82 @@ public class ELFactory {
 	public static String back(final String value, final int beginIndex) {
 		return value != null ? value.substring(beginIndex) : null;
 	}
+
+	/**
+	 * The context of a single evaluation of a compiled expression. The functions and variables are bound when the expression is
+	 * compiled so the context only needs to provide the value.
+	 */
+	private static class ValueContext extends ELContext {
+		private final ELResolver resolver;
+		private final Object value;
+
+		ValueContext(final ELResolver resolver, final Object value) {
+			this.resolver = resolver;
+			this.value = value;
+		}
+
+		@Override
+		public ELResolver getELResolver() {
+			return resolver;
+		}
+
+		@Override
+		public FunctionMapper getFunctionMapper() {
+			return null;
+		}
+
+		@Override
+		public VariableMapper getVariableMapper() {
+			return null;
+		}
+	}
+
+	/**
+	 * Resolves the top level identifier "value" to the value of the {@link ValueContext} being evaluated.
+	 */
+	private static class ValueResolver extends ELResolver {
+		private static boolean isValue(final ELContext context, final Object base, final Object property) {
+			return base == null && context instanceof ValueContext && VALUE_VARIABLE.equals(property);
+		}
+
+		@Override
+		public Object getValue(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+				return ((ValueContext) context).value;
+			}
+			return null;
+		}
+
+		@Override
+		public Class<?> getType(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+				return Object.class;
+			}
+			return null;
+		}
+
+		@Override
+		public void setValue(final ELContext context, final Object base, final Object property, final Object value) {
+		}
+
+		@Override
+		public boolean isReadOnly(final ELContext context, final Object base, final Object property) {
+			if (isValue(context, base, property)) {
+				context.setPropertyResolved(true);
+			}
+			return true;
+		}
+
+		@Override
+		public Iterator<FeatureDescriptor> getFeatureDescriptors(final ELContext context, final Object base) {
+			return Collections.<FeatureDescriptor> emptyList().iterator();
+		}
+
+		@Override
+		public Class<?> getCommonPropertyType(final ELContext context, final Object base) {
+			return base == null ? String.class : null;
+		}
+	}
 }
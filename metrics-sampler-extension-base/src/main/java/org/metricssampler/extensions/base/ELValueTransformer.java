@@ -2,26 +2,25 @@ package org.metricssampler.extensions.base;
 
 import org.metricssampler.values.NameRegExpValueTransformer;
 
-import javax.el.ELContext;
-import javax.el.ValueExpression;
-
 public class ELValueTransformer extends NameRegExpValueTransformer {
-	private final ELFactory elFactory;
+	private final CompiledExpression expression;
 
 	public ELValueTransformer(final ELValueTransformerConfig config, final ELFactory elFactory) {
 		super(config);
-		this.elFactory = elFactory;
-	}
-
-	private ELValueTransformerConfig getConfig() {
-		return (ELValueTransformerConfig) config;
+		this.expression = elFactory.compile(config.getExpression());
 	}
 
 	@Override
 	public String transform(final String value) {
-		final ELContext context = elFactory.newContext(value);
-		final ValueExpression expression = elFactory.getFactory().createValueExpression(context, "#{" + getConfig().getExpression() + "}", Object.class); 
-		final Object result = expression.getValue(context);
+		final Object result = transformValue(value);
 		return result != null ? result.toString() : null;
 	}
+
+	/**
+	 * Evaluate the expression with the typed value so that numbers are not formatted and parsed again.
+	 */
+	@Override
+	public Object transformValue(final Object value) {
+		return expression.getValue(value);
+	}
 }
@@ -4,7 +4,6 @@ import org.metricssampler.reader.MetricName;
 import org.metricssampler.selector.AbstractMetricsSelector;
 import org.metricssampler.selector.SelectedMetric;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,13 +11,18 @@ import java.util.regex.Pattern;
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
 /**
- * Select metrics using regular expressions and rename them using an expression that can contain variables.
+ * Select metrics using regular expressions and rename them using an expression that can contain variables. The rename expression is
+ * compiled once the variables are known. Instances reuse their matchers and buffers and are thus not thread safe.
  */
 public class RegExpMetricsSelector extends AbstractMetricsSelector {
 	private final RegExpSelectorConfig config;
 
 	private Pattern namePattern;
 	private Pattern descriptionPattern;
+	private Matcher nameMatcher;
+	private Matcher descriptionMatcher;
+	private RenameTemplate keyTemplate;
+	private final StringBuilder keyBuffer = new StringBuilder();
 
 	public RegExpMetricsSelector(final RegExpSelectorConfig config) {
 		checkArgumentNotNull(config, "config");
@@ -29,6 +33,9 @@ public class RegExpMetricsSelector extends AbstractMetricsSelector {
 	protected void doAfterVariablesSet(final Map<String, Object> variables) {
 		this.namePattern = createPattern(config.getNamePattern());
 		this.descriptionPattern = createPattern(config.getDescriptionPattern());
+		this.nameMatcher = namePattern != null ? namePattern.matcher("") : null;
+		this.descriptionMatcher = descriptionPattern != null ? descriptionPattern.matcher("") : null;
+		this.keyTemplate = RenameTemplate.compile(config.getKeyExpression(), getVariables());
 	}
 
 	protected Pattern createPattern(final String text) {
@@ -42,34 +49,35 @@ public class RegExpMetricsSelector extends AbstractMetricsSelector {
 
 	@Override
 	protected SelectedMetric selectMetric(final MetricName from) {
-		Map<String, Object> context = null;
-
-		if (namePattern != null) {
-			final Matcher nameMatcher = namePattern.matcher(from.getName());
+		if (nameMatcher != null) {
+			nameMatcher.reset(from.getName());
 			if (!nameMatcher.matches()) {
 				return null;
 			}
-			context = addGroups(nameMatcher, "name", context);
 		}
-		if (descriptionPattern != null) {
-			final Matcher descriptionMatcher = descriptionPattern.matcher(from.getDescription());
+		if (descriptionMatcher != null) {
+			descriptionMatcher.reset(from.getDescription());
 			if (!descriptionMatcher.matches()) {
 				return null;
 			}
-			context = addGroups(descriptionMatcher, "description", context);
 		}
-		addVariables(context);
-		final String newName = replaceVariables(config.getKeyExpression(), context);
+		final String newName = keyTemplate.render(nameMatcher, descriptionMatcher, keyBuffer);
 		return new SelectedMetric(from, newName);
+	}
 
+	/**
+	 * @return the compiled name pattern or {@code null} if the selector does not match names (or the variables are not set yet)
+	 */
+	public Pattern getNamePattern() {
+		return namePattern;
 	}
 
-	private Map<String, Object> addGroups(final Matcher matcher, final String prefix, final Map<String, Object> context) {
-		final Map<String, Object> result = context == null ? new HashMap<String, Object>() : context;
-		for (int i=0; i<=matcher.groupCount(); i++) {
-			result.put(prefix+"["+i+"]", matcher.group(i));
-		}
-		return result;
+	/**
+	 * @return the compiled description pattern or {@code null} if the selector does not match descriptions (or the variables are not
+	 *         set yet)
+	 */
+	public Pattern getDescriptionPattern() {
+		return descriptionPattern;
 	}
 
 	@Override
@@ -0,0 +1,355 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.reader.BulkMetricsReader;
+import org.metricssampler.reader.MetaDataMetricsReader;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricReadException;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.reader.MetricsMetaData;
+import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.selector.AbstractMetricsSelector;
+import org.metricssampler.selector.MetricsSelector;
+import org.metricssampler.selector.SelectedMetric;
+import org.metricssampler.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Selects metrics for a list of {@link RegExpMetricsSelector}s in one single pass over the metric names instead of one pass per
+ * selector. The literal prefixes of the name patterns are stored in a trie so that only selectors whose prefix matches the name
+ * need to evaluate their regular expressions. Selectors without a literal prefix (or with a description pattern) are evaluated for
+ * every name. The result is the same as if each selector was asked separately and the results were concatenated in the order of the
+ * selectors - a metric matched by multiple selectors is returned once for each of them. Like the single selectors, the group caches
+ * the selection for meta-data readers until the meta-data changes and for bulk readers by metric name until it is reset (bounded by
+ * the number of metrics of the last sampling).
+ * Instances are not thread safe.
+ */
+public class RegExpMetricsSelectorGroup implements MetricsSelector {
+	private static final int[] NO_SELECTORS = new int[0];
+	private static final String[] NO_NAMES = new String[0];
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final RegExpMetricsSelector[] selectors;
+	private final LruCache<String, CachedSelection> selectionCache = new LruCache<>(AbstractMetricsSelector.DEFAULT_SELECTION_CACHE_SIZE);
+	private final BitSet candidates;
+	private BitSet unprefixed;
+	private TrieNode prefixes;
+	private MetricsMetaData cachedMetaData;
+	private List<List<SelectedMetric>> cachedSelectedMetrics;
+
+	public RegExpMetricsSelectorGroup(final List<RegExpMetricsSelector> selectors) {
+		checkArgumentNotNull(selectors, "selectors");
+		checkArgument(!selectors.isEmpty(), "selectors may not be empty");
+		this.selectors = selectors.toArray(new RegExpMetricsSelector[selectors.size()]);
+		this.candidates = new BitSet(this.selectors.length);
+		compile();
+	}
+
+	private void compile() {
+		unprefixed = new BitSet(selectors.length);
+		prefixes = new TrieNode();
+		for (int i = 0; i < selectors.length; i++) {
+			final Pattern namePattern = selectors[i].getNamePattern();
+			final String prefix = namePattern != null && selectors[i].getDescriptionPattern() == null ? literalPrefix(namePattern.pattern()) : "";
+			if (prefix.isEmpty()) {
+				unprefixed.set(i);
+			} else {
+				prefixes.add(prefix, i);
+			}
+		}
+	}
+
+	/**
+	 * @param regexp a regular expression
+	 * @return the literal text that each string fully matching the regular expression must start with (may be empty)
+	 */
+	static String literalPrefix(final String regexp) {
+		if (hasTopLevelAlternation(regexp)) {
+			return "";
+		}
+		final StringBuilder result = new StringBuilder();
+		int i = regexp.startsWith("^") ? 1 : 0;
+		while (i < regexp.length()) {
+			final char c = regexp.charAt(i);
+			char literal;
+			int next;
+			if (c == '\\') {
+				if (i + 1 >= regexp.length() || Character.isLetterOrDigit(regexp.charAt(i + 1))) {
+					break;
+				}
+				literal = regexp.charAt(i + 1);
+				next = i + 2;
+			} else if (".[](){}*+?^$|".indexOf(c) >= 0) {
+				break;
+			} else {
+				literal = c;
+				next = i + 1;
+			}
+			if (next < regexp.length() && "?*{".indexOf(regexp.charAt(next)) >= 0) {
+				// the literal is optional or repeated an unknown number of times
+				break;
+			}
+			result.append(literal);
+			i = next;
+		}
+		return result.toString();
+	}
+
+	private static boolean hasTopLevelAlternation(final String regexp) {
+		int depth = 0;
+		boolean inClass = false;
+		for (int i = 0; i < regexp.length(); i++) {
+			final char c = regexp.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (inClass) {
+				inClass = c != ']';
+			} else if (c == '[') {
+				inClass = true;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '|' && depth == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Metrics readMetrics(final MetricsReader reader) {
+		if (reader instanceof MetaDataMetricsReader) {
+			return readAlreadySelected((MetaDataMetricsReader) reader);
+		} else if (reader instanceof BulkMetricsReader) {
+			return readAllAndSelect((BulkMetricsReader) reader);
+		} else {
+			throw new IllegalArgumentException("Unsupported reader: " + reader);
+		}
+	}
+
+	protected Metrics readAlreadySelected(final MetaDataMetricsReader reader) {
+		final List<List<SelectedMetric>> allSelectedMetrics = getSelectedMetrics(reader);
+		final List<MetricName> names = new ArrayList<>();
+		for (final List<SelectedMetric> selectedMetrics : allSelectedMetrics) {
+			names.addAll(AbstractMetricsSelector.originalNames(selectedMetrics));
+		}
+		reader.prefetch(names);
+		final Metrics result = new Metrics();
+		for (final List<SelectedMetric> selectedMetrics : allSelectedMetrics) {
+			for (final SelectedMetric bean : selectedMetrics) {
+				try {
+					final MetricValue value = reader.readMetric(bean.getOriginalName());
+					result.add(bean.getName(), value);
+				} catch (final MetricReadException e) {
+					logger.warn("Failed to read " + bean.getOriginalName(), e);
+				}
+			}
+		}
+		return result;
+	}
+
+	protected List<List<SelectedMetric>> getSelectedMetrics(final MetaDataMetricsReader reader) {
+		final MetricsMetaData metaData = reader.getMetaData();
+		if (this.cachedMetaData != metaData) {
+			this.cachedMetaData = metaData;
+			this.cachedSelectedMetrics = selectMetrics(metaData);
+			for (int i = 0; i < selectors.length; i++) {
+				if (cachedSelectedMetrics.get(i).isEmpty()) {
+					logger.warn(selectors[i] + " matched no metrics");
+				}
+			}
+		}
+		return cachedSelectedMetrics;
+	}
+
+	/**
+	 * @param names the metric names
+	 * @return a list with the selected metrics of each selector (in the order of the selectors)
+	 */
+	protected List<List<SelectedMetric>> selectMetrics(final Iterable<MetricName> names) {
+		logger.debug("Selecting metrics");
+		final List<List<SelectedMetric>> result = new ArrayList<>(selectors.length);
+		for (int i = 0; i < selectors.length; i++) {
+			result.add(new ArrayList<SelectedMetric>());
+		}
+		for (final MetricName name : names) {
+			collectCandidates(name.getName());
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				final SelectedMetric metric = selectors[i].selectMetric(name);
+				if (metric != null) {
+					result.get(i).add(metric);
+				}
+			}
+		}
+		for (int i = 0; i < selectors.length; i++) {
+			result.set(i, Collections.unmodifiableList(result.get(i)));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	protected Metrics readAllAndSelect(final BulkMetricsReader reader) {
+		final Metrics metrics = reader.readAllMetrics();
+		final Metrics[] selected = new Metrics[selectors.length];
+		for (int i = 0; i < metrics.size(); i++) {
+			final String description = metrics.getDescription(i);
+			final CachedSelection selection = select(metrics, i);
+			for (int j = 0; j < selection.selectors.length; j++) {
+				final int selector = selection.selectors[j];
+				if (selected[selector] == null) {
+					selected[selector] = new Metrics();
+				}
+				selected[selector].add(selection.names[j], description, metrics, i);
+			}
+		}
+		selectionCache.fitTo(metrics.size());
+		final Metrics result = new Metrics();
+		for (final Metrics selectorMetrics : selected) {
+			if (selectorMetrics != null) {
+				result.addAll(selectorMetrics);
+			}
+		}
+		return result;
+	}
+
+	private CachedSelection select(final Metrics metrics, final int index) {
+		final String name = metrics.getName(index);
+		CachedSelection result = selectionCache.get(name);
+		if (result == null || !Objects.equals(result.description, metrics.getDescription(index))) {
+			result = evaluate(metrics.getMetricName(index));
+			selectionCache.put(name, result);
+		}
+		return result;
+	}
+
+	private CachedSelection evaluate(final MetricName name) {
+		collectCandidates(name.getName());
+		int[] matchedSelectors = NO_SELECTORS;
+		String[] newNames = NO_NAMES;
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			final SelectedMetric metric = selectors[i].selectMetric(name);
+			if (metric != null) {
+				matchedSelectors = Arrays.copyOf(matchedSelectors, matchedSelectors.length + 1);
+				matchedSelectors[matchedSelectors.length - 1] = i;
+				newNames = Arrays.copyOf(newNames, newNames.length + 1);
+				newNames[newNames.length - 1] = metric.getName();
+			}
+		}
+		return new CachedSelection(name.getDescription(), matchedSelectors, newNames);
+	}
+
+	private void collectCandidates(final String name) {
+		candidates.clear();
+		candidates.or(unprefixed);
+		TrieNode node = prefixes;
+		for (int i = 0; i < name.length() && node != null; i++) {
+			node = node.child(name.charAt(i));
+			if (node != null) {
+				node.collect(candidates);
+			}
+		}
+	}
+
+	@Override
+	public void setVariables(final Map<String, Object> variables) {
+		for (final RegExpMetricsSelector selector : selectors) {
+			selector.setVariables(variables);
+		}
+		compile();
+		reset();
+	}
+
+	@Override
+	public int getMetricCount(final MetricsReader reader) {
+		int result = 0;
+		for (final RegExpMetricsSelector selector : selectors) {
+			result += selector.getMetricCount(reader);
+		}
+		return result;
+	}
+
+	@Override
+	public void reset() {
+		cachedMetaData = null;
+		cachedSelectedMetrics = null;
+		selectionCache.clear();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + Arrays.toString(selectors);
+	}
+
+	private static class CachedSelection {
+		private final String description;
+		/**
+		 * The indexes of the matching selectors in ascending order.
+		 */
+		private final int[] selectors;
+		/**
+		 * The new names of the metric given by each of the matching selectors.
+		 */
+		private final String[] names;
+
+		CachedSelection(final String description, final int[] selectors, final String[] names) {
+			this.description = description;
+			this.selectors = selectors;
+			this.names = names;
+		}
+	}
+
+	/**
+	 * Node of a character trie over the literal prefixes. Each node knows the selectors whose prefix ends in it.
+	 */
+	private static class TrieNode {
+		private char[] keys = new char[0];
+		private TrieNode[] children = new TrieNode[0];
+		private int[] selectors = NO_SELECTORS;
+
+		void add(final String prefix, final int selector) {
+			TrieNode node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				final char c = prefix.charAt(i);
+				TrieNode child = node.child(c);
+				if (child == null) {
+					child = new TrieNode();
+					node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+					node.keys[node.keys.length - 1] = c;
+					node.children = Arrays.copyOf(node.children, node.children.length + 1);
+					node.children[node.children.length - 1] = child;
+				}
+				node = child;
+			}
+			node.selectors = Arrays.copyOf(node.selectors, node.selectors.length + 1);
+			node.selectors[node.selectors.length - 1] = selector;
+		}
+
+		TrieNode child(final char c) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		void collect(final BitSet result) {
+			for (final int selector : selectors) {
+				result.set(selector);
+			}
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.selector.VariableReplacer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * The "to-name" expression of a regexp selector compiled into a list of segments - literal text (including the already resolved
+ * variables), references to groups captured by the name or description regular expressions (e.g. {@code ${name[1]}}) and function
+ * calls. Rendering a template only appends the segments to a buffer instead of scanning the expression for every matched metric.
+ * The result is the same as replacing the variables in the expression with a context containing the captured groups and the variables
+ * (variables win over captured groups with the same name). References that cannot be resolved remain unchanged.
+ */
+public class RenameTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(RenameTemplate.class);
+	private static final Pattern GROUP_REFERENCE = Pattern.compile("(name|description)\\[(\\d+)\\]");
+	private static final String NAME_PREFIX = "name";
+
+	private final String expression;
+	private final Segment[] segments;
+
+	private RenameTemplate(final String expression, final List<Segment> segments) {
+		this.expression = expression;
+		this.segments = segments.toArray(new Segment[segments.size()]);
+	}
+
+	/**
+	 * @param expression the expression to compile
+	 * @param variables the already resolved variables that will be available to the expression
+	 * @return the compiled template
+	 */
+	public static RenameTemplate compile(final String expression, final Map<String, Object> variables) {
+		checkArgumentNotNull(expression, "expression");
+		checkArgumentNotNull(variables, "variables");
+		final List<Segment> result = new ArrayList<>();
+		final StringBuilder literal = new StringBuilder();
+		int prevIdx = 0;
+		int idx = expression.indexOf(VariableReplacer.START);
+		while (idx >= 0) {
+			final int endIdx = expression.indexOf(VariableReplacer.END, idx);
+			if (endIdx < 0) {
+				break;
+			}
+			literal.append(expression, prevIdx, idx);
+			final String reference = expression.substring(idx + VariableReplacer.START.length(), endIdx);
+			final Segment segment = compileReference(reference, variables);
+			if (segment == null) {
+				final Object value = variables.get(reference);
+				if (value != null) {
+					literal.append(value);
+				} else {
+					appendUnresolved(literal, reference);
+				}
+			} else {
+				addLiteral(result, literal);
+				result.add(segment);
+			}
+			prevIdx = endIdx + VariableReplacer.END.length();
+			idx = expression.indexOf(VariableReplacer.START, prevIdx);
+		}
+		literal.append(expression, prevIdx, expression.length());
+		addLiteral(result, literal);
+		return new RenameTemplate(expression, result);
+	}
+
+	/**
+	 * @return a segment that has to be evaluated for each metric or {@code null} if the reference can be resolved statically
+	 */
+	private static Segment compileReference(final String reference, final Map<String, Object> variables) {
+		if (variables.containsKey(reference)) {
+			return null;
+		}
+		if (reference.startsWith(VariableReplacer.FUNCTION_PREFIX)) {
+			return compileFunction(reference, variables);
+		}
+		final Matcher matcher = GROUP_REFERENCE.matcher(reference);
+		if (matcher.matches()) {
+			return new GroupSegment(NAME_PREFIX.equals(matcher.group(1)), Integer.parseInt(matcher.group(2)), reference);
+		}
+		return null;
+	}
+
+	private static Segment compileFunction(final String reference, final Map<String, Object> variables) {
+		final int idxLeftPar = reference.indexOf('(');
+		final int idxRightPar = reference.indexOf(')', idxLeftPar);
+		if (idxLeftPar < 0 || idxRightPar < 0) {
+			logger.warn("Invalid function call: \"{}\"", reference);
+			return new LiteralSegment(VariableReplacer.START + reference + VariableReplacer.END);
+		}
+		final String name = reference.substring(VariableReplacer.FUNCTION_PREFIX.length(), idxLeftPar);
+		if (!"map".equals(name)) {
+			logger.warn("Unknown function: \"{}\"", name);
+			return new LiteralSegment(VariableReplacer.START + reference + VariableReplacer.END);
+		}
+		final String[] params = reference.substring(idxLeftPar + 1, idxRightPar).split(",");
+		if (params.length != 2) {
+			logger.warn("Function map expects 2 parameters not {}", params.length);
+			return new LiteralSegment(VariableReplacer.START + reference + VariableReplacer.END);
+		}
+		return new MapFunctionSegment(reference, compileArgument(params[0], variables), compileArgument(params[1], variables));
+	}
+
+	private static Argument compileArgument(final String name, final Map<String, Object> variables) {
+		final Object value = variables.get(name);
+		final Matcher matcher = GROUP_REFERENCE.matcher(name);
+		if (value == null && matcher.matches()) {
+			return new GroupArgument(NAME_PREFIX.equals(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+		}
+		return new ConstantArgument(value);
+	}
+
+	private static void addLiteral(final List<Segment> segments, final StringBuilder literal) {
+		if (literal.length() > 0) {
+			segments.add(new LiteralSegment(literal.toString()));
+			literal.setLength(0);
+		}
+	}
+
+	private static void appendUnresolved(final StringBuilder result, final String reference) {
+		result.append(VariableReplacer.START).append(reference).append(VariableReplacer.END);
+	}
+
+	/**
+	 * Render the template for one matched metric.
+	 *
+	 * @param nameMatcher the successful matcher of the name pattern or {@code null} if there is no name pattern
+	 * @param descriptionMatcher the successful matcher of the description pattern or {@code null} if there is no description pattern
+	 * @param buffer a buffer that will be cleared and used to build the result
+	 * @return the new name of the metric
+	 */
+	public String render(final Matcher nameMatcher, final Matcher descriptionMatcher, final StringBuilder buffer) {
+		buffer.setLength(0);
+		for (final Segment segment : segments) {
+			segment.appendTo(buffer, nameMatcher, descriptionMatcher);
+		}
+		return buffer.toString();
+	}
+
+	private static String group(final Matcher matcher, final int index) {
+		if (matcher == null || index > matcher.groupCount()) {
+			return null;
+		}
+		return matcher.group(index);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + expression + "]";
+	}
+
+	private interface Segment {
+		void appendTo(StringBuilder result, Matcher nameMatcher, Matcher descriptionMatcher);
+	}
+
+	private static class LiteralSegment implements Segment {
+		private final String text;
+
+		LiteralSegment(final String text) {
+			this.text = text;
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			result.append(text);
+		}
+	}
+
+	private static class GroupSegment implements Segment {
+		private final boolean name;
+		private final int index;
+		private final String reference;
+
+		GroupSegment(final boolean name, final int index, final String reference) {
+			this.name = name;
+			this.index = index;
+			this.reference = reference;
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			final String value = group(name ? nameMatcher : descriptionMatcher, index);
+			if (value != null) {
+				result.append(value);
+			} else {
+				appendUnresolved(result, reference);
+			}
+		}
+	}
+
+	private static class MapFunctionSegment implements Segment {
+		private final String reference;
+		private final Argument dictionary;
+		private final Argument key;
+
+		MapFunctionSegment(final String reference, final Argument dictionary, final Argument key) {
+			this.reference = reference;
+			this.dictionary = dictionary;
+			this.key = key;
+		}
+
+		@Override
+		public void appendTo(final StringBuilder result, final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			@SuppressWarnings("unchecked")
+			final Map<String, String> map = (Map<String, String>) dictionary.evaluate(nameMatcher, descriptionMatcher);
+			final Object value = map != null ? map.get(key.evaluate(nameMatcher, descriptionMatcher)) : null;
+			if (value != null) {
+				result.append(value);
+			} else {
+				appendUnresolved(result, reference);
+			}
+		}
+	}
+
+	private interface Argument {
+		Object evaluate(Matcher nameMatcher, Matcher descriptionMatcher);
+	}
+
+	private static class ConstantArgument implements Argument {
+		private final Object value;
+
+		ConstantArgument(final Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public Object evaluate(final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			return value;
+		}
+	}
+
+	private static class GroupArgument implements Argument {
+		private final boolean name;
+		private final int index;
+
+		GroupArgument(final boolean name, final int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		@Override
+		public Object evaluate(final Matcher nameMatcher, final Matcher descriptionMatcher) {
+			return group(name ? nameMatcher : descriptionMatcher, index);
+		}
+	}
+}
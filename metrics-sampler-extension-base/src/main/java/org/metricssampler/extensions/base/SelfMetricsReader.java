@@ -41,6 +41,16 @@ public class SelfMetricsReader extends AbstractMetricsReader<SelfInputConfig> im
 			result.add(prefix + "disconnectCount", "The total number of times the reader tried to disconnect from the input", timestamp, stats.getDisconnectCount());
 			result.add(prefix + "metricsCount", "The total number of metrics sampled the last time", timestamp, stats.getMetricsCount());
 			result.add(prefix + "sampleDuration", "The last sample duration in seconds", timestamp, stats.getSampleDuration());
+			result.add(prefix + "writeTimeoutCount", "The total number of writes that did not finish within the write timeout", timestamp, stats.getWriteTimeoutCount());
+			result.add(prefix + "writeSkippedCount", "The total number of writes skipped because the previous write to the output was still running", timestamp, stats.getWriteSkippedCount());
+			result.add(prefix + "suppressedCount", "The number of metrics not written the last time because their value did not change", timestamp, stats.getSuppressedCount());
+			result.add(prefix + "scheduleDrift", "The number of milliseconds the last sampling started after the time it was scheduled for", timestamp, stats.getScheduleDrift());
+			result.add(prefix + "overrunCount", "The total number of samplings that took longer than the interval", timestamp, stats.getOverrunCount());
+			result.add(prefix + "skippedCount", "The total number of due samplings skipped because of the overrun policy", timestamp, stats.getSkippedCount());
+			result.add(prefix + "timeoutCount", "The total number of samplings aborted because they took longer than the timeout", timestamp, stats.getTimeoutCount());
+			for (final Entry<String, Long> entry : stats.getWriteDurations().entrySet()) {
+				result.add(prefix + "outputs." + entry.getKey() + ".writeDuration", "The last duration of writing to the output in milliseconds", timestamp, entry.getValue());
+			}
 		}
 
 		for (final SharedResource sharedResource : registry.getSharedResources()) {
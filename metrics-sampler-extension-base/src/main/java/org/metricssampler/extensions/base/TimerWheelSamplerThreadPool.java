@@ -0,0 +1,315 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.resources.SamplerThreadPool;
+import org.metricssampler.sampler.Sampler;
+import org.metricssampler.service.GlobalRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * A sampler thread pool that keeps the scheduled samplers in a hashed timing wheel (as described by Varghese and Lauck) instead of the
+ * single lock guarded priority queue of a {@link ScheduledThreadPoolExecutor}. A single ticker thread advances the wheel every tick and
+ * hands the due samplers over to a separate pool of worker threads, so scheduling costs constant time per sampler regardless of how
+ * many samplers there are. Newly scheduled samplers are passed to the ticker through a lock-free queue.
+ * <p>
+ * Like {@link DefaultSamplerThreadPool} the samplers are run at a fixed rate: a sampler never runs concurrently with itself and the
+ * runs that became due while it was still running are started right after it finishes. Samplings start up to one tick late.
+ * </p>
+ */
+public class TimerWheelSamplerThreadPool implements SamplerThreadPool {
+	private static final int WHEEL_SIZE = 512;
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+	protected final ThreadPoolConfig config;
+	private final boolean suspended;
+	private final Clock clock;
+	private final long tickNanos;
+	private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger scheduledCount = new AtomicInteger();
+	private final AtomicLong lateTickCount = new AtomicLong();
+	private ExecutorService workers;
+	private Thread ticker;
+
+	public TimerWheelSamplerThreadPool(final ThreadPoolConfig config, final boolean suspended) {
+		this(config, suspended, Clock.SYSTEM);
+	}
+
+	TimerWheelSamplerThreadPool(final ThreadPoolConfig config, final boolean suspended, final Clock clock) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		this.suspended = suspended;
+		this.clock = clock;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(config.getTick());
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public synchronized void startup() {
+		workers = createWorkers();
+		if (suspended) {
+			workers.shutdown();
+			return;
+		}
+		ticker = new Thread(new Ticker(workers), config.getName() + "-ticker");
+		ticker.setDaemon(true);
+		ticker.start();
+	}
+
+	/**
+	 * @return the executor running the due samplers and the submitted tasks
+	 */
+	protected ExecutorService createWorkers() {
+		logger.info("Starting timer wheel thread pool \"{}\" with {} worker threads and a tick of {} ms", config.getName(), config.getCoreSize(), config.getTick());
+		final int maxSize = config.getMaxSize() != -1 ? Math.max(config.getMaxSize(), config.getCoreSize()) : config.getCoreSize();
+		final ThreadPoolExecutor result = new ThreadPoolExecutor(config.getCoreSize(), maxSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new WorkerThreadFactory());
+		if (config.getKeepAliveTime() != -1) {
+			result.setKeepAliveTime(config.getKeepAliveTime(), TimeUnit.SECONDS);
+		}
+		return result;
+	}
+
+	@Override
+	public SamplerTask schedule(final Sampler sampler) {
+		assertStarted();
+		final SamplerTask result = new SamplerTask(sampler, clock::currentTimeMillis);
+		GlobalRegistry.getInstance().addSamplerTask(result);
+		final long interval = TimeUnit.SECONDS.toMillis(sampler.getConfig().getInterval());
+		final long now = clock.currentTimeMillis();
+		final long initialDelay = DefaultSamplerThreadPool.computeInitialDelay(config.getSpread(), sampler.getConfig().getName(), interval, now);
+		logger.debug("Scheduling sampler {} with an initial delay of {} ms", sampler.getConfig().getName(), initialDelay);
+		result.setSchedule(now + initialDelay, interval);
+		registrations.add(new Timeout(result, clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay), TimeUnit.MILLISECONDS.toNanos(interval)));
+		scheduledCount.incrementAndGet();
+		return result;
+	}
+
+	protected void assertStarted() {
+		if (workers == null) {
+			throw new IllegalStateException("I must be started to do that");
+		}
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		logger.info("Shutting down thread pool {}", config.getName());
+		if (ticker != null) {
+			ticker.interrupt();
+			ticker = null;
+		}
+		try {
+			logger.debug("Waiting for the worker threads to gracefully shutdown");
+			workers.shutdown();
+			workers.awaitTermination(20, TimeUnit.SECONDS);
+			logger.info("Worker threads terminated");
+		} catch (final InterruptedException e) {
+			logger.warn("Thread pool failed to gracefully shutdown within 20 seconds. Forcing shutdown");
+		}
+		workers = null;
+	}
+
+	@Override
+	public String getName() {
+		return config.getName();
+	}
+
+	@Override
+	public <T> Future<T> submit(final Callable<T> task) {
+		return workers.submit(task);
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "thread-pools." + getName() + ".";
+		final Map<String, Object> result = new HashMap<>();
+		addWorkerStats(workers, prefix, result);
+		result.put(prefix + "scheduledCount", scheduledCount.get());
+		result.put(prefix + "lateTickCount", lateTickCount.get());
+		return result;
+	}
+
+	/**
+	 * Add the statistics of the workers created by {@link #createWorkers()}.
+	 */
+	protected void addWorkerStats(final ExecutorService workers, final String prefix, final Map<String, Object> result) {
+		final ThreadPoolExecutor executor = (ThreadPoolExecutor) workers;
+		result.put(prefix + "activeCount", executor.getActiveCount());
+		result.put(prefix + "poolSize", executor.getPoolSize());
+		result.put(prefix + "completedTaskCount", executor.getCompletedTaskCount());
+		result.put(prefix + "queueSize", executor.getQueue().size());
+	}
+
+	/**
+	 * A scheduled sampler in the wheel. Only the ticker thread touches the position in the wheel, the worker threads only the number of
+	 * pending runs.
+	 */
+	private class Timeout implements Runnable {
+		private final SamplerTask task;
+		private final long period;
+		private long deadline;
+		private long remainingRounds;
+		/**
+		 * The number of runs that are due but have not finished yet. The timeout is handed over to the workers only if there are no
+		 * pending runs so that the sampler never runs concurrently with itself.
+		 */
+		private final AtomicInteger pendingRuns = new AtomicInteger();
+
+		private Timeout(final SamplerTask task, final long deadline, final long period) {
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+
+		private void expire(final Executor executor) {
+			deadline += period;
+			if (pendingRuns.getAndIncrement() == 0) {
+				try {
+					executor.execute(this);
+				} catch (final RejectedExecutionException e) {
+					pendingRuns.set(0);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			do {
+				try {
+					task.run();
+				} catch (final RuntimeException e) {
+					logger.warn("Sampler task threw exception. Ignoring.", e);
+				}
+			} while (pendingRuns.decrementAndGet() > 0);
+		}
+	}
+
+	private class Ticker implements Runnable {
+		private final Executor executor;
+		@SuppressWarnings("unchecked")
+		private final List<Timeout>[] wheel = new List[WHEEL_SIZE];
+		private final List<Timeout> expired = new ArrayList<>();
+		private long startTime;
+		private long tick;
+
+		private Ticker(final Executor executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < wheel.length; i++) {
+				wheel[i] = new ArrayList<>();
+			}
+			startTime = clock.nanoTime();
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					waitForNextTick();
+					transferRegistrations();
+					expireTimeouts();
+					tick++;
+				}
+			} catch (final InterruptedException e) {
+				logger.debug("Ticker of {} interrupted", config.getName());
+			}
+		}
+
+		private void waitForNextTick() throws InterruptedException {
+			final long deadline = startTime + (tick + 1) * tickNanos;
+			final long sleepNanos = deadline - clock.nanoTime();
+			if (sleepNanos > 0) {
+				clock.sleep(sleepNanos);
+			} else if (-sleepNanos > tickNanos) {
+				lateTickCount.incrementAndGet();
+			}
+		}
+
+		private void transferRegistrations() {
+			Timeout timeout;
+			while ((timeout = registrations.poll()) != null) {
+				place(timeout, tick);
+			}
+		}
+
+		private void expireTimeouts() {
+			final List<Timeout> bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+			int kept = 0;
+			for (int i = 0; i < bucket.size(); i++) {
+				final Timeout timeout = bucket.get(i);
+				if (timeout.remainingRounds <= 0) {
+					expired.add(timeout);
+				} else {
+					timeout.remainingRounds--;
+					bucket.set(kept++, timeout);
+				}
+			}
+			bucket.subList(kept, bucket.size()).clear();
+			for (final Timeout timeout : expired) {
+				timeout.expire(executor);
+				place(timeout, tick + 1);
+			}
+			expired.clear();
+		}
+
+		/**
+		 * @param firstTick the first tick that has not been processed yet
+		 */
+		private void place(final Timeout timeout, final long firstTick) {
+			final long target = Math.max((timeout.deadline - startTime + tickNanos - 1) / tickNanos - 1, firstTick);
+			timeout.remainingRounds = (target - firstTick) / WHEEL_SIZE;
+			wheel[(int) (target & (WHEEL_SIZE - 1))].add(timeout);
+		}
+	}
+
+	/**
+	 * The time source of the pool. Tests replace it to advance the wheel without waiting.
+	 */
+	interface Clock {
+		Clock SYSTEM = new Clock() {
+			@Override
+			public long currentTimeMillis() {
+				return System.currentTimeMillis();
+			}
+
+			@Override
+			public long nanoTime() {
+				return System.nanoTime();
+			}
+
+			@Override
+			public void sleep(final long nanos) throws InterruptedException {
+				TimeUnit.NANOSECONDS.sleep(nanos);
+			}
+		};
+
+		long currentTimeMillis();
+
+		long nanoTime();
+
+		void sleep(long nanos) throws InterruptedException;
+	}
+
+	private class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread result = new Thread(r, config.getName() + "-" + threadNumber.getAndIncrement());
+			result.setDaemon(true);
+			return result;
+		}
+	}
+}
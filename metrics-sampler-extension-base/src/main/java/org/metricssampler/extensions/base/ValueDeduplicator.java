@@ -0,0 +1,233 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.reader.Metrics;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+/**
+ * Drops metrics whose value did not change since it was last passed on, unless that was at least the heartbeat interval ago (measured
+ * using the timestamps of the metrics). The last passed value of each metric is kept in an open addressing hash map backed by primitive
+ * arrays (the raw bits of long and double values) so that tens of thousands of metrics cost a few hundred kilobytes and no boxing.
+ * Only text values are kept as references. Metrics that were not seen for more than the heartbeat interval are forgotten so that the map
+ * does not grow with every metric ever sampled. This class is not thread safe.
+ */
+class ValueDeduplicator {
+	private static final byte TYPE_NULL = 1;
+	private static final byte TYPE_LONG = 2;
+	private static final byte TYPE_DOUBLE = 3;
+	private static final byte TYPE_TEXT = 4;
+	/**
+	 * Marks a metric whose last passed value could not be written so that its next value is passed on no matter what it is.
+	 */
+	private static final byte TYPE_UNSENT = 5;
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final long heartbeat;
+	private String[] names;
+	/**
+	 * The type of the last passed value, {@link #TYPE_UNSENT} or 0 for empty slots.
+	 */
+	private byte[] types;
+	private long[] values;
+	private long[] sent;
+	/**
+	 * The timestamp of the last value, passed on or not.
+	 */
+	private long[] seen;
+	/**
+	 * The last passed text values, allocated only once the first text value is seen.
+	 */
+	private Object[] texts;
+	private int size;
+	private int suppressed;
+	/**
+	 * The timestamp at which the metrics not seen for more than the heartbeat interval are forgotten next or {@link Long#MIN_VALUE} before
+	 * the first metrics.
+	 */
+	private long nextEviction;
+
+	/**
+	 * @param heartbeat the number of milliseconds after which an unchanged value is passed on again
+	 */
+	ValueDeduplicator(final long heartbeat) {
+		checkArgument(heartbeat > 0, "heartbeat must be greater than zero");
+		this.heartbeat = heartbeat;
+		clear();
+	}
+
+	/**
+	 * @return the metrics that changed since they were last passed on or whose heartbeat is due, in their original order
+	 */
+	Metrics deduplicate(final Metrics metrics) {
+		final Metrics result = new Metrics(metrics.size());
+		suppressed = 0;
+		long latest = Long.MIN_VALUE;
+		for (int i = 0; i < metrics.size(); i++) {
+			if (update(metrics, i)) {
+				result.add(metrics.getName(i), metrics.getDescription(i), metrics, i);
+			} else {
+				suppressed++;
+			}
+			latest = Math.max(latest, metrics.getTimestamp(i));
+		}
+		if (metrics.size() > 0) {
+			if (nextEviction == Long.MIN_VALUE) {
+				nextEviction = latest + heartbeat;
+			} else if (latest >= nextEviction) {
+				rehash(names.length, latest - heartbeat);
+				nextEviction = latest + heartbeat;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Forget the values of the given metrics (usually the result of {@link #deduplicate(Metrics)}) because they could not be written, so
+	 * that the next values are passed on even if they did not change.
+	 */
+	void forget(final Metrics metrics) {
+		for (int i = 0; i < metrics.size(); i++) {
+			final int slot = slot(metrics.getName(i));
+			if (types[slot] != 0) {
+				types[slot] = TYPE_UNSENT;
+				if (texts != null) {
+					texts[slot] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return {@code true} if the metric must be passed on
+	 */
+	private boolean update(final Metrics metrics, final int index) {
+		final String name = metrics.getName(index);
+		final byte type;
+		final long bits;
+		Object text = null;
+		if (metrics.isLong(index)) {
+			type = TYPE_LONG;
+			bits = metrics.getLong(index);
+		} else if (metrics.isDouble(index)) {
+			type = TYPE_DOUBLE;
+			bits = Double.doubleToRawLongBits(metrics.getDouble(index));
+		} else if (metrics.hasValue(index)) {
+			type = TYPE_TEXT;
+			text = metrics.getValue(index);
+			bits = text.hashCode();
+		} else {
+			type = TYPE_NULL;
+			bits = 0L;
+		}
+		final long timestamp = metrics.getTimestamp(index);
+
+		int slot = slot(name);
+		seen[slot] = timestamp;
+		if (types[slot] == 0) {
+			if (size + 1 > names.length * 3 / 4) {
+				rehash(names.length * 2, Long.MIN_VALUE);
+				slot = slot(name);
+				seen[slot] = timestamp;
+			}
+			names[slot] = name;
+			size++;
+		} else if (types[slot] == type && values[slot] == bits && (type != TYPE_TEXT || text.equals(texts[slot]))
+				&& timestamp - sent[slot] < heartbeat) {
+			return false;
+		}
+		types[slot] = type;
+		values[slot] = bits;
+		sent[slot] = timestamp;
+		if (text != null) {
+			if (texts == null) {
+				texts = new Object[names.length];
+			}
+			texts[slot] = text;
+		} else if (texts != null) {
+			texts[slot] = null;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the slot containing the name or the empty slot where it belongs
+	 */
+	private int slot(final String name) {
+		final int mask = names.length - 1;
+		final int hash = name.hashCode();
+		int result = (hash ^ (hash >>> 16)) & mask;
+		while (types[result] != 0 && !name.equals(names[result])) {
+			result = (result + 1) & mask;
+		}
+		return result;
+	}
+
+	/**
+	 * Move the metrics to new arrays of the given capacity. Removing entries from an open addressing map would break the probe sequences
+	 * so the metrics last seen before the given timestamp are evicted by leaving them behind.
+	 */
+	private void rehash(final int capacity, final long seenAfter) {
+		final String[] oldNames = names;
+		final byte[] oldTypes = types;
+		final long[] oldValues = values;
+		final long[] oldSent = sent;
+		final long[] oldSeen = seen;
+		final Object[] oldTexts = texts;
+		allocate(capacity);
+		if (oldTexts != null) {
+			texts = new Object[capacity];
+		}
+		size = 0;
+		for (int i = 0; i < oldNames.length; i++) {
+			if (oldTypes[i] != 0 && oldSeen[i] >= seenAfter) {
+				final int slot = slot(oldNames[i]);
+				names[slot] = oldNames[i];
+				types[slot] = oldTypes[i];
+				values[slot] = oldValues[i];
+				sent[slot] = oldSent[i];
+				seen[slot] = oldSeen[i];
+				if (oldTexts != null) {
+					texts[slot] = oldTexts[i];
+				}
+				size++;
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		names = new String[capacity];
+		types = new byte[capacity];
+		values = new long[capacity];
+		sent = new long[capacity];
+		seen = new long[capacity];
+		texts = null;
+	}
+
+	/**
+	 * Forget all values so that the next metrics are passed on completely.
+	 */
+	void clear() {
+		allocate(INITIAL_CAPACITY);
+		size = 0;
+		nextEviction = Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return the number of metrics whose last passed value is known
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of metrics dropped by the last call to {@link #deduplicate(Metrics)}
+	 */
+	int getSuppressed() {
+		return suppressed;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[heartbeat=" + heartbeat + ", size=" + size + ", capacity=" + names.length + "]";
+	}
+}
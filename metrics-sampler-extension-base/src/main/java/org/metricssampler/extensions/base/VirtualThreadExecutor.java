@@ -0,0 +1,160 @@
+package org.metricssampler.extensions.base;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Runs each task on a new thread created by the given factory (usually one creating virtual threads, see
+ * {@link #newVirtualThreadFactory(String)}) while at most a given number of tasks run at the same time. Tasks beyond the limit wait
+ * for a permit on their own (cheap) thread instead of in a queue.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+	private final ThreadFactory threadFactory;
+	private final Semaphore permits;
+	private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicLong completedTaskCount = new AtomicLong();
+	private volatile boolean shutdown;
+
+	/**
+	 * @param threadFactory the factory creating a thread per task
+	 * @param concurrency the maximal number of tasks running at the same time
+	 */
+	VirtualThreadExecutor(final ThreadFactory threadFactory, final int concurrency) {
+		checkArgumentNotNull(threadFactory, "threadFactory");
+		checkArgument(concurrency > 0, "concurrency must be greater than zero");
+		this.threadFactory = threadFactory;
+		this.permits = new Semaphore(concurrency);
+	}
+
+	/**
+	 * @param prefix the prefix of the thread names
+	 * @return a factory creating virtual threads or {@code null} if the JVM does not support them (before Java 21). The virtual threads
+	 *         are scheduled on the carrier threads shared by the whole JVM (see the system property
+	 *         {@code jdk.virtualThreadScheduler.parallelism}).
+	 */
+	static ThreadFactory newVirtualThreadFactory(final String prefix) {
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+			final Method factory = builderClass.getMethod("factory");
+			return (ThreadFactory) factory.invoke(namedBuilder);
+		} catch (final ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void execute(final Runnable command) {
+		checkArgumentNotNull(command, "command");
+		if (shutdown) {
+			throw new RejectedExecutionException("Executor has been shut down");
+		}
+		final Thread thread = threadFactory.newThread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					permits.acquire();
+				} catch (final InterruptedException e) {
+					threads.remove(Thread.currentThread());
+					return;
+				}
+				activeCount.incrementAndGet();
+				try {
+					command.run();
+				} finally {
+					activeCount.decrementAndGet();
+					completedTaskCount.incrementAndGet();
+					permits.release();
+					threads.remove(Thread.currentThread());
+					synchronized (threads) {
+						threads.notifyAll();
+					}
+				}
+			}
+		});
+		threads.add(thread);
+		thread.start();
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown = true;
+		for (final Thread thread : threads) {
+			thread.interrupt();
+		}
+		return new ArrayList<>();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return shutdown && threads.isEmpty();
+	}
+
+	@Override
+	public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (threads) {
+			while (!isTerminated()) {
+				final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0) {
+					return false;
+				}
+				threads.wait(Math.min(remaining, 100L));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of tasks running right now
+	 */
+	int getActiveCount() {
+		return activeCount.get();
+	}
+
+	/**
+	 * @return the number of threads that are running or waiting to run a task
+	 */
+	int getPoolSize() {
+		return threads.size();
+	}
+
+	/**
+	 * @return the total number of tasks that finished
+	 */
+	long getCompletedTaskCount() {
+		return completedTaskCount.get();
+	}
+
+	/**
+	 * @return the number of threads waiting for a permit to run their task
+	 */
+	int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+}
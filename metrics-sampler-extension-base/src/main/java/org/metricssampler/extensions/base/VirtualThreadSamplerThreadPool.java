@@ -0,0 +1,45 @@
+package org.metricssampler.extensions.base;
+
+import org.metricssampler.config.ThreadPoolConfig;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link TimerWheelSamplerThreadPool} that runs each sampling and each submitted task on its own virtual thread instead of on a fixed
+ * number of worker threads. At most {@link ThreadPoolConfig#getCoreSize()} of them run at the same time. Samplers blocked on I/O
+ * therefore cost a virtual thread (a few kilobytes of heap) instead of a platform thread. Virtual threads need Java 21 or later - on
+ * older JVMs the pool falls back to worker threads as {@link TimerWheelSamplerThreadPool} does.
+ */
+public class VirtualThreadSamplerThreadPool extends TimerWheelSamplerThreadPool {
+	public VirtualThreadSamplerThreadPool(final ThreadPoolConfig config, final boolean suspended) {
+		super(config, suspended);
+	}
+
+	@Override
+	protected ExecutorService createWorkers() {
+		final ThreadFactory threadFactory = VirtualThreadExecutor.newVirtualThreadFactory(config.getName() + "-");
+		if (threadFactory == null) {
+			logger.warn("Virtual threads are not supported by this JVM (Java 21 or later is needed). Thread pool \"{}\" uses platform threads instead",
+					config.getName());
+			return super.createWorkers();
+		}
+		logger.info("Starting virtual thread pool \"{}\" running at most {} tasks concurrently with a tick of {} ms", config.getName(),
+				config.getCoreSize(), config.getTick());
+		return new VirtualThreadExecutor(threadFactory, config.getCoreSize());
+	}
+
+	@Override
+	protected void addWorkerStats(final ExecutorService workers, final String prefix, final Map<String, Object> result) {
+		if (workers instanceof VirtualThreadExecutor) {
+			final VirtualThreadExecutor executor = (VirtualThreadExecutor) workers;
+			result.put(prefix + "activeCount", executor.getActiveCount());
+			result.put(prefix + "poolSize", executor.getPoolSize());
+			result.put(prefix + "completedTaskCount", executor.getCompletedTaskCount());
+			result.put(prefix + "queueSize", executor.getWaitingCount());
+		} else {
+			super.addWorkerStats(workers, prefix, result);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.columnar.ColumnarFileReader;
+import org.slf4j.MDC;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ColumnarFileMetricsWriterTest {
+	private static final long HOUR = 3600000L;
+	// 2015-03-01 10:00:00 UTC
+	private static final long START = 1425204000000L;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final AtomicLong clock = new AtomicLong(START);
+
+	@Test
+	public void rotateHourly() throws IOException {
+		final ColumnarFileMetricsWriter testee = createWriter(0);
+		MDC.put("sampler", "my sampler");
+		try {
+			write(testee, 1L);
+			clock.addAndGet(HOUR - 1);
+			write(testee, 2L);
+			final File first = testee.getFile();
+			clock.incrementAndGet();
+			write(testee, 3L);
+			final File second = testee.getFile();
+
+			assertEquals("20150301-10.my_sampler.mcf", first.getName());
+			assertEquals("20150301-11.my_sampler.mcf", second.getName());
+			assertValues(first, 1L, 2L);
+			assertValues(second, 3L);
+		} finally {
+			MDC.remove("sampler");
+		}
+	}
+
+	@Test
+	public void doNotOverwriteExistingFiles() throws IOException {
+		final ColumnarFileMetricsWriter first = createWriter(0);
+		final ColumnarFileMetricsWriter second = createWriter(0);
+		write(first, 1L);
+		write(second, 2L);
+
+		assertEquals("20150301-10.out.mcf", first.getFile().getName());
+		assertEquals("20150301-10.out.1.mcf", second.getFile().getName());
+		assertValues(first.getFile(), 1L);
+		assertValues(second.getFile(), 2L);
+	}
+
+	@Test
+	public void deleteExpiredFiles() throws IOException {
+		final ColumnarFileMetricsWriter testee = createWriter(2);
+		write(testee, 1L);
+		final File first = testee.getFile();
+		assertTrue(first.setLastModified(START));
+		clock.addAndGet(2 * HOUR);
+		write(testee, 2L);
+		assertTrue(first.exists());
+		clock.addAndGet(HOUR);
+		write(testee, 3L);
+
+		assertFalse(first.exists());
+		assertNotEquals(first, testee.getFile());
+	}
+
+	@Test
+	public void shutdownClosesFile() throws IOException {
+		final ColumnarFileMetricsWriter testee = createWriter(0);
+		write(testee, 1L);
+		final File file = testee.getFile();
+
+		testee.shutdown();
+
+		assertNull(testee.getFile());
+		assertValues(file, 1L);
+		try {
+			write(testee, 2L);
+			fail("Expected a write after shutdown to fail");
+		} catch (final MetricWriteException e) {
+			// expected
+		}
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+	private ColumnarFileMetricsWriter createWriter(final int retention) {
+		final ColumnarFileOutputConfig config = new ColumnarFileOutputConfig("out", false, folder.getRoot(), true, retention);
+		final ColumnarFileMetricsWriter result = new ColumnarFileMetricsWriter(config, clock::get);
+		result.open();
+		return result;
+	}
+
+	private void write(final ColumnarFileMetricsWriter writer, final long value) {
+		final Metrics metrics = new Metrics();
+		metrics.add("value", null, clock.get(), value);
+		writer.write(metrics);
+		writer.close();
+	}
+
+	private static void assertValues(final File file, final long... values) throws IOException {
+		try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+			for (final long value : values) {
+				final Metrics metrics = reader.next();
+				assertEquals(1, metrics.size());
+				assertEquals(value, metrics.getLong(0));
+			}
+			assertNull(reader.next());
+		}
+	}
+}
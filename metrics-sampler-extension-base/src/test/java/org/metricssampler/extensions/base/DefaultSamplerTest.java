@@ -6,9 +6,24 @@ import org.junit.Test;
 import org.metricssampler.reader.BulkMetricsReader;
 import org.metricssampler.reader.Metrics;
 import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.selector.MetricsSelector;
+import org.metricssampler.writer.MetricWriteException;
 import org.metricssampler.writer.MetricsWriter;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
 public class DefaultSamplerTest {
@@ -63,4 +78,83 @@ public class DefaultSamplerTest {
 		verify(writer2, times(1)).open();
 		verify(writer2, times(1)).close();
 	}
+
+	@Test
+	public void writeChangedValueAgainAfterFailedWrite() {
+		final Metrics first = new Metrics();
+		first.add("a", null, 1000L, 1L);
+		final Metrics second = new Metrics();
+		second.add("a", null, 11000L, 1L);
+		when(transformer1.readMetrics(bulkReader)).thenReturn(first, second, second);
+		when(transformer2.readMetrics(bulkReader)).thenReturn(new Metrics());
+		when(config.getDedupHeartbeat()).thenReturn(300);
+		doThrow(new MetricWriteException("down")).doNothing().when(writer1).write(any(Metrics.class));
+
+		testee.sample();
+		testee.sample();
+		testee.sample();
+
+		final ArgumentCaptor<Metrics> written = ArgumentCaptor.forClass(Metrics.class);
+		verify(writer1, times(3)).write(written.capture());
+		assertEquals(1, written.getAllValues().get(0).size());
+		assertEquals(1, written.getAllValues().get(1).size());
+		assertEquals(0, written.getAllValues().get(2).size());
+	}
+
+	@Test
+	public void sampleWithParallelWriters() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final CountDownLatch release = new CountDownLatch(1);
+		try {
+			when(transformer1.readMetrics(bulkReader)).thenReturn(new Metrics());
+			when(transformer2.readMetrics(bulkReader)).thenReturn(new Metrics());
+			// a second sampling waiting for the hung write would take a minute
+			when(config.getWriteTimeout()).thenReturn(50, 60000);
+			doAnswer(new Answer<Void>() {
+				@Override
+				public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+					release.await();
+					return null;
+				}
+			}).when(writer1).write(any(Metrics.class));
+			testee = new DefaultSampler(config, bulkReader);
+			testee.addWriter("slow", writer1);
+			testee.addWriter("fast", writer2);
+			testee.addSelector(transformer1);
+			testee.addSelector(transformer2);
+			testee.setWriterPool(newThreadPool(executor));
+
+			testee.sample();
+			final long start = System.currentTimeMillis();
+			testee.sample();
+
+			assertTrue(System.currentTimeMillis() - start < 30000L);
+			verify(writer2, times(2)).write(any(Metrics.class));
+			verify(writer2, times(2)).close();
+			verify(writer1, times(1)).write(any(Metrics.class));
+			assertEquals(1, SamplerStats.get().getWriteTimeoutCount());
+			assertEquals(1, SamplerStats.get().getWriteSkippedCount());
+			assertTrue(SamplerStats.get().getWriteDurations().containsKey("fast"));
+
+			release.countDown();
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+			verify(writer1, times(1)).close();
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private SamplerThreadPool newThreadPool(final ExecutorService executor) {
+		final SamplerThreadPool result = mock(SamplerThreadPool.class);
+		when(result.submit(any(Callable.class))).thenAnswer(new Answer<Future<?>>() {
+			@Override
+			public Future<?> answer(final InvocationOnMock invocation) {
+				return executor.submit((Callable<?>) invocation.getArguments()[0]);
+			}
+		});
+		return result;
+	}
 }
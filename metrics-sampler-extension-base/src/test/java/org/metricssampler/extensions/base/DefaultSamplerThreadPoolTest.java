@@ -0,0 +1,50 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Test;
+import org.metricssampler.config.ThreadPoolConfig.Spread;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.metricssampler.extensions.base.DefaultSamplerThreadPool.computeInitialDelay;
+
+public class DefaultSamplerThreadPoolTest {
+	private static final long NOW = 1500000000123L;
+
+	@Test
+	public void computeInitialDelayWithoutSpread() {
+		assertEquals(0L, computeInitialDelay(Spread.NONE, "sampler", 10000L, NOW));
+	}
+
+	@Test
+	public void computeInitialDelayByHash() {
+		final Set<Long> seconds = new HashSet<>();
+		for (int i = 0; i < 100; i++) {
+			final long delay = computeInitialDelay(Spread.HASH, "app" + i, 10000L, NOW);
+			assertTrue("Delay was " + delay, delay >= 0L && delay < 10000L);
+			assertEquals(delay, computeInitialDelay(Spread.HASH, "app" + i, 10000L, NOW));
+			seconds.add(delay / 1000L);
+		}
+		assertEquals(10, seconds.size());
+	}
+
+	@Test
+	public void computeInitialDelayByHashKeepsPhaseAcrossRestarts() {
+		final long firstRun = NOW + computeInitialDelay(Spread.HASH, "sampler", 10000L, NOW);
+		for (final long restart : new long[] {NOW + 1L, NOW + 4321L, NOW + 9999L, NOW + 86400000L + 17L}) {
+			final long delay = computeInitialDelay(Spread.HASH, "sampler", 10000L, restart);
+			assertTrue("Delay was " + delay, delay >= 0L && delay < 10000L);
+			assertEquals(0L, Math.floorMod(restart + delay - firstRun, 10000L));
+		}
+	}
+
+	@Test
+	public void computeInitialDelayRandomly() {
+		for (int i = 0; i < 100; i++) {
+			final long delay = computeInitialDelay(Spread.RANDOM, "sampler", 10000L, NOW);
+			assertTrue("Delay was " + delay, delay >= 0L && delay < 10000L);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ELFactoryTest {
+	private ELFactory testee;
+
+	@Before
+	public void setup() {
+		testee = new ELFactory();
+	}
+
+	@Test
+	public void compileSimpleArithmeticUsesFastPath() {
+		assertTrue(testee.compile("value / 1000000") instanceof ArithmeticExpression);
+		assertTrue(testee.compile(" 100 * value ") instanceof ArithmeticExpression);
+		assertTrue(testee.compile("value div 2.5") instanceof ArithmeticExpression);
+		assertFalse(testee.compile("value / 2 + 1") instanceof ArithmeticExpression);
+		assertFalse(testee.compile("c:long(value) / 2") instanceof ArithmeticExpression);
+		assertFalse(testee.compile("values / 2") instanceof ArithmeticExpression);
+	}
+
+	@Test
+	public void fastPathMatchesEL() {
+		final String[] expressions = { "value / 1000000", "value * 2", "value + 1.5", "10 - value", "1000 / value", "value div 4", "value * 2E3" };
+		final Object[] values = { 0L, 7L, -123456789L, 3, 2.5d, 1.25f, "42", "4.2" };
+		for (final String expression : expressions) {
+			final CompiledExpression fast = testee.compile(expression);
+			final CompiledExpression el = testee.compileEL(expression);
+			for (final Object value : values) {
+				assertEquals(expression + " with " + value, el.getValue(value), fast.getValue(value));
+			}
+		}
+	}
+
+	@Test
+	public void compiledExpressionEvaluatesDifferentValues() {
+		final CompiledExpression expression = testee.compile("s:substr(value, 1, 3)");
+
+		assertEquals("bc", expression.getValue("abcd"));
+		assertEquals("23", expression.getValue(12345L));
+	}
+}
@@ -35,6 +35,26 @@ public class ELValueTransformerTest {
 		assertEquals("345", result);
 	}
 
+	@Test
+	public void transformValueNumber() {
+		final ELValueTransformerConfig config = new ELValueTransformerConfig(Pattern.compile(".*"), "value * 2");
+		final ELValueTransformer testee = new ELValueTransformer(config, elFactory);
+
+		final Object result = testee.transformValue(21L);
+
+		assertEquals(42L, result);
+	}
+
+	@Test
+	public void transformValueNumberWithStringFunction() {
+		final ELValueTransformerConfig config = new ELValueTransformerConfig(Pattern.compile(".*"), "s:back(value, 2)");
+		final ELValueTransformer testee = new ELValueTransformer(config, elFactory);
+
+		final Object result = testee.transformValue(12345L);
+
+		assertEquals("345", result);
+	}
+
 	@Test
 	public void matches() {
 		final ELValueTransformerConfig config = new ELValueTransformerConfig(Pattern.compile("a.*c"), "value");
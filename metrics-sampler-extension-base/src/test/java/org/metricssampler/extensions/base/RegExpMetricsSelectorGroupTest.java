@@ -0,0 +1,105 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.reader.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RegExpMetricsSelectorGroupTest {
+	private List<RegExpMetricsSelector> selectors;
+	private RegExpMetricsSelectorGroup testee;
+	private BulkMetricsReader bulkReader;
+	private MetaDataMetricsReader metadataReader;
+	private List<MetricName> names;
+
+	@Before
+	public void setup() {
+		final Map<String, Object> variables = new HashMap<>();
+		variables.put("prefix", "PREFIX");
+		selectors = Arrays.asList(
+				selector("jvm\\.memory\\.(.+)", "${prefix}.memory.${name[1]}"),
+				selector(".+\\.count", "${prefix}.count.${name[0]}"),
+				selector("jvm\\.(.+)", "${prefix}.jvm.${name[1]}"),
+				selector("jvm\\.threads|os\\.load", "${prefix}.${name[0]}"),
+				selector("https?\\.requests", "${prefix}.http"));
+		for (final RegExpMetricsSelector selector : selectors) {
+			selector.setVariables(variables);
+		}
+		testee = new RegExpMetricsSelectorGroup(selectors);
+		bulkReader = mock(BulkMetricsReader.class);
+		metadataReader = mock(MetaDataMetricsReader.class);
+		names = Arrays.<MetricName> asList(
+				new SimpleMetricName("jvm.memory.heap", "whatever"),
+				new SimpleMetricName("jvm.threads", "whatever"),
+				new SimpleMetricName("jvm.gc.count", "whatever"),
+				new SimpleMetricName("os.load", "whatever"),
+				new SimpleMetricName("http.requests", "whatever"),
+				new SimpleMetricName("other", "whatever"));
+	}
+
+	private RegExpMetricsSelector selector(final String namePattern, final String keyExpression) {
+		return new RegExpMetricsSelector(new RegExpSelectorConfig(namePattern, null, keyExpression));
+	}
+
+	@Test
+	public void readMetricsBulkSameAsSingleSelectors() {
+		final Metrics metrics = new Metrics();
+		for (int i = 0; i < names.size(); i++) {
+			metrics.add(new Metric(names.get(i), new MetricValue(i, Integer.toString(i))));
+		}
+		when(bulkReader.readAllMetrics()).thenReturn(metrics);
+
+		final Metrics expected = new Metrics();
+		for (final RegExpMetricsSelector selector : selectors) {
+			expected.addAll(selector.readMetrics(bulkReader));
+		}
+
+		assertEquals(toStrings(expected), toStrings(testee.readMetrics(bulkReader)));
+		// second time from the cache
+		assertEquals(toStrings(expected), toStrings(testee.readMetrics(bulkReader)));
+	}
+
+	@Test
+	public void readMetricsMetaDataSameAsSingleSelectors() {
+		when(metadataReader.getMetaData()).thenReturn(new MetricsMetaData(names));
+		for (int i = 0; i < names.size(); i++) {
+			when(metadataReader.readMetric(names.get(i))).thenReturn(new MetricValue(i, Integer.toString(i)));
+		}
+
+		final Metrics expected = new Metrics();
+		for (final RegExpMetricsSelector selector : selectors) {
+			expected.addAll(selector.readMetrics(metadataReader));
+		}
+
+		assertEquals(toStrings(expected), toStrings(testee.readMetrics(metadataReader)));
+	}
+
+	@Test
+	public void literalPrefix() {
+		assertEquals("jvm.memory.", RegExpMetricsSelectorGroup.literalPrefix("^jvm\\.memory\\.(.+)"));
+		assertEquals("", RegExpMetricsSelectorGroup.literalPrefix(".+\\.count"));
+		assertEquals("", RegExpMetricsSelectorGroup.literalPrefix("jvm\\.threads|os\\.load"));
+		assertEquals("jvm.", RegExpMetricsSelectorGroup.literalPrefix("jvm\\.(threads|classes)"));
+		assertEquals("http", RegExpMetricsSelectorGroup.literalPrefix("https?\\.requests"));
+		assertEquals("a", RegExpMetricsSelectorGroup.literalPrefix("ab*c"));
+		assertEquals("", RegExpMetricsSelectorGroup.literalPrefix("\\d+"));
+		assertEquals("Catalina:type=", RegExpMetricsSelectorGroup.literalPrefix("Catalina:type=\\w+"));
+	}
+
+	private List<String> toStrings(final Metrics metrics) {
+		final List<String> result = new ArrayList<>();
+		for (final Metric metric : metrics) {
+			result.add(metric.getName().getName() + "=" + metric.getValue().getValue());
+		}
+		return result;
+	}
+}
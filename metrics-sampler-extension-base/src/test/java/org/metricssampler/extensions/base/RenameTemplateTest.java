@@ -0,0 +1,77 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class RenameTemplateTest {
+	private Map<String, Object> variables;
+	private StringBuilder buffer;
+
+	@Before
+	public void setup() {
+		variables = new HashMap<>();
+		variables.put("prefix", "PREFIX");
+		final Map<String, String> dictionary = new HashMap<>();
+		dictionary.put("aaa", "AAA");
+		variables.put("dict", dictionary);
+		buffer = new StringBuilder();
+	}
+
+	private Matcher match(final String regexp, final String text) {
+		final Matcher result = Pattern.compile(regexp).matcher(text);
+		assertEquals(true, result.matches());
+		return result;
+	}
+
+	@Test
+	public void renderVariablesAndGroups() {
+		final RenameTemplate testee = RenameTemplate.compile("${prefix}.x.${name[1]}.${description[1]}", variables);
+
+		final String result = testee.render(match("a\\.(.+)", "a.bbb"), match("(.+) desc", "ccc desc"), buffer);
+
+		assertEquals("PREFIX.x.bbb.ccc", result);
+	}
+
+	@Test
+	public void renderUnresolved() {
+		final RenameTemplate testee = RenameTemplate.compile("${missing}.${name[2]}.${description[1]}.${name[1]}", variables);
+
+		final String result = testee.render(match("a(x)?\\.(.+)", "a.bbb"), null, buffer);
+
+		assertEquals("${missing}.bbb.${description[1]}.${name[1]}", result);
+	}
+
+	@Test
+	public void renderMapFunctionWithGroup() {
+		final RenameTemplate testee = RenameTemplate.compile("${prefix}.${fn:map(dict,name[1])}", variables);
+
+		assertEquals("PREFIX.AAA", testee.render(match("(.+)", "aaa"), null, buffer));
+		assertEquals("PREFIX.${fn:map(dict,name[1])}", testee.render(match("(.+)", "bbb"), null, buffer));
+	}
+
+	@Test
+	public void renderVariableOverridesGroup() {
+		variables.put("name[1]", "variable");
+		final RenameTemplate testee = RenameTemplate.compile("${name[1]}", variables);
+
+		final String result = testee.render(match("(.+)", "group"), null, buffer);
+
+		assertEquals("variable", result);
+	}
+
+	@Test
+	public void renderUnterminatedReference() {
+		final RenameTemplate testee = RenameTemplate.compile("${prefix}.${name[1]", variables);
+
+		final String result = testee.render(match("(.+)", "group"), null, buffer);
+
+		assertEquals("PREFIX.${name[1]", result);
+	}
+}
@@ -0,0 +1,161 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.config.SamplerConfig;
+import org.metricssampler.config.ThreadPoolConfig;
+import org.metricssampler.config.ThreadPoolConfig.Scheduler;
+import org.metricssampler.config.ThreadPoolConfig.Spread;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.sampler.Sampler;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class TimerWheelSamplerThreadPoolTest {
+	private final ManualClock clock = new ManualClock();
+	private TimerWheelSamplerThreadPool testee;
+
+	@Before
+	public void setup() {
+		testee = new TimerWheelSamplerThreadPool(new ThreadPoolConfig("wheel", false, 2, -1, -1, Spread.NONE, Scheduler.WHEEL, 10), false, clock);
+	}
+
+	@After
+	public void cleanup() {
+		testee.shutdown();
+	}
+
+	@Test
+	public void runAtFixedRate() throws InterruptedException {
+		final BlockingQueue<Long> samplings = new LinkedBlockingQueue<>();
+		final Sampler sampler = mockSampler("fast");
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) {
+				samplings.add(clock.currentTimeMillis() - ManualClock.START);
+				return null;
+			}
+		}).when(sampler).sample();
+
+		final SamplerTask task = testee.schedule(sampler);
+
+		// the first sampling is due right away but starts with the next tick
+		clock.advance(10L);
+		assertEquals(Long.valueOf(10L), samplings.poll(5, TimeUnit.SECONDS));
+		assertEquals(10L, task.getStats().getScheduleDrift());
+		clock.advance(990L);
+		assertEquals(Long.valueOf(1000L), samplings.poll(5, TimeUnit.SECONDS));
+		assertEquals(0L, task.getStats().getScheduleDrift());
+	}
+
+	@Test
+	public void neverRunConcurrentlyWithItself() throws InterruptedException {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch samplings = new CountDownLatch(3);
+		final Sampler sampler = mockSampler("slow");
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+				maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+				release.await(5, TimeUnit.SECONDS);
+				running.decrementAndGet();
+				samplings.countDown();
+				return null;
+			}
+		}).when(sampler).sample();
+
+		testee.schedule(sampler);
+		// the samplings due after 1 and 2 seconds become due while the first one is still running
+		clock.advance(2010L);
+		release.countDown();
+
+		assertTrue(samplings.await(5, TimeUnit.SECONDS));
+		assertEquals(1, maxRunning.get());
+		verify(sampler, times(3)).sample();
+	}
+
+	@Test
+	public void submit() throws Exception {
+		assertEquals("done", testee.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				return "done";
+			}
+		}).get(1, TimeUnit.SECONDS));
+		assertEquals(0, testee.getStats().get("thread-pools.wheel.scheduledCount"));
+	}
+
+	private static Sampler mockSampler(final String name) {
+		final Sampler result = mock(Sampler.class);
+		final SamplerConfig config = mock(SamplerConfig.class);
+		when(config.getName()).thenReturn(name);
+		when(config.getInterval()).thenReturn(1);
+		when(result.getConfig()).thenReturn(config);
+		return result;
+	}
+
+	/**
+	 * A clock that only advances when the test says so. Once the ticker sleeps until a time after the current one it handed all due
+	 * samplings over to the workers.
+	 */
+	private static class ManualClock implements TimerWheelSamplerThreadPool.Clock {
+		private static final long START = 1500000000000L;
+		private long nanos;
+		private long wakeUp = -1L;
+
+		@Override
+		public synchronized long currentTimeMillis() {
+			return START + TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+
+		@Override
+		public synchronized long nanoTime() {
+			return nanos;
+		}
+
+		@Override
+		public synchronized void sleep(final long duration) throws InterruptedException {
+			wakeUp = nanos + duration;
+			notifyAll();
+			while (nanos < wakeUp) {
+				wait();
+			}
+		}
+
+		/**
+		 * Advance the time one tick after the other and wait until the ticker processed each of them.
+		 */
+		synchronized void advance(final long millis) throws InterruptedException {
+			final long end = nanos + TimeUnit.MILLISECONDS.toNanos(millis);
+			while (nanos < end) {
+				awaitTicker();
+				nanos = Math.min(end, wakeUp);
+				notifyAll();
+			}
+			awaitTicker();
+		}
+
+		private void awaitTicker() throws InterruptedException {
+			final long timeout = System.currentTimeMillis() + 5000L;
+			while (wakeUp <= nanos) {
+				final long remaining = timeout - System.currentTimeMillis();
+				assertTrue("The ticker did not go to sleep", remaining > 0L);
+				wait(remaining);
+			}
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.Test;
+import org.metricssampler.reader.Metrics;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValueDeduplicatorTest {
+	private final ValueDeduplicator testee = new ValueDeduplicator(60000L);
+
+	@Test
+	public void suppressUnchangedValues() {
+		assertEquals(4, testee.deduplicate(sample(1000L, 1L, 0.5d, "on")).size());
+
+		final Metrics result = testee.deduplicate(sample(11000L, 2L, 0.5d, "on"));
+		assertEquals(1, result.size());
+		assertEquals("long", result.getName(0));
+		assertEquals(2L, result.getLong(0));
+		assertEquals(3, testee.getSuppressed());
+
+		final Metrics texts = testee.deduplicate(sample(21000L, 2L, 0.5d, new String("off")));
+		assertEquals(1, texts.size());
+		assertEquals("text", texts.getName(0));
+	}
+
+	@Test
+	public void emitUnchangedValuesAfterHeartbeat() {
+		testee.deduplicate(sample(1000L, 1L, 0.5d, "on"));
+		testee.deduplicate(sample(31000L, 2L, 0.5d, "on"));
+
+		final Metrics result = testee.deduplicate(sample(61000L, 2L, 0.5d, "on"));
+		assertEquals(3, result.size());
+		assertEquals("double", result.getName(0));
+		assertEquals("text", result.getName(1));
+		assertEquals("null", result.getName(2));
+	}
+
+	@Test
+	public void passForgottenValuesAgain() {
+		final Metrics first = testee.deduplicate(sample(1000L, 1L, 0.5d, "on"));
+		testee.forget(first);
+
+		assertEquals(4, testee.deduplicate(sample(11000L, 1L, 0.5d, "on")).size());
+		assertEquals(0, testee.deduplicate(sample(21000L, 1L, 0.5d, "on")).size());
+	}
+
+	@Test
+	public void evictMetricsNotSeenForHeartbeat() {
+		testee.deduplicate(sample(1000L, 1L, 0.5d, "on"));
+		final Metrics other = new Metrics();
+		other.add("other", null, 31000L, 1L);
+		testee.deduplicate(other);
+		assertEquals(5, testee.size());
+
+		other.clear();
+		other.add("other", null, 62000L, 1L);
+		testee.deduplicate(other);
+		assertEquals(1, testee.size());
+		assertEquals(4, testee.deduplicate(sample(63000L, 1L, 0.5d, "on")).size());
+	}
+
+	@Test
+	public void distinguishTypes() {
+		final Metrics first = new Metrics();
+		first.add("a", null, 1000L, 1L);
+		first.add("b", null, 1000L, Double.NaN);
+		testee.deduplicate(first);
+
+		final Metrics second = new Metrics();
+		second.add("a", null, 2000L, 1.0d);
+		second.add("b", null, 2000L, Double.NaN);
+		final Metrics result = testee.deduplicate(second);
+		assertEquals(1, result.size());
+		assertEquals("a", result.getName(0));
+		assertEquals(1.0d, result.getDouble(0), 0.0d);
+	}
+
+	@Test
+	public void growAndClear() {
+		final Metrics metrics = new Metrics();
+		for (int i = 0; i < 10000; i++) {
+			metrics.add("metric." + i, null, 1000L, (long) i);
+		}
+		metrics.add("text", 1000L, "value");
+		assertEquals(metrics.size(), testee.deduplicate(metrics).size());
+		assertEquals(metrics.size(), testee.size());
+		assertEquals(0, testee.deduplicate(metrics).size());
+
+		testee.clear();
+		assertEquals(0, testee.size());
+		assertEquals(metrics.size(), testee.deduplicate(metrics).size());
+	}
+
+	private static Metrics sample(final long timestamp, final long longValue, final double doubleValue, final String text) {
+		final Metrics result = new Metrics();
+		result.add("long", null, timestamp, longValue);
+		result.add("double", null, timestamp, doubleValue);
+		result.add("text", timestamp, text);
+		result.add("null", timestamp, null);
+		return result;
+	}
+}
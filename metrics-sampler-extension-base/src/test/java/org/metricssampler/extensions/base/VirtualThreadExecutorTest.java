@@ -0,0 +1,92 @@
+package org.metricssampler.extensions.base;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadExecutorTest {
+	private final VirtualThreadExecutor testee = new VirtualThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(final Runnable r) {
+			final Thread result = new Thread(r);
+			result.setDaemon(true);
+			return result;
+		}
+	}, 2);
+
+	@After
+	public void cleanup() {
+		testee.shutdownNow();
+	}
+
+	@Test
+	public void limitConcurrency() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch finished = new CountDownLatch(5);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			testee.execute(new Runnable() {
+				@Override
+				public void run() {
+					maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+					try {
+						release.await();
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					finished.countDown();
+				}
+			});
+		}
+		while (testee.getWaitingCount() < 3) {
+			Thread.sleep(10L);
+		}
+		assertEquals(2, testee.getActiveCount());
+		assertEquals(5, testee.getPoolSize());
+
+		release.countDown();
+		assertTrue(finished.await(1, TimeUnit.SECONDS));
+		assertEquals(2, maxRunning.get());
+		testee.shutdown();
+		assertTrue(testee.awaitTermination(1, TimeUnit.SECONDS));
+		assertEquals(5L, testee.getCompletedTaskCount());
+		assertEquals(0, testee.getPoolSize());
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void rejectAfterShutdown() {
+		testee.shutdown();
+		testee.execute(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+	}
+
+	@Test
+	public void newVirtualThreadFactory() throws Exception {
+		final ThreadFactory factory = VirtualThreadExecutor.newVirtualThreadFactory("test-");
+		if (Double.parseDouble(System.getProperty("java.specification.version")) < 21) {
+			assertNull(factory);
+		} else {
+			final Thread thread = factory.newThread(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+			assertEquals("test-1", thread.getName());
+			assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+		}
+	}
+}
@@ -101,7 +101,7 @@ public class ExecMetricsReader extends AbstractMetricsReader<ExecInputConfig> im
 	protected void parseMetric(final long timestamp, final Metrics result, final String line) {
 		final String[] cols = line.split("=", 2);
 		if (cols.length == 2) {
-			result.add(cols[0], timestamp, cols[1]);
+			result.addParsed(cols[0], timestamp, cols[1]);
 		} else {
 			logger.warn("Failed to parse line \"{}\". It should be of the form [<timestamp>:]<metric-name>=<metric-value>", line);
 		}
@@ -22,7 +22,7 @@ public class ExecMetricsReaderTest {
 	public void parseMetricFromLine() {
 		testee.parseMetricFromLine(result, "a.b.c.d=123");
 		assertEquals(1, result.size());
-		assertMetric("a.b.c.d", "123");
+		assertMetric("a.b.c.d", 123L);
 	}
 
 	@Test
@@ -30,7 +30,7 @@ public class ExecMetricsReaderTest {
 		final long now = System.currentTimeMillis();
 		testee.parseMetricFromLine(result, now + ":a.b.c.d=123");
 		assertEquals(1, result.size());
-		assertMetric(now, "a.b.c.d", "123");
+		assertMetric(now, "a.b.c.d", 123L);
 	}
 
 	@Test
@@ -46,11 +46,11 @@ public class ExecMetricsReaderTest {
 		assertTrue("Expected no metrics: " + result, result.isEmpty());
 	}
 
-	protected void assertMetric(final String name, final String value) {
+	protected void assertMetric(final String name, final Object value) {
 		assertMetric(-1L, name, value);
 	}
 	
-	protected void assertMetric(final long timestamp, final String name, final String value) {
+	protected void assertMetric(final long timestamp, final String name, final Object value) {
 		for (final Metric entry : result) {
 			if (entry.getName().getName().equals(name)) {
 				if (timestamp != -1L) {
@@ -0,0 +1,75 @@
+package org.metricssampler.extensions.graphite;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * A TCP connection to the plaintext port of graphite.
+ */
+class GraphiteConnection {
+	private final SocketChannel channel;
+	/**
+	 * The buffer of the read checking whether graphite closed the connection.
+	 */
+	private final ByteBuffer probe = ByteBuffer.allocate(1);
+	private long lastUsed;
+
+	/**
+	 * @param connectTimeout the connect timeout in milliseconds or 0 for no timeout
+	 */
+	GraphiteConnection(final String host, final int port, final int connectTimeout) throws IOException {
+		channel = SocketChannel.open();
+		try {
+			channel.socket().connect(new InetSocketAddress(host, port), connectTimeout);
+		} catch (final IOException e) {
+			closeQuietly(channel);
+			throw e;
+		}
+		lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the blocking channel to write to
+	 */
+	GatheringByteChannel getChannel() {
+		lastUsed = System.currentTimeMillis();
+		return channel;
+	}
+
+	/**
+	 * @param maxIdleTime the maximal time in milliseconds the connection may have been unused
+	 * @return {@code true} if the connection is still open on both ends and was used recently enough
+	 */
+	boolean isUsable(final long maxIdleTime) {
+		return channel.isOpen() && channel.isConnected() && System.currentTimeMillis() - lastUsed <= maxIdleTime && !isClosedByPeer();
+	}
+
+	/**
+	 * Writing to a connection closed by graphite (e.g. because it was restarted) succeeds once and the data is lost, so the end of the
+	 * stream is looked for with a non-blocking read instead. Graphite never sends anything on this connection.
+	 *
+	 * @return {@code true} if graphite closed the connection
+	 */
+	private boolean isClosedByPeer() {
+		try {
+			channel.configureBlocking(false);
+			try {
+				probe.clear();
+				return channel.read(probe) == -1;
+			} finally {
+				channel.configureBlocking(true);
+			}
+		} catch (final IOException e) {
+			return true;
+		}
+	}
+
+	void close() {
+		closeQuietly(channel);
+	}
+}
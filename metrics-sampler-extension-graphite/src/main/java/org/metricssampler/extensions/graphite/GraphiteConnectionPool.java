@@ -0,0 +1,163 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+import org.metricssampler.writer.MetricWriteException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of long-lived connections to graphite shared by all graphite outputs that reference it. Writers check out a connection in
+ * {@link org.metricssampler.writer.MetricsWriter#open()} and return it in {@link org.metricssampler.writer.MetricsWriter#close()}
+ * so that samplers do not connect to graphite on each sampling. Failed connection attempts are not retried before an exponentially
+ * growing backoff time elapses.
+ */
+public class GraphiteConnectionPool implements SharedResource {
+	private static final long INITIAL_BACKOFF = 1000L;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final GraphiteConnectionPoolConfig config;
+	private final BlockingDeque<GraphiteConnection> idleConnections = new LinkedBlockingDeque<>();
+	private final Semaphore permits;
+	private final AtomicLong connects = new AtomicLong();
+	private final AtomicLong connectFailures = new AtomicLong();
+	private final AtomicLong discarded = new AtomicLong();
+	private volatile boolean started;
+	private long backoff;
+	private long nextConnectAttempt;
+
+	public GraphiteConnectionPool(final GraphiteConnectionPoolConfig config) {
+		this.config = config;
+		this.permits = new Semaphore(config.getMaxSize(), true);
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public void startup() {
+		started = true;
+	}
+
+	/**
+	 * Check out a connection, reusing an idle one if possible. The connection must be returned using {@link #release(GraphiteConnection, boolean)}.
+	 *
+	 * @return an open connection
+	 * @throws MetricWriteException if no connection could be established or the pool is exhausted
+	 */
+	public GraphiteConnection borrow() throws MetricWriteException {
+		assertStarted();
+		acquirePermit();
+		try {
+			GraphiteConnection result;
+			while ((result = idleConnections.pollFirst()) != null) {
+				if (result.isUsable(config.getIdleTimeout() * 1000L)) {
+					return result;
+				}
+				discard(result);
+			}
+			return connect();
+		} catch (final RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Return a connection to the pool.
+	 *
+	 * @param connection the connection obtained using {@link #borrow()}
+	 * @param broken {@code true} if writing to the connection failed in which case it is closed instead of being reused
+	 */
+	public void release(final GraphiteConnection connection, final boolean broken) {
+		if (broken || !started) {
+			discard(connection);
+		} else {
+			idleConnections.offerFirst(connection);
+		}
+		permits.release();
+	}
+
+	private void acquirePermit() {
+		try {
+			if (!permits.tryAcquire(config.getConnectTimeout(), TimeUnit.MILLISECONDS)) {
+				throw new MetricWriteException("Timed out waiting for a free connection to " + this);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MetricWriteException("Interrupted while waiting for a free connection to " + this, e);
+		}
+	}
+
+	private GraphiteConnection connect() {
+		synchronized (this) {
+			final long remaining = nextConnectAttempt - System.currentTimeMillis();
+			if (remaining > 0) {
+				throw new MetricWriteException("Not reconnecting to " + this + " for another " + remaining + " ms after failed attempts");
+			}
+		}
+		try {
+			final GraphiteConnection result = new GraphiteConnection(config.getHost(), config.getPort(), config.getConnectTimeout());
+			connects.incrementAndGet();
+			synchronized (this) {
+				backoff = 0;
+				nextConnectAttempt = 0;
+			}
+			return result;
+		} catch (final IOException e) {
+			connectFailures.incrementAndGet();
+			synchronized (this) {
+				backoff = backoff == 0 ? INITIAL_BACKOFF : Math.min(backoff * 2, config.getMaxBackoff() * 1000L);
+				nextConnectAttempt = System.currentTimeMillis() + backoff;
+			}
+			logger.debug("Failed to connect to {}", this, e);
+			throw new MetricWriteException("Failed to connect to " + this, e);
+		}
+	}
+
+	private void discard(final GraphiteConnection connection) {
+		connection.close();
+		discarded.incrementAndGet();
+	}
+
+	protected void assertStarted() {
+		if (!started) {
+			throw new IllegalStateException("I must be started to do that");
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		logger.info("Shutting down graphite connection pool {}", config.getName());
+		started = false;
+		GraphiteConnection connection;
+		while ((connection = idleConnections.pollFirst()) != null) {
+			discard(connection);
+		}
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "graphite-pools." + config.getName() + ".";
+		final Map<String, Object> result = new HashMap<>();
+		result.put(prefix + "idleConnections", idleConnections.size());
+		result.put(prefix + "busyConnections", config.getMaxSize() - permits.availablePermits());
+		result.put(prefix + "connects", connects.get());
+		result.put(prefix + "connectFailures", connectFailures.get());
+		result.put(prefix + "discardedConnections", discarded.get());
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return config.getHost() + ":" + config.getPort();
+	}
+}
@@ -0,0 +1,68 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.config.SharedResourceConfig;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+public class GraphiteConnectionPoolConfig extends SharedResourceConfig {
+	private final String host;
+	private final int port;
+	private final int maxSize;
+	private final int connectTimeout;
+	private final int idleTimeout;
+	private final int maxBackoff;
+
+	public GraphiteConnectionPoolConfig(final String name, final boolean ignored, final String host, final int port, final int maxSize, final int connectTimeout, final int idleTimeout, final int maxBackoff) {
+		super(name, ignored);
+		checkArgumentNotNullNorEmpty(host, "host");
+		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		checkArgument(maxSize > 0, "max size must be greater than zero");
+		checkArgument(connectTimeout >= 0, "connect timeout must not be negative");
+		checkArgument(idleTimeout > 0, "idle timeout must be greater than zero");
+		checkArgument(maxBackoff >= 0, "max backoff must not be negative");
+		this.host = host;
+		this.port = port;
+		this.maxSize = maxSize;
+		this.connectTimeout = connectTimeout;
+		this.idleTimeout = idleTimeout;
+		this.maxBackoff = maxBackoff;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @return the maximal number of connections to graphite (idle and in use)
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the time in milliseconds to wait for a connection to be established or for a connection to become available in the pool
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @return the time in seconds after which unused connections are closed instead of being reused
+	 */
+	public int getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * @return the maximal time in seconds to wait before reconnecting after failed connection attempts. The wait time starts at one
+	 *         second and is doubled after each failure.
+	 */
+	public int getMaxBackoff() {
+		return maxBackoff;
+	}
+}
@@ -0,0 +1,128 @@
+package org.metricssampler.extensions.graphite;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.config.loader.xbeans.SharedResourceXBean;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.*;
+
+@XStreamAlias("graphite-connection-pool")
+public class GraphiteConnectionPoolXBean extends SharedResourceXBean {
+	private static final int DEFAULT_MAX_SIZE = 5;
+	private static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+	private static final int DEFAULT_IDLE_TIMEOUT = 300;
+	private static final int DEFAULT_MAX_BACKOFF = 60;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getHost()
+	 */
+	@XStreamAsAttribute
+	private String host;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getPort()
+	 */
+	@XStreamAsAttribute
+	private Integer port;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getMaxSize()
+	 */
+	@XStreamAsAttribute
+	@XStreamAlias("max-size")
+	private Integer maxSize;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getConnectTimeout()
+	 */
+	@XStreamAsAttribute
+	@XStreamAlias("connect-timeout")
+	private Integer connectTimeout;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getIdleTimeout()
+	 */
+	@XStreamAsAttribute
+	@XStreamAlias("idle-timeout")
+	private Integer idleTimeout;
+
+	/**
+	 * @see GraphiteConnectionPoolConfig#getMaxBackoff()
+	 */
+	@XStreamAsAttribute
+	@XStreamAlias("max-backoff")
+	private Integer maxBackoff;
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "host", getHost());
+		validPort(this, "port", getPort());
+		if (getMaxSize() != null) {
+			greaterThanZero(this, "max-size", getMaxSize());
+		}
+		notNegativeOptional(this, "connect-timeout", getConnectTimeout());
+		if (getIdleTimeout() != null) {
+			greaterThanZero(this, "idle-timeout", getIdleTimeout());
+		}
+		notNegativeOptional(this, "max-backoff", getMaxBackoff());
+	}
+
+	@Override
+	protected SharedResourceConfig createConfig() {
+		final int maxSize = getMaxSize() != null ? getMaxSize() : DEFAULT_MAX_SIZE;
+		final int connectTimeout = getConnectTimeout() != null ? getConnectTimeout() : DEFAULT_CONNECT_TIMEOUT;
+		final int idleTimeout = getIdleTimeout() != null ? getIdleTimeout() : DEFAULT_IDLE_TIMEOUT;
+		final int maxBackoff = getMaxBackoff() != null ? getMaxBackoff() : DEFAULT_MAX_BACKOFF;
+		return new GraphiteConnectionPoolConfig(getName(), isIgnored(), getHost(), getPort(), maxSize, connectTimeout, idleTimeout, maxBackoff);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public Integer getPort() {
+		return port;
+	}
+
+	public void setPort(final Integer port) {
+		this.port = port;
+	}
+
+	public Integer getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(final Integer maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	public Integer getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(final Integer connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public Integer getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public void setIdleTimeout(final Integer idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public Integer getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public void setMaxBackoff(final Integer maxBackoff) {
+		this.maxBackoff = maxBackoff;
+	}
+}
@@ -0,0 +1,241 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.extensions.graphite.GraphiteUdpOutputConfig.Format;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.util.LruCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes metrics as graphite plaintext lines or StatsD gauges and packs as many complete lines as fit into a datagram of at most
+ * {@code mtu} bytes. Lines are never split across datagrams so each datagram can be parsed on its own. The encoded names are cached
+ * and the buffers are reused so that steady-state samplings encode without allocating. This class is not thread safe.
+ */
+class GraphiteDatagramEncoder {
+	static final int DEFAULT_NAME_CACHE_SIZE = GraphitePlaintextEncoder.DEFAULT_NAME_CACHE_SIZE;
+
+	/**
+	 * Receives the packed datagrams. The datagram is reused after the call returns.
+	 */
+	interface DatagramSink {
+		void send(ByteBuffer datagram) throws IOException;
+	}
+
+	private final String prefix;
+	private final Format format;
+	private final ByteBuffer datagram;
+	private final ByteBuffer line;
+	private final LruCache<String, byte[]> nameCache;
+	private final StringBuilder scratch = new StringBuilder(32);
+	private final byte[] digits = new byte[20];
+	private boolean overflow;
+	private int skipped;
+	private int oversized;
+	private int datagrams;
+
+	GraphiteDatagramEncoder(final String prefix, final Format format, final int mtu) {
+		this(prefix, format, mtu, DEFAULT_NAME_CACHE_SIZE);
+	}
+
+	GraphiteDatagramEncoder(final String prefix, final Format format, final int mtu, final int nameCacheSize) {
+		this.prefix = prefix;
+		this.format = format;
+		this.datagram = ByteBuffer.allocateDirect(mtu);
+		this.line = ByteBuffer.allocate(mtu);
+		this.nameCache = new LruCache<>(nameCacheSize);
+	}
+
+	/**
+	 * Encode the metrics and pass each full datagram to the sink.
+	 */
+	void encode(final Metrics metrics, final DatagramSink sink) throws IOException {
+		skipped = 0;
+		oversized = 0;
+		datagrams = 0;
+		datagram.clear();
+		for (int i = 0; i < metrics.size(); i++) {
+			line.clear();
+			overflow = false;
+			if (!encodeLine(metrics, i)) {
+				skipped++;
+				continue;
+			}
+			if (overflow) {
+				oversized++;
+				continue;
+			}
+			line.flip();
+			if (line.remaining() > datagram.remaining()) {
+				flush(sink);
+			}
+			datagram.put(line);
+		}
+		nameCache.fitTo(metrics.size());
+		flush(sink);
+	}
+
+	private void flush(final DatagramSink sink) throws IOException {
+		if (datagram.position() > 0) {
+			datagram.flip();
+			sink.send(datagram);
+			datagrams++;
+			datagram.clear();
+		}
+	}
+
+	/**
+	 * @return {@code false} if the metric can not be encoded in the format
+	 */
+	private boolean encodeLine(final Metrics metrics, final int index) {
+		if (!metrics.hasValue(index)) {
+			return false;
+		}
+		return format == Format.STATSD ? encodeGauge(metrics, index) : encodePlaintext(metrics, index);
+	}
+
+	private boolean encodePlaintext(final Metrics metrics, final int index) {
+		put(encodedName(metrics.getName(index)));
+		put((byte) ' ');
+		if (metrics.isLong(index)) {
+			putDecimal(metrics.getLong(index));
+		} else if (metrics.isDouble(index)) {
+			scratch.setLength(0);
+			putAscii(scratch.append(metrics.getDouble(index)));
+		} else {
+			put(metrics.getValue(index).toString().getBytes(StandardCharsets.UTF_8));
+		}
+		put((byte) ' ');
+		putDecimal(metrics.getTimestamp(index) / 1000);
+		put((byte) '\n');
+		return true;
+	}
+
+	/**
+	 * StatsD interprets gauges with a sign as a change of the current value so negative values are sent after resetting the gauge to
+	 * zero (in the same datagram).
+	 */
+	private boolean encodeGauge(final Metrics metrics, final int index) {
+		scratch.setLength(0);
+		final boolean negative;
+		if (metrics.isLong(index)) {
+			final long value = metrics.getLong(index);
+			scratch.append(value);
+			negative = value < 0;
+		} else {
+			final double value;
+			if (metrics.isDouble(index)) {
+				value = metrics.getDouble(index);
+			} else {
+				final Number number = toNumber(metrics.getValue(index));
+				if (number == null) {
+					return false;
+				}
+				value = number.doubleValue();
+				if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+					scratch.append(number.longValue());
+				}
+			}
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				return false;
+			}
+			if (scratch.length() == 0) {
+				scratch.append(value);
+			}
+			negative = value < 0;
+		}
+		final byte[] name = encodedName(metrics.getName(index));
+		if (negative) {
+			put(name);
+			putAscii(":0|g\n");
+		}
+		put(name);
+		put((byte) ':');
+		putAscii(scratch);
+		putAscii("|g\n");
+		return true;
+	}
+
+	private static Number toNumber(final Object value) {
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		final Object parsed = MetricValue.parse(value.toString());
+		return parsed instanceof Number ? (Number) parsed : null;
+	}
+
+	private byte[] encodedName(final String name) {
+		byte[] result = nameCache.get(name);
+		if (result == null) {
+			final String sanitized = GraphitePlaintextEncoder.sanitizedName(prefix, name);
+			result = (format == Format.STATSD ? sanitized.replace(':', '_').replace('|', '_') : sanitized).getBytes(StandardCharsets.UTF_8);
+			nameCache.put(name, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of metrics skipped by the last {@link #encode(Metrics, DatagramSink)} because they had no (numeric) value
+	 */
+	int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return the number of metrics dropped by the last {@link #encode(Metrics, DatagramSink)} because their line did not fit into a
+	 *         datagram
+	 */
+	int getOversized() {
+		return oversized;
+	}
+
+	/**
+	 * @return the number of datagrams passed to the sink by the last {@link #encode(Metrics, DatagramSink)}
+	 */
+	int getDatagrams() {
+		return datagrams;
+	}
+
+	private void put(final byte value) {
+		if (line.hasRemaining()) {
+			line.put(value);
+		} else {
+			overflow = true;
+		}
+	}
+
+	private void put(final byte[] bytes) {
+		if (line.remaining() >= bytes.length) {
+			line.put(bytes);
+		} else {
+			overflow = true;
+		}
+	}
+
+	private void putAscii(final CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			put((byte) text.charAt(i));
+		}
+	}
+
+	private void putDecimal(final long value) {
+		if (value == Long.MIN_VALUE) {
+			putAscii(Long.toString(value));
+			return;
+		}
+		long remaining = Math.abs(value);
+		int position = digits.length;
+		do {
+			digits[--position] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining != 0);
+		if (value < 0) {
+			digits[--position] = '-';
+		}
+		for (int i = position; i < digits.length; i++) {
+			put(digits[i]);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.reader.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base class for encoders of a graphite protocol. The metrics are encoded directly into reusable direct byte buffers (chunks) which
+ * are sent using a single gathering write. This class is not thread safe.
+ */
+abstract class GraphiteEncoder {
+	static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private final int chunkSize;
+	private final byte[] digits = new byte[20];
+	private ByteBuffer[] chunks = new ByteBuffer[0];
+	private int used;
+	private int skipped;
+
+	protected GraphiteEncoder(final int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Encode the metrics replacing the previously encoded ones. Metrics without value are skipped.
+	 *
+	 * @return the number of encoded bytes
+	 */
+	int encode(final Metrics metrics) {
+		used = 0;
+		skipped = 0;
+		nextChunk();
+		doEncode(metrics);
+		int result = 0;
+		for (int i = 0; i < used; i++) {
+			chunks[i].flip();
+			result += chunks[i].limit();
+		}
+		return result;
+	}
+
+	protected abstract void doEncode(Metrics metrics);
+
+	protected void skip() {
+		skipped++;
+	}
+
+	/**
+	 * @return the number of metrics skipped by the last {@link #encode(Metrics)} e.g. because they had no value
+	 */
+	int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Write the encoded metrics to the channel. Can be called more than once to send the same metrics again.
+	 */
+	void writeTo(final GatheringByteChannel channel) throws IOException {
+		long remaining = 0;
+		for (int i = 0; i < used; i++) {
+			chunks[i].position(0);
+			remaining += chunks[i].limit();
+		}
+		while (remaining > 0) {
+			remaining -= channel.write(chunks, 0, used);
+		}
+	}
+
+	/**
+	 * @return the encoded bytes (e.g. for tests)
+	 */
+	byte[] toBytes() {
+		int size = 0;
+		for (int i = 0; i < used; i++) {
+			size += chunks[i].limit();
+		}
+		final byte[] result = new byte[size];
+		int offset = 0;
+		for (int i = 0; i < used; i++) {
+			final ByteBuffer chunk = chunks[i].duplicate();
+			chunk.position(0);
+			final int length = chunk.remaining();
+			chunk.get(result, offset, length);
+			offset += length;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the encoded metrics as text for logging
+	 */
+	String toText() {
+		return new String(toBytes(), StandardCharsets.UTF_8);
+	}
+
+	private void nextChunk() {
+		if (used == chunks.length) {
+			chunks = Arrays.copyOf(chunks, used + 1);
+			chunks[used] = ByteBuffer.allocateDirect(chunkSize);
+		}
+		chunks[used].clear();
+		used++;
+	}
+
+	private ByteBuffer current() {
+		final ByteBuffer result = chunks[used - 1];
+		if (result.hasRemaining()) {
+			return result;
+		}
+		nextChunk();
+		return chunks[used - 1];
+	}
+
+	/**
+	 * @return the number of bytes encoded so far
+	 */
+	protected int position() {
+		int result = 0;
+		for (int i = 0; i < used; i++) {
+			result += chunks[i].position();
+		}
+		return result;
+	}
+
+	/**
+	 * Make sure that the next {@code length} bytes end up in the same chunk. Must not be greater than the chunk size.
+	 *
+	 * @return the chunk the next bytes will be written to
+	 */
+	protected ByteBuffer reserve(final int length) {
+		if (chunks[used - 1].remaining() < length) {
+			nextChunk();
+		}
+		return chunks[used - 1];
+	}
+
+	protected void put(final byte value) {
+		current().put(value);
+	}
+
+	protected void put(final byte[] bytes) {
+		int offset = 0;
+		while (offset < bytes.length) {
+			final ByteBuffer chunk = current();
+			final int length = Math.min(chunk.remaining(), bytes.length - offset);
+			chunk.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	/**
+	 * Put the decimal representation of the value.
+	 */
+	protected void putDecimal(final long value) {
+		if (value == Long.MIN_VALUE) {
+			put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		long remaining = Math.abs(value);
+		int position = digits.length;
+		do {
+			digits[--position] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining != 0);
+		if (value < 0) {
+			digits[--position] = '-';
+		}
+		for (int i = position; i < digits.length; i++) {
+			put(digits[i]);
+		}
+	}
+
+	/**
+	 * Put the characters of a text which consists only of ASCII characters.
+	 */
+	protected void putAscii(final CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			put((byte) text.charAt(i));
+		}
+	}
+
+	/**
+	 * Put the UTF-8 bytes of the text.
+	 */
+	protected void putText(final String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				put(text.getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+		}
+		putAscii(text);
+	}
+}
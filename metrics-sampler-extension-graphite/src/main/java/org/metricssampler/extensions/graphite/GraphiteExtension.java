@@ -1,6 +1,9 @@
 package org.metricssampler.extensions.graphite;
 
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.resources.SharedResource;
 import org.metricssampler.service.AbstractExtension;
 import org.metricssampler.writer.MetricsWriter;
 
@@ -13,15 +16,39 @@ public class GraphiteExtension extends AbstractExtension {
 	public Collection<Class<?>> getXBeans() {
 		final List<Class<?>> result = new LinkedList<Class<?>>();
 		result.add(GraphiteOutputXBean.class);
+		result.add(GraphiteConnectionPoolXBean.class);
+		result.add(GraphiteUdpOutputXBean.class);
 		return result;
 	}
 	@Override
 	public boolean supportsOutput(final OutputConfig config) {
-		return config instanceof GraphiteOutputConfig;
+		return config instanceof GraphiteOutputConfig || config instanceof GraphiteUdpOutputConfig;
 	}
 
 	@Override
 	protected MetricsWriter doNewWriter(final OutputConfig config) {
-		return new GraphiteMetricsWriter((GraphiteOutputConfig) config);
+		if (config instanceof GraphiteUdpOutputConfig) {
+			return new GraphiteUdpMetricsWriter((GraphiteUdpOutputConfig) config);
+		}
+		final GraphiteOutputConfig graphiteConfig = (GraphiteOutputConfig) config;
+		if (graphiteConfig.getPool() == null) {
+			return new GraphiteMetricsWriter(graphiteConfig);
+		}
+		final SharedResource sharedResource = getGlobalFactory().getSharedResource(graphiteConfig.getPool());
+		if (sharedResource instanceof GraphiteConnectionPool) {
+			return new GraphiteMetricsWriter(graphiteConfig, (GraphiteConnectionPool) sharedResource);
+		} else {
+			throw new ConfigurationException(graphiteConfig.getPool() + " is not a graphite connection pool: " + sharedResource);
+		}
+	}
+
+	@Override
+	public boolean supportsSharedResource(final SharedResourceConfig config) {
+		return config instanceof GraphiteConnectionPoolConfig;
+	}
+
+	@Override
+	protected SharedResource doNewSharedResource(final SharedResourceConfig config, final boolean suspended) {
+		return new GraphiteConnectionPool((GraphiteConnectionPoolConfig) config);
 	}
 }
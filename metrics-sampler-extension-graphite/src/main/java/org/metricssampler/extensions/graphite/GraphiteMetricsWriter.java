@@ -1,7 +1,6 @@
 package org.metricssampler.extensions.graphite;
 
-import org.metricssampler.reader.Metric;
-import org.metricssampler.reader.MetricValue;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
 import org.metricssampler.reader.Metrics;
 import org.metricssampler.writer.MetricWriteException;
 import org.metricssampler.writer.MetricsWriter;
@@ -9,53 +8,69 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.net.Socket;
 
-import static org.apache.commons.io.IOUtils.closeQuietly;
 import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 
 /**
- * Send metrics to graphite. This class is not thread safe and should not be used by multiple samplers.
+ * Send metrics to graphite using the plaintext or the pickle protocol. This class is not thread safe and should not be used by multiple samplers. If a
+ * {@link GraphiteConnectionPool} is used, {@link #open()} and {@link #close()} check out and return a pooled connection instead of
+ * connecting to graphite each time.
  */
 public class GraphiteMetricsWriter implements MetricsWriter {
 	private final Logger logger;
 
 	private final GraphiteOutputConfig config;
+	private final GraphiteConnectionPool pool;
+	private final GraphiteEncoder encoder;
 
-	private Socket socket;
-	private Writer writer;
+	private GraphiteConnection connection;
+	private boolean broken;
 
 	public GraphiteMetricsWriter(final GraphiteOutputConfig config) {
+		this(config, null);
+	}
+
+	/**
+	 * @param pool the pool to check out connections from or {@code null} to connect to the host and port of the config
+	 */
+	public GraphiteMetricsWriter(final GraphiteOutputConfig config, final GraphiteConnectionPool pool) {
 		checkArgumentNotNull(config, "config");
 		this.config = config;
+		this.pool = pool;
+		this.encoder = config.getProtocol() == Protocol.PICKLE ? new GraphitePickleEncoder(config.getPrefix(), config.getBatchSize())
+				: new GraphitePlaintextEncoder(config.getPrefix());
 		this.logger = LoggerFactory.getLogger("writer."+config.getName());
 	}
 
 	@Override
 	public void open() throws MetricWriteException {
 		if (!isConnected()) {
-	        try {
-				socket = new Socket(config.getHost(), config.getPort());
-				writer = new OutputStreamWriter(socket.getOutputStream());
-			} catch (final IOException e) {
-				throw new MetricWriteException(e);
-			}
+			connection = pool != null ? pool.borrow() : connect();
+			broken = false;
+		}
+	}
+
+	private GraphiteConnection connect() {
+		try {
+			return new GraphiteConnection(config.getHost(), config.getPort(), 0);
+		} catch (final IOException e) {
+			throw new MetricWriteException(e);
 		}
 	}
 
 	protected boolean isConnected() {
-		return socket != null;
+		return connection != null;
 	}
 
 	@Override
 	public void close() throws MetricWriteException {
 		if (isConnected()) {
-			closeQuietly(writer);
-			closeQuietly(socket);
-			writer = null;
-			socket = null;
+			if (pool != null) {
+				pool.release(connection, broken);
+			} else {
+				connection.close();
+			}
+			connection = null;
 		}
 	}
 
@@ -63,32 +78,42 @@ public class GraphiteMetricsWriter implements MetricsWriter {
 	public void write(final Metrics metrics) {
 		checkArgumentNotNull(metrics, "metrics");
 		assertIsConnected();
-		final StringBuilder builder = new StringBuilder();
-		for (final Metric entry : metrics) {
-			final MetricValue value = entry.getValue();
-			if (value.getValue() != null) {
-				final String msg = serializeValue(entry.getName().getName(), value);
-				builder.append(msg);
-			} else {
-				logger.debug("Skipping null value for metric [{}]", entry.getName().getName());
+		encoder.encode(metrics);
+		if (encoder.getSkipped() > 0) {
+			logger.debug("Skipped {} metrics without (numeric) values", encoder.getSkipped());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Sending to graphite:\n{}", encoder.toText());
+		}
+		try {
+			send();
+		} catch (final IOException e) {
+			if (pool == null) {
+				broken = true;
+				throw new MetricWriteException(e);
 			}
+			logger.debug("Failed to send using pooled connection, retrying with a new one", e);
+			retry();
 		}
+	}
+
+	/**
+	 * Pooled connections might have been closed by graphite while idle so we retry once using another connection.
+	 */
+	private void retry() {
+		pool.release(connection, true);
+		connection = null;
+		open();
 		try {
-			logger.debug("Sending to graphite:\n"+builder.toString());
-			writer.write(builder.toString());
-			writer.flush();
+			send();
 		} catch (final IOException e) {
+			broken = true;
 			throw new MetricWriteException(e);
 		}
 	}
 
-	protected String serializeValue(final String name, final MetricValue value) {
-		checkArgumentNotNull(name, "name");
-		checkArgumentNotNull(value, "value");
-		final long timestamp = value.getTimestamp()/1000;
-		final String prefixedName = (config.getPrefix() != null ? config.getPrefix() : "") + name;
-		final String graphiteName = prefixedName.replaceAll(" ", "_");
-		return graphiteName + " " + value.getValue()+" " + timestamp + "\n";
+	private void send() throws IOException {
+		encoder.writeTo(connection.getChannel());
 	}
 
 	protected void assertIsConnected() {
@@ -99,6 +124,6 @@ public class GraphiteMetricsWriter implements MetricsWriter {
 
 	@Override
 	public String toString() {
-		return getClass().getSimpleName()+"["+config.getHost()+":"+config.getPort()+"]";
+		return getClass().getSimpleName()+"["+(pool != null ? pool : config.getHost()+":"+config.getPort())+"]";
 	}
 }
@@ -1,22 +1,71 @@
 package org.metricssampler.extensions.graphite;
 
+import org.metricssampler.config.AsyncOutputConfig;
 import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
 
 import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
 import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
 
 public class GraphiteOutputConfig extends OutputConfig {
+	/**
+	 * The protocol used to send the metrics to carbon.
+	 */
+	public enum Protocol {
+		/**
+		 * One line per metric, usually received on port 2003
+		 */
+		PLAINTEXT,
+		/**
+		 * Length-prefixed frames of pickled metrics, usually received on port 2004
+		 */
+		PICKLE
+	}
+
+	public static final int DEFAULT_BATCH_SIZE = GraphitePickleEncoder.DEFAULT_BATCH_SIZE;
+
 	private final String host;
 	private final int port;
 	private final String prefix;
+	private final String pool;
+	private final Protocol protocol;
+	private final int batchSize;
 
 	public GraphiteOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix) {
-		super(name, default_);
-		checkArgumentNotNullNorEmpty(host, "host");
-		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
-		this.host = host;
-		this.port = port;
+		this(name, default_, host, port, null, prefix, Protocol.PLAINTEXT, DEFAULT_BATCH_SIZE, null, null);
+	}
+
+	/**
+	 * Create the configuration of an output that uses the connections of a {@link GraphiteConnectionPool}.
+	 */
+	public GraphiteOutputConfig(final String name, final boolean default_, final String pool, final String prefix) {
+		this(name, default_, null, 0, pool, prefix, Protocol.PLAINTEXT, DEFAULT_BATCH_SIZE, null, null);
+	}
+
+	/**
+	 * @param host the host to connect to. Only used if no pool is given.
+	 * @param port the port to connect to. Only used if no pool is given.
+	 * @param pool the name of the connection pool to use or {@code null} to connect to the host and port
+	 * @param spool the configuration of the disk spool for metrics that could not be sent or {@code null}
+	 */
+	public GraphiteOutputConfig(final String name, final boolean default_, final String host, final int port, final String pool, final String prefix,
+			final Protocol protocol, final int batchSize, final AsyncOutputConfig async, final SpoolOutputConfig spool) {
+		super(name, default_, async, spool);
+		if (pool == null) {
+			checkArgumentNotNullNorEmpty(host, "host");
+			checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		} else {
+			checkArgumentNotNullNorEmpty(pool, "pool");
+		}
+		checkArgumentNotNull(protocol, "protocol");
+		checkArgument(batchSize > 0, "batch size must be greater than zero");
+		this.host = pool == null ? host : null;
+		this.port = pool == null ? port : 0;
 		this.prefix = prefix;
+		this.pool = pool;
+		this.protocol = protocol;
+		this.batchSize = batchSize;
 	}
 
 	public String getHost() {
@@ -30,4 +79,22 @@ public class GraphiteOutputConfig extends OutputConfig {
 	public String getPrefix() {
 		return prefix;
 	}
+
+	/**
+	 * @return the name of the graphite connection pool to use or {@code null} if the output connects to its host and port itself
+	 */
+	public String getPool() {
+		return pool;
+	}
+
+	public Protocol getProtocol() {
+		return protocol;
+	}
+
+	/**
+	 * @return the maximal number of metrics per pickle frame
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
 }
@@ -2,9 +2,14 @@ package org.metricssampler.extensions.graphite;
 
 import com.thoughtworks.xstream.annotations.XStreamAlias;
 import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.OutputConfig;
 import org.metricssampler.config.loader.xbeans.OutputXBean;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
 
+import java.util.Locale;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.greaterThanZero;
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
 import static org.metricssampler.config.loader.xbeans.ValidationUtils.validPort;
 
@@ -19,6 +24,16 @@ public class GraphiteOutputXBean extends OutputXBean {
 	@XStreamAsAttribute
 	private String prefix;
 
+	@XStreamAsAttribute
+	private String pool;
+
+	@XStreamAsAttribute
+	private String protocol;
+
+	@XStreamAsAttribute
+	@XStreamAlias("batch-size")
+	private Integer batchSize;
+
 	public String getHost() {
 		return host;
 	}
@@ -37,17 +52,55 @@ public class GraphiteOutputXBean extends OutputXBean {
 	public void setPrefix(final String prefix) {
 		this.prefix = prefix;
 	}
+	public String getPool() {
+		return pool;
+	}
+	public void setPool(final String pool) {
+		this.pool = pool;
+	}
+	public String getProtocol() {
+		return protocol;
+	}
+	public void setProtocol(final String protocol) {
+		this.protocol = protocol;
+	}
+	public Integer getBatchSize() {
+		return batchSize;
+	}
+	public void setBatchSize(final Integer batchSize) {
+		this.batchSize = batchSize;
+	}
 
 	@Override
 	protected void validate() {
 		super.validate();
-		notEmpty(this, "host", getHost());
-		validPort(this, "port", getPort());
+		if (getPool() == null) {
+			notEmpty(this, "host", getHost());
+			validPort(this, "port", getPort());
+		}
+		if (getBatchSize() != null) {
+			greaterThanZero(this, "batch-size", getBatchSize());
+		}
+		parseProtocol();
+	}
+
+	private Protocol parseProtocol() {
+		if (getProtocol() == null) {
+			return Protocol.PLAINTEXT;
+		}
+		try {
+			return Protocol.valueOf(getProtocol().trim().toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"protocol\" of " + getName() + " must be either plaintext or pickle but was \"" + getProtocol() + "\"");
+		}
 	}
+
 	@Override
 	public OutputConfig toConfig() {
 		validate();
-		return new GraphiteOutputConfig(getName(), isDefault(), getHost(), getPort(), getPrefix());
+		final int batchSize = getBatchSize() != null ? getBatchSize() : GraphiteOutputConfig.DEFAULT_BATCH_SIZE;
+		return new GraphiteOutputConfig(getName(), isDefault(), getHost(), getPort(), getPool(), getPrefix(), parseProtocol(), batchSize, getAsyncConfig(),
+				getSpoolConfig());
 	}
 
 }
@@ -0,0 +1,157 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.util.LruCache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes metrics for the pickle receiver of carbon. Each frame consists of a 4 byte big-endian length followed by a list of
+ * {@code (path, (timestamp, value))} tuples pickled with protocol 2. Carbon converts all values to floats so the values are sent as
+ * floats and metrics whose value is not a number are skipped.
+ */
+class GraphitePickleEncoder extends GraphiteEncoder {
+	static final int DEFAULT_BATCH_SIZE = 500;
+
+	private static final byte PROTO = (byte) 0x80;
+	private static final byte EMPTY_LIST = ']';
+	private static final byte MARK = '(';
+	private static final byte APPENDS = 'e';
+	private static final byte BINUNICODE = 'X';
+	private static final byte BININT = 'J';
+	private static final byte LONG1 = (byte) 0x8a;
+	private static final byte BINFLOAT = 'G';
+	private static final byte TUPLE2 = (byte) 0x86;
+	private static final byte STOP = '.';
+
+	private final String prefix;
+	private final int batchSize;
+	private final LruCache<String, byte[]> nameCache;
+	private ByteBuffer frameHeader;
+	private int frameHeaderIndex;
+	private int frameStart;
+	private int frameMetrics;
+	private int frames;
+
+	GraphitePickleEncoder(final String prefix, final int batchSize) {
+		this(prefix, batchSize, DEFAULT_CHUNK_SIZE, GraphitePlaintextEncoder.DEFAULT_NAME_CACHE_SIZE);
+	}
+
+	GraphitePickleEncoder(final String prefix, final int batchSize, final int chunkSize, final int nameCacheSize) {
+		super(chunkSize);
+		this.prefix = prefix;
+		this.batchSize = batchSize;
+		this.nameCache = new LruCache<>(nameCacheSize);
+	}
+
+	@Override
+	protected void doEncode(final Metrics metrics) {
+		frames = 0;
+		frameMetrics = 0;
+		for (int i = 0; i < metrics.size(); i++) {
+			if (!metrics.hasValue(i)) {
+				skip();
+				continue;
+			}
+			final double value;
+			if (metrics.isLong(i) || metrics.isDouble(i)) {
+				value = metrics.getDouble(i);
+			} else {
+				final Object object = metrics.getValue(i);
+				if (object instanceof Number) {
+					value = ((Number) object).doubleValue();
+				} else {
+					try {
+						value = Double.parseDouble(object.toString().trim());
+					} catch (final NumberFormatException e) {
+						skip();
+						continue;
+					}
+				}
+			}
+			if (frameMetrics == 0) {
+				startFrame();
+			}
+			putMetric(metrics.getName(i), metrics.getTimestamp(i) / 1000, value);
+			if (++frameMetrics == batchSize) {
+				endFrame();
+			}
+		}
+		if (frameMetrics > 0) {
+			endFrame();
+		}
+		nameCache.fitTo(metrics.size());
+	}
+
+	private void startFrame() {
+		frameHeader = reserve(4);
+		frameHeaderIndex = frameHeader.position();
+		frameHeader.putInt(0);
+		frameStart = position();
+		put(PROTO);
+		put((byte) 2);
+		put(EMPTY_LIST);
+		put(MARK);
+	}
+
+	private void endFrame() {
+		put(APPENDS);
+		put(STOP);
+		frameHeader.putInt(frameHeaderIndex, position() - frameStart);
+		frameMetrics = 0;
+		frames++;
+	}
+
+	private void putMetric(final String name, final long timestamp, final double value) {
+		final byte[] path = encodedName(name);
+		put(BINUNICODE);
+		putIntLittleEndian(path.length);
+		put(path);
+		if (timestamp >= Integer.MIN_VALUE && timestamp <= Integer.MAX_VALUE) {
+			put(BININT);
+			putIntLittleEndian((int) timestamp);
+		} else {
+			put(LONG1);
+			put((byte) 8);
+			for (int shift = 0; shift < 64; shift += 8) {
+				put((byte) (timestamp >>> shift));
+			}
+		}
+		put(BINFLOAT);
+		final long bits = Double.doubleToRawLongBits(value);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			put((byte) (bits >>> shift));
+		}
+		put(TUPLE2);
+		put(TUPLE2);
+	}
+
+	private void putIntLittleEndian(final int value) {
+		put((byte) value);
+		put((byte) (value >>> 8));
+		put((byte) (value >>> 16));
+		put((byte) (value >>> 24));
+	}
+
+	private byte[] encodedName(final String name) {
+		byte[] result = nameCache.get(name);
+		if (result == null) {
+			result = GraphitePlaintextEncoder.sanitizedName(prefix, name).getBytes(StandardCharsets.UTF_8);
+			nameCache.put(name, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of frames produced by the last {@link #encode(Metrics)}
+	 */
+	int getFrames() {
+		return frames;
+	}
+
+	@Override
+	String toText() {
+		return "[pickle: " + frames + " frames, " + toBytes().length + " bytes]";
+	}
+}
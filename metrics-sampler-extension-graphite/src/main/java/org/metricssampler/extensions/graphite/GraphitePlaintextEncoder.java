@@ -0,0 +1,70 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.util.LruCache;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes metrics in the graphite plaintext protocol ({@code name value timestamp\n}). The UTF-8 bytes of the prefixed names (with
+ * spaces replaced by underscores) of the metrics of the last sampling are cached so that steady-state samplings encode without
+ * allocating.
+ */
+class GraphitePlaintextEncoder extends GraphiteEncoder {
+	static final int DEFAULT_NAME_CACHE_SIZE = 100000;
+
+	private final String prefix;
+	private final LruCache<String, byte[]> nameCache;
+	private final StringBuilder scratch = new StringBuilder(32);
+
+	GraphitePlaintextEncoder(final String prefix) {
+		this(prefix, DEFAULT_CHUNK_SIZE, DEFAULT_NAME_CACHE_SIZE);
+	}
+
+	GraphitePlaintextEncoder(final String prefix, final int chunkSize, final int nameCacheSize) {
+		super(chunkSize);
+		this.prefix = prefix;
+		this.nameCache = new LruCache<>(nameCacheSize);
+	}
+
+	@Override
+	protected void doEncode(final Metrics metrics) {
+		for (int i = 0; i < metrics.size(); i++) {
+			if (!metrics.hasValue(i)) {
+				skip();
+				continue;
+			}
+			put(encodedName(metrics.getName(i)));
+			put((byte) ' ');
+			if (metrics.isLong(i)) {
+				putDecimal(metrics.getLong(i));
+			} else if (metrics.isDouble(i)) {
+				scratch.setLength(0);
+				putAscii(scratch.append(metrics.getDouble(i)));
+			} else {
+				putText(metrics.getValue(i).toString());
+			}
+			put((byte) ' ');
+			putDecimal(metrics.getTimestamp(i) / 1000);
+			put((byte) '\n');
+		}
+		nameCache.fitTo(metrics.size());
+	}
+
+	private byte[] encodedName(final String name) {
+		byte[] result = nameCache.get(name);
+		if (result == null) {
+			result = sanitizedName(prefix, name).getBytes(StandardCharsets.UTF_8);
+			nameCache.put(name, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the prefixed name with spaces replaced by underscores
+	 */
+	static String sanitizedName(final String prefix, final String name) {
+		final String prefixed = prefix != null ? prefix + name : name;
+		return prefixed.replace(' ', '_');
+	}
+}
@@ -0,0 +1,109 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.MetricsWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Send metrics to graphite or StatsD using UDP datagrams of at most {@link GraphiteUdpOutputConfig#getMtu()} bytes. The datagrams are
+ * sent using a non-blocking channel so that the sampler thread never waits for the receiver: datagrams that do not fit into the send
+ * buffer of the socket are dropped. This class is not thread safe and should not be used by multiple samplers.
+ */
+public class GraphiteUdpMetricsWriter implements MetricsWriter {
+	private final Logger logger;
+
+	private final GraphiteUdpOutputConfig config;
+	private final GraphiteDatagramEncoder encoder;
+
+	private DatagramChannel channel;
+	private InetSocketAddress address;
+	private int dropped;
+
+	public GraphiteUdpMetricsWriter(final GraphiteUdpOutputConfig config) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		this.encoder = new GraphiteDatagramEncoder(config.getPrefix(), config.getFormat(), config.getMtu());
+		this.logger = LoggerFactory.getLogger("writer." + config.getName());
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		if (channel != null) {
+			return;
+		}
+		final InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+		if (address.isUnresolved()) {
+			throw new MetricWriteException("Could not resolve " + config.getHost());
+		}
+		try {
+			channel = DatagramChannel.open();
+			channel.configureBlocking(false);
+		} catch (final IOException e) {
+			close();
+			throw new MetricWriteException(e);
+		}
+		this.address = address;
+	}
+
+	@Override
+	public void close() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (final IOException e) {
+				logger.debug("Failed to close channel", e);
+			}
+			channel = null;
+		}
+	}
+
+	@Override
+	public void write(final Metrics metrics) throws MetricWriteException {
+		checkArgumentNotNull(metrics, "metrics");
+		if (channel == null) {
+			throw new IllegalStateException("Not opened");
+		}
+		dropped = 0;
+		try {
+			encoder.encode(metrics, this::send);
+		} catch (final IOException e) {
+			throw new MetricWriteException(e);
+		}
+		if (encoder.getSkipped() > 0) {
+			logger.debug("Skipped {} metrics without (numeric) values", encoder.getSkipped());
+		}
+		if (encoder.getOversized() > 0) {
+			logger.warn("Dropped {} metrics whose line is longer than the mtu of {} bytes", encoder.getOversized(), config.getMtu());
+		}
+		if (dropped > 0) {
+			logger.debug("Dropped {} of {} datagrams because the send buffer was full", dropped, encoder.getDatagrams());
+		}
+	}
+
+	private void send(final ByteBuffer datagram) throws IOException {
+		if (channel.send(datagram, address) == 0) {
+			dropped++;
+		}
+	}
+
+	/**
+	 * @return the number of datagrams dropped by the last {@link #write(Metrics)} because the send buffer of the socket was full
+	 */
+	int getDropped() {
+		return dropped;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getHost() + ":" + config.getPort() + "]";
+	}
+}
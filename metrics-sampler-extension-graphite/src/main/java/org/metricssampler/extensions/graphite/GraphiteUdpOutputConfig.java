@@ -0,0 +1,93 @@
+package org.metricssampler.extensions.graphite;
+
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+public class GraphiteUdpOutputConfig extends OutputConfig {
+	/**
+	 * The format of the lines in the datagrams.
+	 */
+	public enum Format {
+		/**
+		 * Graphite plaintext lines ({@code name value timestamp}), usually received on port 2003
+		 */
+		GRAPHITE,
+		/**
+		 * StatsD gauges ({@code name:value|g}), usually received on port 8125
+		 */
+		STATSD
+	}
+
+	/**
+	 * The payload size recommended by StatsD for fast ethernet which leaves room for the IP and UDP headers.
+	 */
+	public static final int DEFAULT_MTU = 1432;
+	public static final int MIN_MTU = 64;
+	/**
+	 * The maximal payload of an IPv4 UDP datagram.
+	 */
+	public static final int MAX_MTU = 65507;
+
+	private final String host;
+	private final int port;
+	private final String prefix;
+	private final Format format;
+	private final int mtu;
+
+	public GraphiteUdpOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix, final Format format) {
+		this(name, default_, host, port, prefix, format, DEFAULT_MTU, null);
+	}
+
+	/**
+	 * @param mtu the maximal number of payload bytes per datagram
+	 */
+	public GraphiteUdpOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix, final Format format,
+			final int mtu, final AsyncOutputConfig async) {
+		this(name, default_, host, port, prefix, format, mtu, async, null);
+	}
+
+	/**
+	 * @param spool the configuration of the disk spool for metrics that could not be sent or {@code null}
+	 */
+	public GraphiteUdpOutputConfig(final String name, final boolean default_, final String host, final int port, final String prefix, final Format format,
+			final int mtu, final AsyncOutputConfig async, final SpoolOutputConfig spool) {
+		super(name, default_, async, spool);
+		checkArgumentNotNullNorEmpty(host, "host");
+		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		checkArgumentNotNull(format, "format");
+		checkArgument(mtu >= MIN_MTU && mtu <= MAX_MTU, "mtu must be in range [" + MIN_MTU + "," + MAX_MTU + "]");
+		this.host = host;
+		this.port = port;
+		this.prefix = prefix;
+		this.format = format;
+		this.mtu = mtu;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return the maximal number of payload bytes per datagram
+	 */
+	public int getMtu() {
+		return mtu;
+	}
+}
@@ -0,0 +1,94 @@
+package org.metricssampler.extensions.graphite;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.loader.xbeans.OutputXBean;
+import org.metricssampler.extensions.graphite.GraphiteUdpOutputConfig.Format;
+
+import java.util.Locale;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.validPort;
+
+@XStreamAlias("graphite-udp")
+public class GraphiteUdpOutputXBean extends OutputXBean {
+	@XStreamAsAttribute
+	private String host;
+
+	@XStreamAsAttribute
+	private int port;
+
+	@XStreamAsAttribute
+	private String prefix;
+
+	@XStreamAsAttribute
+	private String format;
+
+	@XStreamAsAttribute
+	private Integer mtu;
+
+	public String getHost() {
+		return host;
+	}
+	public void setHost(final String host) {
+		this.host = host;
+	}
+	public int getPort() {
+		return port;
+	}
+	public void setPort(final int port) {
+		this.port = port;
+	}
+	public String getPrefix() {
+		return prefix;
+	}
+	public void setPrefix(final String prefix) {
+		this.prefix = prefix;
+	}
+	public String getFormat() {
+		return format;
+	}
+	public void setFormat(final String format) {
+		this.format = format;
+	}
+	public Integer getMtu() {
+		return mtu;
+	}
+	public void setMtu(final Integer mtu) {
+		this.mtu = mtu;
+	}
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "host", getHost());
+		validPort(this, "port", getPort());
+		if (getMtu() != null && (getMtu() < GraphiteUdpOutputConfig.MIN_MTU || getMtu() > GraphiteUdpOutputConfig.MAX_MTU)) {
+			throw new ConfigurationException("Attribute \"mtu\" of " + getName() + " with value " + getMtu() + " is not in range ["
+					+ GraphiteUdpOutputConfig.MIN_MTU + "," + GraphiteUdpOutputConfig.MAX_MTU + "]");
+		}
+		parseFormat();
+	}
+
+	private Format parseFormat() {
+		if (getFormat() == null) {
+			return Format.GRAPHITE;
+		}
+		try {
+			return Format.valueOf(getFormat().trim().toUpperCase(Locale.ENGLISH));
+		} catch (final IllegalArgumentException e) {
+			throw new ConfigurationException("Attribute \"format\" of " + getName() + " must be either graphite or statsd but was \"" + getFormat() + "\"");
+		}
+	}
+
+	@Override
+	public OutputConfig toConfig() {
+		validate();
+		final int mtu = getMtu() != null ? getMtu() : GraphiteUdpOutputConfig.DEFAULT_MTU;
+		return new GraphiteUdpOutputConfig(getName(), isDefault(), getHost(), getPort(), getPrefix(), parseFormat(), mtu, getAsyncConfig(),
+				getSpoolConfig());
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.metricssampler.extensions.graphite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.writer.MetricWriteException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class GraphiteConnectionPoolTest {
+	private ServerSocket server;
+	private final List<String> lines = new CopyOnWriteArrayList<>();
+	private volatile int accepted;
+	private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+	private GraphiteConnectionPool testee;
+
+	@Before
+	public void setup() throws IOException {
+		server = new ServerSocket(0);
+		final Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						final Socket socket = server.accept();
+						accepted++;
+						sockets.add(socket);
+						try {
+							final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+							String line;
+							while ((line = reader.readLine()) != null) {
+								lines.add(line);
+							}
+						} catch (final IOException e) {
+							// closed by the test like by a restarting graphite
+						}
+					}
+				} catch (final IOException e) {
+					// server closed
+				}
+			}
+		});
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		if (testee != null) {
+			testee.shutdown();
+		}
+		server.close();
+	}
+
+	@Test
+	public void writersReuseConnection() throws InterruptedException {
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", server.getLocalPort(), 2, 1000, 60, 60));
+		final GraphiteMetricsWriter writer = new GraphiteMetricsWriter(new GraphiteOutputConfig("graphite", false, "pool", null), testee);
+		for (int i = 0; i < 3; i++) {
+			final Metrics metrics = new Metrics();
+			metrics.add("metric" + i, 1000L * i, (long) i);
+			writer.open();
+			writer.write(metrics);
+			writer.close();
+		}
+
+		awaitLines(3);
+		assertEquals("metric2 2 2", lines.get(2));
+		assertEquals(1, accepted);
+		assertEquals(1L, testee.getStats().get("graphite-pools.pool.connects"));
+		assertEquals(1, testee.getStats().get("graphite-pools.pool.idleConnections"));
+	}
+
+	@Test
+	public void connectionClosedByGraphiteIsNotReused() throws Exception {
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", server.getLocalPort(), 2, 1000, 60, 60));
+		final GraphiteMetricsWriter writer = new GraphiteMetricsWriter(new GraphiteOutputConfig("graphite", false, "pool", null), testee);
+		write(writer, "before");
+		awaitLines(1);
+
+		final GraphiteConnection connection = testee.borrow();
+		try {
+			sockets.get(0).close();
+			awaitUnusable(connection);
+		} finally {
+			testee.release(connection, false);
+		}
+		write(writer, "after");
+
+		awaitLines(2);
+		assertEquals("after 1 1", lines.get(1));
+		assertEquals(2, accepted);
+	}
+
+	private static void write(final GraphiteMetricsWriter writer, final String name) {
+		final Metrics metrics = new Metrics();
+		metrics.add(name, 1000L, 1L);
+		writer.open();
+		writer.write(metrics);
+		writer.close();
+	}
+
+	/**
+	 * Wait for the end of the stream to arrive so that the result does not depend on how fast the close is propagated.
+	 */
+	private static void awaitUnusable(final GraphiteConnection connection) throws InterruptedException {
+		final long timeout = System.currentTimeMillis() + 5000L;
+		while (connection.isUsable(60000L) && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10L);
+		}
+		assertFalse(connection.isUsable(60000L));
+	}
+
+	@Test
+	public void backoffAfterFailedConnect() throws IOException {
+		// a privileged port nobody listens on - a freed ephemeral port could be reused by the connecting socket itself (self-connect)
+		testee = new GraphiteConnectionPool(new GraphiteConnectionPoolConfig("pool", false, "localhost", 1, 2, 1000, 60, 60));
+
+		assertBorrowFails();
+		assertBorrowFails();
+
+		assertEquals(1L, testee.getStats().get("graphite-pools.pool.connectFailures"));
+		assertEquals(0, testee.getStats().get("graphite-pools.pool.busyConnections"));
+	}
+
+	private void assertBorrowFails() {
+		try {
+			testee.borrow();
+			fail("Connecting to a closed port must fail");
+		} catch (final MetricWriteException e) {
+			// expected
+		}
+	}
+
+	private void awaitLines(final int count) throws InterruptedException {
+		final long timeout = System.currentTimeMillis() + 5000L;
+		while (lines.size() < count && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10L);
+		}
+		assertEquals(count, lines.size());
+	}
+}
@@ -0,0 +1,100 @@
+package org.metricssampler.extensions.graphite;
+
+import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteUdpOutputConfig.Format;
+import org.metricssampler.reader.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphiteDatagramEncoderTest {
+	private final List<String> datagrams = new ArrayList<>();
+
+	@Test
+	public void encodePlaintext() throws IOException {
+		final GraphiteDatagramEncoder testee = new GraphiteDatagramEncoder("prefix.", Format.GRAPHITE, 1432);
+
+		testee.encode(createMetrics(), this::receive);
+
+		assertEquals(1, datagrams.size());
+		assertEquals("prefix.a_long 123 1\nprefix.negative -5 2\nprefix.double 0.25 3\nprefix.text ümlaut 4\n", datagrams.get(0));
+		assertEquals(1, testee.getSkipped());
+	}
+
+	@Test
+	public void encodeStatsdGauges() throws IOException {
+		final GraphiteDatagramEncoder testee = new GraphiteDatagramEncoder("prefix.", Format.STATSD, 1432);
+		final Metrics metrics = createMetrics();
+		metrics.add("with:colon|pipe", 5000L, 7);
+		metrics.add("parsed", 6000L, "-0.5");
+
+		testee.encode(metrics, this::receive);
+
+		assertEquals(1, datagrams.size());
+		assertEquals("prefix.a_long:123|g\nprefix.negative:0|g\nprefix.negative:-5|g\nprefix.double:0.25|g\nprefix.with_colon_pipe:7|g\n"
+				+ "prefix.parsed:0|g\nprefix.parsed:-0.5|g\n", datagrams.get(0));
+		assertEquals(2, testee.getSkipped());
+	}
+
+	@Test
+	public void packLinesUnderMtu() throws IOException {
+		final GraphiteDatagramEncoder testee = new GraphiteDatagramEncoder(null, Format.GRAPHITE, 64);
+		final Metrics metrics = new Metrics();
+		for (int i = 0; i < 100; i++) {
+			metrics.add("metric" + i, 1000L, i);
+		}
+
+		testee.encode(metrics, this::receive);
+
+		final StringBuilder all = new StringBuilder();
+		for (final String datagram : datagrams) {
+			assertTrue(datagram.length() <= 64);
+			assertTrue(datagram.endsWith("\n"));
+			all.append(datagram);
+		}
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			expected.append("metric").append(i).append(' ').append(i).append(" 1\n");
+		}
+		assertEquals(expected.toString(), all.toString());
+		assertEquals(datagrams.size(), testee.getDatagrams());
+		assertTrue(datagrams.size() < 100);
+	}
+
+	@Test
+	public void dropOversizedLines() throws IOException {
+		final GraphiteDatagramEncoder testee = new GraphiteDatagramEncoder(null, Format.GRAPHITE, 64);
+		final Metrics metrics = new Metrics();
+		metrics.add("short", 1000L, 1L);
+		metrics.add(new String(new char[100]).replace('\0', 'x'), 1000L, 2L);
+		metrics.add("other", 1000L, 3L);
+
+		testee.encode(metrics, this::receive);
+
+		assertEquals(1, datagrams.size());
+		assertEquals("short 1 1\nother 3 1\n", datagrams.get(0));
+		assertEquals(1, testee.getOversized());
+	}
+
+	private void receive(final ByteBuffer datagram) {
+		final byte[] bytes = new byte[datagram.remaining()];
+		datagram.get(bytes);
+		datagrams.add(new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	private Metrics createMetrics() {
+		final Metrics result = new Metrics();
+		result.add("a long", 1000L, 123L);
+		result.add("negative", 2000L, -5L);
+		result.add("null", 2500L, null);
+		result.add("double", 3000L, 0.25d);
+		result.add("text", 4000L, "ümlaut");
+		return result;
+	}
+}
@@ -1,29 +1,67 @@
 package org.metricssampler.extensions.graphite;
 
 import org.junit.Test;
-import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.Assert.assertEquals;
 
 public class GraphiteMetricsWriterTest {
 	@Test
-	public void serializeValueWithPrefix() {
-		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, "prefix_"));
+	public void writeWithPrefix() throws IOException {
 		final long timestamp = System.currentTimeMillis();
-		
-		final String result = testee.serializeValue("this is the name", new MetricValue(timestamp, "28.11"));
-		
+
+		final String result = write("prefix_", "this is the name", timestamp, "28.11");
+
 		assertEquals("prefix_this_is_the_name 28.11 "+(timestamp/1000)+"\n", result);
 	}
 
 	@Test
-	public void serializeValueWithoutPrefix() {
-		final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "host", 2811, null));
+	public void writeWithoutPrefix() throws IOException {
 		final long timestamp = System.currentTimeMillis();
-		
-		final String result = testee.serializeValue("this is the name", new MetricValue(timestamp, "28.11"));
+
+		final String result = write(null, "this is the name", timestamp, "28.11");
 
 		assertEquals("this_is_the_name 28.11 "+(timestamp/1000)+"\n", result);
 	}
-	
+
+	@Test
+	public void writeWithPrefixContainingSpaces() throws IOException {
+		final String result = write("my prefix.", "name", 2000L, 1L);
+
+		assertEquals("my_prefix.name 1 2\n", result);
+	}
+
+	/**
+	 * @return the text received by graphite after writing a single metric
+	 */
+	private static String write(final String prefix, final String name, final long timestamp, final Object value) throws IOException {
+		try (final ServerSocket server = new ServerSocket(0)) {
+			final GraphiteMetricsWriter testee = new GraphiteMetricsWriter(new GraphiteOutputConfig("name", false, "localhost", server.getLocalPort(), prefix));
+			final Metrics metrics = new Metrics();
+			metrics.add(name, timestamp, value);
+			testee.open();
+			try (final Socket socket = server.accept()) {
+				testee.write(metrics);
+				testee.close();
+				return readFully(socket.getInputStream());
+			}
+		}
+	}
+
+	private static String readFully(final InputStream input) throws IOException {
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			result.write(buffer, 0, read);
+		}
+		return new String(result.toByteArray(), StandardCharsets.UTF_8);
+	}
 }
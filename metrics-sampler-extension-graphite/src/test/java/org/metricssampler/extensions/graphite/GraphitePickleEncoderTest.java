@@ -0,0 +1,155 @@
+package org.metricssampler.extensions.graphite;
+
+import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteOutputConfig.Protocol;
+import org.metricssampler.reader.Metrics;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphitePickleEncoderTest {
+	@Test
+	public void encodeSingleMetric() {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder(null, 10);
+		final Metrics metrics = new Metrics();
+		metrics.add("a", 2000L, 1L);
+
+		testee.encode(metrics);
+
+		final ByteBuffer expected = ByteBuffer.allocate(32);
+		expected.putInt(28);
+		expected.put(new byte[] { (byte) 0x80, 2, ']', '(' });
+		expected.put(new byte[] { 'X', 1, 0, 0, 0, 'a' });
+		expected.put(new byte[] { 'J', 2, 0, 0, 0 });
+		expected.put((byte) 'G').putDouble(1.0d);
+		expected.put(new byte[] { (byte) 0x86, (byte) 0x86, 'e', '.' });
+		assertEquals(Arrays.toString(expected.array()), Arrays.toString(testee.toBytes()));
+	}
+
+	@Test
+	public void encodeInFramesOfBatchSize() throws IOException {
+		final GraphitePickleEncoder testee = new GraphitePickleEncoder("prefix.", 2, 16, 10);
+		final Metrics metrics = new Metrics();
+		metrics.add("long metric", 1000L, 1L);
+		metrics.add("double", 2000L, 2.5d);
+		metrics.add("text", 3000L, "3.25");
+		metrics.add("not a number", 3000L, "n/a");
+		metrics.add("null", 3000L, null);
+		metrics.add("last", 4000L, 4L);
+
+		testee.encode(metrics);
+
+		final List<List<Object[]>> frames = readFrames(new java.io.ByteArrayInputStream(testee.toBytes()), 2);
+		assertEquals(2, testee.getFrames());
+		assertEquals(2, testee.getSkipped());
+		assertMetric("prefix.long_metric", 1, 1.0d, frames.get(0).get(0));
+		assertMetric("prefix.double", 2, 2.5d, frames.get(0).get(1));
+		assertMetric("prefix.text", 3, 3.25d, frames.get(1).get(0));
+		assertMetric("prefix.last", 4, 4.0d, frames.get(1).get(1));
+	}
+
+	@Test
+	public void writeToSocket() throws IOException {
+		try (final ServerSocket server = new ServerSocket(0)) {
+			final GraphiteMetricsWriter writer = new GraphiteMetricsWriter(new GraphiteOutputConfig("graphite", false, "localhost", server.getLocalPort(), null,
+					null, Protocol.PICKLE, 2, null, null));
+			final Metrics metrics = new Metrics();
+			for (int i = 0; i < 5; i++) {
+				metrics.add("metric" + i, 1000L * i, (long) i);
+			}
+			writer.open();
+			try (final Socket socket = server.accept()) {
+				writer.write(metrics);
+				writer.close();
+
+				final List<List<Object[]>> frames = readFrames(socket.getInputStream(), 3);
+				assertEquals(2, frames.get(0).size());
+				assertEquals(1, frames.get(2).size());
+				assertMetric("metric4", 4, 4.0d, frames.get(2).get(0));
+				assertEquals(-1, socket.getInputStream().read());
+			}
+		}
+	}
+
+	private static void assertMetric(final String path, final long timestamp, final double value, final Object[] actual) {
+		assertEquals(path, actual[0]);
+		final Object[] datapoint = (Object[]) actual[1];
+		assertEquals(timestamp, datapoint[0]);
+		assertEquals(value, datapoint[1]);
+	}
+
+	/**
+	 * Read length-prefixed frames and unpickle the subset of opcodes used by the encoder.
+	 */
+	private static List<List<Object[]>> readFrames(final InputStream stream, final int count) throws IOException {
+		final DataInputStream input = new DataInputStream(stream);
+		final List<List<Object[]>> result = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			final byte[] frame = new byte[input.readInt()];
+			input.readFully(frame);
+			result.add(unpickle(ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN)));
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object[]> unpickle(final ByteBuffer buffer) {
+		final List<Object> stack = new ArrayList<>();
+		assertEquals((byte) 0x80, buffer.get());
+		assertEquals(2, buffer.get());
+		int mark = -1;
+		while (true) {
+			final byte opcode = buffer.get();
+			switch (opcode) {
+				case ']':
+					stack.add(new ArrayList<Object[]>());
+					break;
+				case '(':
+					mark = stack.size();
+					break;
+				case 'X':
+					final byte[] text = new byte[buffer.getInt()];
+					buffer.get(text);
+					stack.add(new String(text, StandardCharsets.UTF_8));
+					break;
+				case 'J':
+					stack.add((long) buffer.getInt());
+					break;
+				case 'G':
+					stack.add(buffer.order(ByteOrder.BIG_ENDIAN).getDouble());
+					buffer.order(ByteOrder.LITTLE_ENDIAN);
+					break;
+				case (byte) 0x86:
+					final Object second = stack.remove(stack.size() - 1);
+					final Object first = stack.remove(stack.size() - 1);
+					stack.add(new Object[] { first, second });
+					break;
+				case 'e':
+					final List<Object> items = new ArrayList<>(stack.subList(mark, stack.size()));
+					stack.subList(mark, stack.size()).clear();
+					for (final Object item : items) {
+						((List<Object[]>) stack.get(stack.size() - 1)).add((Object[]) item);
+					}
+					break;
+				case '.':
+					assertEquals(1, stack.size());
+					assertTrue(!buffer.hasRemaining());
+					return (List<Object[]>) stack.get(0);
+				default:
+					throw new AssertionError("Unexpected opcode " + opcode);
+			}
+		}
+	}
+}
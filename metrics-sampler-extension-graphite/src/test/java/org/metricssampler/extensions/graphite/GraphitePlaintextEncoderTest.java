@@ -0,0 +1,75 @@
+package org.metricssampler.extensions.graphite;
+
+import org.junit.Test;
+import org.metricssampler.reader.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+
+public class GraphitePlaintextEncoderTest {
+	private static final String EXPECTED = "prefix_a_long 123 1\n"
+			+ "prefix_negative -9223372036854775807 2\n"
+			+ "prefix_double 0.25 3\n"
+			+ "prefix_text ümlaut 4\n";
+
+	@Test
+	public void encode() {
+		final GraphitePlaintextEncoder testee = new GraphitePlaintextEncoder("prefix_");
+
+		final int result = testee.encode(createMetrics());
+
+		assertEquals(EXPECTED, testee.toText());
+		assertEquals(EXPECTED.getBytes(StandardCharsets.UTF_8).length, result);
+		assertEquals(1, testee.getSkipped());
+	}
+
+	@Test
+	public void encodeAcrossChunks() {
+		final GraphitePlaintextEncoder testee = new GraphitePlaintextEncoder("prefix_", 7, 10);
+
+		testee.encode(createMetrics());
+		assertEquals(EXPECTED, testee.toText());
+
+		final Metrics metrics = new Metrics();
+		metrics.add("a long", 5000L, 1L);
+		testee.encode(metrics);
+		assertEquals("prefix_a_long 1 5\n", testee.toText());
+	}
+
+	@Test
+	public void writeTo() throws IOException {
+		final GraphitePlaintextEncoder testee = new GraphitePlaintextEncoder(null, 16, 10);
+		final File file = File.createTempFile("graphite", ".txt");
+		try {
+			final Metrics metrics = new Metrics();
+			metrics.add("first", 1000L, 1L);
+			metrics.add("second", 2000L, 2L);
+			testee.encode(metrics);
+			try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+				testee.writeTo(channel);
+				testee.writeTo(channel);
+			}
+
+			final String expected = "first 1 1\nsecond 2 2\n";
+			assertEquals(expected + expected, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		} finally {
+			file.delete();
+		}
+	}
+
+	private Metrics createMetrics() {
+		final Metrics result = new Metrics();
+		result.add("a long", 1000L, 123L);
+		result.add("negative", 2000L, -Long.MAX_VALUE);
+		result.add("null", 2500L, null);
+		result.add("double", 3000L, 0.25d);
+		result.add("text", 4000L, "ümlaut");
+		return result;
+	}
+}
@@ -0,0 +1,76 @@
+package org.metricssampler.extensions.graphite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.extensions.graphite.GraphiteUdpOutputConfig.Format;
+import org.metricssampler.reader.Metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GraphiteUdpMetricsWriterTest {
+	private static final int MTU = 128;
+
+	private DatagramChannel listener;
+	private GraphiteUdpMetricsWriter testee;
+
+	@Before
+	public void setup() throws IOException {
+		listener = DatagramChannel.open();
+		listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		final int port = ((InetSocketAddress) listener.getLocalAddress()).getPort();
+		testee = new GraphiteUdpMetricsWriter(new GraphiteUdpOutputConfig("udp", false, InetAddress.getLoopbackAddress().getHostAddress(), port,
+				"prefix.", Format.STATSD, MTU, null));
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		testee.close();
+		listener.close();
+	}
+
+	@Test
+	public void writeDatagrams() throws IOException {
+		final Metrics metrics = new Metrics();
+		for (int i = 0; i < 20; i++) {
+			metrics.add("metric" + i, 1000L, i);
+		}
+
+		testee.open();
+		testee.write(metrics);
+		testee.close();
+
+		final Set<String> expected = new HashSet<>();
+		for (int i = 0; i < 20; i++) {
+			expected.add("prefix.metric" + i + ":" + i + "|g");
+		}
+		final Set<String> received = new HashSet<>();
+		final ByteBuffer buffer = ByteBuffer.allocate(65536);
+		while (received.size() < expected.size()) {
+			buffer.clear();
+			listener.receive(buffer);
+			buffer.flip();
+			assertTrue(buffer.remaining() <= MTU);
+			for (final String line : StandardCharsets.UTF_8.decode(buffer).toString().split("\n")) {
+				received.add(line);
+			}
+		}
+		assertEquals(expected, received);
+		assertEquals(0, testee.getDropped());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void writeWithoutOpen() {
+		testee.write(new Metrics());
+	}
+}
@@ -13,6 +13,10 @@ import static org.metricssampler.util.CloseableUtils.closeQuietly;
 public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> implements BulkMetricsReader {
 	private final JdbcConnectionPool connectionPool;
 	private Connection connection;
+	/**
+	 * The statement currently executed so that {@link #abort()} can cancel it from another thread.
+	 */
+	private volatile Statement currentStatement;
 
 	public JdbcMetricsReader(final JdbcInputConfig config, final JdbcConnectionPool connectionPool) {
 		super(config);
@@ -73,6 +77,7 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 		logger.debug("Executing query {}", query);
 		final long start = System.currentTimeMillis();
 		try (final Statement statement = connection.createStatement()) {
+			currentStatement = statement;
 			try (final ResultSet resultSet = statement.executeQuery(query)) {
 				logger.debug("Fetching results of query {}", query);
 				while (resultSet.next()) {
@@ -82,11 +87,11 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 					final SimpleMetricName metric = new SimpleMetricName(key, resultSet.getMetaData().getColumnName(1));
 					if (columnCount == 2) {
 						logger.debug("Using current timestamp as metric timestamp for "+key);
-						result.add(metric, start, value);
+						result.addParsed(metric, start, value);
 					} else if (columnCount == 3) {
 						logger.debug("Using timestamp from query result column 3 as metric timestamp for "+key);
 						final long timestamp = resultSet.getLong(3);
-						result.add(metric, timestamp, value);
+						result.addParsed(metric, timestamp, value);
 					} else {
 						closeQuietly(resultSet);
 						throw new ConfigurationException("Query must return either 2 (name, value) or 3 columns (name, value, timestamp)");
@@ -94,6 +99,8 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 				}
 			} catch (final SQLException e) {
 				logger.warn("Failed to execute query \"" + query + "\"", e);
+			} finally {
+				currentStatement = null;
 			}
 			final long end = System.currentTimeMillis();
 			timingsLogger.debug("Discovered {} metrics in {} ms", result.size(), end - start);
@@ -103,6 +110,18 @@ public class JdbcMetricsReader extends AbstractMetricsReader<JdbcInputConfig> im
 		}
 	}
 
+	@Override
+	public void abort() {
+		final Statement statement = currentStatement;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (final SQLException e) {
+				logger.warn("Failed to cancel query", e);
+			}
+		}
+	}
+
 	protected void reconnect() {
 		close();
 		open();
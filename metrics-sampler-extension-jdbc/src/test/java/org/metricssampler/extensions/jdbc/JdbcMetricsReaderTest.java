@@ -78,17 +78,17 @@ public class JdbcMetricsReaderTest {
         final Metrics result = testee.readAllMetrics();
 
         assertEquals(5, result.size());
-        verifyMetric(result, "m1.metric1", "1");
-        verifyMetric(result, "m1.metric2", "2");
+        verifyMetric(result, "m1.metric1", 1);
+        verifyMetric(result, "m1.metric2", 2);
 
-        verifyMetric(result, "m2.metric1", new MetricValue(1L, "1"), new MetricValue(2L, "3"));
-        verifyMetric(result, "m2.metric2", new MetricValue(1L, "2"));
+        verifyMetric(result, "m2.metric1", new MetricValue(1L, 1L), new MetricValue(2L, 3L));
+        verifyMetric(result, "m2.metric2", new MetricValue(1L, 2L));
 
         testee.close();
         verify(connection).close();
     }
 
-    private void verifyMetric(Metrics result, String name, String expectedValue) {
+    private void verifyMetric(Metrics result, String name, long expectedValue) {
         Optional<Metric> metric1 = result.get(name);
         assertTrue(metric1.isPresent());
         assertEquals(expectedValue, metric1.get().getValue().getValue());
@@ -0,0 +1,23 @@
+package org.metricssampler.extensions.jmx;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+
+@XStreamAlias("include-object-name")
+public class IncludeObjectNameXBean {
+	@XStreamAsAttribute
+	private String pattern;
+
+	public String getPattern() {
+		return pattern;
+	}
+
+	public void setPattern(final String pattern) {
+		this.pattern = pattern;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+}
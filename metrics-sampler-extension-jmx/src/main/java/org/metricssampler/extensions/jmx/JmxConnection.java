@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.management.MBeanServerConnection;
+import javax.management.NotificationListener;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -22,7 +23,10 @@ public class JmxConnection {
 	private final JMXServiceURL url;
 	private final Map<String, Object> environment;
 
-	private JMXConnector connector;
+	/**
+	 * Volatile so that {@link #abort()} sees the connector opened by the sampling thread.
+	 */
+	private volatile JMXConnector connector;
 	private MBeanServerConnection serverConnection;
 
 	public JmxConnection(final JmxInputConfig config) throws IOException {
@@ -87,6 +91,26 @@ public class JmxConnection {
 		}
 	}
 
+	/**
+	 * Close the connector so that the requests blocked on it fail but leave the rest of the state to {@link #disconnect()}. Unlike the
+	 * other methods this one may be called from any thread.
+	 */
+	public void abort() {
+		final JMXConnector current = connector;
+		if (current != null) {
+			logger.debug("Aborting");
+			closeQuietly(current);
+		}
+	}
+
+	/**
+	 * @param listener a listener for the notifications about the state of the connection (e.g. lost notifications)
+	 */
+	public void addConnectionNotificationListener(final NotificationListener listener) {
+		assertEstablished();
+		connector.addConnectionNotificationListener(listener, null, null);
+	}
+
 	public MBeanServerConnection getServerConnection() {
 		assertEstablished();
 		return serverConnection;
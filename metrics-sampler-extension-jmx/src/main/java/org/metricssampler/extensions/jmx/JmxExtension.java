@@ -1,7 +1,10 @@
 package org.metricssampler.extensions.jmx;
 
+import org.metricssampler.config.ConfigurationException;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.reader.MetricsReader;
+import org.metricssampler.resources.SamplerThreadPool;
+import org.metricssampler.resources.SharedResource;
 import org.metricssampler.service.AbstractExtension;
 
 import java.util.Collection;
@@ -14,6 +17,7 @@ public class JmxExtension extends AbstractExtension {
 		final List<Class<?>> result = new LinkedList<Class<?>>();
 		result.add(JmxInputXBean.class);
 		result.add(IgnoreObjectNameXBean.class);
+		result.add(IncludeObjectNameXBean.class);
 		return result;
 	}
 	
@@ -24,6 +28,15 @@ public class JmxExtension extends AbstractExtension {
 
 	@Override
 	protected MetricsReader doNewReader(final InputConfig config) {
-		return new JmxMetricsReader((JmxInputConfig) config);
+		final JmxInputConfig jmxConfig = (JmxInputConfig) config;
+		if (jmxConfig.hasThreadPool()) {
+			final SharedResource sharedResource = getGlobalFactory().getSharedResource(jmxConfig.getThreadPool());
+			if (sharedResource instanceof SamplerThreadPool) {
+				return new JmxMetricsReader(jmxConfig, (SamplerThreadPool) sharedResource);
+			} else {
+				throw new ConfigurationException(jmxConfig.getThreadPool() + " is not a thread pool: " + sharedResource);
+			}
+		}
+		return new JmxMetricsReader(jmxConfig);
 	}
 }
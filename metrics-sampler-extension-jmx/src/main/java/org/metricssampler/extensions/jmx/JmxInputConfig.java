@@ -3,6 +3,7 @@ package org.metricssampler.extensions.jmx;
 import org.metricssampler.config.InputConfig;
 import org.metricssampler.config.SocketOptionsConfig;
 
+import javax.management.ObjectName;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -15,12 +16,23 @@ public class JmxInputConfig extends InputConfig {
 	private final String providerPackages;
 	private final boolean persistentConnection;
 	private final List<Pattern> ignoredObjectNames;
+	private final List<ObjectName> includedObjectNames;
 	private final Map<String, String> connectionProperties;
 	private final SocketOptionsConfig socketOptions;
+	private final String threadPool;
+	private final boolean incrementalMetaData;
 
 	public JmxInputConfig(final String name, final  Map<String, Object> variables, final String url, final String username,
 			final String password, final String providerPackages,
 			final boolean persistentConnection, final List<Pattern> ignoredObjectNames, final Map<String, String> connectionProperties, final SocketOptionsConfig socketOptions) {
+		this(name, variables, url, username, password, providerPackages, persistentConnection, ignoredObjectNames, connectionProperties, socketOptions, null, false,
+				Collections.<ObjectName> emptyList());
+	}
+
+	public JmxInputConfig(final String name, final  Map<String, Object> variables, final String url, final String username,
+			final String password, final String providerPackages,
+			final boolean persistentConnection, final List<Pattern> ignoredObjectNames, final Map<String, String> connectionProperties, final SocketOptionsConfig socketOptions,
+			final String threadPool, final boolean incrementalMetaData, final List<ObjectName> includedObjectNames) {
 		super(name, variables);
 		this.url = url;
 		this.username = username;
@@ -28,8 +40,11 @@ public class JmxInputConfig extends InputConfig {
 		this.providerPackages = providerPackages;
 		this.persistentConnection = persistentConnection;
 		this.ignoredObjectNames = Collections.unmodifiableList(ignoredObjectNames);
+		this.includedObjectNames = Collections.unmodifiableList(includedObjectNames);
 		this.connectionProperties = Collections.unmodifiableMap(connectionProperties);
 		this.socketOptions = socketOptions;
+		this.threadPool = threadPool;
+		this.incrementalMetaData = incrementalMetaData;
 	}
 
 	public String getUrl() {
@@ -56,6 +71,13 @@ public class JmxInputConfig extends InputConfig {
 		return ignoredObjectNames;
 	}
 
+	/**
+	 * @return the object names (or object name patterns) of the JMX beans to query from the server. Empty to query all beans.
+	 */
+	public List<ObjectName> getIncludedObjectNames() {
+		return includedObjectNames;
+	}
+
 	/**
 	 * @return The additional connection properties used when setting up the environment for the JMX connector factory.
 	 */
@@ -73,4 +95,25 @@ public class JmxInputConfig extends InputConfig {
 	public SocketOptionsConfig getSocketOptions() {
 		return socketOptions;
 	}
+
+	public boolean hasThreadPool() {
+		return threadPool != null;
+	}
+
+	/**
+	 * @return the name of the thread pool used to read the attributes of different object names in parallel or {@code null} if they
+	 *         should be read sequentially by the sampler's thread.
+	 */
+	@Override
+	public String getThreadPool() {
+		return threadPool;
+	}
+
+	/**
+	 * @return {@code true} if the reader should listen for registered and unregistered JMX beans and update its metadata accordingly
+	 *         instead of loading it from scratch upon each reset. Only useful with persistent connections.
+	 */
+	public boolean isIncrementalMetaData() {
+		return incrementalMetaData;
+	}
 }
@@ -9,6 +9,8 @@ import org.metricssampler.config.loader.xbeans.EntryXBean;
 import org.metricssampler.config.loader.xbeans.InputXBean;
 import org.metricssampler.config.loader.xbeans.SocketOptionsXBean;
 
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -34,6 +36,17 @@ public class JmxInputXBean extends InputXBean {
 	@XStreamAlias("persistent-connection")
 	private Boolean persistentConnection;
 
+	@XStreamAsAttribute
+	@XStreamAlias("thread-pool")
+	private String threadPool;
+
+	@XStreamAsAttribute
+	@XStreamAlias("incremental-metadata")
+	private Boolean incrementalMetaData;
+
+	@XStreamAlias("include-object-names")
+	private List<IncludeObjectNameXBean> include;
+
 	@XStreamAlias("ignore-object-names")
 	private List<IgnoreObjectNameXBean> ignore;
 
@@ -73,6 +86,24 @@ public class JmxInputXBean extends InputXBean {
 	public void setPersistentConnection(final Boolean persistentConnection) {
 		this.persistentConnection = persistentConnection;
 	}
+	public String getThreadPool() {
+		return threadPool;
+	}
+	public void setThreadPool(final String threadPool) {
+		this.threadPool = threadPool;
+	}
+	public Boolean getIncrementalMetaData() {
+		return incrementalMetaData;
+	}
+	public void setIncrementalMetaData(final Boolean incrementalMetaData) {
+		this.incrementalMetaData = incrementalMetaData;
+	}
+	public List<IncludeObjectNameXBean> getInclude() {
+		return include;
+	}
+	public void setInclude(final List<IncludeObjectNameXBean> include) {
+		this.include = include;
+	}
 	public List<IgnoreObjectNameXBean> getIgnore() {
 		return ignore;
 	}
@@ -120,6 +151,16 @@ public class JmxInputXBean extends InputXBean {
 		} else {
 			ignorePatterns = Collections.emptyList();
 		}
+		final List<ObjectName> includeObjectNames = new ArrayList<>();
+		if (include != null) {
+			for (final IncludeObjectNameXBean includeObjectName : include) {
+				try {
+					includeObjectNames.add(new ObjectName(includeObjectName.getPattern()));
+				} catch (final MalformedObjectNameException | NullPointerException e) {
+					throw new ConfigurationException("Object name pattern " + includeObjectName + " is not valid: " + e.getMessage());
+				}
+			}
+		}
 		final Map<String, String> configConnectionProperties = new HashMap<>();
 		if (connectionProperties != null) {
 			for (final EntryXBean entry : connectionProperties) {
@@ -129,6 +170,7 @@ public class JmxInputXBean extends InputXBean {
 
 		final SocketOptionsConfig soConfig = socketOptions != null ? socketOptions.toConfig() : null;
 		final boolean boolPersistentConnection = getPersistentConnection() != null ? getPersistentConnection() : true;
-		return new JmxInputConfig(getName(), getVariablesConfig(), getUrl(), getUsername(), getPassword(), getProviderPackages(), boolPersistentConnection, ignorePatterns, configConnectionProperties, soConfig);
+		final boolean boolIncrementalMetaData = getIncrementalMetaData() != null ? getIncrementalMetaData() : false;
+		return new JmxInputConfig(getName(), getVariablesConfig(), getUrl(), getUsername(), getPassword(), getProviderPackages(), boolPersistentConnection, ignorePatterns, configConnectionProperties, soConfig, getThreadPool(), boolIncrementalMetaData, includeObjectNames);
 	}
 }
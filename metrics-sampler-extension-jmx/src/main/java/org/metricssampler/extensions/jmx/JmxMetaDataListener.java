@@ -0,0 +1,66 @@
+package org.metricssampler.extensions.jmx;
+
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+import javax.management.remote.JMXConnectionNotification;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects the (un)registrations of MBeans announced by the MBean server delegate so that the reader can update its meta data
+ * incrementally. Also listens to the notifications of the JMX connector and remembers if any notifications were lost in which case
+ * the meta data has to be discovered from scratch. The notifications are delivered by JMX threads and consumed by the sampler thread.
+ */
+public class JmxMetaDataListener implements NotificationListener {
+	private final Queue<MBeanServerNotification> notifications = new ConcurrentLinkedQueue<>();
+	private volatile boolean lost;
+
+	@Override
+	public void handleNotification(final Notification notification, final Object handback) {
+		if (notification instanceof MBeanServerNotification) {
+			notifications.add((MBeanServerNotification) notification);
+		} else if (notification instanceof JMXConnectionNotification) {
+			final String type = notification.getType();
+			if (JMXConnectionNotification.NOTIFS_LOST.equals(type) || JMXConnectionNotification.FAILED.equals(type)) {
+				lost = true;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code true} if notifications might have been lost since the last call of {@link #clear()}
+	 */
+	public boolean isLost() {
+		return lost;
+	}
+
+	/**
+	 * Mark the notifications as lost e.g. because the connection was reestablished.
+	 */
+	public void markLost() {
+		lost = true;
+	}
+
+	/**
+	 * Forget all collected notifications. Call before discovering the meta data from scratch.
+	 */
+	public void clear() {
+		lost = false;
+		notifications.clear();
+	}
+
+	/**
+	 * @return the notifications collected since the last call in the order they were received
+	 */
+	public List<MBeanServerNotification> drain() {
+		final List<MBeanServerNotification> result = new ArrayList<>();
+		MBeanServerNotification notification;
+		while ((notification = notifications.poll()) != null) {
+			result.add(notification);
+		}
+		return result;
+	}
+}
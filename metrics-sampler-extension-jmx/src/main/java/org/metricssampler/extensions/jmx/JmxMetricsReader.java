@@ -1,22 +1,30 @@
 package org.metricssampler.extensions.jmx;
 
 import org.metricssampler.reader.*;
+import org.metricssampler.resources.SamplerThreadPool;
 import org.metricssampler.util.VariableUtils;
 
 import javax.management.*;
 import javax.management.openmbean.*;
+import javax.management.relation.MBeanServerNotificationFilter;
 import javax.management.remote.JMXServiceURL;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
- * Read metrics from a JMX server. This class is not thread safe and may not be reused in multiple samplers.
+ * Read metrics from a JMX server. This class is not thread safe and may not be reused in multiple samplers. The values of the selected
+ * metrics are prefetched with one {@link MBeanServerConnection#getAttributes(ObjectName, String[])} call per object name. If a thread
+ * pool is given, the object names are prefetched in parallel on it.
  */
 public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> implements MetaDataMetricsReader {
 	private MetricsMetaData metadata;
 	private final JmxConnection connection;
+	private final SamplerThreadPool threadPool;
 
 	/**
 	 * Cache for data read from the JMX server in the current session (time between open() and close()). This is necessary because we expose
@@ -27,8 +35,34 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 	 */
 	private final Map<JmxMetricId, Object> values = new HashMap<>();
 
+	/**
+	 * The discovered metrics of each JMX bean. Used to update the meta data incrementally.
+	 */
+	private final Map<ObjectName, List<MetricName>> metadataByObjectName = new LinkedHashMap<>();
+
+	/**
+	 * Collects the (un)registrations of JMX beans if the meta data is maintained incrementally and the connection is established.
+	 */
+	private JmxMetaDataListener metaDataListener;
+
+	/**
+	 * Set by {@link #abort()} so that the failing reads do not reconnect and {@link #reset()} drops the connection even if the meta data
+	 * is maintained incrementally.
+	 */
+	private volatile boolean aborted;
+
 	public JmxMetricsReader(final JmxInputConfig config) {
+		this(config, null);
+	}
+
+	/**
+	 * @param config the configuration of the input
+	 * @param threadPool the thread pool used to prefetch the attributes of different object names in parallel or {@code null} to
+	 *                   prefetch them sequentially
+	 */
+	public JmxMetricsReader(final JmxInputConfig config, final SamplerThreadPool threadPool) {
 		super(config);
+		this.threadPool = threadPool;
 		try {
 			this.connection = new JmxConnection(config);
 		} catch (final IOException e) {
@@ -62,27 +96,16 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		final long start = System.currentTimeMillis();
 		logger.debug("Loading metadata from " + config.getUrl());
 		final MBeanServerConnection serverConnection = connection.getServerConnection();
-		final List<MetricName> result = new LinkedList<MetricName>();
+		metadataByObjectName.clear();
 		try {
-			final Set<ObjectName> objectNames = serverConnection.queryNames(null, null);
+			final Set<ObjectName> objectNames = queryObjectNames(serverConnection);
 			for (final ObjectName objectName : objectNames) {
-				if (isIgnored(objectName)) {
-					logger.debug("Ignoring " + objectName.getCanonicalName());
-					continue;
-				}
-				try {
-					final MBeanInfo info = serverConnection.getMBeanInfo(objectName);
-					final MBeanAttributeInfo[] attributes = info.getAttributes();
-					for (final MBeanAttributeInfo attribute : attributes) {
-						introspectAttribute(serverConnection, objectName, attribute, result);
-					}
-				} catch (final Exception e) {
-					logger.warn("Failed to read metadata of JMX bean with name \"" + objectName.getCanonicalName() + "\". Skipping.", e);
-				}
+				readMetaData(serverConnection, objectName);
 			}
 		} catch (final IOException e) {
 			throw new MetricReadException("Failed to establish connection", e);
 		}
+		final List<MetricName> result = collectMetaData();
 		final int count = result.size();
 		logger.info("Loaded {} attributes", count);
 		final long end = System.currentTimeMillis();
@@ -90,6 +113,95 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		return result;
 	}
 
+	/**
+	 * @return the names of all JMX beans or only of those matching the included object names (if any)
+	 */
+	protected Set<ObjectName> queryObjectNames(final MBeanServerConnection serverConnection) throws IOException {
+		if (config.getIncludedObjectNames().isEmpty()) {
+			return serverConnection.queryNames(null, null);
+		}
+		final Set<ObjectName> result = new LinkedHashSet<>();
+		for (final ObjectName pattern : config.getIncludedObjectNames()) {
+			result.addAll(serverConnection.queryNames(pattern, null));
+		}
+		return result;
+	}
+
+	/**
+	 * Discover the metrics of a single JMX bean and store them in {@link #metadataByObjectName}.
+	 */
+	protected void readMetaData(final MBeanServerConnection serverConnection, final ObjectName objectName) {
+		if (!isIncluded(objectName) || isIgnored(objectName)) {
+			logger.debug("Ignoring " + objectName.getCanonicalName());
+			return;
+		}
+		final List<MetricName> result = new ArrayList<>();
+		metadataByObjectName.put(objectName, result);
+		try {
+			final MBeanInfo info = serverConnection.getMBeanInfo(objectName);
+			final MBeanAttributeInfo[] attributes = info.getAttributes();
+			for (final MBeanAttributeInfo attribute : attributes) {
+				introspectAttribute(serverConnection, objectName, attribute, result);
+			}
+		} catch (final Exception e) {
+			logger.warn("Failed to read metadata of JMX bean with name \"" + objectName.getCanonicalName() + "\". Skipping.", e);
+		}
+	}
+
+	private List<MetricName> collectMetaData() {
+		final List<MetricName> result = new ArrayList<>();
+		for (final List<MetricName> names : metadataByObjectName.values()) {
+			result.addAll(names);
+		}
+		return result;
+	}
+
+	/**
+	 * Apply the (un)registrations of JMX beans since the last sampling to the meta data. The meta data is discovered from scratch if
+	 * notifications might have been lost.
+	 */
+	protected void updateMetaData() {
+		if (metaDataListener.isLost()) {
+			logger.info("Notifications about registered and unregistered JMX beans might have been lost. Reloading the metadata.");
+			metaDataListener.clear();
+			metadata = new MetricsMetaData(readMetaData());
+			return;
+		}
+		final List<MBeanServerNotification> notifications = metaDataListener.drain();
+		if (notifications.isEmpty()) {
+			return;
+		}
+		final long start = System.currentTimeMillis();
+		final MBeanServerConnection serverConnection = connection.getServerConnection();
+		for (final MBeanServerNotification notification : notifications) {
+			final ObjectName objectName = notification.getMBeanName();
+			if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType())) {
+				logger.debug("JMX bean {} registered", objectName);
+				readMetaData(serverConnection, objectName);
+			} else if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(notification.getType())) {
+				logger.debug("JMX bean {} unregistered", objectName);
+				metadataByObjectName.remove(objectName);
+			}
+		}
+		metadata = new MetricsMetaData(collectMetaData());
+		logger.info("Updated metadata after {} registrations / unregistrations of JMX beans", notifications.size());
+		timingsLogger.debug("Updated metadata in {} ms", System.currentTimeMillis() - start);
+	}
+
+	private void registerMetaDataListener() {
+		final JmxMetaDataListener listener = new JmxMetaDataListener();
+		final MBeanServerNotificationFilter filter = new MBeanServerNotificationFilter();
+		filter.enableAllObjectNames();
+		try {
+			connection.getServerConnection().addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, filter, null);
+			connection.addConnectionNotificationListener(listener);
+			metaDataListener = listener;
+		} catch (final InstanceNotFoundException | IOException e) {
+			logger.warn("Failed to listen for registered and unregistered JMX beans. The metadata will only be loaded when connecting.", e);
+			metaDataListener = null;
+		}
+	}
+
 	protected void introspectAttribute(final MBeanServerConnection serverConnection, final ObjectName objectName,
 			final MBeanAttributeInfo attribute, final List<MetricName> result) throws AttributeNotFoundException,
 			InstanceNotFoundException, MBeanException, ReflectionException, IOException {
@@ -185,6 +297,18 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		}
 	}
 
+	protected boolean isIncluded(final ObjectName objectName) {
+		if (config.getIncludedObjectNames().isEmpty()) {
+			return true;
+		}
+		for (final ObjectName pattern : config.getIncludedObjectNames()) {
+			if (pattern.apply(objectName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	protected boolean isIgnored(final ObjectName objectName) {
 		final String canonicalName = objectName.getCanonicalName();
 		for (final Pattern pattern : config.getIgnoredObjectNames()) {
@@ -215,7 +339,7 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		logger.debug("Reading " + metric.getName());
 		final JmxMetricId jmxId = actualMetric.getJmxId();
 		Object value = values.get(jmxId);
-		if (value != null) {
+		if (value != null || values.containsKey(jmxId)) {
 			logger.debug("Value already read before. Reusing it.");
 		} else {
 			final MBeanServerConnection serverConnection = connection.getServerConnection();
@@ -250,6 +374,113 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 		}
 	}
 
+	@Override
+	public void prefetch(final Collection<MetricName> metrics) {
+		final Map<ObjectName, Set<String>> attributes = groupAttributesToRead(metrics);
+		if (attributes.isEmpty()) {
+			return;
+		}
+		final long start = System.currentTimeMillis();
+		if (threadPool != null && attributes.size() > 1) {
+			prefetchInParallel(attributes);
+		} else {
+			prefetchSequentially(attributes);
+		}
+		final long end = System.currentTimeMillis();
+		timingsLogger.debug("Prefetched attributes of {} object names in {} ms", attributes.size(), end - start);
+	}
+
+	/**
+	 * @param metrics the metrics that will be read
+	 * @return the names of the attributes (grouped by object name) that have not been read in the current session yet
+	 */
+	protected Map<ObjectName, Set<String>> groupAttributesToRead(final Collection<MetricName> metrics) {
+		final Map<ObjectName, Set<String>> result = new LinkedHashMap<>();
+		for (final MetricName metric : metrics) {
+			if (metric instanceof JmxMetricName) {
+				final JmxMetricName jmxMetric = (JmxMetricName) metric;
+				if (!values.containsKey(jmxMetric.getJmxId())) {
+					Set<String> attributes = result.get(jmxMetric.getObjectName());
+					if (attributes == null) {
+						attributes = new LinkedHashSet<>();
+						result.put(jmxMetric.getObjectName(), attributes);
+					}
+					attributes.add(jmxMetric.getAttributeName());
+				}
+			}
+		}
+		return result;
+	}
+
+	private void prefetchSequentially(final Map<ObjectName, Set<String>> attributes) {
+		final MBeanServerConnection serverConnection = connection.getServerConnection();
+		for (final Map.Entry<ObjectName, Set<String>> entry : attributes.entrySet()) {
+			try {
+				storeAttributes(entry.getKey(), readAttributes(serverConnection, entry.getKey(), entry.getValue()));
+			} catch (final IOException e) {
+				logger.warn("Failed to prefetch attributes", e);
+				reconnect();
+				return;
+			} catch (final JMException | RuntimeException e) {
+				logger.debug("Failed to prefetch attributes of " + entry.getKey() + ". They will be read one by one.", e);
+			}
+		}
+	}
+
+	private void prefetchInParallel(final Map<ObjectName, Set<String>> attributes) {
+		final MBeanServerConnection serverConnection = connection.getServerConnection();
+		final Map<ObjectName, Future<AttributeList>> results = new LinkedHashMap<>();
+		boolean connectionFailed = false;
+		try {
+			for (final Map.Entry<ObjectName, Set<String>> entry : attributes.entrySet()) {
+				results.put(entry.getKey(), threadPool.submit(new Callable<AttributeList>() {
+					@Override
+					public AttributeList call() throws Exception {
+						return readAttributes(serverConnection, entry.getKey(), entry.getValue());
+					}
+				}));
+			}
+			for (final Map.Entry<ObjectName, Future<AttributeList>> entry : results.entrySet()) {
+				try {
+					storeAttributes(entry.getKey(), entry.getValue().get());
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MetricReadException(e);
+				} catch (final ExecutionException e) {
+					if (e.getCause() instanceof IOException) {
+						connectionFailed = true;
+					} else {
+						logger.debug("Failed to prefetch attributes of " + entry.getKey() + ". They will be read one by one.", e.getCause());
+					}
+				}
+			}
+		} finally {
+			// do not leave reads running on a connection that is about to be reset when we were interrupted or failed
+			for (final Future<AttributeList> result : results.values()) {
+				result.cancel(true);
+			}
+		}
+		if (connectionFailed) {
+			logger.warn("Failed to prefetch attributes");
+			reconnect();
+		}
+	}
+
+	protected AttributeList readAttributes(final MBeanServerConnection serverConnection, final ObjectName objectName,
+			final Set<String> attributes) throws JMException, IOException {
+		return serverConnection.getAttributes(objectName, attributes.toArray(new String[attributes.size()]));
+	}
+
+	/**
+	 * Store the values of the attributes so that they are used by {@link #readMetric(MetricName)}. Attributes missing in the list
+	 * could not be read and will be requested separately.
+	 */
+	private void storeAttributes(final ObjectName objectName, final AttributeList attributes) {
+		for (final Attribute attribute : attributes.asList()) {
+			values.put(new JmxMetricId(objectName, attribute.getName()), attribute.getValue());
+		}
+	}
+
 	protected Object evaluatePath(final PropertyPath path, final Object value) {
 		Object result = value;
 		for (final PathSegment segment : path.getSegments()) {
@@ -264,8 +495,20 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 	private void reconnect() {
 		logger.info("Reconnecting");
 		connection.disconnect();
+		metaDataListener = null;
+		if (aborted) {
+			logger.info("Not reconnecting as the reader was aborted");
+			return;
+		}
 		try {
 			connection.connect();
+			if (config.isIncrementalMetaData()) {
+				registerMetaDataListener();
+				if (metaDataListener != null) {
+					// beans might have been (un)registered while we were disconnected
+					metaDataListener.markLost();
+				}
+			}
 		} catch (final IOException e) {
 			logger.warn("Failed to reconnect", e);
 			connection.disconnect();
@@ -281,7 +524,13 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 			} catch (final IOException e) {
 				throw new OpenMetricsReaderException(e);
 			}
+			if (config.isIncrementalMetaData()) {
+				// register before loading the metadata so that we do not miss any beans
+				registerMetaDataListener();
+			}
 			metadata = new MetricsMetaData(readMetaData());
+		} else if (metaDataListener != null) {
+			updateMetaData();
 		}
 		values.clear();
 	}
@@ -299,6 +548,8 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 			logger.info("Disconnecting");
 			connection.disconnect();
 			metadata = null;
+			metadataByObjectName.clear();
+			metaDataListener = null;
 			values.clear();
 		}
 	}
@@ -310,6 +561,20 @@ public class JmxMetricsReader extends AbstractMetricsReader<JmxInputConfig> impl
 
 	@Override
 	public void reset() {
-		forceDisconnect();
+		if (aborted) {
+			aborted = false;
+			forceDisconnect();
+		} else if (metaDataListener != null && !metaDataListener.isLost()) {
+			logger.debug("Keeping the connection as the metadata is updated incrementally");
+			values.clear();
+		} else {
+			forceDisconnect();
+		}
+	}
+
+	@Override
+	public void abort() {
+		aborted = true;
+		connection.abort();
 	}
 }
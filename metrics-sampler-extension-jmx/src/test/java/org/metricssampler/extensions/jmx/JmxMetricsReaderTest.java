@@ -0,0 +1,361 @@
+package org.metricssampler.extensions.jmx;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.reader.MetricName;
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.MetricsMetaData;
+import org.metricssampler.resources.SamplerStats;
+import org.metricssampler.resources.SamplerTask;
+import org.metricssampler.resources.SamplerThreadPool;
+import org.metricssampler.sampler.Sampler;
+
+import javax.management.*;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JmxMetricsReaderTest {
+	private static final String[] ATTRIBUTES = {"A", "B", "C"};
+
+	private MBeanServer server;
+	private JMXConnectorServer connectorServer;
+	private final List<ObjectName> objectNames = new ArrayList<>();
+	private final List<CountingMBean> beans = new ArrayList<>();
+	private JmxInputConfig config;
+	private JmxMetricsReader testee;
+
+	@Before
+	public void setup() throws Exception {
+		SamplerStats.init();
+		server = ManagementFactory.getPlatformMBeanServer();
+		for (int i = 0; i < 3; i++) {
+			final ObjectName objectName = new ObjectName("metricssampler.test:type=Counting,index=" + i);
+			final CountingMBean bean = new CountingMBean(i);
+			server.registerMBean(bean, objectName);
+			objectNames.add(objectName);
+			beans.add(bean);
+		}
+		connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(new JMXServiceURL("service:jmx:rmi://"), null, server);
+		connectorServer.start();
+		config = new JmxInputConfig("jmx", Collections.<String, Object> emptyMap(), connectorServer.getAddress().toString(), null, null,
+				null, true, Collections.<Pattern> emptyList(), Collections.<String, String> emptyMap(), null);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		if (testee != null) {
+			testee.reset();
+		}
+		connectorServer.stop();
+		for (final ObjectName objectName : objectNames) {
+			server.unregisterMBean(objectName);
+		}
+		SamplerStats.unset();
+	}
+
+	@Test
+	public void prefetchReadsEachObjectNameOnce() {
+		testee = new JmxMetricsReader(config);
+
+		assertPrefetchedAndRead();
+	}
+
+	@Test
+	public void prefetchInParallel() {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			testee = new JmxMetricsReader(config, new ExecutorSamplerThreadPool(executor));
+
+			assertPrefetchedAndRead();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void interruptedPrefetchCancelsPendingReads() throws Exception {
+		final ObjectName objectName = new ObjectName("metricssampler.test:type=Blocking");
+		final BlockingMBean bean = new BlockingMBean();
+		server.registerMBean(bean, objectName);
+		objectNames.add(objectName);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final ExecutorService caller = Executors.newSingleThreadExecutor();
+		try {
+			testee = new JmxMetricsReader(config, new ExecutorSamplerThreadPool(executor));
+			testee.open();
+			final List<MetricName> metrics = Arrays.<MetricName> asList(new JmxMetricName(objectName, "A", PropertyPath.empty(), null),
+					new JmxMetricName(objectNames.get(0), "A", PropertyPath.empty(), null));
+			final Future<?> prefetch = caller.submit(new Runnable() {
+				@Override
+				public void run() {
+					testee.prefetch(metrics);
+				}
+			});
+			assertTrue(bean.entered.await(5, TimeUnit.SECONDS));
+
+			prefetch.cancel(true);
+			caller.shutdown();
+			assertTrue(caller.awaitTermination(5, TimeUnit.SECONDS));
+			bean.release.countDown();
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+			assertEquals(0, beans.get(0).bulkReads.get());
+		} finally {
+			bean.release.countDown();
+			executor.shutdownNow();
+			caller.shutdownNow();
+		}
+	}
+
+	@Test
+	public void incrementalMetaData() throws Exception {
+		config = new JmxInputConfig("jmx", Collections.<String, Object> emptyMap(), config.getUrl(), null, null, null, true,
+				Collections.<Pattern> emptyList(), Collections.<String, String> emptyMap(), null, null, true, Collections.<ObjectName> emptyList());
+		testee = new JmxMetricsReader(config);
+		testee.open();
+		assertEquals(9, countTestMetrics(testee.getMetaData()));
+		testee.close();
+
+		final ObjectName objectName = new ObjectName("metricssampler.test:type=Counting,index=3");
+		server.registerMBean(new CountingMBean(3), objectName);
+		objectNames.add(objectName);
+		awaitTestMetrics(12);
+
+		server.unregisterMBean(objectNames.remove(0));
+		awaitTestMetrics(9);
+
+		final MetricsMetaData metaData = testee.getMetaData();
+		testee.reset();
+		testee.open();
+		assertSame(metaData, testee.getMetaData());
+	}
+
+	@Test
+	public void resetAfterAbortDisconnects() throws Exception {
+		final ObjectName objectName = new ObjectName("metricssampler.test:type=Blocking");
+		final BlockingMBean bean = new BlockingMBean();
+		server.registerMBean(bean, objectName);
+		objectNames.add(objectName);
+		config = new JmxInputConfig("jmx", Collections.<String, Object> emptyMap(), config.getUrl(), null, null, null, true,
+				Collections.<Pattern> emptyList(), Collections.<String, String> emptyMap(), null, null, true, Arrays.asList(objectName));
+		testee = new JmxMetricsReader(config);
+		testee.open();
+		final MetricsMetaData metaData = testee.getMetaData();
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Future<MetricValue> read = executor.submit(new Callable<MetricValue>() {
+				@Override
+				public MetricValue call() {
+					return testee.readMetric(new JmxMetricName(objectName, "A", PropertyPath.empty(), null));
+				}
+			});
+			assertTrue(bean.entered.await(5, TimeUnit.SECONDS));
+
+			testee.abort();
+			bean.release.countDown();
+			read.get(5, TimeUnit.SECONDS);
+
+			testee.reset();
+			testee.open();
+			assertNotSame(metaData, testee.getMetaData());
+			assertEquals(3, countTestMetrics(testee.getMetaData()));
+		} finally {
+			bean.release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void includedObjectNames() throws Exception {
+		config = new JmxInputConfig("jmx", Collections.<String, Object> emptyMap(), config.getUrl(), null, null, null, true,
+				Collections.<Pattern> emptyList(), Collections.<String, String> emptyMap(), null, null, false,
+				Arrays.asList(new ObjectName("metricssampler.test:index=1,*"), new ObjectName("metricssampler.test:index=2,type=Counting")));
+		testee = new JmxMetricsReader(config);
+		testee.open();
+
+		assertEquals(6, countTestMetrics(testee.getMetaData()));
+		assertEquals(6, testee.getMetaData().size());
+	}
+
+	private void awaitTestMetrics(final int expected) throws InterruptedException {
+		final long timeout = System.currentTimeMillis() + 10000L;
+		int count;
+		do {
+			Thread.sleep(10L);
+			testee.open();
+			count = countTestMetrics(testee.getMetaData());
+			testee.close();
+		} while (count != expected && System.currentTimeMillis() < timeout);
+		assertEquals(expected, count);
+	}
+
+	private int countTestMetrics(final MetricsMetaData metaData) {
+		int result = 0;
+		for (final MetricName name : metaData) {
+			if (name.getName().startsWith("metricssampler.test:")) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	private void assertPrefetchedAndRead() {
+		testee.open();
+		final List<MetricName> metrics = new ArrayList<>();
+		for (final ObjectName objectName : objectNames) {
+			for (final String attribute : ATTRIBUTES) {
+				metrics.add(new JmxMetricName(objectName, attribute, PropertyPath.empty(), null));
+			}
+		}
+
+		testee.prefetch(metrics);
+		for (final MetricName metric : metrics) {
+			final JmxMetricName jmxMetric = (JmxMetricName) metric;
+			final int index = objectNames.indexOf(jmxMetric.getObjectName());
+			assertEquals(jmxMetric.getAttributeName() + index, testee.readMetric(metric).getValue());
+		}
+		testee.close();
+
+		for (final CountingMBean bean : beans) {
+			assertEquals(1, bean.bulkReads.get());
+			assertEquals(0, bean.singleReads.get());
+		}
+	}
+
+	public static class CountingMBean implements DynamicMBean {
+		private final int index;
+		private final AtomicInteger singleReads = new AtomicInteger();
+		private final AtomicInteger bulkReads = new AtomicInteger();
+
+		public CountingMBean(final int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object getAttribute(final String attribute) {
+			singleReads.incrementAndGet();
+			return attribute + index;
+		}
+
+		@Override
+		public AttributeList getAttributes(final String[] attributes) {
+			bulkReads.incrementAndGet();
+			final AttributeList result = new AttributeList();
+			for (final String attribute : attributes) {
+				result.add(new Attribute(attribute, attribute + index));
+			}
+			return result;
+		}
+
+		@Override
+		public void setAttribute(final Attribute attribute) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public AttributeList setAttributes(final AttributeList attributes) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Object invoke(final String actionName, final Object[] params, final String[] signature) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+			final MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[ATTRIBUTES.length];
+			for (int i = 0; i < ATTRIBUTES.length; i++) {
+				attributes[i] = new MBeanAttributeInfo(ATTRIBUTES[i], String.class.getName(), ATTRIBUTES[i], true, false, false);
+			}
+			return new MBeanInfo(getClass().getName(), "Counts the reads", attributes, null, null, null);
+		}
+	}
+
+	/**
+	 * A bean whose attributes can only be read once it is released.
+	 */
+	public static class BlockingMBean extends CountingMBean {
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		public BlockingMBean() {
+			super(0);
+		}
+
+		@Override
+		public Object getAttribute(final String attribute) {
+			awaitRelease();
+			return super.getAttribute(attribute);
+		}
+
+		@Override
+		public AttributeList getAttributes(final String[] attributes) {
+			awaitRelease();
+			return super.getAttributes(attributes);
+		}
+
+		private void awaitRelease() {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static class ExecutorSamplerThreadPool implements SamplerThreadPool {
+		private final ExecutorService executor;
+
+		ExecutorSamplerThreadPool(final ExecutorService executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public SamplerTask schedule(final Sampler sampler) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String getName() {
+			return "test";
+		}
+
+		@Override
+		public <T> Future<T> submit(final Callable<T> task) {
+			return executor.submit(task);
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public void startup() {
+		}
+
+		@Override
+		public Map<String, Object> getStats() {
+			return Collections.emptyMap();
+		}
+	}
+}
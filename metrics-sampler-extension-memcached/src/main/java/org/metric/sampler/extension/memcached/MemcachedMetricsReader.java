@@ -55,7 +55,7 @@ public class MemcachedMetricsReader extends AbstractMetricsReader<MemcachedInput
                 if (cols.length == 3) {
                     final String key = cols[1];
                     final String value = cols[2];
-                    metrics.add(prefix + key, timestamp, value);
+                    metrics.addParsed(prefix + key, timestamp, value);
                 } else {
                     logger.warn("Failed to parse line \"" + line + "\". Skipping.");
                 }
@@ -0,0 +1,106 @@
+package org.metricssampler.extensions.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array the exposition is rendered into. Buffers are pooled by the {@link PrometheusEndpoint} so that scrapes do not
+ * allocate once the buffers have grown to the size of the exposition. This class is not thread safe.
+ */
+class ExpositionBuffer {
+	private final byte[] digits = new byte[20];
+	private byte[] data;
+	private int size;
+
+	ExpositionBuffer(final int initialCapacity) {
+		data = new byte[Math.max(initialCapacity, 64)];
+	}
+
+	void reset() {
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return data.length;
+	}
+
+	private void ensureCapacity(final int additional) {
+		if (size + additional > data.length) {
+			data = Arrays.copyOf(data, Math.max(size + additional, data.length * 2));
+		}
+	}
+
+	ExpositionBuffer append(final byte value) {
+		ensureCapacity(1);
+		data[size++] = value;
+		return this;
+	}
+
+	ExpositionBuffer append(final byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, data, size, bytes.length);
+		size += bytes.length;
+		return this;
+	}
+
+	/**
+	 * Append the text assuming it contains only ASCII characters.
+	 */
+	ExpositionBuffer appendAscii(final CharSequence text) {
+		ensureCapacity(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			data[size++] = (byte) text.charAt(i);
+		}
+		return this;
+	}
+
+	ExpositionBuffer appendDecimal(final long value) {
+		if (value == Long.MIN_VALUE) {
+			return appendAscii(Long.toString(value));
+		}
+		long remaining = Math.abs(value);
+		int position = digits.length;
+		do {
+			digits[--position] = (byte) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining != 0);
+		if (value < 0) {
+			digits[--position] = '-';
+		}
+		ensureCapacity(digits.length - position);
+		System.arraycopy(digits, position, data, size, digits.length - position);
+		size += digits.length - position;
+		return this;
+	}
+
+	/**
+	 * Append the value in a format understood by prometheus (e.g. {@code +Inf} instead of {@code Infinity}).
+	 */
+	ExpositionBuffer appendDouble(final double value) {
+		if (Double.isNaN(value)) {
+			return appendAscii("NaN");
+		} else if (value == Double.POSITIVE_INFINITY) {
+			return appendAscii("+Inf");
+		} else if (value == Double.NEGATIVE_INFINITY) {
+			return appendAscii("-Inf");
+		} else if (value == (long) value && Math.abs(value) < 1e15 && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0d)) {
+			return appendDecimal((long) value);
+		}
+		return appendAscii(Double.toString(value));
+	}
+
+	void writeTo(final OutputStream out) throws IOException {
+		out.write(data, 0, size);
+	}
+
+	@Override
+	public String toString() {
+		return new String(data, 0, size, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,186 @@
+package org.metricssampler.extensions.prometheus;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.GlobalRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * An embedded HTTP endpoint serving the latest values written by the prometheus outputs that reference it in the prometheus text
+ * exposition format. Scrapes only render the {@link PrometheusRegistry} into a pooled buffer (compressed using gzip if the scraper
+ * accepts it) so that any number of scrapers can be served without sampling anything. The endpoint is not bound when the application
+ * runs suspended (e.g. when checking the configuration).
+ */
+public class PrometheusEndpoint implements SharedResource {
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final PrometheusEndpointConfig config;
+	private final boolean suspended;
+	private final PrometheusRegistry registry;
+	private final BlockingQueue<ExpositionBuffer> buffers;
+	private final AtomicLong scrapes = new AtomicLong();
+	private final AtomicLong scrapeFailures = new AtomicLong();
+	private volatile int lastScrapeBytes;
+	private volatile long lastScrapeDuration;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public PrometheusEndpoint(final PrometheusEndpointConfig config, final boolean suspended) {
+		checkArgumentNotNull(config, "config");
+		this.config = config;
+		this.suspended = suspended;
+		this.registry = new PrometheusRegistry(config.getStripes(), TimeUnit.SECONDS.toMillis(config.getStaleness()), config.isTimestamps());
+		this.buffers = new ArrayBlockingQueue<>(config.getThreads());
+		startup();
+		GlobalRegistry.getInstance().addSharedResource(this);
+	}
+
+	@Override
+	public synchronized void startup() {
+		if (suspended || server != null) {
+			return;
+		}
+		final InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+		try {
+			server = HttpServer.create(address, 0);
+		} catch (final IOException e) {
+			throw new ConfigurationException("Could not bind prometheus endpoint " + config.getName() + " to " + address + ": " + e.getMessage());
+		}
+		executor = Executors.newFixedThreadPool(config.getThreads(), new ThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger(1);
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread result = new Thread(r, config.getName() + "-" + threadNumber.getAndIncrement());
+				result.setDaemon(true);
+				return result;
+			}
+		});
+		server.setExecutor(executor);
+		server.createContext(config.getPath(), this::handle);
+		server.start();
+		logger.info("Serving prometheus metrics on http://{}:{}{}", config.getHost(), server.getAddress().getPort(), config.getPath());
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		if (server != null) {
+			logger.info("Shutting down prometheus endpoint {}", config.getName());
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+			executor = null;
+		}
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			final String method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			final long start = System.currentTimeMillis();
+			ExpositionBuffer buffer = buffers.poll();
+			if (buffer == null) {
+				buffer = new ExpositionBuffer(INITIAL_BUFFER_SIZE);
+			}
+			try {
+				buffer.reset();
+				registry.render(buffer, start);
+				respond(exchange, buffer, "HEAD".equals(method));
+				lastScrapeBytes = buffer.size();
+			} finally {
+				buffers.offer(buffer);
+			}
+			scrapes.incrementAndGet();
+			lastScrapeDuration = System.currentTimeMillis() - start;
+		} catch (final IOException | RuntimeException e) {
+			scrapeFailures.incrementAndGet();
+			logger.debug("Failed to serve scrape from " + exchange.getRemoteAddress(), e);
+			throw e;
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void respond(final HttpExchange exchange, final ExpositionBuffer buffer, final boolean head) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+		if (acceptsGzip(exchange)) {
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+			exchange.sendResponseHeaders(200, head ? -1 : 0);
+			if (!head) {
+				try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody(), 8192)) {
+					buffer.writeTo(out);
+				}
+			}
+		} else {
+			exchange.sendResponseHeaders(200, head ? -1 : buffer.size());
+			if (!head) {
+				try (OutputStream out = exchange.getResponseBody()) {
+					buffer.writeTo(out);
+				}
+			}
+		}
+	}
+
+	private static boolean acceptsGzip(final HttpExchange exchange) {
+		final String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		return accepted != null && accepted.toLowerCase(Locale.ENGLISH).contains("gzip");
+	}
+
+	/**
+	 * @return the registry written to by the prometheus outputs
+	 */
+	PrometheusRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * @return the port the endpoint is bound to or -1 if it is not running
+	 */
+	public synchronized int getPort() {
+		return server != null ? server.getAddress().getPort() : -1;
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		final String prefix = "prometheus-endpoints." + config.getName() + ".";
+		final Map<String, Object> result = new HashMap<>();
+		result.put(prefix + "series", registry.size());
+		result.put(prefix + "evictedSeries", registry.getEvicted());
+		result.put(prefix + "scrapes", scrapes.get());
+		result.put(prefix + "scrapeFailures", scrapeFailures.get());
+		result.put(prefix + "lastScrapeBytes", lastScrapeBytes);
+		result.put(prefix + "lastScrapeDuration", lastScrapeDuration);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getName() + "]";
+	}
+}
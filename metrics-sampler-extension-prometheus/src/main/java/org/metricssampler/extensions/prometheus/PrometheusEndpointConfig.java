@@ -0,0 +1,81 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.metricssampler.config.SharedResourceConfig;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+public class PrometheusEndpointConfig extends SharedResourceConfig {
+	private final String host;
+	private final int port;
+	private final String path;
+	private final int threads;
+	private final int stripes;
+	private final int staleness;
+	private final boolean timestamps;
+
+	public PrometheusEndpointConfig(final String name, final boolean ignored, final String host, final int port, final String path,
+			final int threads, final int stripes, final int staleness, final boolean timestamps) {
+		super(name, ignored);
+		checkArgumentNotNullNorEmpty(host, "host");
+		checkArgument(port > 0 && port < 65536, "port must be in range [1,65535]");
+		checkArgumentNotNullNorEmpty(path, "path");
+		checkArgument(path.startsWith("/"), "path must start with /");
+		checkArgument(threads > 0, "threads must be greater than zero");
+		checkArgument(stripes > 0, "stripes must be greater than zero");
+		checkArgument(staleness >= 0, "staleness must not be negative");
+		this.host = host;
+		this.port = port;
+		this.path = path;
+		this.threads = threads;
+		this.stripes = stripes;
+		this.staleness = staleness;
+		this.timestamps = timestamps;
+	}
+
+	/**
+	 * @return the host (address) to bind the endpoint to
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @return the path under which the metrics are served
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the number of threads serving scrapes
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return the number of independently locked stripes of the registry
+	 */
+	public int getStripes() {
+		return stripes;
+	}
+
+	/**
+	 * @return the time in seconds after which metrics that have not been written anymore are evicted or 0 to keep them forever
+	 */
+	public int getStaleness() {
+		return staleness;
+	}
+
+	/**
+	 * @return {@code true} if the timestamps of the samples should be exposed, {@code false} to let prometheus use the scrape time
+	 */
+	public boolean isTimestamps() {
+		return timestamps;
+	}
+}
@@ -0,0 +1,144 @@
+package org.metricssampler.extensions.prometheus;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.config.loader.xbeans.SharedResourceXBean;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.*;
+
+@XStreamAlias("prometheus-endpoint")
+public class PrometheusEndpointXBean extends SharedResourceXBean {
+	private static final String DEFAULT_HOST = "0.0.0.0";
+	private static final String DEFAULT_PATH = "/metrics";
+	private static final int DEFAULT_THREADS = 2;
+	private static final int DEFAULT_STRIPES = 16;
+	private static final int DEFAULT_STALENESS = 300;
+
+	/**
+	 * @see PrometheusEndpointConfig#getHost()
+	 */
+	@XStreamAsAttribute
+	private String host;
+
+	/**
+	 * @see PrometheusEndpointConfig#getPort()
+	 */
+	@XStreamAsAttribute
+	private Integer port;
+
+	/**
+	 * @see PrometheusEndpointConfig#getPath()
+	 */
+	@XStreamAsAttribute
+	private String path;
+
+	/**
+	 * @see PrometheusEndpointConfig#getThreads()
+	 */
+	@XStreamAsAttribute
+	private Integer threads;
+
+	/**
+	 * @see PrometheusEndpointConfig#getStripes()
+	 */
+	@XStreamAsAttribute
+	private Integer stripes;
+
+	/**
+	 * @see PrometheusEndpointConfig#getStaleness()
+	 */
+	@XStreamAsAttribute
+	private Integer staleness;
+
+	/**
+	 * @see PrometheusEndpointConfig#isTimestamps()
+	 */
+	@XStreamAsAttribute
+	private Boolean timestamps;
+
+	@Override
+	protected void validate() {
+		super.validate();
+		validPort(this, "port", getPort());
+		if (getPath() != null && !getPath().startsWith("/")) {
+			throw new ConfigurationException("Attribute \"path\" of " + getName() + " with value " + getPath() + " must start with /");
+		}
+		if (getThreads() != null) {
+			greaterThanZero(this, "threads", getThreads());
+		}
+		if (getStripes() != null) {
+			greaterThanZero(this, "stripes", getStripes());
+		}
+		notNegativeOptional(this, "staleness", getStaleness());
+	}
+
+	@Override
+	protected SharedResourceConfig createConfig() {
+		return new PrometheusEndpointConfig(getName(), isIgnored(),
+				getHost() != null ? getHost() : DEFAULT_HOST,
+				getPort(),
+				getPath() != null ? getPath() : DEFAULT_PATH,
+				getThreads() != null ? getThreads() : DEFAULT_THREADS,
+				getStripes() != null ? getStripes() : DEFAULT_STRIPES,
+				getStaleness() != null ? getStaleness() : DEFAULT_STALENESS,
+				getTimestamps() != null ? getTimestamps() : false);
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public Integer getPort() {
+		return port;
+	}
+
+	public void setPort(final Integer port) {
+		this.port = port;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(final String path) {
+		this.path = path;
+	}
+
+	public Integer getThreads() {
+		return threads;
+	}
+
+	public void setThreads(final Integer threads) {
+		this.threads = threads;
+	}
+
+	public Integer getStripes() {
+		return stripes;
+	}
+
+	public void setStripes(final Integer stripes) {
+		this.stripes = stripes;
+	}
+
+	public Integer getStaleness() {
+		return staleness;
+	}
+
+	public void setStaleness(final Integer staleness) {
+		this.staleness = staleness;
+	}
+
+	public Boolean getTimestamps() {
+		return timestamps;
+	}
+
+	public void setTimestamps(final Boolean timestamps) {
+		this.timestamps = timestamps;
+	}
+}
@@ -0,0 +1,48 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.metricssampler.config.ConfigurationException;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SharedResourceConfig;
+import org.metricssampler.resources.SharedResource;
+import org.metricssampler.service.AbstractExtension;
+import org.metricssampler.writer.MetricsWriter;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+public class PrometheusExtension extends AbstractExtension {
+	@Override
+	public Collection<Class<?>> getXBeans() {
+		final List<Class<?>> result = new LinkedList<Class<?>>();
+		result.add(PrometheusOutputXBean.class);
+		result.add(PrometheusEndpointXBean.class);
+		return result;
+	}
+
+	@Override
+	public boolean supportsOutput(final OutputConfig config) {
+		return config instanceof PrometheusOutputConfig;
+	}
+
+	@Override
+	protected MetricsWriter doNewWriter(final OutputConfig config) {
+		final PrometheusOutputConfig actualConfig = (PrometheusOutputConfig) config;
+		final SharedResource sharedResource = getGlobalFactory().getSharedResource(actualConfig.getEndpoint());
+		if (sharedResource instanceof PrometheusEndpoint) {
+			return new PrometheusMetricsWriter(actualConfig, (PrometheusEndpoint) sharedResource);
+		} else {
+			throw new ConfigurationException(actualConfig.getEndpoint() + " is not a prometheus endpoint: " + sharedResource);
+		}
+	}
+
+	@Override
+	public boolean supportsSharedResource(final SharedResourceConfig config) {
+		return config instanceof PrometheusEndpointConfig;
+	}
+
+	@Override
+	protected SharedResource doNewSharedResource(final SharedResourceConfig config, final boolean suspended) {
+		return new PrometheusEndpoint((PrometheusEndpointConfig) config, suspended);
+	}
+}
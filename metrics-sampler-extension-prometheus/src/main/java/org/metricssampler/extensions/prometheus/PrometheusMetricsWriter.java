@@ -0,0 +1,75 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.metricssampler.reader.MetricValue;
+import org.metricssampler.reader.Metrics;
+import org.metricssampler.util.LruCache;
+import org.metricssampler.writer.MetricWriteException;
+import org.metricssampler.writer.MetricsWriter;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNull;
+
+/**
+ * Update the latest values served by a {@link PrometheusEndpoint}. Only numeric values (or texts that can be parsed as numbers) are
+ * exposed. The sanitized names are cached so that steady-state samplings do not rebuild them. This class is not thread safe and one
+ * instance should not be used by multiple samplers.
+ */
+public class PrometheusMetricsWriter implements MetricsWriter {
+	private static final int NAME_CACHE_SIZE = 10000;
+
+	private final PrometheusOutputConfig config;
+	private final PrometheusRegistry registry;
+	private final LruCache<String, String> nameCache = new LruCache<>(NAME_CACHE_SIZE);
+
+	public PrometheusMetricsWriter(final PrometheusOutputConfig config, final PrometheusEndpoint endpoint) {
+		checkArgumentNotNull(config, "config");
+		checkArgumentNotNull(endpoint, "endpoint");
+		this.config = config;
+		this.registry = endpoint.getRegistry();
+	}
+
+	@Override
+	public void open() throws MetricWriteException {
+		// Nothing to do here
+	}
+
+	@Override
+	public void write(final Metrics metrics) throws MetricWriteException {
+		checkArgumentNotNull(metrics, "metrics");
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < metrics.size(); i++) {
+			if (metrics.isLong(i)) {
+				registry.update(name(metrics.getName(i)), metrics.getTimestamp(i), metrics.getLong(i), now);
+			} else if (metrics.isDouble(i)) {
+				registry.update(name(metrics.getName(i)), metrics.getTimestamp(i), metrics.getDouble(i), now);
+			} else if (metrics.hasValue(i)) {
+				final Object value = metrics.getValue(i);
+				final Object number = value instanceof Number ? value : MetricValue.parse(value.toString());
+				if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+					registry.update(name(metrics.getName(i)), metrics.getTimestamp(i), ((Number) number).longValue(), now);
+				} else if (number instanceof Number) {
+					registry.update(name(metrics.getName(i)), metrics.getTimestamp(i), ((Number) number).doubleValue(), now);
+				}
+			}
+		}
+		nameCache.fitTo(metrics.size());
+	}
+
+	private String name(final String name) {
+		String result = nameCache.get(name);
+		if (result == null) {
+			result = PrometheusRegistry.sanitizeName(config.getPrefix(), name);
+			nameCache.put(name, result);
+		}
+		return result;
+	}
+
+	@Override
+	public void close() throws MetricWriteException {
+		// Nothing to do here
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + config.getName() + "]";
+	}
+}
@@ -0,0 +1,38 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.metricssampler.config.AsyncOutputConfig;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.SpoolOutputConfig;
+
+import static org.metricssampler.util.Preconditions.checkArgumentNotNullNorEmpty;
+
+public class PrometheusOutputConfig extends OutputConfig {
+	private final String endpoint;
+	private final String prefix;
+
+	public PrometheusOutputConfig(final String name, final boolean default_, final String endpoint, final String prefix) {
+		this(name, default_, null, null, endpoint, prefix);
+	}
+
+	public PrometheusOutputConfig(final String name, final boolean default_, final AsyncOutputConfig async, final SpoolOutputConfig spool,
+			final String endpoint, final String prefix) {
+		super(name, default_, async, spool);
+		checkArgumentNotNullNorEmpty(endpoint, "endpoint");
+		this.endpoint = endpoint;
+		this.prefix = prefix;
+	}
+
+	/**
+	 * @return the name of the prometheus endpoint (shared resource) serving the metrics
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * @return the prefix prepended to the metric names (may be {@code null})
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+}
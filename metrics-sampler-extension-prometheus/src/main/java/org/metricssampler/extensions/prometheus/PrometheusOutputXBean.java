@@ -0,0 +1,42 @@
+package org.metricssampler.extensions.prometheus;
+
+import com.thoughtworks.xstream.annotations.XStreamAlias;
+import com.thoughtworks.xstream.annotations.XStreamAsAttribute;
+import org.metricssampler.config.OutputConfig;
+import org.metricssampler.config.loader.xbeans.OutputXBean;
+
+import static org.metricssampler.config.loader.xbeans.ValidationUtils.notEmpty;
+
+@XStreamAlias("prometheus")
+public class PrometheusOutputXBean extends OutputXBean {
+	@XStreamAsAttribute
+	private String endpoint;
+
+	@XStreamAsAttribute
+	private String prefix;
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+	public void setEndpoint(final String endpoint) {
+		this.endpoint = endpoint;
+	}
+	public String getPrefix() {
+		return prefix;
+	}
+	public void setPrefix(final String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	protected void validate() {
+		super.validate();
+		notEmpty(this, "endpoint", getEndpoint());
+	}
+
+	@Override
+	public OutputConfig toConfig() {
+		validate();
+		return new PrometheusOutputConfig(getName(), isDefault(), getAsyncConfig(), getSpoolConfig(), getEndpoint(), getPrefix());
+	}
+}
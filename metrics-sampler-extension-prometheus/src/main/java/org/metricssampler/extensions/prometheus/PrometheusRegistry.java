@@ -0,0 +1,172 @@
+package org.metricssampler.extensions.prometheus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.metricssampler.util.Preconditions.checkArgument;
+
+/**
+ * Keeps the latest value of each metric so that it can be rendered in the prometheus text exposition format. The metrics are spread
+ * over a fixed number of stripes, each guarded by its own lock, so that samplers writing concurrently and scrapes rendering the
+ * registry rarely contend. Metrics that have not been updated for longer than the staleness are evicted while rendering. The names must
+ * already be valid prometheus metric names (see {@link #sanitizeName(String, String)}).
+ */
+class PrometheusRegistry {
+	private final Stripe[] stripes;
+	private final long staleness;
+	private final boolean timestamps;
+	private final AtomicLong evicted = new AtomicLong();
+
+	/**
+	 * @param stripes the number of stripes (rounded up to a power of two)
+	 * @param staleness the time in milliseconds after which metrics that have not been updated are evicted or 0 to never evict
+	 * @param timestamps whether to render the timestamps of the samples
+	 */
+	PrometheusRegistry(final int stripes, final long staleness, final boolean timestamps) {
+		checkArgument(stripes > 0, "stripes must be greater than zero");
+		checkArgument(staleness >= 0, "staleness must not be negative");
+		final int count = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			this.stripes[i] = new Stripe();
+		}
+		this.staleness = staleness;
+		this.timestamps = timestamps;
+	}
+
+	private Stripe stripe(final String name) {
+		final int hash = name.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+	}
+
+	void update(final String name, final long timestamp, final long value, final long now) {
+		final Stripe stripe = stripe(name);
+		synchronized (stripe) {
+			final Entry entry = stripe.entry(name);
+			entry.integral = true;
+			entry.longValue = value;
+			entry.timestamp = timestamp;
+			entry.updated = now;
+		}
+	}
+
+	void update(final String name, final long timestamp, final double value, final long now) {
+		final Stripe stripe = stripe(name);
+		synchronized (stripe) {
+			final Entry entry = stripe.entry(name);
+			entry.integral = false;
+			entry.doubleValue = value;
+			entry.timestamp = timestamp;
+			entry.updated = now;
+		}
+	}
+
+	/**
+	 * Render all metrics as gauges in the text exposition format and evict the stale ones. Only one stripe is locked at a time.
+	 *
+	 * @param buffer the buffer to append to
+	 * @param now the current time in milliseconds
+	 */
+	void render(final ExpositionBuffer buffer, final long now) {
+		for (final Stripe stripe : stripes) {
+			synchronized (stripe) {
+				final Iterator<Entry> iterator = stripe.entries.values().iterator();
+				while (iterator.hasNext()) {
+					final Entry entry = iterator.next();
+					if (staleness > 0 && now - entry.updated > staleness) {
+						iterator.remove();
+						evicted.incrementAndGet();
+						continue;
+					}
+					buffer.append(entry.header);
+					if (entry.integral) {
+						buffer.appendDecimal(entry.longValue);
+					} else {
+						buffer.appendDouble(entry.doubleValue);
+					}
+					if (timestamps) {
+						buffer.append((byte) ' ').appendDecimal(entry.timestamp);
+					}
+					buffer.append((byte) '\n');
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of metrics in the registry (including stale ones that have not been evicted yet)
+	 */
+	int size() {
+		int result = 0;
+		for (final Stripe stripe : stripes) {
+			synchronized (stripe) {
+				result += stripe.entries.size();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of metrics evicted so far because they were stale
+	 */
+	long getEvicted() {
+		return evicted.get();
+	}
+
+	/**
+	 * Convert the name to a valid prometheus metric name by replacing all characters except letters, digits, underscores and colons with
+	 * underscores (and prefixing names that start with a digit with an underscore).
+	 *
+	 * @param prefix the prefix to prepend to the name (may be {@code null})
+	 * @param name the name of the metric
+	 * @return the valid prometheus metric name
+	 */
+	static String sanitizeName(final String prefix, final String name) {
+		final String fullName = prefix != null ? prefix + name : name;
+		final StringBuilder result = new StringBuilder(fullName.length() + 1);
+		for (int i = 0; i < fullName.length(); i++) {
+			final char c = fullName.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || (c >= '0' && c <= '9')) {
+				result.append(c);
+			} else {
+				result.append('_');
+			}
+		}
+		if (result.length() == 0 || (result.charAt(0) >= '0' && result.charAt(0) <= '9')) {
+			result.insert(0, '_');
+		}
+		return result.toString();
+	}
+
+	private static class Stripe {
+		private final Map<String, Entry> entries = new HashMap<>();
+
+		private Entry entry(final String name) {
+			Entry result = entries.get(name);
+			if (result == null) {
+				result = new Entry(name);
+				entries.put(name, result);
+			}
+			return result;
+		}
+	}
+
+	private static class Entry {
+		/**
+		 * The type comment and the name followed by a space.
+		 */
+		private final byte[] header;
+		private boolean integral;
+		private long longValue;
+		private double doubleValue;
+		private long timestamp;
+		private long updated;
+
+		private Entry(final String name) {
+			this.header = ("# TYPE " + name + " gauge\n" + name + " ").getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metricssampler.reader.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusEndpointTest {
+	private PrometheusEndpoint testee;
+	private PrometheusMetricsWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		final int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		testee = new PrometheusEndpoint(new PrometheusEndpointConfig("prometheus", false, "localhost", port, "/metrics", 2, 4, 300, false), false);
+		writer = new PrometheusMetricsWriter(new PrometheusOutputConfig("prom", false, "prometheus", "ms_"), testee);
+		final Metrics metrics = new Metrics();
+		metrics.add("requests.count", null, 1000L, 42L);
+		metrics.add("load", null, 1000L, 0.25d);
+		metrics.addParsed("parsed", 1000L, "17");
+		metrics.add("status", 1000L, "running");
+		writer.open();
+		writer.write(metrics);
+		writer.close();
+	}
+
+	@After
+	public void cleanup() {
+		testee.shutdown();
+	}
+
+	@Test
+	public void scrape() throws IOException {
+		final HttpURLConnection connection = open();
+		assertEquals(200, connection.getResponseCode());
+		assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+		final String body = read(connection.getInputStream());
+
+		assertTrue(body, body.contains("\nms_requests_count 42\n"));
+		assertTrue(body, body.contains("\nms_load 0.25\n"));
+		assertTrue(body, body.contains("\nms_parsed 17\n"));
+		assertTrue(body, !body.contains("status"));
+		assertEquals(3, testee.getStats().get("prometheus-endpoints.prometheus.series"));
+		// the scrape is counted after the response was sent
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (!Long.valueOf(1L).equals(testee.getStats().get("prometheus-endpoints.prometheus.scrapes")) && System.currentTimeMillis() < deadline) {
+			Thread.yield();
+		}
+		assertEquals(1L, testee.getStats().get("prometheus-endpoints.prometheus.scrapes"));
+	}
+
+	@Test
+	public void scrapeCompressed() throws IOException {
+		final HttpURLConnection connection = open();
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		assertEquals(200, connection.getResponseCode());
+		assertEquals("gzip", connection.getContentEncoding());
+		final String body = read(new GZIPInputStream(connection.getInputStream()));
+
+		assertTrue(body, body.contains("\nms_requests_count 42\n"));
+	}
+
+	@Test
+	public void rejectPost() throws IOException {
+		final HttpURLConnection connection = open();
+		connection.setRequestMethod("POST");
+		assertEquals(405, connection.getResponseCode());
+	}
+
+	private HttpURLConnection open() throws IOException {
+		return (HttpURLConnection) new URL("http://localhost:" + testee.getPort() + "/metrics").openConnection();
+	}
+
+	private static String read(final InputStream in) throws IOException {
+		try (InputStream input = in) {
+			final ByteArrayOutputStream result = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				result.write(buffer, 0, read);
+			}
+			return new String(result.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
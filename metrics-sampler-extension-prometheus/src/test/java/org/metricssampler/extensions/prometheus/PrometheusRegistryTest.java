@@ -0,0 +1,72 @@
+package org.metricssampler.extensions.prometheus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrometheusRegistryTest {
+	@Test
+	public void renderGauges() {
+		final PrometheusRegistry testee = new PrometheusRegistry(1, 0, false);
+		testee.update("requests", 1000L, 42L, 0L);
+		testee.update("load", 1000L, 0.5d, 0L);
+		testee.update("infinite", 1000L, Double.NEGATIVE_INFINITY, 0L);
+		testee.update("whole", 1000L, 3.0d, 0L);
+
+		final String result = render(testee, 0L);
+
+		assertContains(result, "# TYPE requests gauge\nrequests 42\n");
+		assertContains(result, "# TYPE load gauge\nload 0.5\n");
+		assertContains(result, "infinite -Inf\n");
+		assertContains(result, "whole 3\n");
+	}
+
+	@Test
+	public void renderTimestamps() {
+		final PrometheusRegistry testee = new PrometheusRegistry(4, 0, true);
+		testee.update("requests", 1000L, 42L, 0L);
+
+		assertEquals("# TYPE requests gauge\nrequests 42 1000\n", render(testee, 0L));
+	}
+
+	@Test
+	public void keepLatestValue() {
+		final PrometheusRegistry testee = new PrometheusRegistry(3, 0, false);
+		testee.update("requests", 1000L, 42L, 0L);
+		testee.update("requests", 2000L, 1.5d, 0L);
+
+		assertEquals("# TYPE requests gauge\nrequests 1.5\n", render(testee, 0L));
+		assertEquals(1, testee.size());
+	}
+
+	@Test
+	public void evictStaleMetrics() {
+		final PrometheusRegistry testee = new PrometheusRegistry(16, 1000L, false);
+		testee.update("old", 0L, 1L, 0L);
+		testee.update("new", 0L, 2L, 1000L);
+
+		assertEquals("# TYPE new gauge\nnew 2\n", render(testee, 1500L));
+		assertEquals(1, testee.size());
+		assertEquals(1L, testee.getEvicted());
+	}
+
+	@Test
+	public void sanitizeName() {
+		assertEquals("jvm_memory_heap_used", PrometheusRegistry.sanitizeName(null, "jvm.memory.heap-used"));
+		assertEquals("app:requests_total", PrometheusRegistry.sanitizeName("app:", "requests total"));
+		assertEquals("_1st", PrometheusRegistry.sanitizeName(null, "1st"));
+		assertEquals("_", PrometheusRegistry.sanitizeName(null, ""));
+	}
+
+	private static String render(final PrometheusRegistry registry, final long now) {
+		final ExpositionBuffer buffer = new ExpositionBuffer(16);
+		registry.render(buffer, now);
+		return buffer.toString();
+	}
+
+	private static void assertContains(final String text, final String expected) {
+		if (!text.contains(expected)) {
+			throw new AssertionError("Expected \"" + expected + "\" in \"" + text + "\"");
+		}
+	}
+}
@@ -85,7 +85,7 @@ public class RedisMetricsReader extends AbstractMetricsReader<RedisInputConfig>
 			final String line = lines.next();
 			final String[] cols = line.split(":", 2);
 			if (cols.length == 2) {
-				result.add(cols[0], timestamp, cols[1]);
+				result.addParsed(cols[0], timestamp, cols[1]);
 			} else {
 				logger.debug("Failed to parse line \"{}\"", line);
 			}